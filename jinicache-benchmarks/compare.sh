@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# 对比两次JMH运行的CSV结果（java -jar target/benchmarks.jar -rf csv -rff <文件>）
+# 用法: ./compare.sh base.csv head.csv
+# 对每个基准和参数组合输出两次的得分及变化；吞吐模式下变大是变快，平均时间模式下变小是变快
+set -euo pipefail
+
+if [ $# -ne 2 ]; then
+    echo "usage: $0 <base.csv> <head.csv>" >&2
+    exit 1
+fi
+
+awk -F',' '
+function strip(s) { gsub(/"/, "", s); return s }
+function key(   k, i) {
+    k = strip($1)
+    sub(/^com\.jinicache\.benchmarks\./, "", k)
+    k = k " t=" $3
+    for (i = 8; i <= NF; i++) {
+        if ($i != "") {
+            k = k " " params[i] "=" $i
+        }
+    }
+    return k
+}
+{ sub(/\r$/, "") }
+FNR == 1 {
+    for (i = 8; i <= NF; i++) {
+        params[i] = strip($i)
+        sub(/^Param: /, "", params[i])
+    }
+    next
+}
+NR == FNR {
+    base[key()] = $5
+    next
+}
+{
+    k = key()
+    unit = strip($7)
+    if (k in base) {
+        change = base[k] == 0 ? 0 : ($5 - base[k]) / base[k] * 100
+        printf "%-70s %14.3f %14.3f %+8.1f%%  %s\n", k, base[k], $5, change, unit
+    } else {
+        printf "%-70s %14s %14.3f %9s  %s\n", k, "-", $5, "new", unit
+    }
+}
+' "$1" "$2"
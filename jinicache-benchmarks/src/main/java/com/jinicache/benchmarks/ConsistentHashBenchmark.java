@@ -0,0 +1,69 @@
+package com.jinicache.benchmarks;
+
+import com.jinicache.hash.ConsistentHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConsistentHash查找基准测试
+ * 哈希环只读，多线程查找不竞争锁；线程数用JMH的 -t 参数指定，例如 -t 1、-t 4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsistentHashBenchmark {
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"3", "16", "64"})
+    public int nodes;
+
+    @Param({"100"})
+    public int virtualNodes;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    ConsistentHash<String> ring;
+    String[] sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ring = new ConsistentHash<>(virtualNodes);
+        for (int i = 0; i < nodes; i++) {
+            ring.addNode("10.0.0." + i + ":8001");
+        }
+        int[] indexes = distribution.sample(100_000, SEQUENCE_LENGTH, 42);
+        sequence = new String[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            sequence[i] = "key:" + indexes[i];
+        }
+    }
+
+    /**
+     * 每个线程独立的读取位置
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public String get(Cursor cursor) {
+        return ring.get(sequence[cursor.next++ & (SEQUENCE_LENGTH - 1)]);
+    }
+}
@@ -0,0 +1,85 @@
+package com.jinicache.benchmarks;
+
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group.get基准测试
+ * 命中路径的缓存容纳全部键；未命中路径的缓存只有键空间的1%，几乎每次读取都经过SingleFlight和加载器
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupBenchmark {
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+    private static final byte[] VALUE = new byte[64];
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    @Param({"100000"})
+    public int keyCount;
+
+    Group hitGroup;
+    Group missGroup;
+    String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hitGroup = new Group("hit", new LRUCache<>(keyCount));
+        missGroup = new Group("miss", new LRUCache<>(Math.max(1, keyCount / 100)));
+        Group.Loader loader = key -> VALUE;
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key:" + i;
+            hitGroup.getCache().put(keys[i], VALUE);
+            missGroup.registerLoader(keys[i], loader);
+        }
+    }
+
+    /**
+     * 每个线程独立的键序列
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        int[] sequence;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(GroupBenchmark benchmark) {
+            sequence = benchmark.distribution.sample(benchmark.keyCount, SEQUENCE_LENGTH,
+                    Thread.currentThread().getId());
+        }
+
+        int nextIndex() {
+            return sequence[next++ & (SEQUENCE_LENGTH - 1)];
+        }
+    }
+
+    @Benchmark
+    public byte[] hit(Keys keys) {
+        return hitGroup.get(this.keys[keys.nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] miss(Keys keys) {
+        return missGroup.get(this.keys[keys.nextIndex()]);
+    }
+}
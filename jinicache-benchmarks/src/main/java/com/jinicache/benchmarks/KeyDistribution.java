@@ -0,0 +1,69 @@
+package com.jinicache.benchmarks;
+
+import java.util.Random;
+
+/**
+ * 基准测试使用的键分布
+ * 键序列在初始化时预先生成，测量循环中只按下标取键，分布采样的开销不计入结果
+ */
+public enum KeyDistribution {
+    /**
+     * 均匀分布
+     */
+    UNIFORM,
+    /**
+     * Zipf分布（指数0.99，接近常见的缓存访问热度），排名靠前的少数键占大部分访问
+     */
+    ZIPFIAN;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * 生成键下标序列
+     * @param keyCount 键空间大小
+     * @param length 序列长度，必须是2的幂，便于用掩码循环取用
+     * @param seed 随机种子，不同线程使用不同种子
+     * @return 取值在 [0, keyCount) 的下标序列
+     */
+    public int[] sample(int keyCount, int length, long seed) {
+        if (Integer.bitCount(length) != 1) {
+            throw new IllegalArgumentException("length must be a power of two");
+        }
+        Random random = new Random(seed);
+        int[] indexes = new int[length];
+        if (this == UNIFORM) {
+            for (int i = 0; i < length; i++) {
+                indexes[i] = random.nextInt(keyCount);
+            }
+            return indexes;
+        }
+        // 按累积分布二分查找；排名经随机排列映射到键，避免热键集中在编号靠前的键上
+        int[] keyOfRank = new int[keyCount];
+        for (int rank = 0; rank < keyCount; rank++) {
+            int swap = random.nextInt(rank + 1);
+            keyOfRank[rank] = keyOfRank[swap];
+            keyOfRank[swap] = rank;
+        }
+        double[] cdf = new double[keyCount];
+        double sum = 0;
+        for (int rank = 0; rank < keyCount; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cdf[rank] = sum;
+        }
+        for (int i = 0; i < length; i++) {
+            double u = random.nextDouble() * sum;
+            int low = 0;
+            int high = keyCount - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cdf[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            indexes[i] = keyOfRank[low];
+        }
+        return indexes;
+    }
+}
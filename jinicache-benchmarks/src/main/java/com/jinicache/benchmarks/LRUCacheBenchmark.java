@@ -0,0 +1,96 @@
+package com.jinicache.benchmarks;
+
+import com.jinicache.cache.LRUCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LRUCache读写基准测试
+ * 命中率通过混入从未写入的键控制；线程数用JMH的 -t 参数指定，例如 -t 1、-t 4
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LRUCacheBenchmark {
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+    private static final byte[] VALUE = new byte[64];
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    @Param({"1.0", "0.9", "0.5"})
+    public double hitRatio;
+
+    @Param({"100000"})
+    public int keyCount;
+
+    LRUCache<String, byte[]> cache;
+    String[] keys;
+    String[] missingKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new LRUCache<>(keyCount);
+        keys = new String[keyCount];
+        missingKeys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key:" + i;
+            missingKeys[i] = "missing:" + i;
+            cache.put(keys[i], VALUE);
+        }
+    }
+
+    /**
+     * 每个线程独立的键序列
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        String[] sequence;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(LRUCacheBenchmark benchmark) {
+            long seed = Thread.currentThread().getId();
+            int[] indexes = benchmark.distribution.sample(benchmark.keyCount, SEQUENCE_LENGTH, seed);
+            Random random = new Random(seed);
+            sequence = new String[SEQUENCE_LENGTH];
+            for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+                boolean hit = random.nextDouble() < benchmark.hitRatio;
+                sequence[i] = hit ? benchmark.keys[indexes[i]] : benchmark.missingKeys[indexes[i]];
+            }
+        }
+
+        String nextKey() {
+            return sequence[next++ & (SEQUENCE_LENGTH - 1)];
+        }
+    }
+
+    @Benchmark
+    public byte[] get(Keys keys) {
+        return cache.get(keys.nextKey());
+    }
+
+    /**
+     * 写入已有键是更新，写入新键会淘汰最久未使用的键；新键所占比例随hitRatio变化
+     */
+    @Benchmark
+    public void put(Keys keys) {
+        cache.put(keys.nextKey(), VALUE);
+    }
+}
@@ -0,0 +1,62 @@
+package com.jinicache.benchmarks;
+
+import com.jinicache.metrics.Counter;
+import com.jinicache.metrics.Histogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标记录开销基准测试
+ * 所有线程共享同一个计数器和直方图，用 -t 指定线程数观察竞争下的开销，例如 -t 1、-t 4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    Counter counter;
+    Histogram histogram;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        counter = new Counter();
+        histogram = new Histogram();
+    }
+
+    /**
+     * 每个线程独立的待记录值，落在延迟常见的微秒到毫秒区间
+     */
+    @State(Scope.Thread)
+    public static class Values {
+        long next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            next = ThreadLocalRandom.current().nextLong(1_000, 1_000_000);
+        }
+    }
+
+    @Benchmark
+    public void counterIncrement() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void histogramRecord(Values values) {
+        histogram.record(values.next++);
+    }
+}
@@ -0,0 +1,58 @@
+package com.jinicache.benchmarks;
+
+import com.jinicache.metrics.MissRatioCurve;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MissRatioCurve记录开销基准测试
+ * 未采样的访问只有一次哈希和一次计数，采样率越低平均开销越接近这部分
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MissRatioCurveBenchmark {
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"0.01", "0.1"})
+    public double sampleRate;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    MissRatioCurve curve;
+    String[] sequence;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        curve = new MissRatioCurve(sampleRate, 8192);
+        int[] indexes = distribution.sample(100_000, SEQUENCE_LENGTH, 42);
+        sequence = new String[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            sequence[i] = "key:" + indexes[i];
+            // 键的哈希值在请求路径上通常已经算过
+            sequence[i].hashCode();
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        curve.record(sequence[next++ & (SEQUENCE_LENGTH - 1)]);
+    }
+}
@@ -0,0 +1,86 @@
+package com.jinicache.benchmarks;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.HttpServer;
+import com.jinicache.node.PeerClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PeerClient.get基准测试
+ * 在本进程启动一个节点，比较不合并（batchWindowMicros=0）和合并请求时的吞吐；
+ * 合并只在并发请求下生效，用 -t 指定线程数，例如 -t 16、-t 64
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeerClientBenchmark {
+    private static final int PORT = 8991;
+    private static final int KEY_COUNT = 1000;
+
+    @Param({"0", "200"})
+    public long batchWindowMicros;
+
+    @Param({"64"})
+    public int maxBatchSize;
+
+    HttpServer server;
+    ScheduledExecutorService scheduler;
+    PeerClient client;
+    String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("bench", new LRUCache<>(KEY_COUNT));
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key" + i;
+            group.getCache().put(keys[i], ("value" + i).getBytes());
+        }
+        server = new HttpServer(PORT, cacheManager);
+        server.startSync();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        client = new PeerClient("localhost:" + PORT, scheduler, batchWindowMicros, maxBatchSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.shutdown();
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    /**
+     * 每个线程独立的读取位置
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = (int) Thread.currentThread().getId() * 31;
+    }
+
+    @Benchmark
+    public byte[] get(Cursor cursor) throws Exception {
+        return client.get("bench", keys[Math.floorMod(cursor.next++, KEY_COUNT)]).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,73 @@
+package com.jinicache.benchmarks;
+
+import com.jinicache.cache.SingleFlight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SingleFlight.doCall基准测试
+ * 无竞争时每次调用使用不同的键，测量调用本身的开销；有竞争时所有线程请求同一个键，
+ * 加载函数消耗固定的CPU，合并后的调用次数越少吞吐越高
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingleFlightBenchmark {
+    private static final byte[] VALUE = new byte[64];
+
+    /**
+     * 加载函数消耗的CPU（Blackhole.consumeCPU的单位）
+     */
+    @Param({"1000"})
+    public long loadTokens;
+
+    SingleFlight<byte[]> singleFlight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        singleFlight = new SingleFlight<>(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 每个线程独立的键编号
+     */
+    @State(Scope.Thread)
+    public static class KeyCounter {
+        final String prefix = "thread-" + Thread.currentThread().getId() + ":";
+        long next;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] uncontended(KeyCounter counter) {
+        return singleFlight.doCall(counter.prefix + counter.next++, this::load).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] contended() {
+        return singleFlight.doCall("hot", this::load).join();
+    }
+
+    private byte[] load() {
+        Blackhole.consumeCPU(loadTokens);
+        return VALUE;
+    }
+}
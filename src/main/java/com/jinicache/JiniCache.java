@@ -3,10 +3,14 @@ package com.jinicache;
 import com.jinicache.cache.CacheManager;
 import com.jinicache.cache.LRUCache;
 import com.jinicache.http.HttpServer;
+import com.jinicache.jmx.JmxExporter;
 import com.jinicache.node.NodeManager;
+import com.jinicache.node.Rebalancer;
+import com.jinicache.node.SwimMembership;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -15,11 +19,21 @@ import java.util.List;
  */
 public class JiniCache {
     private static final Logger logger = LoggerFactory.getLogger(JiniCache.class);
+    private static final long BYTES_PER_WEIGHT = 1L << 30;
+    private static final int DEFAULT_GROUP_MIN_CAPACITY = 100;
+    private static final int DEFAULT_GROUP_MAX_CAPACITY = 10_000_000;
     private final int port;
     private final String selfAddress;
     private final List<String> peers;
+    private final long cacheMemoryBytes;
     private final CacheManager cacheManager;
     private final NodeManager nodeManager;
+    private final Rebalancer rebalancer;
+    private final JmxExporter jmxExporter;
+    private boolean membershipEnabled = true;
+    private String clusterSecret;
+    private String adminToken;
+    private SwimMembership membership;
     private HttpServer httpServer;
 
     /**
@@ -28,11 +42,28 @@ public class JiniCache {
      * @param peers 其他节点地址列表
      */
     public JiniCache(int port, List<String> peers) {
+        this(port, peers, BYTES_PER_WEIGHT);
+    }
+
+    /**
+     * 构造函数
+     * @param port 服务器端口
+     * @param peers 其他节点地址列表
+     * @param cacheMemoryBytes 本节点的缓存内存，按每GB权重1公布给其他节点，决定本节点在哈希环上的份额
+     */
+    public JiniCache(int port, List<String> peers, long cacheMemoryBytes) {
+        if (cacheMemoryBytes <= 0) {
+            throw new IllegalArgumentException("cacheMemoryBytes must be positive");
+        }
         this.port = port;
         this.selfAddress = "localhost:" + port;
         this.peers = peers;
+        this.cacheMemoryBytes = cacheMemoryBytes;
         this.cacheManager = new CacheManager();
         this.nodeManager = new NodeManager(selfAddress, cacheManager);
+        this.nodeManager.setSelfWeight((double) cacheMemoryBytes / BYTES_PER_WEIGHT);
+        this.rebalancer = new Rebalancer(nodeManager, cacheManager);
+        this.jmxExporter = new JmxExporter(selfAddress, cacheManager, nodeManager);
     }
 
     /**
@@ -43,20 +74,99 @@ public class JiniCache {
         return cacheManager;
     }
 
+    /**
+     * 获取节点管理器
+     * @return 节点管理器
+     */
+    public NodeManager getNodeManager() {
+        return nodeManager;
+    }
+
+    /**
+     * 获取键迁移器
+     * @return 键迁移器
+     */
+    public Rebalancer getRebalancer() {
+        return rebalancer;
+    }
+
+    /**
+     * 获取JMX导出器
+     * @return JMX导出器
+     */
+    public JmxExporter getJmxExporter() {
+        return jmxExporter;
+    }
+
+    /**
+     * 获取本节点的缓存内存
+     * @return 缓存内存（字节）
+     */
+    public long getCacheMemoryBytes() {
+        return cacheMemoryBytes;
+    }
+
+    /**
+     * 设置是否启用成员管理协议，需要在启动前调用
+     * 关闭时节点列表固定为启动参数中的节点，故障节点不会被自动移除
+     * @param membershipEnabled 是否启用
+     */
+    public void setMembershipEnabled(boolean membershipEnabled) {
+        this.membershipEnabled = membershipEnabled;
+    }
+
+    /**
+     * 设置集群密钥，需要在启动前调用；所有节点需要配置相同的密钥
+     * 配置后只有携带该密钥的请求才被当作节点请求，未配置时只信任来自已知成员主机的节点请求
+     * @param clusterSecret 密钥
+     */
+    public void setClusterSecret(String clusterSecret) {
+        this.clusterSecret = clusterSecret;
+    }
+
+    /**
+     * 设置管理令牌，需要在启动前调用；未配置时管理接口只接受本机请求
+     * @param adminToken 令牌
+     */
+    public void setAdminToken(String adminToken) {
+        this.adminToken = adminToken;
+    }
+
+    /**
+     * 获取成员管理协议
+     * @return 成员管理协议，未启用或未启动时返回null
+     */
+    public SwimMembership getMembership() {
+        return membership;
+    }
+
     /**
      * 启动服务
      */
     public void start() {
         // 创建默认缓存组
         cacheManager.createGroup("default", new LRUCache<>(1000));
-
-        // 添加其他节点
-        peers.forEach(nodeManager::addNode);
+        cacheManager.registerPeers(nodeManager);
+        // 节点变化后把不再属于本节点的键迁移到新的所属节点
+        rebalancer.start();
+        // 缓存组和节点注册为MBean，随增减同步
+        jmxExporter.start();
 
         // 启动HTTP服务器
-        httpServer = new HttpServer(port, cacheManager);
+        nodeManager.setPeerSecret(clusterSecret);
+        httpServer = new HttpServer(port, cacheManager, nodeManager);
+        httpServer.getAuthenticator().setPeerSecret(clusterSecret);
+        httpServer.getAuthenticator().setAdminToken(adminToken);
         new Thread(() -> httpServer.start()).start();
 
+        // 添加其他节点；启用成员管理时以它们为种子，之后的成员变化通过gossip同步
+        if (membershipEnabled) {
+            membership = new SwimMembership(nodeManager);
+            membership.start(peers);
+        } else {
+            peers.forEach(nodeManager::addNode);
+        }
+
         logger.info("JiniCache started on {}", selfAddress);
     }
 
@@ -67,6 +177,13 @@ public class JiniCache {
         if (httpServer != null) {
             httpServer.shutdown();
         }
+        if (membership != null) {
+            membership.shutdown();
+        }
+        rebalancer.shutdown();
+        cacheManager.disableMemoryGovernor();
+        cacheManager.disableMemoryBudget();
+        jmxExporter.stop();
         nodeManager.shutdown();
         logger.info("JiniCache stopped");
     }
@@ -76,17 +193,55 @@ public class JiniCache {
      */
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Usage: java JiniCache <port> [peer1] [peer2] ...");
+            System.out.println("Usage: java JiniCache <port> [--memory=<size>[k|m|g]] [--heap-target=<0..1>]"
+                    + " [peer1] [peer2] ...");
             System.exit(1);
         }
 
         int port = Integer.parseInt(args[0]);
-        List<String> peers = Arrays.asList(Arrays.copyOfRange(args, 1, args.length));
-        
-        JiniCache jiniCache = new JiniCache(port, peers);
+        long cacheMemoryBytes = BYTES_PER_WEIGHT;
+        double heapTarget = 0;
+        List<String> peers = new ArrayList<>();
+        for (String arg : Arrays.copyOfRange(args, 1, args.length)) {
+            if (arg.startsWith("--memory=")) {
+                cacheMemoryBytes = parseSize(arg.substring("--memory=".length()));
+            } else if (arg.startsWith("--heap-target=")) {
+                heapTarget = Double.parseDouble(arg.substring("--heap-target=".length()));
+            } else {
+                peers.add(arg);
+            }
+        }
+
+        JiniCache jiniCache = new JiniCache(port, peers, cacheMemoryBytes);
+        // 密钥通过环境变量传入，不出现在进程的命令行参数中
+        jiniCache.setClusterSecret(System.getenv("JINICACHE_CLUSTER_SECRET"));
+        jiniCache.setAdminToken(System.getenv("JINICACHE_ADMIN_TOKEN"));
         jiniCache.start();
+        if (heapTarget > 0) {
+            // 默认组的容量随堆占用率调整，不再固定为1000
+            jiniCache.getCacheManager().enableMemoryGovernor(heapTarget)
+                    .govern("default", DEFAULT_GROUP_MIN_CAPACITY, DEFAULT_GROUP_MAX_CAPACITY);
+        }
 
         // 添加关闭钩子
         Runtime.getRuntime().addShutdownHook(new Thread(jiniCache::stop));
     }
+
+    /**
+     * 解析带单位的容量，例如 512m、16g
+     */
+    static long parseSize(String size) {
+        String value = size.trim().toLowerCase();
+        long unit = 1;
+        switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1)) {
+            case 'k': unit = 1L << 10; break;
+            case 'm': unit = 1L << 20; break;
+            case 'g': unit = 1L << 30; break;
+            default: break;
+        }
+        if (unit > 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return Long.parseLong(value) * unit;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.jinicache.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * 异步缓存接口定义
+ * 所有操作返回CompletableFuture，慢速或远程的存储（磁盘层、远端节点）可以在I/O完成时再完成结果，
+ * 调用方不需要占用线程等待
+ * @param <K> 键的类型
+ * @param <V> 值的类型
+ */
+public interface AsyncCache<K, V> {
+    /**
+     * 获取缓存值
+     * @param key 键
+     * @return 值的Future，不存在时结果为null
+     */
+    CompletableFuture<V> get(K key);
+
+    /**
+     * 添加或更新缓存
+     * @param key 键
+     * @param value 值
+     * @return 写入完成的Future
+     */
+    CompletableFuture<Void> put(K key, V value);
+
+    /**
+     * 删除缓存
+     * @param key 键
+     * @return 删除完成的Future
+     */
+    CompletableFuture<Void> remove(K key);
+
+    /**
+     * 批量获取缓存值，默认并发地逐个获取
+     * @param keys 键集合
+     * @return 存在的键值对的Future，按键的顺序排列，不包含不存在的键
+     */
+    default CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+        List<K> distinct = keys.stream().distinct().collect(Collectors.toList());
+        List<CompletableFuture<V>> futures = distinct.stream().map(this::get).collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<K, V> result = new LinkedHashMap<>();
+            for (int i = 0; i < distinct.size(); i++) {
+                V value = futures.get(i).join();
+                if (value != null) {
+                    result.put(distinct.get(i), value);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 获取同步视图，用于统计、遍历键等管理操作以及同步的读取接口
+     * @return 同步缓存视图
+     */
+    Cache<K, V> synchronous();
+}
@@ -0,0 +1,62 @@
+package com.jinicache.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 把同步的内存缓存引擎适配为{@link AsyncCache}
+ * 内存操作不涉及I/O，在调用线程中直接执行并返回已完成的Future
+ * @param <K> 键的类型
+ * @param <V> 值的类型
+ */
+public class AsyncCacheAdapter<K, V> implements AsyncCache<K, V> {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+    private final Cache<K, V> cache;
+
+    /**
+     * 构造函数
+     * @param cache 同步缓存实现
+     */
+    public AsyncCacheAdapter(Cache<K, V> cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("cache must not be null");
+        }
+        this.cache = cache;
+    }
+
+    @Override
+    public CompletableFuture<V> get(K key) {
+        return CompletableFuture.completedFuture(cache.get(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> put(K key, V value) {
+        cache.put(key, value);
+        return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(K key) {
+        cache.remove(key);
+        return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = cache.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+
+    @Override
+    public Cache<K, V> synchronous() {
+        return cache;
+    }
+}
@@ -1,5 +1,7 @@
 package com.jinicache.cache;
 
+import java.util.List;
+
 /**
  * 缓存接口定义
  * @param <K> 键的类型
@@ -42,4 +44,34 @@ public interface Cache<K, V> {
      * @return 如果缓存为空返回true
      */
     boolean isEmpty();
-} 
\ No newline at end of file
+
+    /**
+     * 获取当前所有键的快照，之后对缓存的修改不会影响返回的列表
+     * @return 键列表
+     */
+    List<K> keys();
+
+    /**
+     * 获取因容量不足被淘汰的条目数
+     * @return 淘汰数，不统计淘汰的实现返回0
+     */
+    default long getEvictionCount() {
+        return 0;
+    }
+
+    /**
+     * 添加移除监听器，条目被删除、替换或淘汰时在写入路径之外按批通知
+     * @param listener 监听器
+     * @throws UnsupportedOperationException 实现不支持移除通知
+     */
+    default void addRemovalListener(RemovalListener<K, V> listener) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support removal listeners");
+    }
+
+    /**
+     * 移除之前添加的移除监听器，之后不再收到通知；不支持移除通知的实现不可能添加过监听器，什么也不做
+     * @param listener 监听器
+     */
+    default void removeRemovalListener(RemovalListener<K, V> listener) {
+    }
+}
@@ -1,13 +1,24 @@
 package com.jinicache.cache;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 缓存管理器
  * 用于管理多个缓存组
  */
 public class CacheManager {
+    private static final Logger logger = LoggerFactory.getLogger(CacheManager.class);
     private final ConcurrentHashMap<String, Group> groups;
+    private volatile PeerPicker peers;
+    private final List<Runnable> groupListeners = new CopyOnWriteArrayList<>();
+    private MemoryGovernor memoryGovernor;
+    private MemoryBudget memoryBudget;
 
     /**
      * 构造函数
@@ -23,9 +34,39 @@ public class CacheManager {
      * @return 新创建的缓存组
      */
     public Group createGroup(String name, Cache<String, byte[]> cache) {
-        Group group = new Group(name, cache);
+        return register(new Group(name, cache));
+    }
+
+    /**
+     * 创建使用异步缓存实现的缓存组
+     * @param name 组名
+     * @param cache 底层异步缓存实现
+     * @return 新创建的缓存组，同名的组已存在时返回已有的组
+     */
+    public Group createGroup(String name, AsyncCache<String, byte[]> cache) {
+        return register(new Group(name, cache));
+    }
+
+    private Group register(Group group) {
+        String name = group.getName();
         Group existingGroup = groups.putIfAbsent(name, group);
-        return existingGroup != null ? existingGroup : group;
+        if (existingGroup != null) {
+            return existingGroup;
+        }
+        if (peers != null) {
+            group.registerPeers(peers);
+        }
+        fireGroupsChanged();
+        return group;
+    }
+
+    /**
+     * 注册远端节点选择器，应用到已有和之后创建的所有缓存组
+     * @param peers 远端节点选择器
+     */
+    public void registerPeers(PeerPicker peers) {
+        this.peers = peers;
+        groups.values().forEach(group -> group.registerPeers(peers));
     }
 
     /**
@@ -42,7 +83,102 @@ public class CacheManager {
      * @param name 组名
      */
     public void removeGroup(String name) {
-        groups.remove(name);
+        if (groups.remove(name) != null) {
+            fireGroupsChanged();
+        }
+    }
+
+    /**
+     * 注册缓存组变更监听器，创建或删除缓存组后调用
+     * 监听器在触发变更的线程中执行，应当尽快返回
+     * @param listener 监听器
+     */
+    public void addGroupListener(Runnable listener) {
+        groupListeners.add(listener);
+    }
+
+    /**
+     * 移除缓存组变更监听器
+     * @param listener 监听器
+     */
+    public void removeGroupListener(Runnable listener) {
+        groupListeners.remove(listener);
+    }
+
+    private void fireGroupsChanged() {
+        for (Runnable listener : groupListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.warn("Group listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * 启用内存调节器，按垃圾回收后的堆占用率调整受管缓存组的容量；已启用时返回已有的调节器
+     * 缓存组需要通过{@link MemoryGovernor#govern}加入并指定容量上下限
+     * @param targetOccupancy 目标堆占用率，取值在0到1之间
+     * @return 内存调节器
+     */
+    public synchronized MemoryGovernor enableMemoryGovernor(double targetOccupancy) {
+        if (memoryGovernor == null) {
+            memoryGovernor = new MemoryGovernor(this, targetOccupancy);
+            memoryGovernor.start();
+        }
+        return memoryGovernor;
+    }
+
+    /**
+     * 停用内存调节器，缓存组保留当前容量
+     */
+    public synchronized void disableMemoryGovernor() {
+        if (memoryGovernor != null) {
+            memoryGovernor.stop();
+            memoryGovernor = null;
+        }
+    }
+
+    /**
+     * 获取内存调节器
+     * @return 内存调节器，未启用时返回null
+     */
+    public synchronized MemoryGovernor getMemoryGovernor() {
+        return memoryGovernor;
+    }
+
+    /**
+     * 启用共享容量预算，按固定间隔把容量移向额外容量带来更多命中的组；已启用时返回已有的预算
+     * 缓存组需要通过{@link MemoryBudget#join}加入并指定容量上下限；同一个组不应同时受内存调节器管理
+     * @param totalCapacity 总容量（条目数）
+     * @param rebalanceIntervalMillis 再平衡间隔（毫秒）
+     * @return 共享容量预算
+     */
+    public synchronized MemoryBudget enableMemoryBudget(long totalCapacity, long rebalanceIntervalMillis) {
+        if (memoryBudget == null) {
+            memoryBudget = new MemoryBudget(this, totalCapacity);
+            memoryBudget.start(rebalanceIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return memoryBudget;
+    }
+
+    /**
+     * 停用共享容量预算，缓存组保留当前容量
+     */
+    public synchronized void disableMemoryBudget() {
+        if (memoryBudget != null) {
+            memoryBudget.stop();
+            memoryBudget.getGroupNames().forEach(memoryBudget::leave);
+            memoryBudget = null;
+        }
+    }
+
+    /**
+     * 获取共享容量预算
+     * @return 共享容量预算，未启用时返回null
+     */
+    public synchronized MemoryBudget getMemoryBudget() {
+        return memoryBudget;
     }
 
     /**
@@ -0,0 +1,189 @@
+package com.jinicache.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分块存储的缓存值
+ * 大值按固定大小切分为多个块保存，避免一次性分配一整块连续内存
+ */
+public final class ChunkedValue {
+    /**
+     * 默认块大小（64KB）
+     */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private final List<byte[]> chunks;
+    private final long size;
+
+    private ChunkedValue(List<byte[]> chunks, long size) {
+        this.chunks = Collections.unmodifiableList(chunks);
+        this.size = size;
+    }
+
+    /**
+     * 将单个字节数组包装为分块值（不复制数据）
+     * @param value 字节数组
+     * @return 分块值
+     */
+    public static ChunkedValue of(byte[] value) {
+        List<byte[]> chunks = new ArrayList<>(1);
+        if (value.length > 0) {
+            chunks.add(value);
+        }
+        return new ChunkedValue(chunks, value.length);
+    }
+
+    /**
+     * 获取值的总字节数
+     * @return 总字节数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 获取块数量
+     * @return 块数量
+     */
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * 获取指定块
+     * @param index 块下标
+     * @return 块内容（调用方不得修改）
+     */
+    public byte[] chunk(int index) {
+        return chunks.get(index);
+    }
+
+    /**
+     * 合并为连续的字节数组
+     * 仅用于小值或兼容旧接口，大值应按块读取
+     * @return 字节数组
+     */
+    public byte[] toByteArray() {
+        if (chunks.size() == 1) {
+            return chunks.get(0).clone();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Value too large for a single array: " + size);
+        }
+        byte[] result = new byte[(int) size];
+        int offset = 0;
+        for (byte[] chunk : chunks) {
+            System.arraycopy(chunk, 0, result, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return result;
+    }
+
+    /**
+     * 创建分块值构建器
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder(CHUNK_SIZE);
+    }
+
+    /**
+     * 分块值构建器
+     * 追加的数据被复制到固定大小的块中，最后一块按实际长度截断
+     */
+    public static final class Builder {
+        private final int chunkSize;
+        private final List<byte[]> chunks = new ArrayList<>();
+        private byte[] current;
+        private int position;
+        private long size;
+
+        private Builder(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * 追加数据
+         * @param src 数据源
+         * @param offset 起始偏移
+         * @param length 长度
+         * @return 当前构建器
+         */
+        public Builder append(byte[] src, int offset, int length) {
+            while (length > 0) {
+                if (current == null) {
+                    current = new byte[chunkSize];
+                    position = 0;
+                }
+                int n = Math.min(length, chunkSize - position);
+                System.arraycopy(src, offset, current, position, n);
+                position += n;
+                offset += n;
+                length -= n;
+                size += n;
+                if (position == chunkSize) {
+                    chunks.add(current);
+                    current = null;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * 追加数据
+         * @param src 数据源
+         * @return 当前构建器
+         */
+        public Builder append(byte[] src) {
+            return append(src, 0, src.length);
+        }
+
+        /**
+         * 追加缓冲区中的剩余数据
+         * @param src 数据源，读取后position移动到limit
+         * @return 当前构建器
+         */
+        public Builder append(ByteBuffer src) {
+            while (src.hasRemaining()) {
+                if (current == null) {
+                    current = new byte[chunkSize];
+                    position = 0;
+                }
+                int n = Math.min(src.remaining(), chunkSize - position);
+                src.get(current, position, n);
+                position += n;
+                size += n;
+                if (position == chunkSize) {
+                    chunks.add(current);
+                    current = null;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * 获取已追加的字节数
+         * @return 字节数
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * 构建分块值
+         * @return 分块值
+         */
+        public ChunkedValue build() {
+            List<byte[]> result = new ArrayList<>(chunks);
+            if (current != null && position > 0) {
+                byte[] tail = new byte[position];
+                System.arraycopy(current, 0, tail, 0, position);
+                result.add(tail);
+            }
+            return new ChunkedValue(result, size);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.jinicache.cache;
+
+import java.util.Locale;
+
+/**
+ * 缓存组可以在线切换的淘汰策略
+ */
+public enum EvictionPolicy {
+    /**
+     * 淘汰最久未访问的条目，见{@link LRUCache}
+     */
+    LRU,
+    /**
+     * 淘汰最早写入的条目，见{@link FIFOCache}
+     */
+    FIFO;
+
+    /**
+     * 创建使用此策略的缓存
+     * @param capacity 容量
+     * @return 缓存
+     */
+    public ResizableCache<String, byte[]> create(int capacity) {
+        return this == FIFO ? new FIFOCache<>(capacity) : new LRUCache<>(capacity);
+    }
+
+    /**
+     * 按名称查找策略，不区分大小写
+     * @param name 名称
+     * @return 策略
+     * @throws IllegalArgumentException 未知的策略
+     */
+    public static EvictionPolicy parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown eviction policy " + name);
+        }
+    }
+
+    /**
+     * 判断缓存使用的策略
+     * @param cache 缓存
+     * @return 策略，不是内置实现时返回null
+     */
+    public static EvictionPolicy of(Cache<?, ?> cache) {
+        if (cache instanceof FIFOCache) {
+            return FIFO;
+        }
+        return cache instanceof LRUCache ? LRU : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.jinicache.cache;
+
+/**
+ * FIFO(First In First Out)缓存实现
+ * 按写入顺序淘汰，读取不改变条目的位置；并发控制、容量调整和移除通知与{@link LRUCache}相同。
+ * 读多写少且访问没有明显时间局部性的组可以少一次链表调整
+ * @param <K> 键的类型
+ * @param <V> 值的类型
+ */
+public class FIFOCache<K, V> extends LRUCache<K, V> {
+
+    /**
+     * 构造函数
+     * @param capacity 缓存容量
+     */
+    public FIFOCache(int capacity) {
+        super(capacity, false);
+    }
+}
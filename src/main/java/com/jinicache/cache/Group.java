@@ -1,18 +1,91 @@
 package com.jinicache.cache;
 
+import com.jinicache.jfr.CacheGetEvent;
+import com.jinicache.jfr.CacheLoadEvent;
+import com.jinicache.metrics.GroupMetrics;
+import com.jinicache.metrics.MissRatioCurve;
+import com.jinicache.trace.TraceOp;
+import com.jinicache.trace.TraceRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * 缓存组实现
  * 用于管理不同类型的缓存，每个组可以有自己的缓存策略
  */
 public class Group {
+    private static final Logger logger = LoggerFactory.getLogger(Group.class);
+    /**
+     * 超过该大小的值按块存储
+     */
+    public static final int LARGE_VALUE_THRESHOLD = ChunkedValue.CHUNK_SIZE;
+    private static final long DEFAULT_MAX_VALUE_SIZE = 64L * 1024 * 1024; // 默认64MB
+    private static final long DEFAULT_MAX_LARGE_VALUE_BYTES = 256L * 1024 * 1024; // 默认256MB
+    /**
+     * 缩小容量时每批最多淘汰的条目数，批与批之间释放锁
+     */
+    static final int RESIZE_BATCH = 1024;
+    private static final long RESIZE_PAUSE_MILLIS = 1;
+    /**
+     * 后台分批缩小容量的线程，所有缓存组共用，批与批之间暂停{@value #RESIZE_PAUSE_MILLIS}毫秒
+     */
+    private static final ScheduledExecutorService RESIZER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "jinicache-resize");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * 异步写入时调用同步写入器的线程，所有缓存组共用；线程都在等待后端时直接拒绝，不排队
+     */
+    static final int STORE_WRITE_THREADS = 64;
+    private static final ExecutorService STORE_WRITER = new ThreadPoolExecutor(0, STORE_WRITE_THREADS,
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+        Thread thread = new Thread(r, "jinicache-store-write");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final String name;
-    private final Cache<String, byte[]> cache;
+    private volatile AsyncCache<String, byte[]> asyncCache;
+    private volatile Cache<String, byte[]> cache;
+    /**
+     * 切换缓存实现时持有写锁复制条目，写入、删除和调整容量持有读锁，复制期间不会有写入落到旧缓存上
+     */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final AtomicLong resizeGeneration = new AtomicLong();
+    private final LargeValueCache largeValues;
+    private volatile long maxLargeValueBytes = DEFAULT_MAX_LARGE_VALUE_BYTES;
+    private volatile long maxValueSize = DEFAULT_MAX_VALUE_SIZE;
+    private volatile int replicationFactor = 1;
+    private volatile PeerPicker peers;
     private final ConcurrentHashMap<String, Loader> loaders;
     private final SingleFlight<byte[]> singleFlight;
+    private final GroupMetrics metrics = new GroupMetrics();
+    private final List<Consumer<String>> missListeners = new CopyOnWriteArrayList<>();
+    private final List<CapacityLimit> capacityLimits = new CopyOnWriteArrayList<>();
+    private volatile MissRatioCurve missRatioCurve;
+    private volatile TraceRecorder traceRecorder;
+    private volatile Writer writer;
+    private volatile WriteBehindQueue writeBehind;
 
     /**
      * 缓存加载器接口
@@ -21,16 +94,56 @@ public class Group {
         byte[] load(String key);
     }
 
+    /**
+     * 后端写入器接口
+     */
+    public interface Writer {
+        /**
+         * 写入单个键
+         * @param key 键
+         * @param value 值
+         */
+        void write(String key, byte[] value);
+
+        /**
+         * 批量写入，异步回写时使用；默认逐个写入，后端支持批量写入时应当覆盖
+         * @param entries 键值对
+         */
+        default void writeAll(Map<String, byte[]> entries) {
+            entries.forEach(this::write);
+        }
+    }
+
+    /**
+     * 容量限制，由管理本组容量的组件（内存调节器、共享容量预算）注册，外部调整容量前检查
+     */
+    public interface CapacityLimit {
+        /**
+         * 检查新容量是否允许
+         * @param group 缓存组
+         * @param capacity 新容量
+         * @throws IllegalArgumentException 容量超出允许的范围
+         */
+        void check(Group group, int capacity);
+    }
+
     /**
      * 构造函数
      * @param name 组名
      * @param cache 底层缓存实现
      */
     public Group(String name, Cache<String, byte[]> cache) {
-        this.name = name;
-        this.cache = cache;
-        this.loaders = new ConcurrentHashMap<>();
-        this.singleFlight = new SingleFlight<>(5, TimeUnit.SECONDS); // 默认5秒超时
+        this(name, new AsyncCacheAdapter<>(cache));
+    }
+
+    /**
+     * 构造函数（异步缓存实现）
+     * 异步读取路径只通过异步接口访问缓存，同步接口和管理操作使用它的同步视图
+     * @param name 组名
+     * @param cache 底层异步缓存实现
+     */
+    public Group(String name, AsyncCache<String, byte[]> cache) {
+        this(name, cache, 5, TimeUnit.SECONDS); // 默认5秒超时
     }
 
     /**
@@ -41,8 +154,21 @@ public class Group {
      * @param timeUnit 时间单位
      */
     public Group(String name, Cache<String, byte[]> cache, long timeout, TimeUnit timeUnit) {
+        this(name, new AsyncCacheAdapter<>(cache), timeout, timeUnit);
+    }
+
+    /**
+     * 构造函数（异步缓存实现，自定义超时时间）
+     * @param name 组名
+     * @param cache 底层异步缓存实现
+     * @param timeout 超时时间
+     * @param timeUnit 时间单位
+     */
+    public Group(String name, AsyncCache<String, byte[]> cache, long timeout, TimeUnit timeUnit) {
         this.name = name;
-        this.cache = cache;
+        this.asyncCache = cache;
+        this.cache = cache.synchronous();
+        this.largeValues = new LargeValueCache(DEFAULT_MAX_LARGE_VALUE_BYTES);
         this.loaders = new ConcurrentHashMap<>();
         this.singleFlight = new SingleFlight<>(timeout, timeUnit);
     }
@@ -62,24 +188,510 @@ public class Group {
      * @return 缓存的值
      */
     public byte[] get(String key) {
+        long start = System.nanoTime();
+        recordAccess(key);
+        CacheGetEvent event = new CacheGetEvent();
+        event.begin();
         byte[] value = cache.get(key);
         if (value == null) {
-            return load(key);
+            ChunkedValue large = largeValues.get(key);
+            if (large != null) {
+                metrics.recordHit(start);
+                commitGet(event, key, true, false, large.size());
+                return large.toByteArray();
+            }
+            value = load(key);
+            metrics.recordMiss(start);
+            fireMiss(key);
+            commitGet(event, key, false, false, value != null ? value.length : 0);
+            return value;
         }
+        metrics.recordHit(start);
+        commitGet(event, key, true, false, value.length);
         return value;
     }
 
+    /**
+     * 只在本节点获取缓存值，不访问远端节点
+     * 用于处理其他节点转发过来的请求
+     * @param key 键
+     * @return 缓存的值
+     */
+    public byte[] getLocal(String key) {
+        long start = System.nanoTime();
+        recordAccess(key);
+        CacheGetEvent event = new CacheGetEvent();
+        event.begin();
+        byte[] value = cache.get(key);
+        if (value == null) {
+            ChunkedValue large = largeValues.get(key);
+            if (large != null) {
+                metrics.recordHit(start);
+                commitGet(event, key, true, true, large.size());
+                return large.toByteArray();
+            }
+            try {
+                value = singleFlight.doCall(key, () -> doLoad(key, false)).get();
+            } catch (Exception e) {
+                value = loadLocally(key);
+            }
+            metrics.recordMiss(start);
+            fireMiss(key);
+            commitGet(event, key, false, true, value != null ? value.length : 0);
+            return value;
+        }
+        metrics.recordHit(start);
+        commitGet(event, key, true, true, value.length);
+        return value;
+    }
+
+    /**
+     * 只在本节点以分块形式获取缓存值，不访问远端节点
+     * @param key 键
+     * @return 分块值，如果不存在返回null
+     */
+    public ChunkedValue getChunkedLocal(String key) {
+        ChunkedValue large = getLarge(key, true);
+        if (large != null) {
+            return large;
+        }
+        byte[] value = getLocal(key);
+        return value != null ? ChunkedValue.of(value) : null;
+    }
+
+    /**
+     * 以分块形式获取缓存值，大值不会被合并为连续数组
+     * @param key 键
+     * @return 分块值，如果不存在返回null
+     */
+    public ChunkedValue getChunked(String key) {
+        ChunkedValue large = getLarge(key, false);
+        if (large != null) {
+            return large;
+        }
+        byte[] value = get(key);
+        return value != null ? ChunkedValue.of(value) : null;
+    }
+
+    /**
+     * 异步以分块形式获取缓存值，等待远端节点和缓存I/O时不占用线程
+     * @param key 键
+     * @return 分块值的Future，不存在时结果为null
+     */
+    public CompletableFuture<ChunkedValue> getChunkedAsync(String key) {
+        ChunkedValue large = getLarge(key, false);
+        if (large != null) {
+            return CompletableFuture.completedFuture(large);
+        }
+        return getAsync(key).thenApply(value -> value != null ? ChunkedValue.of(value) : null);
+    }
+
+    /**
+     * 异步只在本节点以分块形式获取缓存值，不访问远端节点
+     * @param key 键
+     * @return 分块值的Future，不存在时结果为null
+     */
+    public CompletableFuture<ChunkedValue> getChunkedLocalAsync(String key) {
+        ChunkedValue large = getLarge(key, true);
+        if (large != null) {
+            return CompletableFuture.completedFuture(large);
+        }
+        return getLocalAsync(key).thenApply(value -> value != null ? ChunkedValue.of(value) : null);
+    }
+
+    /**
+     * 分块读取先查按块存储的大值，命中时与普通读取一样记录指标、命中率曲线、访问轨迹和读取事件；
+     * 未命中时什么也不记录，由随后的普通读取记录
+     */
+    private ChunkedValue getLarge(String key, boolean localOnly) {
+        long start = System.nanoTime();
+        CacheGetEvent event = new CacheGetEvent();
+        event.begin();
+        ChunkedValue large = largeValues.get(key);
+        if (large != null) {
+            recordAccess(key);
+            metrics.recordHit(start);
+            commitGet(event, key, true, localOnly, large.size());
+        }
+        return large;
+    }
+
+    /**
+     * 写入分块值
+     * 不超过{@link #LARGE_VALUE_THRESHOLD}的值合并后写入普通缓存，更大的值按块存储
+     * @param key 键
+     * @param value 分块值
+     * @throws IllegalArgumentException 值超过本组允许的最大值大小
+     */
+    public void putChunked(String key, ChunkedValue value) {
+        if (value.size() > maxValueSize) {
+            throw new IllegalArgumentException("Value size " + value.size()
+                    + " exceeds max value size " + maxValueSize + " of group " + name);
+        }
+        trace(TraceOp.PUT, key, value.size());
+        swapLock.readLock().lock();
+        try {
+            if (value.size() <= LARGE_VALUE_THRESHOLD) {
+                largeValues.remove(key);
+                cache.put(key, value.toByteArray());
+            } else {
+                cache.remove(key);
+                largeValues.put(key, value);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 异步写入分块值，通过异步接口写入缓存，不等待缓存I/O
+     * @param key 键
+     * @param value 分块值
+     * @return 写入完成的Future，值超过本组允许的最大值大小时以IllegalArgumentException失败
+     */
+    public CompletableFuture<Void> putChunkedAsync(String key, ChunkedValue value) {
+        if (value.size() > maxValueSize) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Value size " + value.size()
+                    + " exceeds max value size " + maxValueSize + " of group " + name));
+        }
+        trace(TraceOp.PUT, key, value.size());
+        if (value.size() <= LARGE_VALUE_THRESHOLD) {
+            byte[] bytes = value.toByteArray();
+            return writeAsync(key, target -> {
+                largeValues.remove(key);
+                return target.put(key, bytes);
+            });
+        }
+        return writeAsync(key, target -> {
+            largeValues.put(key, value);
+            return target.remove(key);
+        });
+    }
+
+    /**
+     * 在读锁下通过异步接口写入或删除
+     * 异步缓存的写入可能在切换缓存实现之后才完成，此时新缓存中可能是复制过去的旧值，把该键从新缓存中移除
+     * @param key 键
+     * @param write 对当前异步缓存执行的写入
+     * @return 写入完成的Future
+     */
+    private CompletableFuture<Void> writeAsync(String key,
+                                               Function<AsyncCache<String, byte[]>, CompletableFuture<Void>> write) {
+        AsyncCache<String, byte[]> target;
+        CompletableFuture<Void> future;
+        swapLock.readLock().lock();
+        try {
+            target = asyncCache;
+            future = write.apply(target);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (future.isDone()) {
+            return future;
+        }
+        return future.thenRun(() -> {
+            swapLock.readLock().lock();
+            try {
+                if (asyncCache != target) {
+                    cache.remove(key);
+                }
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 写入值：设置了写入器时先写后端，再写入本节点缓存
+     * 同步写入时后端写入失败则不更新缓存；异步回写时写入进入回写队列，队列已满时等待
+     * @param key 键
+     * @param value 值
+     * @throws java.util.concurrent.RejectedExecutionException 回写队列已满且等待超时
+     */
+    public void put(String key, byte[] value) {
+        writeToStore(key, value);
+        putChunked(key, ChunkedValue.of(value));
+    }
+
+    /**
+     * 只把值交给后端写入器，不更新缓存；没有设置写入器时不做任何事
+     * 同步写入时直接调用写入器，异步回写时进入回写队列
+     * @param key 键
+     * @param value 值
+     * @throws java.util.concurrent.RejectedExecutionException 回写队列已满且等待超时
+     */
+    public void writeToStore(String key, byte[] value) {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            queue.enqueue(key, value);
+            return;
+        }
+        Writer current = writer;
+        if (current != null) {
+            current.write(key, value);
+        }
+    }
+
+    /**
+     * 异步把值交给后端写入器，不更新缓存，调用线程不会等待后端或回写队列；没有设置写入器时立即完成
+     * 同步写入时写入器在共用的写入线程中调用；异步回写时队列已满立即失败，不等待队列腾出空间
+     * @param key 键
+     * @param value 值
+     * @return 写入完成的Future；回写队列已满或写入线程都在忙时以
+     *         {@link java.util.concurrent.RejectedExecutionException}失败，写入器出错时以其异常失败
+     */
+    public CompletableFuture<Void> writeToStoreAsync(String key, ChunkedValue value) {
+        WriteBehindQueue queue = writeBehind;
+        Writer current = writer;
+        try {
+            if (queue != null) {
+                if (!queue.tryEnqueue(key, value.toByteArray())) {
+                    return CompletableFuture.failedFuture(new RejectedExecutionException(
+                            "write-behind queue of group " + name + " is full"));
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+            if (current == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return CompletableFuture.runAsync(() -> current.write(key, value.toByteArray()), STORE_WRITER);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 设置同步写入（write-through），替换之前的写入方式
+     * @param writer 写入器，为null时关闭写入
+     */
+    public void setWriteThrough(Writer writer) {
+        WriteBehindQueue previous = writeBehind;
+        this.writer = writer;
+        this.writeBehind = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * 设置异步回写（write-behind），替换之前的写入方式
+     * @param queue 回写队列
+     */
+    public void setWriteBehind(WriteBehindQueue queue) {
+        WriteBehindQueue previous = writeBehind;
+        this.writer = null;
+        this.writeBehind = queue;
+        if (previous != null && previous != queue) {
+            previous.close();
+        }
+    }
+
+    /**
+     * 获取异步回写队列
+     * @return 回写队列，未启用异步回写时返回null
+     */
+    public WriteBehindQueue getWriteBehindQueue() {
+        return writeBehind;
+    }
+
+    /**
+     * 判断是否设置了后端写入
+     * @return 同步写入或异步回写时返回true
+     */
+    public boolean hasWriter() {
+        return writer != null || writeBehind != null;
+    }
+
+    /**
+     * 获取本节点保存的所有键，包括按块存储的大值
+     * @return 键列表快照
+     */
+    public List<String> localKeys() {
+        List<String> keys = new ArrayList<>(cache.keys());
+        keys.addAll(largeValues.keys());
+        return keys;
+    }
+
+    /**
+     * 只读取本节点保存的值，不触发加载也不访问远端节点
+     * @param key 键
+     * @return 分块值，本节点没有时返回null
+     */
+    public ChunkedValue peekLocal(String key) {
+        ChunkedValue large = largeValues.get(key);
+        if (large != null) {
+            return large;
+        }
+        byte[] value = cache.get(key);
+        return value != null ? ChunkedValue.of(value) : null;
+    }
+
+    /**
+     * 从本节点移除键，不影响其他节点
+     * @param key 键
+     */
+    public void evictLocal(String key) {
+        trace(TraceOp.REMOVE, key, 0);
+        writeAsync(key, target -> {
+            largeValues.remove(key);
+            return target.remove(key);
+        });
+    }
+
+    /**
+     * 使键在整个集群失效：立即从本节点移除，并通知其他节点移除它们持有的副本
+     * 通知合并后批量发送，其他节点上的副本在合并窗口结束后的一次往返内移除
+     * @param key 键
+     */
+    public void invalidate(String key) {
+        evictLocal(key);
+        PeerPicker picker = peers;
+        if (picker != null) {
+            picker.broadcastInvalidation(name, key);
+        }
+    }
+
     /**
      * 异步获取缓存值
+     * 缓存读取、远端节点获取和写回缓存都通过异步接口串联，等待I/O时不占用线程；
+     * 本地加载器在公共线程池中执行
      * @param key 键
      * @return 缓存值的Future
      */
     public CompletableFuture<byte[]> getAsync(String key) {
-        byte[] value = cache.get(key);
-        if (value != null) {
-            return CompletableFuture.completedFuture(value);
+        return getAsync(key, false);
+    }
+
+    /**
+     * 异步只在本节点获取缓存值，不访问远端节点
+     * @param key 键
+     * @return 缓存值的Future
+     */
+    public CompletableFuture<byte[]> getLocalAsync(String key) {
+        return getAsync(key, true);
+    }
+
+    private CompletableFuture<byte[]> getAsync(String key, boolean localOnly) {
+        long start = System.nanoTime();
+        recordAccess(key);
+        CacheGetEvent event = new CacheGetEvent();
+        event.begin();
+        return asyncCache.get(key).thenCompose(value -> {
+            if (value != null) {
+                metrics.recordHit(start);
+                commitGet(event, key, true, localOnly, value.length);
+                return CompletableFuture.completedFuture(value);
+            }
+            ChunkedValue large = largeValues.get(key);
+            if (large != null) {
+                metrics.recordHit(start);
+                commitGet(event, key, true, localOnly, large.size());
+                return CompletableFuture.completedFuture(large.toByteArray());
+            }
+            // 与同步读取一致：SingleFlight调用失败（如超时）时回退到直接加载
+            CompletableFuture<byte[]> future = singleFlight.doCallAsync(key, () -> doLoadAsync(key, !localOnly))
+                    .exceptionallyCompose(error -> loadLocallyAsync(key));
+            return future.whenComplete((v, error) -> {
+                metrics.recordMiss(start);
+                fireMiss(key);
+                commitGet(event, key, false, localOnly, v != null ? v.length : 0);
+            });
+        });
+    }
+
+    /**
+     * 添加未命中监听器，每次读取未命中本地缓存时以键调用
+     * 监听器在读取线程中执行，应当尽快返回
+     * @param listener 监听器
+     */
+    public void addMissListener(Consumer<String> listener) {
+        missListeners.add(listener);
+    }
+
+    /**
+     * 移除未命中监听器
+     * @param listener 监听器
+     */
+    public void removeMissListener(Consumer<String> listener) {
+        missListeners.remove(listener);
+    }
+
+    /**
+     * 开始估计本组在不同容量下的命中率，之后每次读取都会记录
+     * @param sampleRate 采样率，在(0, 1]之间
+     * @param maxSampledKeys 最多跟踪的采样键数
+     * @return 命中率曲线
+     */
+    public MissRatioCurve enableMissRatioCurve(double sampleRate, int maxSampledKeys) {
+        MissRatioCurve curve = new MissRatioCurve(sampleRate, maxSampledKeys);
+        missRatioCurve = curve;
+        return curve;
+    }
+
+    /**
+     * 停止估计命中率曲线
+     */
+    public void disableMissRatioCurve() {
+        missRatioCurve = null;
+    }
+
+    /**
+     * 获取命中率曲线
+     * @return 命中率曲线，未启用时返回null
+     */
+    public MissRatioCurve getMissRatioCurve() {
+        return missRatioCurve;
+    }
+
+    private void recordAccess(String key) {
+        MissRatioCurve curve = missRatioCurve;
+        if (curve != null) {
+            curve.record(key);
+        }
+    }
+
+    /**
+     * 设置访问轨迹记录器，之后本组的读取、写入和删除都交给它记录；记录器由调用方关闭
+     * @param recorder 记录器，为null时停止记录
+     */
+    public void setTraceRecorder(TraceRecorder recorder) {
+        this.traceRecorder = recorder;
+    }
+
+    /**
+     * 获取访问轨迹记录器
+     * @return 记录器，未设置时返回null
+     */
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    private void trace(TraceOp op, String key, long size) {
+        TraceRecorder recorder = traceRecorder;
+        if (recorder != null) {
+            recorder.record(op, key, size);
+        }
+    }
+
+    private void fireMiss(String key) {
+        for (Consumer<String> listener : missListeners) {
+            listener.accept(key);
+        }
+    }
+
+    /**
+     * 结束读取事件，超过阈值时提交；记录访问轨迹时记下这次读取
+     */
+    private void commitGet(CacheGetEvent event, String key, boolean hit, boolean localOnly, long size) {
+        trace(TraceOp.GET, key, size);
+        event.end();
+        if (event.shouldCommit()) {
+            event.group = name;
+            event.key = key;
+            event.hit = hit;
+            event.localOnly = localOnly;
+            event.commit();
         }
-        return loadAsync(key);
     }
 
     /**
@@ -89,58 +701,181 @@ public class Group {
      */
     private byte[] load(String key) {
         try {
-            return singleFlight.doCall(key, () -> {
-                // 再次检查缓存，可能在等待期间已被其他线程加载
-                byte[] value = cache.get(key);
-                if (value != null) {
-                    return value;
-                }
-                
-                Loader loader = loaders.get(key);
-                if (loader == null) {
-                    return null;
-                }
-                
-                value = loader.load(key);
-                if (value != null) {
-                    cache.put(key, value);
-                }
-                return value;
-            }).get(); // 同步等待结果
+            return singleFlight.doCall(key, () -> doLoad(key, true)).get(); // 同步等待结果
         } catch (Exception e) {
             // 如果SingleFlight调用失败，回退到直接加载
-            Loader loader = loaders.get(key);
-            if (loader == null) {
-                return null;
-            }
-            
-            byte[] value = loader.load(key);
+            return loadLocally(key);
+        }
+    }
+
+    /**
+     * 执行一次加载：再次检查缓存（可能在等待期间已被其他线程加载），
+     * 然后依次尝试键的所属远端节点和本地加载器
+     * @param key 键
+     * @param allowPeers 是否允许从远端节点获取
+     * @return 加载的值
+     */
+    private byte[] doLoad(String key, boolean allowPeers) {
+        byte[] value = cache.get(key);
+        if (value != null) {
+            return value;
+        }
+        if (allowPeers) {
+            value = getFromPeer(key);
             if (value != null) {
-                cache.put(key, value);
+                return value;
             }
-            return value;
         }
+        return loadLocally(key);
     }
 
     /**
-     * 异步加载缓存值
+     * 异步执行一次加载，与{@link #doLoad}的顺序相同，但不等待缓存和远端节点的I/O
      * @param key 键
+     * @param allowPeers 是否允许从远端节点获取
      * @return 加载值的Future
      */
-    private CompletableFuture<byte[]> loadAsync(String key) {
-        return singleFlight.doCall(key, () -> {
-            Loader loader = loaders.get(key);
-            if (loader == null) {
-                return null;
-            }
-            byte[] value = loader.load(key);
+    private CompletableFuture<byte[]> doLoadAsync(String key, boolean allowPeers) {
+        return asyncCache.get(key).thenCompose(value -> {
             if (value != null) {
-                cache.put(key, value);
+                return CompletableFuture.completedFuture(value);
+            }
+            CompletableFuture<byte[]> fromPeer = allowPeers ? getFromPeerAsync(key)
+                    : CompletableFuture.completedFuture(null);
+            return fromPeer.thenCompose(peerValue -> peerValue != null
+                    ? CompletableFuture.completedFuture(peerValue) : loadLocallyAsync(key));
+        });
+    }
+
+    /**
+     * 异步从键的所属远端节点获取，失败时结果为null以便回退到本地加载
+     * @param key 键
+     * @return 远端值的Future，键属于本节点或获取失败时结果为null
+     */
+    private CompletableFuture<byte[]> getFromPeerAsync(String key) {
+        PeerPicker picker = peers;
+        PeerGetter getter = picker != null ? picker.pickPeer(key) : null;
+        if (getter == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return getter.get(name, key).handle((value, error) -> {
+            if (error != null) {
+                metrics.recordPeerFetch(false);
+                logger.warn("Failed to get key {} of group {} from peer: {}", key, name, error.toString());
+                return null;
             }
+            metrics.recordPeerFetch(true);
             return value;
         });
     }
 
+    /**
+     * 从键的所属远端节点获取，失败时返回null以便回退到本地加载
+     * @param key 键
+     * @return 远端的值，键属于本节点或获取失败时返回null
+     */
+    private byte[] getFromPeer(String key) {
+        PeerPicker picker = peers;
+        if (picker == null) {
+            return null;
+        }
+        PeerGetter getter = picker.pickPeer(key);
+        if (getter == null) {
+            return null;
+        }
+        try {
+            byte[] value = getter.get(name, key).get();
+            metrics.recordPeerFetch(true);
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            metrics.recordPeerFetch(false);
+            logger.warn("Failed to get key {} of group {} from peer: {}", key, name, e.getCause().toString());
+            return null;
+        }
+    }
+
+    /**
+     * 使用本地加载器加载并写入缓存
+     * @param key 键
+     * @return 加载的值，没有加载器时返回null
+     */
+    private byte[] loadLocally(String key) {
+        byte[] value = invokeLoader(key);
+        if (value != null) {
+            swapLock.readLock().lock();
+            try {
+                cache.put(key, value);
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 在公共线程池中使用本地加载器加载，通过异步接口写入缓存
+     * @param key 键
+     * @return 加载值的Future，没有加载器时结果为null
+     */
+    private CompletableFuture<byte[]> loadLocallyAsync(String key) {
+        if (!loaders.containsKey(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> invokeLoader(key)).thenCompose(value -> value == null
+                ? CompletableFuture.completedFuture(null)
+                : writeAsync(key, target -> target.put(key, value)).thenApply(v -> value));
+    }
+
+    /**
+     * 调用本地加载器并记录指标，不写入缓存
+     * @param key 键
+     * @return 加载的值，没有加载器时返回null
+     */
+    private byte[] invokeLoader(String key) {
+        Loader loader = loaders.get(key);
+        if (loader == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        CacheLoadEvent event = new CacheLoadEvent();
+        event.begin();
+        byte[] value;
+        try {
+            value = loader.load(key);
+        } catch (RuntimeException e) {
+            metrics.recordLoad(start, false);
+            commitLoad(event, key, false);
+            throw e;
+        }
+        metrics.recordLoad(start, true);
+        commitLoad(event, key, true);
+        return value;
+    }
+
+    /**
+     * 结束加载事件，超过阈值时提交
+     */
+    private void commitLoad(CacheLoadEvent event, String key, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.group = name;
+            event.key = key;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    /**
+     * 注册远端节点选择器，未命中的键优先从所属节点获取
+     * @param peers 远端节点选择器
+     */
+    public void registerPeers(PeerPicker peers) {
+        this.peers = peers;
+    }
+
     /**
      * 获取组名
      * @return 组名
@@ -150,13 +885,105 @@ public class Group {
     }
 
     /**
-     * 获取底层缓存实现
+     * 获取本组允许的最大值大小
+     * @return 最大值大小（字节）
+     */
+    public long getMaxValueSize() {
+        return maxValueSize;
+    }
+
+    /**
+     * 设置本组允许的最大值大小
+     * @param maxValueSize 最大值大小（字节）
+     */
+    public void setMaxValueSize(long maxValueSize) {
+        if (maxValueSize <= 0) {
+            throw new IllegalArgumentException("maxValueSize must be positive");
+        }
+        this.maxValueSize = maxValueSize;
+    }
+
+    /**
+     * 获取按块存储的大值最多占用的总字节数
+     * @return 字节数
+     */
+    public long getMaxLargeValueBytes() {
+        return maxLargeValueBytes;
+    }
+
+    /**
+     * 设置按块存储的大值最多占用的总字节数，超出时淘汰最久未访问的大值
+     * 大值不计入按条目数计算的缓存容量，单独按字节数限制；内存调节器在这个上限之内按比例调整
+     * @param maxBytes 字节数，必须为正数
+     */
+    public void setMaxLargeValueBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxLargeValueBytes must be positive");
+        }
+        this.maxLargeValueBytes = maxBytes;
+        largeValues.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * 获取按块存储的大值当前占用的总字节数
+     * @return 字节数
+     */
+    public long getLargeValueBytes() {
+        return largeValues.getBytes();
+    }
+
+    /**
+     * 按比例调整大值的字节上限，结果在一个块和{@link #setMaxLargeValueBytes}配置的上限之间；供内存调节器使用
+     * @param factor 比例
+     * @return 上限发生变化时返回true
+     */
+    boolean scaleLargeValues(double factor) {
+        long current = largeValues.getMaxBytes();
+        long scaled = Math.max(LARGE_VALUE_THRESHOLD, Math.min(maxLargeValueBytes, (long) (current * factor)));
+        if (scaled == current) {
+            return false;
+        }
+        largeValues.setMaxBytes(scaled);
+        return true;
+    }
+
+    /**
+     * 获取本组的副本数
+     * @return 副本数
+     */
+    public int getReplicationFactor() {
+        return replicationFactor;
+    }
+
+    /**
+     * 设置本组的副本数
+     * 大于1时，客户端写入会发送到键在哈希环上的前N个节点，远端获取在首选节点响应慢时可以对冲到其他副本；
+     * 为1时写入保存在接收请求的节点上
+     * @param replicationFactor 副本数
+     */
+    public void setReplicationFactor(int replicationFactor) {
+        if (replicationFactor < 1) {
+            throw new IllegalArgumentException("replicationFactor must be at least 1");
+        }
+        this.replicationFactor = replicationFactor;
+    }
+
+    /**
+     * 获取底层缓存实现，异步缓存时为它的同步视图
      * @return 缓存实现
      */
     public Cache<String, byte[]> getCache() {
         return cache;
     }
 
+    /**
+     * 获取底层异步缓存实现
+     * @return 异步缓存实现
+     */
+    public AsyncCache<String, byte[]> getAsyncCache() {
+        return asyncCache;
+    }
+
     /**
      * 移除缓存加载器
      * @param key 键
@@ -190,6 +1017,22 @@ public class Group {
         singleFlight.cleanupExpiredCalls();
     }
 
+    /**
+     * 获取本组的指标
+     * @return 指标
+     */
+    public GroupMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取本组因容量不足淘汰的条目数，包括按块存储的大值
+     * @return 淘汰数
+     */
+    public long getEvictionCount() {
+        return cache.getEvictionCount() + largeValues.getEvictionCount();
+    }
+
     /**
      * 获取当前活跃的SingleFlight调用数量
      * @return 活跃调用数量
@@ -216,6 +1059,239 @@ public class Group {
         return singleFlight.cancelCall(key);
     }
 
+    /**
+     * 调整缓存容量
+     * 扩大和少量缩小立即生效；需要淘汰超过{@value #RESIZE_BATCH}个条目时在后台线程分批淘汰，
+     * 每批之间释放缓存的锁并暂停，读写不会被长时间阻塞。新的调整或切换淘汰策略会取代进行中的缩小
+     * @param capacity 新容量，必须为正数
+     * @return 调整完成的Future，被新的调整取代时取消
+     * @throws IllegalArgumentException 容量不是正数，或超出内存调节器、共享容量预算允许的范围
+     * @throws UnsupportedOperationException 缓存实现不支持调整容量
+     */
+    public CompletableFuture<Void> resize(int capacity) {
+        checkCapacity(capacity);
+        ResizableCache<String, byte[]> resizable;
+        long generation;
+        swapLock.readLock().lock();
+        try {
+            resizable = resizableCache();
+            generation = resizeGeneration.incrementAndGet();
+            if (resizable.size() - capacity <= RESIZE_BATCH || capacity >= resizable.getCapacity()) {
+                resizable.setCapacity(capacity);
+                return CompletableFuture.completedFuture(null);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        RESIZER.execute(() -> shrinkStep(resizable, capacity, generation, done));
+        return done;
+    }
+
+    /**
+     * 淘汰一批条目，未达到目标容量时安排下一批；容量已被其他组件调得更小时不再调大
+     */
+    private void shrinkStep(ResizableCache<String, byte[]> resizable, int capacity, long generation,
+                            CompletableFuture<Void> done) {
+        try {
+            int next;
+            swapLock.readLock().lock();
+            try {
+                if (resizeGeneration.get() != generation || cache != resizable) {
+                    done.cancel(false);
+                    return;
+                }
+                int current = resizable.getCapacity();
+                next = Math.min(current, Math.max(capacity, Math.min(current, resizable.size()) - RESIZE_BATCH));
+                if (next < current) {
+                    resizable.setCapacity(next);
+                }
+            } finally {
+                swapLock.readLock().unlock();
+            }
+            if (next <= capacity) {
+                done.complete(null);
+                return;
+            }
+            RESIZER.schedule(() -> shrinkStep(resizable, capacity, generation, done),
+                    RESIZE_PAUSE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 立即设置缓存容量，不检查容量限制；供内存调节器和共享容量预算在各自的上下限内调整
+     * @param capacity 新容量
+     */
+    void setCapacity(int capacity) {
+        swapLock.readLock().lock();
+        try {
+            resizableCache().setCapacity(capacity);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检查新容量是否为正数并且满足所有已注册的容量限制，不修改容量
+     * @param capacity 新容量
+     * @throws IllegalArgumentException 容量不是正数或超出允许的范围
+     */
+    public void checkCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        for (CapacityLimit limit : capacityLimits) {
+            limit.check(this, capacity);
+        }
+    }
+
+    /**
+     * 添加容量限制
+     * @param limit 容量限制
+     */
+    public void addCapacityLimit(CapacityLimit limit) {
+        capacityLimits.add(limit);
+    }
+
+    /**
+     * 移除容量限制
+     * @param limit 容量限制
+     */
+    public void removeCapacityLimit(CapacityLimit limit) {
+        capacityLimits.remove(limit);
+    }
+
+    /**
+     * 获取缓存容量
+     * @return 容量，缓存实现不支持调整容量时返回-1
+     */
+    public int getCapacity() {
+        Cache<String, byte[]> current = cache;
+        return current instanceof ResizableCache ? ((ResizableCache<String, byte[]>) current).getCapacity() : -1;
+    }
+
+    /**
+     * 调整加载超时时间，只影响之后发起的加载
+     * @param timeout 超时时间，必须为正数
+     * @param timeUnit 时间单位
+     */
+    public void setLoadTimeout(long timeout, TimeUnit timeUnit) {
+        singleFlight.setTimeout(timeout, timeUnit);
+    }
+
+    /**
+     * 获取加载超时时间
+     * @param timeUnit 时间单位
+     * @return 超时时间
+     */
+    public long getLoadTimeout(TimeUnit timeUnit) {
+        return singleFlight.getTimeout(timeUnit);
+    }
+
+    /**
+     * 切换淘汰策略，保持当前容量和已缓存的条目
+     * 复制条目在调整容量的后台线程上进行，调用方不会被阻塞，与之前提交的容量调整按顺序执行
+     * @param policy 淘汰策略
+     * @return 切换完成的Future，复制失败时以异常完成
+     * @throws UnsupportedOperationException 当前缓存实现不支持调整容量，无法确定新缓存的容量
+     */
+    public CompletableFuture<Void> setEvictionPolicy(EvictionPolicy policy) {
+        resizableCache();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        RESIZER.execute(() -> {
+            try {
+                swapLock.writeLock().lock();
+                try {
+                    if (policy != getEvictionPolicy()) {
+                        replaceCache(policy.create(resizableCache().getCapacity()));
+                    }
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * 获取淘汰策略
+     * @return 淘汰策略，缓存实现不是内置实现时返回null
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return EvictionPolicy.of(cache);
+    }
+
+    /**
+     * 把底层缓存换成新的实现，已缓存的条目按从旧到新的顺序复制过去，新缓存容量较小时保留最新的条目
+     * 复制期间读取照常访问旧缓存，写入和删除等待复制完成后写入新缓存。
+     * 旧缓存的移除通知分发器连同其上的监听器迁移到新缓存，共享容量预算等依赖移除通知的组件继续生效
+     * @param replacement 新的缓存实现
+     * @throws IllegalArgumentException 新缓存为null，或新缓存的容量超出内存调节器、共享容量预算允许的范围
+     * @throws IllegalStateException 旧缓存有移除监听器，而新缓存无法接管它们
+     */
+    public void replaceCache(Cache<String, byte[]> replacement) {
+        if (replacement == null) {
+            throw new IllegalArgumentException("cache must not be null");
+        }
+        if (replacement instanceof ResizableCache
+                && ((ResizableCache<String, byte[]>) replacement).getCapacity() != getCapacity()) {
+            checkCapacity(((ResizableCache<String, byte[]>) replacement).getCapacity());
+        }
+        swapLock.writeLock().lock();
+        try {
+            Cache<String, byte[]> old = cache;
+            moveRemovalDispatcher(old, replacement);
+            for (String key : old.keys()) {
+                byte[] value = old.get(key);
+                if (value != null) {
+                    replacement.put(key, value);
+                }
+            }
+            resizeGeneration.incrementAndGet();
+            asyncCache = new AsyncCacheAdapter<>(replacement);
+            cache = replacement;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        logger.info("Group {} switched to {} with {} entries", name, replacement.getClass().getSimpleName(),
+                replacement.size());
+    }
+
+    /**
+     * 把旧缓存的移除通知分发器交给新缓存，旧缓存不再发送通知
+     * @throws IllegalStateException 旧缓存有监听器，而新缓存不支持分发器或已经有自己的分发器
+     */
+    private void moveRemovalDispatcher(Cache<String, byte[]> old, Cache<String, byte[]> replacement) {
+        if (!(old instanceof LRUCache)) {
+            return;
+        }
+        LRUCache<String, byte[]> from = (LRUCache<String, byte[]>) old;
+        RemovalDispatcher<String, byte[]> dispatcher = from.getRemovalDispatcher();
+        if (dispatcher == null || !dispatcher.hasListeners()) {
+            return;
+        }
+        if (!(replacement instanceof LRUCache)
+                || ((LRUCache<String, byte[]>) replacement).getRemovalDispatcher() != null) {
+            throw new IllegalStateException("Cache of group " + name
+                    + " has removal listeners that cannot be moved to " + replacement.getClass().getSimpleName());
+        }
+        ((LRUCache<String, byte[]>) replacement).setRemovalDispatcher(dispatcher);
+        from.setRemovalDispatcher(null);
+    }
+
+    private ResizableCache<String, byte[]> resizableCache() {
+        Cache<String, byte[]> current = cache;
+        if (!(current instanceof ResizableCache)) {
+            throw new UnsupportedOperationException("cache of group " + name + " is not resizable");
+        }
+        return (ResizableCache<String, byte[]>) current;
+    }
+
     /**
      * 清理所有资源
      */
@@ -224,5 +1300,10 @@ public class Group {
         singleFlight.cleanupExpiredCalls();
         // 清空加载器
         loaders.clear();
+        // 写出回写队列中剩余的写入
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            queue.close();
+        }
     }
 }
\ No newline at end of file
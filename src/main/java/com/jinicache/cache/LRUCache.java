@@ -1,40 +1,68 @@
 package com.jinicache.cache;
 
+import com.jinicache.jfr.CacheEvictionEvent;
+import com.jinicache.jfr.CacheLockWaitEvent;
+import com.jinicache.metrics.Counter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * LRU(Least Recently Used)缓存实现
- * 使用LinkedHashMap实现LRU算法，支持并发访问
+ * 使用LinkedHashMap实现LRU算法，支持并发访问；条目数在每次修改后单独发布，读取时不需要加锁。
+ * 添加了移除监听器时，持有锁期间只把通知放入分发器的队列，释放锁后再安排交付
  * @param <K> 键的类型
  * @param <V> 值的类型
  */
-public class LRUCache<K, V> implements Cache<K, V> {
+public class LRUCache<K, V> implements ResizableCache<K, V> {
     private final Map<K, V> cache;
-    private final int capacity;
+    private volatile int capacity;
+    private volatile int size;
     private final Lock lock;
+    private final Counter evictions = new Counter();
+    private volatile RemovalDispatcher<K, V> removals;
 
     /**
      * 构造函数
      * @param capacity 缓存容量
      */
     public LRUCache(int capacity) {
+        this(capacity, true);
+    }
+
+    /**
+     * 构造函数，供按其他顺序淘汰的子类使用
+     * @param capacity 缓存容量
+     * @param accessOrder 为true时读取会把条目移到最新位置（LRU），为false时按写入顺序淘汰（FIFO）
+     */
+    protected LRUCache(int capacity, boolean accessOrder) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
         this.capacity = capacity;
         this.lock = new ReentrantLock();
         // 使用LinkedHashMap实现LRU，accessOrder=true表示按访问顺序排序
-        this.cache = new LinkedHashMap<K, V>(capacity, 0.75f, true) {
+        this.cache = new LinkedHashMap<K, V>(capacity, 0.75f, accessOrder) {
             @Override
             protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-                return size() > capacity;
+                if (size() > LRUCache.this.capacity) {
+                    recordEviction(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
             }
         };
     }
 
     @Override
     public V get(K key) {
-        lock.lock();
+        acquire("get");
         try {
             return cache.get(key);
         } finally {
@@ -44,59 +72,189 @@ public class LRUCache<K, V> implements Cache<K, V> {
 
     @Override
     public void put(K key, V value) {
-        lock.lock();
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        acquire("put");
         try {
-            cache.put(key, value);
+            V previous = cache.put(key, value);
+            size = cache.size();
+            if (previous != null) {
+                notifyRemoval(key, previous, RemovalCause.REPLACED);
+            }
         } finally {
             lock.unlock();
         }
+        scheduleRemovals();
     }
 
     @Override
     public void remove(K key) {
-        lock.lock();
+        acquire("remove");
         try {
-            cache.remove(key);
+            V previous = cache.remove(key);
+            size = cache.size();
+            if (previous != null) {
+                notifyRemoval(key, previous, RemovalCause.EXPLICIT);
+            }
         } finally {
             lock.unlock();
         }
+        scheduleRemovals();
     }
 
     @Override
     public void clear() {
-        lock.lock();
+        acquire("clear");
         try {
+            RemovalDispatcher<K, V> dispatcher = removals;
+            if (dispatcher != null && dispatcher.hasListeners()) {
+                cache.forEach((key, value) -> dispatcher.enqueue(key, value, RemovalCause.EXPLICIT));
+            }
             cache.clear();
+            size = 0;
         } finally {
             lock.unlock();
         }
+        scheduleRemovals();
     }
 
     @Override
     public int size() {
-        lock.lock();
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public List<K> keys() {
+        acquire("keys");
         try {
-            return cache.size();
+            return new ArrayList<>(cache.keySet());
         } finally {
             lock.unlock();
         }
     }
 
     @Override
-    public boolean isEmpty() {
-        lock.lock();
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        acquire("setCapacity");
+        try {
+            this.capacity = capacity;
+            Iterator<Map.Entry<K, V>> eldest = cache.entrySet().iterator();
+            while (cache.size() > capacity) {
+                Map.Entry<K, V> entry = eldest.next();
+                eldest.remove();
+                recordEviction(entry.getKey(), entry.getValue());
+            }
+            size = cache.size();
+        } finally {
+            lock.unlock();
+        }
+        scheduleRemovals();
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<K, V> listener) {
+        acquire("addRemovalListener");
         try {
-            return cache.isEmpty();
+            if (removals == null) {
+                removals = new RemovalDispatcher<>();
+            }
+            removals.addListener(listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeRemovalListener(RemovalListener<K, V> listener) {
+        acquire("removeRemovalListener");
+        try {
+            if (removals != null) {
+                removals.removeListener(listener);
+            }
         } finally {
             lock.unlock();
         }
     }
 
     /**
-     * 获取缓存容量
-     * @return 缓存容量
+     * 设置移除通知分发器，用于指定交付通知的执行器、队列容量和批大小；已有的监听器不会迁移
+     * @param dispatcher 分发器，为null时不再发送移除通知
      */
-    public int getCapacity() {
-        return capacity;
+    public void setRemovalDispatcher(RemovalDispatcher<K, V> dispatcher) {
+        this.removals = dispatcher;
+    }
+
+    /**
+     * 获取移除通知分发器
+     * @return 分发器，没有添加过监听器时返回null
+     */
+    public RemovalDispatcher<K, V> getRemovalDispatcher() {
+        return removals;
+    }
+
+    /**
+     * 获取锁，锁已被占用时记录等待时间
+     */
+    private void acquire(String operation) {
+        if (lock.tryLock()) {
+            return;
+        }
+        CacheLockWaitEvent event = new CacheLockWaitEvent();
+        event.begin();
+        lock.lock();
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.commit();
+        }
+    }
+
+    private void recordEviction(K key, V value) {
+        evictions.increment();
+        notifyRemoval(key, value, RemovalCause.SIZE);
+        CacheEvictionEvent event = new CacheEvictionEvent();
+        if (event.isEnabled()) {
+            event.key = String.valueOf(key);
+            event.capacity = capacity;
+            event.commit();
+        }
+    }
+
+    /**
+     * 持有锁时调用，只把通知放入队列
+     */
+    private void notifyRemoval(K key, V value, RemovalCause cause) {
+        RemovalDispatcher<K, V> dispatcher = removals;
+        if (dispatcher != null) {
+            dispatcher.enqueue(key, value, cause);
+        }
+    }
+
+    /**
+     * 释放锁后调用，安排交付队列中的通知
+     */
+    private void scheduleRemovals() {
+        RemovalDispatcher<K, V> dispatcher = removals;
+        if (dispatcher != null) {
+            dispatcher.schedule();
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,159 @@
+package com.jinicache.cache;
+
+import com.jinicache.metrics.Counter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按块存储的大值缓存
+ * 按值的总字节数而不是条目数限制容量，超出时按LRU顺序淘汰；单个值超过上限时不保存
+ */
+final class LargeValueCache implements Cache<String, ChunkedValue> {
+    private final Map<String, ChunkedValue> values = new LinkedHashMap<>(16, 0.75f, true);
+    private final Lock lock = new ReentrantLock();
+    private final Counter evictions = new Counter();
+    private volatile long maxBytes;
+    private volatile long bytes;
+    private volatile int size;
+
+    /**
+     * 构造函数
+     * @param maxBytes 所有值的总字节数上限
+     */
+    LargeValueCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public ChunkedValue get(String key) {
+        lock.lock();
+        try {
+            return values.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(String key, ChunkedValue value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        lock.lock();
+        try {
+            ChunkedValue previous = value.size() <= maxBytes ? values.put(key, value) : values.remove(key);
+            long delta = value.size() <= maxBytes ? value.size() : 0;
+            bytes += delta - (previous != null ? previous.size() : 0);
+            evictToLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        lock.lock();
+        try {
+            ChunkedValue previous = values.remove(key);
+            if (previous != null) {
+                bytes -= previous.size();
+                size = values.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            values.clear();
+            bytes = 0;
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public List<String> keys() {
+        lock.lock();
+        try {
+            return new ArrayList<>(values.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * 获取当前保存的值的总字节数
+     * @return 字节数
+     */
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 获取总字节数上限
+     * @return 字节数
+     */
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 调整总字节数上限，缩小时立即淘汰最久未访问的值
+     * @param maxBytes 新上限，必须为正数
+     */
+    void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        lock.lock();
+        try {
+            this.maxBytes = maxBytes;
+            evictToLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 持有锁时调用，淘汰最久未访问的值直到总字节数不超过上限
+     */
+    private void evictToLimit() {
+        Iterator<ChunkedValue> eldest = values.values().iterator();
+        while (bytes > maxBytes) {
+            ChunkedValue value = eldest.next();
+            eldest.remove();
+            bytes -= value.size();
+            evictions.increment();
+        }
+        size = values.size();
+    }
+}
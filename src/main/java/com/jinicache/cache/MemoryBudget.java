@@ -0,0 +1,390 @@
+package com.jinicache.cache;
+
+import com.jinicache.metrics.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 缓存组共享的容量预算
+ * 加入预算的缓存组从同一个总容量中分配各自的容量，总和不超过预算。每个组维护一个影子列表，
+ * 记录最近因容量被淘汰的键（只有键，不保存值）；未命中的键如果在影子列表中，说明容量再大一些就能命中，
+ * 计为一次影子命中。定期再平衡时，把一步容量从影子命中最少的组移给影子命中最多的组，
+ * 空闲的预算优先分配，各组容量始终在自己的上下限之内。容量与缓存容量的单位相同，即条目数；
+ * 预算不考虑值的字节数，值的平均大小差别很大的组之间内存占用并不均衡，按块存储的大值也不计入
+ */
+public class MemoryBudget {
+    private static final Logger logger = LoggerFactory.getLogger(MemoryBudget.class);
+    private static final double GHOST_FRACTION = 0.25;
+
+    private final CacheManager cacheManager;
+    private final long totalCapacity;
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private final Counter rebalances = new Counter();
+    private final Counter transfers = new Counter();
+    private final Group.CapacityLimit capacityLimit = this::checkCapacity;
+    private volatile int step;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> task;
+
+    /**
+     * 加入预算的缓存组
+     */
+    private static final class Member {
+        final String name;
+        final Group group;
+        final int minCapacity;
+        final int maxCapacity;
+        final LinkedHashMap<String, Boolean> ghosts = new LinkedHashMap<>();
+        final AtomicLong ghostHits = new AtomicLong();
+        final Consumer<String> missListener;
+        final RemovalListener<String, byte[]> removalListener;
+        volatile boolean active = true;
+
+        Member(String name, Group group, int minCapacity, int maxCapacity) {
+            this.name = name;
+            this.group = group;
+            this.minCapacity = minCapacity;
+            this.maxCapacity = maxCapacity;
+            this.missListener = this::onMiss;
+            this.removalListener = this::onEvictions;
+        }
+
+        /**
+         * 组的当前缓存；切换淘汰策略后是新的缓存实现，移除监听器随之迁移
+         */
+        @SuppressWarnings("unchecked")
+        ResizableCache<String, byte[]> cache() {
+            return (ResizableCache<String, byte[]>) group.getCache();
+        }
+
+        void onEvictions(List<RemovalNotification<String, byte[]>> notifications) {
+            if (!active) {
+                return;
+            }
+            int limit = Math.max(1, (int) (cache().getCapacity() * GHOST_FRACTION));
+            synchronized (ghosts) {
+                for (RemovalNotification<String, byte[]> notification : notifications) {
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        ghosts.put(notification.getKey(), Boolean.TRUE);
+                    }
+                }
+                Iterator<String> oldest = ghosts.keySet().iterator();
+                while (ghosts.size() > limit) {
+                    oldest.next();
+                    oldest.remove();
+                }
+            }
+        }
+
+        void onMiss(String key) {
+            boolean ghost;
+            synchronized (ghosts) {
+                ghost = ghosts.remove(key) != null;
+            }
+            if (ghost) {
+                ghostHits.incrementAndGet();
+            }
+        }
+
+        int ghostSize() {
+            synchronized (ghosts) {
+                return ghosts.size();
+            }
+        }
+    }
+
+    /**
+     * 构造函数
+     * @param cacheManager 缓存管理器
+     * @param totalCapacity 所有加入预算的缓存组的总容量
+     */
+    public MemoryBudget(CacheManager cacheManager, long totalCapacity) {
+        if (totalCapacity < 1) {
+            throw new IllegalArgumentException("totalCapacity must be positive");
+        }
+        this.cacheManager = cacheManager;
+        this.totalCapacity = totalCapacity;
+        this.step = (int) Math.max(1, Math.min(Integer.MAX_VALUE, totalCapacity / 50));
+    }
+
+    /**
+     * 让缓存组加入预算，当前容量调整到上下限之内，并且不超过剩余的预算
+     * @param groupName 组名
+     * @param minCapacity 容量下限
+     * @param maxCapacity 容量上限
+     * @throws IllegalArgumentException 组不存在、已加入、底层缓存不支持调整容量或移除通知、上下限无效或剩余预算不足下限
+     */
+    public synchronized void join(String groupName, int minCapacity, int maxCapacity) {
+        if (minCapacity < 1 || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException("Invalid capacity bounds [" + minCapacity + ", " + maxCapacity + "]");
+        }
+        if (members.containsKey(groupName)) {
+            throw new IllegalArgumentException("Group " + groupName + " already shares the budget");
+        }
+        Group group = cacheManager.getGroup(groupName);
+        if (group == null || !(group.getCache() instanceof ResizableCache)) {
+            throw new IllegalArgumentException("Group " + groupName + " does not exist or its cache is not resizable");
+        }
+        long free = getFreeCapacity();
+        if (free < minCapacity) {
+            throw new IllegalArgumentException("Only " + free + " of the budget left, group " + groupName
+                    + " needs at least " + minCapacity);
+        }
+        @SuppressWarnings("unchecked")
+        ResizableCache<String, byte[]> cache = (ResizableCache<String, byte[]>) group.getCache();
+        Member member = new Member(groupName, group, minCapacity, maxCapacity);
+        try {
+            cache.addRemovalListener(member.removalListener);
+        } catch (UnsupportedOperationException e) {
+            throw new IllegalArgumentException("Cache of group " + groupName + " does not report removals", e);
+        }
+        group.addMissListener(member.missListener);
+        int capacity = (int) Math.max(minCapacity, Math.min(Math.min(maxCapacity, free), cache.getCapacity()));
+        if (capacity != cache.getCapacity()) {
+            group.setCapacity(capacity);
+        }
+        members.put(groupName, member);
+        group.addCapacityLimit(capacityLimit);
+    }
+
+    /**
+     * 缓存组退出预算，保留当前容量，占用的预算归还
+     * @param groupName 组名
+     */
+    public synchronized void leave(String groupName) {
+        Member member = members.remove(groupName);
+        if (member != null) {
+            detach(member);
+        }
+    }
+
+    /**
+     * 摘掉组上的监听器和容量约束；已经排队的淘汰通知由active标记忽略
+     */
+    private void detach(Member member) {
+        member.active = false;
+        member.group.removeMissListener(member.missListener);
+        member.group.getCache().removeRemovalListener(member.removalListener);
+        member.group.removeCapacityLimit(capacityLimit);
+    }
+
+    /**
+     * 设置每次再平衡移动的容量
+     * @param step 容量，默认为总预算的2%
+     */
+    public void setStep(int step) {
+        if (step < 1) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        this.step = step;
+    }
+
+    /**
+     * 按固定间隔定期再平衡
+     * @param interval 间隔
+     * @param unit 时间单位
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jinicache-memory-budget");
+            thread.setDaemon(true);
+            return thread;
+        });
+        task = scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rebalance();
+            } catch (RuntimeException e) {
+                logger.warn("Memory budget rebalance failed", e);
+            }
+        }, interval, interval, unit);
+    }
+
+    /**
+     * 停止定期再平衡，各组保留当前容量
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            task.cancel(false);
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 执行一次再平衡，并开始新的统计窗口
+     * @return 发生了容量移动时返回true
+     */
+    public synchronized boolean rebalance() {
+        rebalances.increment();
+        members.values().removeIf(member -> {
+            if (cacheManager.getGroup(member.name) != member.group
+                    || !(member.group.getCache() instanceof ResizableCache)) {
+                // 组已被删除或换成了不支持调整容量的缓存实现，占用的预算归还
+                detach(member);
+                return true;
+            }
+            return false;
+        });
+        Member receiver = null;
+        for (Member member : members.values()) {
+            long hits = member.ghostHits.get();
+            if (hits > 0 && member.cache().getCapacity() < member.maxCapacity
+                    && (receiver == null || hits > receiver.ghostHits.get())) {
+                receiver = member;
+            }
+        }
+        boolean moved = false;
+        if (receiver != null) {
+            int room = receiver.maxCapacity - receiver.cache().getCapacity();
+            long free = getFreeCapacity();
+            if (free > 0) {
+                moved = grow(receiver, (int) Math.min(Math.min(step, room), free));
+            } else {
+                Member donor = pickDonor(receiver);
+                if (donor != null) {
+                    int amount = Math.min(Math.min(step, room), donor.cache().getCapacity() - donor.minCapacity);
+                    // 先缩小再扩大，任何时刻总容量都不超过预算
+                    donor.group.setCapacity(donor.cache().getCapacity() - amount);
+                    moved = grow(receiver, amount);
+                    logger.debug("Moved {} of capacity from group {} ({} ghost hits) to {} ({} ghost hits)", amount,
+                            donor.name, donor.ghostHits.get(), receiver.name, receiver.ghostHits.get());
+                }
+            }
+        }
+        members.values().forEach(member -> member.ghostHits.set(0));
+        if (moved) {
+            transfers.increment();
+        }
+        return moved;
+    }
+
+    /**
+     * 选择让出容量的组：影子命中少于接收方且高于下限，影子命中相同时优先选未用满容量的组
+     */
+    private Member pickDonor(Member receiver) {
+        Member donor = null;
+        for (Member member : members.values()) {
+            if (member == receiver || member.cache().getCapacity() <= member.minCapacity
+                    || member.ghostHits.get() >= receiver.ghostHits.get()) {
+                continue;
+            }
+            if (donor == null || member.ghostHits.get() < donor.ghostHits.get()
+                    || (member.ghostHits.get() == donor.ghostHits.get() && unused(member) > unused(donor))) {
+                donor = member;
+            }
+        }
+        return donor;
+    }
+
+    private static int unused(Member member) {
+        return member.cache().getCapacity() - member.cache().size();
+    }
+
+    private boolean grow(Member member, int amount) {
+        if (amount <= 0) {
+            return false;
+        }
+        member.group.setCapacity(member.cache().getCapacity() + amount);
+        return true;
+    }
+
+    /**
+     * 外部调整加入预算的组的容量前检查：新容量在组的上下限之内，扩大的部分不超过剩余的预算
+     */
+    private synchronized void checkCapacity(Group group, int capacity) {
+        Member member = members.get(group.getName());
+        if (member == null || member.group != group) {
+            return;
+        }
+        if (capacity < member.minCapacity || capacity > member.maxCapacity) {
+            throw new IllegalArgumentException("Capacity " + capacity + " of group " + member.name
+                    + " is outside its budget bounds [" + member.minCapacity + ", " + member.maxCapacity + "]");
+        }
+        long growth = capacity - member.cache().getCapacity();
+        long free = getFreeCapacity();
+        if (growth > free) {
+            throw new IllegalArgumentException("Only " + free + " of the budget left, group " + member.name
+                    + " cannot grow by " + growth);
+        }
+    }
+
+    /**
+     * 获取总预算
+     * @return 容量
+     */
+    public long getTotalCapacity() {
+        return totalCapacity;
+    }
+
+    /**
+     * 获取尚未分配给任何组的预算
+     * @return 容量
+     */
+    public synchronized long getFreeCapacity() {
+        long allocated = 0;
+        for (Member member : members.values()) {
+            allocated += member.cache().getCapacity();
+        }
+        return totalCapacity - allocated;
+    }
+
+    /**
+     * 获取加入预算的组名
+     * @return 组名列表
+     */
+    public List<String> getGroupNames() {
+        return new ArrayList<>(members.keySet());
+    }
+
+    /**
+     * 获取缓存组在当前统计窗口内的影子命中数
+     * @param groupName 组名
+     * @return 影子命中数，组未加入时返回0
+     */
+    public long getGhostHits(String groupName) {
+        Member member = members.get(groupName);
+        return member != null ? member.ghostHits.get() : 0;
+    }
+
+    /**
+     * 获取缓存组影子列表中的键数
+     * @param groupName 组名
+     * @return 键数，组未加入时返回0
+     */
+    public int getGhostSize(String groupName) {
+        Member member = members.get(groupName);
+        return member != null ? member.ghostSize() : 0;
+    }
+
+    /**
+     * 获取再平衡次数
+     * @return 次数
+     */
+    public long getRebalanceCount() {
+        return rebalances.get();
+    }
+
+    /**
+     * 获取发生容量移动的再平衡次数
+     * @return 次数
+     */
+    public long getTransferCount() {
+        return transfers.get();
+    }
+}
@@ -0,0 +1,306 @@
+package com.jinicache.cache;
+
+import com.jinicache.metrics.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存调节器
+ * 根据垃圾回收后老年代的占用率调整缓存组的容量，使堆占用率稳定在目标值附近：
+ * 回收后占用率高于目标时，所有受管缓存组按同一比例缩小容量并立即淘汰超出的条目；
+ * 占用率低于目标减去回差时，已写满的缓存组按比例扩大容量。容量始终在每个组配置的上下限之内，
+ * 单次缩小不超过一半，单次扩大不超过25%，两次扩大之间至少间隔一个扩容间隔
+ */
+public class MemoryGovernor {
+    private static final Logger logger = LoggerFactory.getLogger(MemoryGovernor.class);
+    /**
+     * 垃圾回收通知类型，见com.sun.management.GarbageCollectionNotificationInfo
+     */
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+    private static final double HYSTERESIS = 0.05;
+    private static final double MIN_SHRINK_FACTOR = 0.5;
+    private static final double MAX_GROW_FACTOR = 1.25;
+    private static final long DEFAULT_GROW_INTERVAL_MILLIS = 1000;
+
+    private final CacheManager cacheManager;
+    private final double targetOccupancy;
+    private final Map<String, int[]> bounds = new ConcurrentHashMap<>();
+    private final Group.CapacityLimit capacityLimit = this::checkBounds;
+    private final NotificationListener listener = (notification, handback) -> onNotification(notification);
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final List<MemoryPoolMXBean> tenuredPools = new ArrayList<>();
+    private final Counter samples = new Counter();
+    private final Counter shrinks = new Counter();
+    private final Counter grows = new Counter();
+    private volatile long growIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_GROW_INTERVAL_MILLIS);
+    private volatile double lastOccupancy;
+    private boolean grown;
+    private long lastGrowNanos;
+
+    /**
+     * 构造函数
+     * @param cacheManager 缓存管理器
+     * @param targetOccupancy 目标堆占用率，取值在0到1之间
+     */
+    public MemoryGovernor(CacheManager cacheManager, double targetOccupancy) {
+        if (!(targetOccupancy > 0 && targetOccupancy < 1)) {
+            throw new IllegalArgumentException("targetOccupancy must be between 0 and 1");
+        }
+        this.cacheManager = cacheManager;
+        this.targetOccupancy = targetOccupancy;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            // 支持使用量阈值的堆内存池是老年代，新生代的占用在每次回收后归零，不反映存活数据量
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                    && pool.isCollectionUsageThresholdSupported()) {
+                tenuredPools.add(pool);
+            }
+        }
+    }
+
+    /**
+     * 让缓存组受本调节器管理，当前容量立即调整到上下限之内
+     * @param groupName 组名
+     * @param minCapacity 容量下限
+     * @param maxCapacity 容量上限
+     * @throws IllegalArgumentException 组不存在、底层缓存不支持调整容量或上下限无效
+     */
+    public void govern(String groupName, int minCapacity, int maxCapacity) {
+        if (minCapacity < 1 || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException("Invalid capacity bounds [" + minCapacity + ", " + maxCapacity + "]");
+        }
+        Group group = resizableGroup(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("Group " + groupName + " does not exist or its cache is not resizable");
+        }
+        synchronized (this) {
+            bounds.put(groupName, new int[]{minCapacity, maxCapacity});
+            int capacity = group.getCapacity();
+            int clamped = Math.max(minCapacity, Math.min(maxCapacity, capacity));
+            if (clamped != capacity) {
+                group.setCapacity(clamped);
+            }
+        }
+        group.addCapacityLimit(capacityLimit);
+    }
+
+    /**
+     * 不再管理缓存组，保留它当前的容量
+     * @param groupName 组名
+     */
+    public void release(String groupName) {
+        bounds.remove(groupName);
+        Group group = cacheManager.getGroup(groupName);
+        if (group != null) {
+            group.removeCapacityLimit(capacityLimit);
+        }
+    }
+
+    /**
+     * 外部调整受管缓存组的容量前检查新容量在配置的上下限之内
+     */
+    private void checkBounds(Group group, int capacity) {
+        int[] limits = bounds.get(group.getName());
+        if (limits != null && (capacity < limits[0] || capacity > limits[1])) {
+            throw new IllegalArgumentException("Capacity " + capacity + " of group " + group.getName()
+                    + " is outside its governed bounds [" + limits[0] + ", " + limits[1] + "]");
+        }
+    }
+
+    /**
+     * 设置两次扩容之间的最短间隔
+     * @param interval 间隔
+     * @param unit 时间单位
+     */
+    public void setGrowInterval(long interval, TimeUnit unit) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval must not be negative");
+        }
+        this.growIntervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * 开始监听垃圾回收通知，并在老年代回收后的占用超过目标时收到阈值通知
+     */
+    public synchronized void start() {
+        if (!emitters.isEmpty()) {
+            return;
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(listener,
+                        notification -> GC_NOTIFICATION.equals(notification.getType()), null);
+                emitters.add(emitter);
+            }
+        }
+        for (MemoryPoolMXBean pool : tenuredPools) {
+            long max = pool.getUsage().getMax();
+            if (max > 0) {
+                pool.setCollectionUsageThreshold((long) (max * targetOccupancy));
+            }
+        }
+        NotificationEmitter memory = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        memory.addNotificationListener(listener, notification ->
+                MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()), null);
+        emitters.add(memory);
+        logger.info("Memory governor started with target heap occupancy {}", targetOccupancy);
+    }
+
+    /**
+     * 停止监听，缓存组保留当前容量
+     */
+    public synchronized void stop() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                // 已经移除
+            }
+        }
+        emitters.clear();
+        for (MemoryPoolMXBean pool : tenuredPools) {
+            pool.setCollectionUsageThreshold(0);
+        }
+    }
+
+    private void onNotification(Notification notification) {
+        double occupancy = tenuredOccupancy();
+        if (occupancy >= 0) {
+            adjust(occupancy);
+        }
+    }
+
+    /**
+     * 计算最近一次回收后老年代的占用率
+     * @return 占用率，无法计算时返回-1
+     */
+    double tenuredOccupancy() {
+        long used = 0;
+        long max = 0;
+        for (MemoryPoolMXBean pool : tenuredPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            long poolMax = pool.getUsage().getMax();
+            if (usage == null || poolMax <= 0) {
+                continue;
+            }
+            used += usage.getUsed();
+            max += poolMax;
+        }
+        return max > 0 ? (double) used / max : -1;
+    }
+
+    /**
+     * 根据一次观测到的堆占用率调整受管缓存组的容量
+     * @param occupancy 回收后的堆占用率
+     */
+    public synchronized void adjust(double occupancy) {
+        samples.increment();
+        lastOccupancy = occupancy;
+        if (occupancy > targetOccupancy) {
+            double factor = Math.max(MIN_SHRINK_FACTOR, targetOccupancy / occupancy);
+            if (resizeAll(factor, false)) {
+                shrinks.increment();
+                logger.info("Heap occupancy {} above target {}, shrank governed caches by factor {}",
+                        String.format("%.2f", occupancy), targetOccupancy, String.format("%.2f", factor));
+            }
+        } else if (occupancy < targetOccupancy - HYSTERESIS
+                && (!grown || System.nanoTime() - lastGrowNanos >= growIntervalNanos)) {
+            double factor = occupancy > 0 ? Math.min(MAX_GROW_FACTOR, targetOccupancy / occupancy) : MAX_GROW_FACTOR;
+            if (resizeAll(factor, true)) {
+                grows.increment();
+                grown = true;
+                lastGrowNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 按比例调整所有受管缓存组的容量；扩大时只调整已写满的组。按块存储的大值不计入条目数，
+     * 它们的字节上限按同一比例调整，不超过组配置的上限
+     * @return 至少一个组的容量发生变化时返回true
+     */
+    private boolean resizeAll(double factor, boolean grow) {
+        boolean changed = false;
+        for (Map.Entry<String, int[]> entry : bounds.entrySet()) {
+            Group group = resizableGroup(entry.getKey());
+            if (group == null) {
+                // 组已被删除
+                bounds.remove(entry.getKey());
+                continue;
+            }
+            changed |= group.scaleLargeValues(factor);
+            int capacity = group.getCapacity();
+            if (grow && group.getCache().size() < capacity) {
+                continue;
+            }
+            long scaled = grow ? (long) Math.ceil(capacity * factor) : (long) Math.floor(capacity * factor);
+            int target = (int) Math.max(entry.getValue()[0], Math.min(entry.getValue()[1], scaled));
+            if (target != capacity) {
+                group.setCapacity(target);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private Group resizableGroup(String groupName) {
+        Group group = cacheManager.getGroup(groupName);
+        return group != null && group.getCache() instanceof ResizableCache ? group : null;
+    }
+
+    /**
+     * 获取目标堆占用率
+     * @return 目标占用率
+     */
+    public double getTargetOccupancy() {
+        return targetOccupancy;
+    }
+
+    /**
+     * 获取最近一次观测到的堆占用率
+     * @return 占用率，还没有观测时为0
+     */
+    public double getLastOccupancy() {
+        return lastOccupancy;
+    }
+
+    /**
+     * 获取观测次数
+     * @return 次数
+     */
+    public long getSampleCount() {
+        return samples.get();
+    }
+
+    /**
+     * 获取缩小容量的次数
+     * @return 次数
+     */
+    public long getShrinkCount() {
+        return shrinks.get();
+    }
+
+    /**
+     * 获取扩大容量的次数
+     * @return 次数
+     */
+    public long getGrowCount() {
+        return grows.get();
+    }
+}
@@ -0,0 +1,17 @@
+package com.jinicache.cache;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 远端节点获取接口
+ * 从键的所属节点获取缓存值
+ */
+public interface PeerGetter {
+    /**
+     * 从远端节点获取缓存值
+     * @param group 组名
+     * @param key 键
+     * @return 值的CompletableFuture，远端不存在时结果为null
+     */
+    CompletableFuture<byte[]> get(String group, String key);
+}
@@ -0,0 +1,22 @@
+package com.jinicache.cache;
+
+/**
+ * 远端节点选择接口
+ * 根据键选择负责该键的远端节点
+ */
+public interface PeerPicker {
+    /**
+     * 选择键的所属节点
+     * @param key 键
+     * @return 远端节点获取器，键属于本节点时返回null
+     */
+    PeerGetter pickPeer(String key);
+
+    /**
+     * 通知其他节点丢弃键的副本，默认不做任何事
+     * @param group 组名
+     * @param key 键
+     */
+    default void broadcastInvalidation(String group, String key) {
+    }
+}
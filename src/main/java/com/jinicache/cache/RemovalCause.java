@@ -0,0 +1,31 @@
+package com.jinicache.cache;
+
+/**
+ * 条目被移除的原因
+ */
+public enum RemovalCause {
+    /**
+     * 调用remove或clear显式删除
+     */
+    EXPLICIT,
+    /**
+     * 同一个键写入了新值，旧值被替换
+     */
+    REPLACED,
+    /**
+     * 超出容量被淘汰
+     */
+    SIZE,
+    /**
+     * 超过有效期被淘汰，由支持过期的实现使用
+     */
+    EXPIRED;
+
+    /**
+     * 判断是否由缓存自动淘汰，而不是调用方删除或替换
+     * @return 容量淘汰或过期时返回true
+     */
+    public boolean wasEvicted() {
+        return this == SIZE || this == EXPIRED;
+    }
+}
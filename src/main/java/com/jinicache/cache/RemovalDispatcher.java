@@ -0,0 +1,172 @@
+package com.jinicache.cache;
+
+import com.jinicache.metrics.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 移除通知分发器
+ * 缓存在持有锁时只把通知放入有界队列，释放锁后调用{@link #schedule()}；通知在执行器中按批交给监听器，
+ * 慢速的监听器不会延长缓存持有锁的时间。队列已满时丢弃新通知并计数，写入路径从不等待监听器
+ * @param <K> 键的类型
+ * @param <V> 值的类型
+ */
+public class RemovalDispatcher<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(RemovalDispatcher.class);
+    private static final int DEFAULT_QUEUE_CAPACITY = 65536;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private final Executor executor;
+    private final BlockingQueue<RemovalNotification<K, V>> queue;
+    private final int maxBatchSize;
+    private final List<RemovalListener<K, V>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final Counter delivered = new Counter();
+    private final Counter dropped = new Counter();
+    private final Counter batches = new Counter();
+
+    /**
+     * 构造函数，使用公共线程池、默认队列容量和批大小
+     */
+    public RemovalDispatcher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * 构造函数
+     * @param executor 交付通知的执行器
+     * @param queueCapacity 等待交付的最大通知数
+     * @param maxBatchSize 单批最多交付的通知数
+     */
+    public RemovalDispatcher(Executor executor, int queueCapacity, int maxBatchSize) {
+        if (executor == null || queueCapacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid removal dispatcher executor, queue capacity or batch size");
+        }
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 添加监听器
+     * @param listener 监听器
+     */
+    public void addListener(RemovalListener<K, V> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 移除监听器
+     * @param listener 监听器
+     */
+    public void removeListener(RemovalListener<K, V> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 判断是否有监听器，没有时缓存可以跳过构造通知
+     * @return 有监听器时返回true
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * 放入一条通知，不等待；可以在持有缓存锁时调用
+     * @param key 键
+     * @param value 被移除的值
+     * @param cause 移除原因
+     */
+    public void enqueue(K key, V value, RemovalCause cause) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (!queue.offer(new RemovalNotification<>(key, value, cause))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 有待交付的通知且没有正在进行的交付时，向执行器提交一次交付；应当在释放缓存锁之后调用
+     */
+    public void schedule() {
+        if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            logger.warn("Removal notifications not delivered, executor rejected the task: {}", e.toString());
+        }
+    }
+
+    private void drain() {
+        List<RemovalNotification<K, V>> batch = new ArrayList<>(Math.min(maxBatchSize, queue.size()));
+        try {
+            while (queue.drainTo(batch, maxBatchSize) > 0) {
+                deliver(Collections.unmodifiableList(batch));
+                batch = new ArrayList<>(Math.min(maxBatchSize, queue.size()));
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 交付结束和放开标志之间到达的通知
+        schedule();
+    }
+
+    private void deliver(List<RemovalNotification<K, V>> batch) {
+        batches.increment();
+        for (RemovalListener<K, V> listener : listeners) {
+            try {
+                listener.onRemoval(batch);
+            } catch (RuntimeException e) {
+                logger.warn("Removal listener failed on a batch of {} notifications", batch.size(), e);
+            }
+        }
+        delivered.add(batch.size());
+    }
+
+    /**
+     * 获取等待交付的通知数
+     * @return 通知数
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * 获取已交付的通知数
+     * @return 通知数
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * 获取因队列已满被丢弃的通知数
+     * @return 通知数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 获取交付的批次数
+     * @return 批次数
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+}
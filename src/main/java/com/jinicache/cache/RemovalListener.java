@@ -0,0 +1,18 @@
+package com.jinicache.cache;
+
+import java.util.List;
+
+/**
+ * 条目移除监听器
+ * 通知在写入路径之外按批交付，监听器可以把淘汰的数据落盘、计数或释放关联资源
+ * @param <K> 键的类型
+ * @param <V> 值的类型
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+    /**
+     * 处理一批移除通知，同一个缓存的通知按发生顺序交付，同一时刻只有一个批次在处理
+     * @param notifications 移除通知，只读
+     */
+    void onRemoval(List<RemovalNotification<K, V>> notifications);
+}
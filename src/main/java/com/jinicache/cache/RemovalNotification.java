@@ -0,0 +1,41 @@
+package com.jinicache.cache;
+
+/**
+ * 条目移除通知
+ * @param <K> 键的类型
+ * @param <V> 值的类型
+ */
+public final class RemovalNotification<K, V> {
+    private final K key;
+    private final V value;
+    private final RemovalCause cause;
+
+    /**
+     * 构造函数
+     * @param key 键
+     * @param value 被移除的值
+     * @param cause 移除原因
+     */
+    public RemovalNotification(K key, V value, RemovalCause cause) {
+        this.key = key;
+        this.value = value;
+        this.cause = cause;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public RemovalCause getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return key + " (" + cause + ")";
+    }
+}
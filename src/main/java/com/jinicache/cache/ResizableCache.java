@@ -0,0 +1,21 @@
+package com.jinicache.cache;
+
+/**
+ * 可以在运行时调整容量的缓存
+ * @param <K> 键的类型
+ * @param <V> 值的类型
+ */
+public interface ResizableCache<K, V> extends Cache<K, V> {
+    /**
+     * 获取缓存容量
+     * @return 最多保存的键值对数量
+     */
+    int getCapacity();
+
+    /**
+     * 调整缓存容量，缩小时立即淘汰超出的条目
+     * @param capacity 新容量，必须为正数
+     * @throws IllegalArgumentException 容量不是正数
+     */
+    void setCapacity(int capacity);
+}
@@ -1,5 +1,6 @@
 package com.jinicache.cache;
 
+import com.jinicache.jfr.SingleFlightEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +19,45 @@ public class SingleFlight<T> {
     private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
     private final ConcurrentHashMap<String, Call<T>> calls = new ConcurrentHashMap<>();
     private static final long DEFAULT_TIMEOUT_MS = 30000; // 30秒超时
+    private volatile long timeoutMs;
+
+    /**
+     * 构造函数（默认30秒超时）
+     */
+    public SingleFlight() {
+        this(DEFAULT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 构造函数
+     * @param timeout 超时时间
+     * @param timeUnit 时间单位
+     */
+    public SingleFlight(long timeout, TimeUnit timeUnit) {
+        this.timeoutMs = timeUnit.toMillis(timeout);
+    }
+
+    /**
+     * 调整超时时间，只影响之后发起的调用
+     * @param timeout 超时时间，必须为正数
+     * @param timeUnit 时间单位
+     */
+    public void setTimeout(long timeout, TimeUnit timeUnit) {
+        long millis = timeUnit.toMillis(timeout);
+        if (millis <= 0) {
+            throw new IllegalArgumentException("timeout must be at least 1 ms");
+        }
+        this.timeoutMs = millis;
+    }
+
+    /**
+     * 获取超时时间
+     * @param timeUnit 时间单位
+     * @return 超时时间
+     */
+    public long getTimeout(TimeUnit timeUnit) {
+        return timeUnit.convert(timeoutMs, TimeUnit.MILLISECONDS);
+    }
 
     /**
      * 执行函数，确保相同key的并发请求只执行一次
@@ -26,27 +66,62 @@ public class SingleFlight<T> {
      * @return 执行结果
      */
     public CompletableFuture<T> doCall(String key, Supplier<T> fn) {
-        return calls.compute(key, (k, existingCall) -> {
+        return doCallAsync(key, () -> CompletableFuture.supplyAsync(fn));
+    }
+
+    /**
+     * 执行异步函数，确保相同key的并发请求只发起一次
+     * 函数在调用线程中启动，返回的Future完成前不占用任何线程
+     * @param key 键
+     * @param fn 发起异步操作的函数
+     * @return 执行结果
+     */
+    public CompletableFuture<T> doCallAsync(String key, Supplier<CompletableFuture<T>> fn) {
+        SingleFlightEvent event = new SingleFlightEvent();
+        event.begin();
+        boolean[] shared = new boolean[1];
+        Call<T> call = calls.compute(key, (k, existingCall) -> {
             // 如果存在调用且未完成，返回现有调用
-            if (existingCall != null && !existingCall.isCompleted() && !existingCall.isExpired(DEFAULT_TIMEOUT_MS)) {
+            if (existingCall != null && !existingCall.isCompleted() && !existingCall.isExpired(timeoutMs)) {
+                shared[0] = true;
                 return existingCall;
             }
-            
-            // 创建新的调用
-            CompletableFuture<T> future = CompletableFuture.supplyAsync(fn)
-                    .orTimeout(DEFAULT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-            
-            Call<T> newCall = new Call<>(key, future);
-            
+            // 创建新的调用，函数在compute之外启动，同步完成的函数不会在compute中清理自己
+            return new Call<>(key, new CompletableFuture<>());
+        });
+        CompletableFuture<T> future = call.getFuture();
+        if (!shared[0]) {
+            future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
             // 当调用完成时清理
             future.whenComplete((result, error) -> {
-                if (newCall.markCompleted()) {
-                    calls.remove(key, newCall);
+                if (call.markCompleted()) {
+                    calls.remove(key, call);
                 }
             });
-            
-            return newCall;
-        }).getFuture();
+            try {
+                fn.get().whenComplete((result, error) -> {
+                    if (error != null) {
+                        future.completeExceptionally(error);
+                    } else {
+                        future.complete(result);
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+        if (event.isEnabled()) {
+            future.whenComplete((value, error) -> {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.key = key;
+                    event.shared = shared[0];
+                    event.failed = error != null;
+                    event.commit();
+                }
+            });
+        }
+        return future;
     }
     
     /**
@@ -57,7 +132,7 @@ public class SingleFlight<T> {
         long currentTime = System.currentTimeMillis();
         calls.entrySet().removeIf(entry -> {
             Call<T> call = entry.getValue();
-            if (call.isExpired(DEFAULT_TIMEOUT_MS) || call.isCompleted()) {
+            if (call.isExpired(timeoutMs) || call.isCompleted()) {
                 logger.debug("Removing expired/completed call for key: {}", entry.getKey());
                 return true;
             }
@@ -81,7 +156,7 @@ public class SingleFlight<T> {
      */
     public boolean hasActiveCall(String key) {
         Call<T> call = calls.get(key);
-        return call != null && !call.isCompleted() && !call.isExpired(DEFAULT_TIMEOUT_MS);
+        return call != null && !call.isCompleted() && !call.isExpired(timeoutMs);
     }
     
     /**
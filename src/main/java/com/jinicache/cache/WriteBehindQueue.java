@@ -0,0 +1,330 @@
+package com.jinicache.cache;
+
+import com.jinicache.metrics.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步回写队列
+ * 写入先进入队列，同一个键在写出前的多次更新合并为最后一次；后台线程在攒够一批或最早的写入等待超过
+ * 刷新间隔时（以先到者为准）把一批写入交给写入器。队列中的键达到上限时写入方等待，超时后拒绝。
+ * 只有一个后台线程写出，同一个键的写入按提交顺序到达后端；写出失败的批次在一个刷新间隔后重试，
+ * 重试期间同一个键的新值优先
+ */
+public class WriteBehindQueue {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final Group.Writer writer;
+    private final int maxBatchSize;
+    private final long flushIntervalNanos;
+    private final int maxPendingKeys;
+    private final long offerTimeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition ready = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private final Thread flusher;
+    private final Counter enqueued = new Counter();
+    private final Counter coalesced = new Counter();
+    private final Counter written = new Counter();
+    private final Counter batches = new Counter();
+    private final Counter failedBatches = new Counter();
+    private LinkedHashMap<String, byte[]> pending = new LinkedHashMap<>();
+    private long oldestNanos;
+    private long retryAtNanos = System.nanoTime();
+    private boolean writing;
+    private int flushRequests;
+    private boolean closed;
+
+    /**
+     * 构造函数，创建后立即启动后台写出线程
+     * @param name 名称，用于线程名
+     * @param writer 写入器
+     * @param maxBatchSize 单批最大键数
+     * @param flushIntervalMillis 刷新间隔（毫秒），写入在队列中最多等待这么久
+     * @param maxPendingKeys 队列中最多等待写出的键数，不小于单批最大键数
+     * @param offerTimeoutMillis 队列已满时写入方最多等待的时间（毫秒）
+     */
+    public WriteBehindQueue(String name, Group.Writer writer, int maxBatchSize, long flushIntervalMillis,
+                            int maxPendingKeys, long offerTimeoutMillis) {
+        if (maxBatchSize < 1 || flushIntervalMillis <= 0 || offerTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Invalid write-behind batch size, interval or timeout");
+        }
+        if (maxPendingKeys < maxBatchSize) {
+            throw new IllegalArgumentException("maxPendingKeys must not be smaller than maxBatchSize");
+        }
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.maxPendingKeys = maxPendingKeys;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.flusher = new Thread(this::run, "jinicache-write-behind-" + name);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 提交一次写入；键已在队列中时只替换值
+     * @param key 键
+     * @param value 值
+     * @throws RejectedExecutionException 队列已满且等待超时，或等待时被中断
+     * @throws IllegalStateException 队列已关闭
+     */
+    public void enqueue(String key, byte[] value) {
+        if (!offer(key, value, offerTimeoutNanos)) {
+            throw new RejectedExecutionException("write-behind queue is full (" + maxPendingKeys + " keys)");
+        }
+    }
+
+    /**
+     * 提交一次写入，队列已满时不等待；键已在队列中时只替换值
+     * @param key 键
+     * @param value 值
+     * @return 写入进入队列返回true，队列已满返回false
+     * @throws IllegalStateException 队列已关闭
+     */
+    public boolean tryEnqueue(String key, byte[] value) {
+        return offer(key, value, 0);
+    }
+
+    private boolean offer(String key, byte[] value, long timeoutNanos) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("write-behind queue is closed");
+            }
+            if (pending.containsKey(key)) {
+                enqueued.increment();
+                pending.put(key, value);
+                coalesced.increment();
+                return true;
+            }
+            long remaining = timeoutNanos;
+            while (pending.size() >= maxPendingKeys) {
+                if (remaining <= 0) {
+                    ready.signal();
+                    return false;
+                }
+                ready.signal();
+                try {
+                    remaining = notFull.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("interrupted while waiting for the write-behind queue", e);
+                }
+            }
+            enqueued.increment();
+            boolean wasEmpty = pending.isEmpty();
+            if (wasEmpty) {
+                oldestNanos = System.nanoTime();
+            }
+            pending.put(key, value);
+            // 队列由空变为非空时唤醒后台线程开始计时，攒够一批时唤醒它立即写出
+            if (wasEmpty || pending.size() >= maxBatchSize) {
+                ready.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 立即写出队列中的所有写入，等待写完
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 在超时前写完返回true
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            flushRequests++;
+            ready.signal();
+            try {
+                while (!pending.isEmpty() || writing) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = idle.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                flushRequests--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写出剩余的写入并停止后台线程，之后的提交会失败
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            logger.warn("Write-behind queue closed with {} keys not written", getPendingCount());
+            flusher.interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Map<String, byte[]> batch;
+            lock.lock();
+            try {
+                try {
+                    while (!batchReady()) {
+                        if (closed && pending.isEmpty()) {
+                            return;
+                        }
+                        if (pending.isEmpty()) {
+                            ready.await();
+                        } else {
+                            long now = System.nanoTime();
+                            ready.awaitNanos(Math.max(retryAtNanos - now, flushIntervalNanos - (now - oldestNanos)));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                batch = takeBatch();
+                writing = true;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            boolean success = write(batch);
+
+            lock.lock();
+            try {
+                writing = false;
+                if (!success) {
+                    // 失败的写入放回队列，期间到达的新值优先；重试前等待一个刷新间隔
+                    if (pending.isEmpty()) {
+                        oldestNanos = System.nanoTime();
+                    }
+                    batch.forEach(pending::putIfAbsent);
+                    retryAtNanos = System.nanoTime() + flushIntervalNanos;
+                }
+                if (pending.isEmpty()) {
+                    idle.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean batchReady() {
+        if (pending.isEmpty() || System.nanoTime() - retryAtNanos < 0) {
+            return false;
+        }
+        return closed || flushRequests > 0 || pending.size() >= maxBatchSize
+                || System.nanoTime() - oldestNanos >= flushIntervalNanos;
+    }
+
+    private Map<String, byte[]> takeBatch() {
+        if (pending.size() <= maxBatchSize) {
+            Map<String, byte[]> batch = pending;
+            pending = new LinkedHashMap<>();
+            return batch;
+        }
+        Map<String, byte[]> batch = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, byte[]>> it = pending.entrySet().iterator();
+        while (batch.size() < maxBatchSize) {
+            Map.Entry<String, byte[]> entry = it.next();
+            batch.put(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+        return batch;
+    }
+
+    private boolean write(Map<String, byte[]> batch) {
+        batches.increment();
+        try {
+            writer.writeAll(batch);
+            written.add(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            logger.warn("Write-behind batch of {} keys failed: {}", batch.size(), e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * 获取队列中等待写出的键数
+     * @return 键数
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取进入队列的写入次数，队列已满被拒绝的写入不计入
+     * @return 次数
+     */
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    /**
+     * 获取被同一个键之后的写入覆盖、没有单独写出的次数
+     * @return 次数
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * 获取成功写出的键数
+     * @return 键数
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * 获取调用写入器的批次数，包括失败的批次
+     * @return 批次数
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * 获取写出失败的批次数
+     * @return 批次数
+     */
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+}
@@ -0,0 +1,65 @@
+package com.jinicache.hash;
+
+/**
+ * 有界负载的一致性哈希（Consistent Hashing with Bounded Loads）
+ * 每个节点的负载上限为 (1+ε) × 平均负载；键的首选节点超过上限时，
+ * 沿环顺时针交给下一个未超限的节点，从而限制热点节点的负载
+ */
+public class BoundedLoadConsistentHash<T> {
+    private final ConsistentHash<T> ring;
+    private final LoadTracker<T> loads;
+    private final double epsilon;
+
+    /**
+     * 构造函数
+     * @param ring 底层哈希环
+     * @param loads 节点负载来源
+     * @param epsilon 允许超出平均负载的比例，必须大于0
+     */
+    public BoundedLoadConsistentHash(ConsistentHash<T> ring, LoadTracker<T> loads, double epsilon) {
+        if (epsilon <= 0) {
+            throw new IllegalArgumentException("epsilon must be positive");
+        }
+        this.ring = ring;
+        this.loads = loads;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * 获取key对应的节点
+     * @param key 键
+     * @return 负载未超过上限的节点；所有节点都超限时返回首选节点
+     */
+    public T get(Object key) {
+        int nodeCount = ring.size();
+        if (nodeCount == 0) {
+            return null;
+        }
+        long capacity = capacity(nodeCount);
+        return ring.get(key, node -> loads.load(node) < capacity);
+    }
+
+    /**
+     * 计算当前的单节点负载上限：ceil((1+ε) × (总负载+1) / 节点数)
+     * 加1表示正在放置的这一次请求
+     */
+    private long capacity(int nodeCount) {
+        return (long) Math.ceil((1 + epsilon) * (loads.totalLoad() + 1) / nodeCount);
+    }
+
+    /**
+     * 获取负载上限比例
+     * @return ε
+     */
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    /**
+     * 获取底层哈希环
+     * @return 哈希环
+     */
+    public ConsistentHash<T> getRing() {
+        return ring;
+    }
+}
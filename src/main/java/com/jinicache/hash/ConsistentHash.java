@@ -1,24 +1,62 @@
 package com.jinicache.hash;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.SortedMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * 一致性哈希实现
  * 用于在分布式系统中进行节点选择
- * 使用ConcurrentSkipListMap确保线程安全
+ * 成员变更时在写锁内重建不可变的环快照（有序的虚拟节点哈希数组和对应的节点数组），
+ * 通过volatile引用发布；查找只读取一次快照并做一次二分查找，无需加锁
+ * 节点可以带权重，虚拟节点数与权重成正比；虚拟节点按"节点名#序号"命名，
+ * 调整权重只会增加或删除序号末尾的虚拟节点，只有这些虚拟节点上的键会迁移
  */
 public class ConsistentHash<T> {
+    private static final int MAX_REPLICAS_PER_NODE = 1 << 20;
     private final int numberOfReplicas;
-    private final SortedMap<Integer, T> circle = new ConcurrentSkipListMap<>();
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<T, Integer> members = new LinkedHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile Ring ring = Ring.EMPTY;
+
+    /**
+     * 哈希环快照，创建后不再修改
+     */
+    private static final class Ring {
+        static final Ring EMPTY = new Ring(new long[0], new Object[0], 0);
+
+        final long[] hashes;
+        final Object[] owners;
+        final int nodeCount;
+
+        Ring(long[] hashes, Object[] owners, int nodeCount) {
+            this.hashes = hashes;
+            this.owners = owners;
+            this.nodeCount = nodeCount;
+        }
+
+        /**
+         * 顺时针查找第一个不小于hash的虚拟节点下标
+         */
+        int indexOf(long hash) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index == hashes.length ? 0 : index;
+        }
+    }
 
     /**
      * 构造函数
-     * @param numberOfReplicas 每个节点的虚拟节点数量
+     * @param numberOfReplicas 权重为1的节点的虚拟节点数量
      */
     public ConsistentHash(int numberOfReplicas) {
         this.numberOfReplicas = numberOfReplicas;
@@ -29,23 +67,88 @@ public class ConsistentHash<T> {
      * @param node 节点
      */
     public void addNode(T node) {
-        lock.writeLock().lock();
-        try {
-            for (int i = 0; i < numberOfReplicas; i++) {
-                circle.put(hash(node.toString() + i), node);
+        synchronized (writeLock) {
+            if (members.putIfAbsent(node, numberOfReplicas) == null) {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * 添加带权重的节点，节点已存在时更新其权重
+     * @param node 节点
+     * @param weight 权重，虚拟节点数为 round(numberOfReplicas × weight)，至少为1
+     */
+    public void addNode(T node, double weight) {
+        int replicas = replicasFor(weight);
+        synchronized (writeLock) {
+            Integer previous = members.put(node, replicas);
+            if (previous == null || previous != replicas) {
+                rebuild();
             }
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
+    /**
+     * 更新已有节点的权重
+     * @param node 节点
+     * @param weight 新权重
+     * @return 如果节点存在返回true
+     */
+    public boolean setWeight(T node, double weight) {
+        int replicas = replicasFor(weight);
+        synchronized (writeLock) {
+            Integer previous = members.get(node);
+            if (previous == null) {
+                return false;
+            }
+            if (previous != replicas) {
+                members.put(node, replicas);
+                rebuild();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 获取节点的权重
+     * @param node 节点
+     * @return 权重，节点不存在时返回0
+     */
+    public double getWeight(T node) {
+        synchronized (writeLock) {
+            Integer replicas = members.get(node);
+            return replicas != null ? (double) replicas / numberOfReplicas : 0;
+        }
+    }
+
+    /**
+     * 把权重换算为虚拟节点数
+     */
+    private int replicasFor(double weight) {
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        long replicas = Math.round(numberOfReplicas * weight);
+        if (replicas > MAX_REPLICAS_PER_NODE) {
+            throw new IllegalArgumentException("weight too large: " + weight);
+        }
+        return (int) Math.max(1, replicas);
+    }
+
     /**
      * 添加多个节点
      * @param nodes 节点集合
      */
     public void addAll(Collection<T> nodes) {
-        for (T node : nodes) {
-            addNode(node);
+        synchronized (writeLock) {
+            boolean changed = false;
+            for (T node : nodes) {
+                changed |= members.putIfAbsent(node, numberOfReplicas) == null;
+            }
+            if (changed) {
+                rebuild();
+            }
         }
     }
 
@@ -54,13 +157,10 @@ public class ConsistentHash<T> {
      * @param node 节点
      */
     public void removeNode(T node) {
-        lock.writeLock().lock();
-        try {
-            for (int i = 0; i < numberOfReplicas; i++) {
-                circle.remove(hash(node.toString() + i));
+        synchronized (writeLock) {
+            if (members.remove(node) != null) {
+                rebuild();
             }
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
@@ -69,21 +169,109 @@ public class ConsistentHash<T> {
      * @param key 键
      * @return 对应的节点
      */
+    @SuppressWarnings("unchecked")
     public T get(Object key) {
-        lock.readLock().lock();
-        try {
-            if (circle.isEmpty()) {
-                return null;
+        Ring snapshot = ring;
+        if (snapshot.hashes.length == 0) {
+            return null;
+        }
+        return (T) snapshot.owners[snapshot.indexOf(hash(key))];
+    }
+
+    /**
+     * 从key在环上的位置开始顺时针查找第一个满足条件的节点
+     * 依次检查不同的物理节点（跳过同一节点的其他虚拟节点），都不满足时返回首选节点
+     * @param key 键
+     * @param accept 节点筛选条件
+     * @return 满足条件的节点
+     */
+    @SuppressWarnings("unchecked")
+    public T get(Object key, Predicate<? super T> accept) {
+        Ring snapshot = ring;
+        int length = snapshot.hashes.length;
+        if (length == 0) {
+            return null;
+        }
+        int start = snapshot.indexOf(hash(key));
+        T primary = (T) snapshot.owners[start];
+        if (accept.test(primary)) {
+            return primary;
+        }
+        Set<Object> visited = new HashSet<>();
+        visited.add(primary);
+        for (int i = 1; i < length && visited.size() < snapshot.nodeCount; i++) {
+            T candidate = (T) snapshot.owners[(start + i) % length];
+            if (visited.add(candidate) && accept.test(candidate)) {
+                return candidate;
             }
-            int hash = hash(key);
-            if (!circle.containsKey(hash)) {
-                SortedMap<Integer, T> tailMap = circle.tailMap(hash);
-                hash = tailMap.isEmpty() ? circle.firstKey() : tailMap.firstKey();
+        }
+        return primary;
+    }
+
+    /**
+     * 获取key的前n个不同物理节点，按环上顺时针顺序排列，第一个为首选节点
+     * @param key 键
+     * @param n 节点数量
+     * @return 节点列表，节点总数不足n时返回所有节点
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getNodes(Object key, int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        Ring snapshot = ring;
+        int length = snapshot.hashes.length;
+        if (length == 0) {
+            return List.of();
+        }
+        int limit = Math.min(n, snapshot.nodeCount);
+        List<T> nodes = new ArrayList<>(limit);
+        int start = snapshot.indexOf(hash(key));
+        for (int i = 0; i < length && nodes.size() < limit; i++) {
+            T candidate = (T) snapshot.owners[(start + i) % length];
+            if (!nodes.contains(candidate)) {
+                nodes.add(candidate);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * 根据当前成员重建环快照并发布，调用方必须持有写锁
+     */
+    private void rebuild() {
+        int total = 0;
+        for (int replicas : members.values()) {
+            total += replicas;
+        }
+        long[] hashes = new long[total];
+        Object[] owners = new Object[total];
+        Integer[] order = new Integer[total];
+        int index = 0;
+        for (Map.Entry<T, Integer> member : members.entrySet()) {
+            String name = member.getKey().toString();
+            for (int i = 0; i < member.getValue(); i++) {
+                hashes[index] = hash(name + "#" + i);
+                owners[index] = member.getKey();
+                order[index] = index;
+                index++;
+            }
+        }
+        // 按哈希排序；极少见的哈希冲突按节点名决定归属，保证各节点上的环一致
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> hashes[i])
+                .thenComparing(i -> owners[i].toString()));
+        long[] sortedHashes = new long[total];
+        Object[] sortedOwners = new Object[total];
+        int size = 0;
+        for (int i : order) {
+            if (size > 0 && sortedHashes[size - 1] == hashes[i]) {
+                continue;
             }
-            return circle.get(hash);
-        } finally {
-            lock.readLock().unlock();
+            sortedHashes[size] = hashes[i];
+            sortedOwners[size] = owners[i];
+            size++;
         }
+        ring = new Ring(Arrays.copyOf(sortedHashes, size), Arrays.copyOf(sortedOwners, size), members.size());
     }
 
     /**
@@ -91,8 +279,8 @@ public class ConsistentHash<T> {
      * @param key 键
      * @return 哈希值
      */
-    private int hash(Object key) {
-        return Math.abs(key.hashCode());
+    private long hash(Object key) {
+        return MurmurHash3.hash64(key.toString());
     }
 
     /**
@@ -100,12 +288,7 @@ public class ConsistentHash<T> {
      * @return 节点数量
      */
     public int size() {
-        lock.readLock().lock();
-        try {
-            return circle.size() / numberOfReplicas;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return ring.nodeCount;
     }
 
     /**
@@ -113,23 +296,16 @@ public class ConsistentHash<T> {
      * @return 如果为空返回true
      */
     public boolean isEmpty() {
-        lock.readLock().lock();
-        try {
-            return circle.isEmpty();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return ring.hashes.length == 0;
     }
 
     /**
      * 清空所有节点
      */
     public void clear() {
-        lock.writeLock().lock();
-        try {
-            circle.clear();
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (writeLock) {
+            members.clear();
+            ring = Ring.EMPTY;
         }
     }
 
@@ -138,11 +314,6 @@ public class ConsistentHash<T> {
      * @return 虚拟节点总数
      */
     public int getVirtualNodeCount() {
-        lock.readLock().lock();
-        try {
-            return circle.size();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return ring.hashes.length;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.jinicache.hash;
+
+/**
+ * 节点负载来源
+ * 为有界负载的一致性哈希提供各节点的当前负载
+ * @param <T> 节点类型
+ */
+public interface LoadTracker<T> {
+    /**
+     * 获取节点的当前负载
+     * @param node 节点
+     * @return 负载（例如近期请求数）
+     */
+    long load(T node);
+
+    /**
+     * 获取所有节点的负载之和
+     * @return 总负载
+     */
+    long totalLoad();
+}
@@ -0,0 +1,206 @@
+package com.jinicache.http;
+
+import com.jinicache.metrics.Counter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务端准入控制
+ * 限制同时处理中的请求数：全局上限之外，外部客户端的请求还受每个缓存组的上限约束，
+ * 并且全局上限中预留一部分只给其他节点的请求使用，流量突增时节点间的转发和副本读取仍然可以进行。
+ * 超过上限的请求立即拒绝，不进入排队
+ */
+public class AdmissionController {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+    private static final int DEFAULT_MAX_IN_FLIGHT_PER_GROUP = 512;
+    private static final int DEFAULT_PEER_RESERVE = 128;
+    private static final int DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<String, AtomicInteger> groupInFlight = new ConcurrentHashMap<>();
+    private final Counter admitted = new Counter();
+    private final Counter shedClients = new Counter();
+    private final Counter shedByGroup = new Counter();
+    private final Counter shedPeers = new Counter();
+    private volatile int maxInFlight;
+    private volatile int maxInFlightPerGroup;
+    private volatile int peerReserve;
+    private volatile int retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+
+    /**
+     * 已准入请求的许可，响应写出后释放
+     */
+    public final class Permit {
+        private final AtomicInteger group;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(AtomicInteger group) {
+            this.group = group;
+        }
+
+        /**
+         * 释放许可，重复调用没有效果
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                if (group != null) {
+                    group.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * 构造函数，使用默认上限
+     */
+    public AdmissionController() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT_PER_GROUP, DEFAULT_PEER_RESERVE);
+    }
+
+    /**
+     * 构造函数
+     * @param maxInFlight 同时处理中的最大请求数
+     * @param maxInFlightPerGroup 单个缓存组同时处理中的最大客户端请求数
+     * @param peerReserve 全局上限中只给其他节点请求使用的数量
+     */
+    public AdmissionController(int maxInFlight, int maxInFlightPerGroup, int peerReserve) {
+        configure(maxInFlight, maxInFlightPerGroup, peerReserve);
+    }
+
+    /**
+     * 调整上限，已准入的请求不受影响
+     * @param maxInFlight 同时处理中的最大请求数
+     * @param maxInFlightPerGroup 单个缓存组同时处理中的最大客户端请求数
+     * @param peerReserve 全局上限中只给其他节点请求使用的数量，小于全局上限
+     */
+    public void configure(int maxInFlight, int maxInFlightPerGroup, int peerReserve) {
+        if (maxInFlight < 1 || maxInFlightPerGroup < 1 || peerReserve < 0 || peerReserve >= maxInFlight) {
+            throw new IllegalArgumentException("Invalid admission limits: maxInFlight=" + maxInFlight
+                    + ", maxInFlightPerGroup=" + maxInFlightPerGroup + ", peerReserve=" + peerReserve);
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerGroup = maxInFlightPerGroup;
+        this.peerReserve = peerReserve;
+    }
+
+    /**
+     * 尝试准入一个请求
+     * @param group 请求的缓存组，不属于任何已有组时为null，不受组上限约束
+     * @param peer 是否来自其他节点；节点请求可以使用预留部分，且不受组上限约束
+     * @return 许可，超过上限时返回null
+     */
+    public Permit tryAcquire(String group, boolean peer) {
+        int limit = peer ? maxInFlight : maxInFlight - peerReserve;
+        if (!incrementBelow(inFlight, limit)) {
+            (peer ? shedPeers : shedClients).increment();
+            return null;
+        }
+        AtomicInteger groupCount = null;
+        if (!peer && group != null) {
+            groupCount = groupInFlight.computeIfAbsent(group, k -> new AtomicInteger());
+            if (!incrementBelow(groupCount, maxInFlightPerGroup)) {
+                inFlight.decrementAndGet();
+                shedByGroup.increment();
+                return null;
+            }
+        }
+        admitted.increment();
+        return new Permit(groupCount);
+    }
+
+    private static boolean incrementBelow(AtomicInteger counter, int limit) {
+        while (true) {
+            int current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 获取拒绝响应中建议客户端等待的秒数
+     * @return 秒数
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * 设置拒绝响应中建议客户端等待的秒数
+     * @param retryAfterSeconds 秒数
+     */
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        if (retryAfterSeconds < 0) {
+            throw new IllegalArgumentException("retryAfterSeconds must not be negative");
+        }
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 获取同时处理中的请求数
+     * @return 请求数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 获取缓存组同时处理中的客户端请求数
+     * @param group 组名
+     * @return 请求数
+     */
+    public int getInFlight(String group) {
+        AtomicInteger count = groupInFlight.get(group);
+        return count != null ? count.get() : 0;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMaxInFlightPerGroup() {
+        return maxInFlightPerGroup;
+    }
+
+    public int getPeerReserve() {
+        return peerReserve;
+    }
+
+    /**
+     * 获取准入的请求数
+     * @return 请求数
+     */
+    public long getAdmittedCount() {
+        return admitted.get();
+    }
+
+    /**
+     * 获取因全局上限被拒绝的客户端请求数
+     * @return 请求数
+     */
+    public long getShedClientCount() {
+        return shedClients.get();
+    }
+
+    /**
+     * 获取因缓存组上限被拒绝的客户端请求数
+     * @return 请求数
+     */
+    public long getShedByGroupCount() {
+        return shedByGroup.get();
+    }
+
+    /**
+     * 获取因全局上限被拒绝的节点请求数
+     * @return 请求数
+     */
+    public long getShedPeerCount() {
+        return shedPeers.get();
+    }
+}
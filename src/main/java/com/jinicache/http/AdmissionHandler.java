@@ -0,0 +1,140 @@
+package com.jinicache.http;
+
+import com.jinicache.cache.CacheManager;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.*;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * 准入处理器
+ * 紧跟在HttpServerCodec之后：请求头到达时向准入控制申请许可，超过上限时立即返回503和Retry-After并丢弃请求体；
+ * 准入的请求在响应的最后一块写出时释放许可，连接关闭时释放所有未完成请求的许可。
+ * 指标、成员管理、节点权重和管理请求不受限制，过载时节点仍然可以被观测和调整，也不会被其他节点误判为故障；
+ * 位于认证处理器之后，管理请求已经通过认证，节点请求头只出现在通过节点认证的请求上
+ */
+class AdmissionHandler extends ChannelDuplexHandler {
+    /**
+     * 不受限制的请求在队列中的占位
+     */
+    private static final Object EXEMPT = new Object();
+    private final AdmissionController controller;
+    private final CacheManager cacheManager;
+    /**
+     * 按请求顺序排列的许可，响应按同样的顺序写出
+     */
+    private final ArrayDeque<Object> permits = new ArrayDeque<>();
+    private boolean discarding;
+
+    AdmissionHandler(AdmissionController controller, CacheManager cacheManager) {
+        this.controller = controller;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) msg;
+            QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+            if (isExempt(decoder.path())) {
+                // 不受限制的请求也占一个位置，使响应与许可一一对应
+                permits.add(EXEMPT);
+            } else {
+                AdmissionController.Permit permit = controller.tryAcquire(groupOf(decoder),
+                        request.headers().contains(HttpClient.PEER_HEADER));
+                if (permit == null) {
+                    reject(ctx, request);
+                    return;
+                }
+                permits.add(permit);
+            }
+            discarding = false;
+        } else if (discarding && msg instanceof HttpContent) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        // 100 Continue之类的临时响应不结束请求
+        boolean interim = msg instanceof HttpResponse
+                && ((HttpResponse) msg).status().codeClass() == HttpStatusClass.INFORMATIONAL;
+        if (msg instanceof LastHttpContent && !interim && !permits.isEmpty()) {
+            release(permits.poll());
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseAll();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releaseAll();
+    }
+
+    private void releaseAll() {
+        while (!permits.isEmpty()) {
+            release(permits.poll());
+        }
+    }
+
+    private static void release(Object permit) {
+        if (permit instanceof AdmissionController.Permit) {
+            ((AdmissionController.Permit) permit).release();
+        }
+    }
+
+    /**
+     * 立即拒绝请求；请求体随后到达时丢弃，连接可以继续用于后续请求
+     */
+    private void reject(ChannelHandlerContext ctx, HttpRequest request) {
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        discarding = !(request instanceof LastHttpContent);
+        ReferenceCountUtil.release(request);
+        // 客户端流水线发送、还有未写完的响应时，拒绝后关闭连接
+        if (!permits.isEmpty()) {
+            keepAlive = false;
+        }
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.SERVICE_UNAVAILABLE,
+                Unpooled.copiedBuffer("Error: " + HttpResponseStatus.SERVICE_UNAVAILABLE, CharsetUtil.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+        response.headers().set(HttpHeaderNames.RETRY_AFTER, controller.getRetryAfterSeconds());
+        HttpUtil.setKeepAlive(response, keepAlive);
+        if (keepAlive) {
+            ctx.writeAndFlush(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private boolean isExempt(String path) {
+        return path.equals("/metrics") || path.startsWith("/api/gossip/") || path.equals("/api/node/weight")
+                || path.startsWith("/api/admin/");
+    }
+
+    /**
+     * 请求所属的缓存组，只统计已存在的组，避免任意组名占用内存
+     */
+    private String groupOf(QueryStringDecoder decoder) {
+        List<String> values = decoder.parameters().get("group");
+        if (values == null || values.isEmpty() || cacheManager.getGroup(values.get(0)) == null) {
+            return null;
+        }
+        return values.get(0);
+    }
+}
@@ -0,0 +1,73 @@
+package com.jinicache.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.*;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 认证处理器
+ * 紧跟在HttpServerCodec之后：未通过节点认证的请求去掉节点请求头，之后的处理器把它当作普通客户端请求；
+ * 只供节点使用的接口（批量写入、失效通知，配置了集群密钥时还有成员管理）和管理接口认证失败时返回403并关闭连接
+ */
+class AuthenticationHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationHandler.class);
+    private final RequestAuthenticator authenticator;
+    private boolean discarding;
+
+    AuthenticationHandler(RequestAuthenticator authenticator) {
+        this.authenticator = authenticator;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) msg;
+            String path = new QueryStringDecoder(request.uri()).path();
+            boolean peer = authenticator.isPeer(request, ctx.channel().remoteAddress());
+            boolean allowed = path.startsWith("/api/admin/")
+                    ? authenticator.isAdmin(request, ctx.channel().remoteAddress())
+                    : peer || !isPeerOnly(request, path);
+            if (!allowed) {
+                logger.warn("Rejecting unauthenticated {} {} from {}", request.method(), path,
+                        ctx.channel().remoteAddress());
+                discarding = !(request instanceof LastHttpContent);
+                ReferenceCountUtil.release(request);
+                forbid(ctx);
+                return;
+            }
+            if (!peer) {
+                request.headers().remove(HttpClient.PEER_HEADER);
+            }
+            discarding = false;
+        } else if (discarding && msg instanceof HttpContent) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * 只供其他节点调用的接口
+     */
+    private boolean isPeerOnly(HttpRequest request, String path) {
+        return path.equals("/api/cache/invalidate")
+                || (path.equals("/api/cache/batch") && request.method() == HttpMethod.PUT)
+                || (path.startsWith("/api/gossip/") && authenticator.hasPeerSecret());
+    }
+
+    private void forbid(ChannelHandlerContext ctx) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.FORBIDDEN,
+                Unpooled.copiedBuffer("Error: " + HttpResponseStatus.FORBIDDEN, CharsetUtil.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+        // 可能还有流水线上未写完的响应，拒绝后关闭连接
+        HttpUtil.setKeepAlive(response, false);
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+}
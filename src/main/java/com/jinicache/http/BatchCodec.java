@@ -0,0 +1,200 @@
+package com.jinicache.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量请求的帧编解码
+ * 请求体：若干个 [int 键长度][键UTF-8字节]
+ * 响应体：若干个 [int 键长度][键UTF-8字节][byte 状态][int 值长度][值字节]
+ * 批量写入的请求体与响应体格式相同，状态均为命中
+ */
+public final class BatchCodec {
+    /**
+     * 命中
+     */
+    public static final byte STATUS_FOUND = 0;
+    /**
+     * 不存在
+     */
+    public static final byte STATUS_NOT_FOUND = 1;
+    /**
+     * 获取失败（例如远端节点超时），调用方可以单独重试
+     */
+    public static final byte STATUS_ERROR = 2;
+
+    private BatchCodec() {
+    }
+
+    /**
+     * 批量响应中的一项
+     */
+    public static final class Entry {
+        private final String key;
+        private final byte status;
+        private final byte[] value;
+
+        public Entry(String key, byte status, byte[] value) {
+            this.key = key;
+            this.status = status;
+            this.value = value;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public byte getStatus() {
+            return status;
+        }
+
+        public byte[] getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * 编码键列表
+     * @param keys 键列表
+     * @return 请求体
+     */
+    public static byte[] encodeKeys(List<String> keys) {
+        List<byte[]> encoded = new ArrayList<>(keys.size());
+        int length = 0;
+        for (String key : keys) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            length += 4 + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] bytes : encoded) {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 解码键列表
+     * @param buf 请求体
+     * @return 键列表
+     * @throws IllegalArgumentException 请求体格式错误
+     */
+    public static List<String> decodeKeys(ByteBuf buf) {
+        List<String> keys = new ArrayList<>();
+        while (buf.isReadable()) {
+            keys.add(readString(buf));
+        }
+        return keys;
+    }
+
+    /**
+     * 编码单个响应项
+     * @param alloc 分配器
+     * @param key 键
+     * @param status 状态
+     * @param value 值，状态不是命中时为null
+     * @return 编码后的帧
+     */
+    public static ByteBuf encodeEntry(ByteBufAllocator alloc, String key, byte status, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int valueLength = value != null ? value.length : 0;
+        ByteBuf buf = alloc.buffer(4 + keyBytes.length + 1 + 4 + valueLength);
+        buf.writeInt(keyBytes.length).writeBytes(keyBytes);
+        buf.writeByte(status);
+        buf.writeInt(valueLength);
+        if (value != null) {
+            buf.writeBytes(value);
+        }
+        return buf;
+    }
+
+    /**
+     * 编码多个响应项，用于批量写入的请求体
+     * @param entries 响应项列表
+     * @return 编码后的字节
+     */
+    public static byte[] encodeEntries(List<Entry> entries) {
+        int length = 0;
+        for (Entry entry : entries) {
+            length += encodedSize(entry.getKey(), entry.getValue());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (Entry entry : entries) {
+            byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = entry.getValue();
+            buffer.putInt(keyBytes.length).put(keyBytes).put(entry.getStatus());
+            buffer.putInt(value != null ? value.length : 0);
+            if (value != null) {
+                buffer.put(value);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 计算单个响应项编码后的大小
+     * @param key 键
+     * @param value 值，可以为null
+     * @return 字节数
+     */
+    public static int encodedSize(String key, byte[] value) {
+        return 4 + key.getBytes(StandardCharsets.UTF_8).length + 1 + 4 + (value != null ? value.length : 0);
+    }
+
+    /**
+     * 解码响应体
+     * @param content 响应体
+     * @return 响应项列表
+     * @throws IllegalArgumentException 响应体格式错误
+     */
+    public static List<Entry> decodeEntries(byte[] content) {
+        return decodeEntries(Unpooled.wrappedBuffer(content));
+    }
+
+    /**
+     * 解码响应体
+     * @param buf 响应体
+     * @return 响应项列表
+     * @throws IllegalArgumentException 响应体格式错误
+     */
+    public static List<Entry> decodeEntries(ByteBuf buf) {
+        List<Entry> entries = new ArrayList<>();
+        while (buf.isReadable()) {
+            String key = readString(buf);
+            checkReadable(buf, 5);
+            byte status = buf.readByte();
+            int length = buf.readInt();
+            checkReadable(buf, length);
+            byte[] value = null;
+            if (status == STATUS_FOUND) {
+                value = new byte[length];
+                buf.readBytes(value);
+            } else {
+                buf.skipBytes(length);
+            }
+            entries.add(new Entry(key, status, value));
+        }
+        return entries;
+    }
+
+    private static String readString(ByteBuf buf) {
+        checkReadable(buf, 4);
+        int length = buf.readInt();
+        checkReadable(buf, length);
+        String value = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return value;
+    }
+
+    private static void checkReadable(ByteBuf buf, int length) {
+        if (length < 0 || buf.readableBytes() < length) {
+            throw new IllegalArgumentException("Malformed batch frame");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.jinicache.http;
+
+import com.jinicache.cache.ChunkedValue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+/**
+ * 将分块值适配为ChunkedInput，交给ChunkedWriteHandler逐块写出
+ * 每个块直接包装底层数组，不做复制
+ */
+public class ChunkedValueInput implements ChunkedInput<ByteBuf> {
+    private final ChunkedValue value;
+    private int index;
+    private long progress;
+
+    /**
+     * 构造函数
+     * @param value 要写出的分块值
+     */
+    public ChunkedValueInput(ChunkedValue value) {
+        this.value = value;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return index >= value.chunkCount();
+    }
+
+    @Override
+    public void close() {
+        // 数据驻留在缓存中，无需释放
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) {
+        if (isEndOfInput()) {
+            return null;
+        }
+        byte[] chunk = value.chunk(index++);
+        progress += chunk.length;
+        return Unpooled.wrappedBuffer(chunk);
+    }
+
+    @Override
+    public long length() {
+        return value.size();
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+}
@@ -1,5 +1,7 @@
 package com.jinicache.http;
 
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.jfr.PeerRequestEvent;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
@@ -7,34 +9,60 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.concurrent.ScheduledFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * HTTP客户端实现
  * 用于节点间的HTTP通信
- * 实现了连接池机制以避免资源泄漏
+ * 实现了连接池机制以避免资源泄漏：每个连接同一时刻只承载一个请求，
+ * 响应结束且服务端保持连接时归还到空闲队列复用。
+ * 响应体以流的方式按块接收，大值可以通过chunked编码上传和下载。
+ * 设置了超时的请求到期后立即失败并关闭所用连接，沉默的对端不会一直占用连接
  */
 public class HttpClient {
     private static final Logger logger = LoggerFactory.getLogger(HttpClient.class);
+    /**
+     * 节点间请求标识头，服务端据此只在本地处理请求而不再转发；配置了集群密钥时值为密钥
+     */
+    public static final String PEER_HEADER = "X-JiniCache-Peer";
+    private static final String RESPONSE_HANDLER = "response-handler";
+    private static final long DEFAULT_MAX_CONTENT_LENGTH = 64L * 1024 * 1024;
     private final EventLoopGroup group;
     private final Bootstrap bootstrap;
-    private final ConcurrentHashMap<String, Channel> connectionPool;
+    private final ConcurrentHashMap<String, Queue<Channel>> connectionPool;
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
-    private static final int MAX_CONTENT_LENGTH = 65536;
+    private final long maxContentLength;
+    private volatile String peerSecret;
+    private volatile long timeoutMillis = Long.MAX_VALUE;
 
     /**
      * 构造函数
      */
     public HttpClient() {
+        this(DEFAULT_MAX_CONTENT_LENGTH);
+    }
+
+    /**
+     * 构造函数
+     * @param maxContentLength 允许接收的最大响应体大小
+     */
+    public HttpClient(long maxContentLength) {
         this.group = new NioEventLoopGroup();
         this.connectionPool = new ConcurrentHashMap<>();
         this.bootstrap = new Bootstrap();
+        this.maxContentLength = maxContentLength;
         initBootstrap();
     }
 
@@ -46,64 +74,32 @@ public class HttpClient {
                 .channel(NioSocketChannel.class)
                 .option(ChannelOption.SO_KEEPALIVE, true)
                 .option(ChannelOption.TCP_NODELAY, true)
-                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000);
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec());
+                        ch.pipeline().addLast(new ChunkedWriteHandler());
+                    }
+                });
     }
 
     /**
      * 发送GET请求
      * @param url 目标URL
-     * @return 响应内容的CompletableFuture
+     * @return 响应内容的CompletableFuture，404时结果为null
      */
     public CompletableFuture<byte[]> get(String url) {
-        if (shutdown.get()) {
-            return CompletableFuture.failedFuture(new IllegalStateException("HttpClient is shutdown"));
-        }
-        
-        CompletableFuture<byte[]> future = new CompletableFuture<>();
-        try {
-            logger.debug("Sending GET request to: {}", url);
-            URI uri = new URI(url);
-            String hostPort = uri.getHost() + ":" + uri.getPort();
-            
-            getOrCreateConnection(hostPort).whenComplete((channel, throwable) -> {
-                if (throwable != null) {
-                    future.completeExceptionally(throwable);
-                    return;
-                }
-                
-                try {
-                    String path = uri.getRawPath();
-                    if (uri.getRawQuery() != null) {
-                        path += "?" + uri.getRawQuery();
-                    }
-                    
-                    DefaultFullHttpRequest request = new DefaultFullHttpRequest(
-                            HttpVersion.HTTP_1_1,
-                            HttpMethod.GET,
-                            path
-                    );
-                    request.headers().set(HttpHeaderNames.HOST, uri.getHost());
-                    request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
-                    request.headers().set(HttpHeaderNames.USER_AGENT, "JiniCache-HttpClient/1.0");
-                    
-                    // 设置响应处理器
-                    channel.pipeline().addLast("response-handler-" + System.nanoTime(), 
-                            new HttpClientHandler(future));
-                    
-                    channel.writeAndFlush(request).addListener((ChannelFutureListener) writeFuture -> {
-                        if (!writeFuture.isSuccess()) {
-                            future.completeExceptionally(writeFuture.cause());
-                        }
-                    });
-                } catch (Exception e) {
-                    future.completeExceptionally(e);
-                }
-            });
-        } catch (Exception e) {
-            logger.error("Error during GET request to {}: {}", url, e.getMessage());
-            future.completeExceptionally(e);
-        }
-        return future;
+        return getChunked(url).thenApply(value -> value != null ? value.toByteArray() : null);
+    }
+
+    /**
+     * 发送GET请求，响应体以分块形式返回
+     * @param url 目标URL
+     * @return 响应内容的CompletableFuture，404时结果为null
+     */
+    public CompletableFuture<ChunkedValue> getChunked(String url) {
+        return execute(url, HttpMethod.GET, null, timeoutMillis);
     }
 
     /**
@@ -113,45 +109,105 @@ public class HttpClient {
      * @return 响应内容的CompletableFuture
      */
     public CompletableFuture<byte[]> put(String url, byte[] content) {
+        return putChunked(url, ChunkedValue.of(content));
+    }
+
+    /**
+     * 发送PUT请求，多块的值使用chunked编码逐块上传
+     * @param url 目标URL
+     * @param content 请求内容
+     * @return 响应内容的CompletableFuture
+     */
+    public CompletableFuture<byte[]> putChunked(String url, ChunkedValue content) {
+        return execute(url, HttpMethod.PUT, content, timeoutMillis)
+                .thenApply(value -> value != null ? value.toByteArray() : null);
+    }
+
+    /**
+     * 发送POST请求
+     * @param url 目标URL
+     * @param content 请求内容
+     * @return 响应内容的CompletableFuture
+     */
+    public CompletableFuture<byte[]> post(String url, byte[] content) {
+        return post(url, content, timeoutMillis);
+    }
+
+    /**
+     * 发送POST请求，使用单独的超时时间
+     * @param url 目标URL
+     * @param content 请求内容
+     * @param timeoutMillis 超时时间（毫秒）
+     * @return 响应内容的CompletableFuture
+     */
+    public CompletableFuture<byte[]> post(String url, byte[] content, long timeoutMillis) {
+        return execute(url, HttpMethod.POST, ChunkedValue.of(content), timeoutMillis)
+                .thenApply(value -> value != null ? value.toByteArray() : null);
+    }
+
+    /**
+     * 设置请求的默认超时时间，从发出请求开始计算，包括建立连接和接收完整响应
+     * @param timeoutMillis 超时时间（毫秒），Long.MAX_VALUE表示不超时
+     */
+    public void setTimeoutMillis(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("timeoutMillis must be positive");
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 执行请求
+     * @param url 目标URL
+     * @param method 请求方法
+     * @param body 请求体，可以为null
+     * @param timeoutMillis 超时时间（毫秒），Long.MAX_VALUE表示不超时
+     * @return 响应体的CompletableFuture
+     */
+    private CompletableFuture<ChunkedValue> execute(String url, HttpMethod method, ChunkedValue body,
+                                                    long timeoutMillis) {
         if (shutdown.get()) {
             return CompletableFuture.failedFuture(new IllegalStateException("HttpClient is shutdown"));
         }
-        
-        CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        CompletableFuture<ChunkedValue> future = new CompletableFuture<>();
+        PeerRequestEvent event = new PeerRequestEvent();
+        event.begin();
         try {
-            logger.debug("Sending PUT request to: {} with {} bytes", url, content.length);
+            logger.debug("Sending {} request to: {}", method, url);
             URI uri = new URI(url);
             String hostPort = uri.getHost() + ":" + uri.getPort();
-            
-            getOrCreateConnection(hostPort).whenComplete((channel, throwable) -> {
+            if (timeoutMillis != Long.MAX_VALUE) {
+                // 超时让请求本身失败，下面的回调随之关闭连接而不是归还
+                ScheduledFuture<?> timeout = group.schedule(() -> future.completeExceptionally(new TimeoutException(
+                        method + " " + url + " timed out after " + timeoutMillis + "ms")), timeoutMillis, TimeUnit.MILLISECONDS);
+                future.whenComplete((value, error) -> timeout.cancel(false));
+            }
+
+            acquireConnection(hostPort).whenComplete((channel, throwable) -> {
                 if (throwable != null) {
                     future.completeExceptionally(throwable);
                     return;
                 }
-                
+                if (future.isDone()) {
+                    // 连接建立前已经超时，连接上还没有请求，可以复用
+                    releaseConnection(hostPort, channel, null, true);
+                    return;
+                }
+
                 try {
                     String path = uri.getRawPath();
                     if (uri.getRawQuery() != null) {
                         path += "?" + uri.getRawQuery();
                     }
-                    
-                    DefaultFullHttpRequest request = new DefaultFullHttpRequest(
-                            HttpVersion.HTTP_1_1,
-                            HttpMethod.PUT,
-                            path
-                    );
-                    request.headers().set(HttpHeaderNames.HOST, uri.getHost());
-                    request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
-                    request.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.length);
-                    request.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
-                    request.headers().set(HttpHeaderNames.USER_AGENT, "JiniCache-HttpClient/1.0");
-                    request.content().writeBytes(content);
-                    
-                    // 设置响应处理器
-                    channel.pipeline().addLast("response-handler-" + System.nanoTime(), 
-                            new HttpClientHandler(future));
-                    
-                    channel.writeAndFlush(request).addListener((ChannelFutureListener) writeFuture -> {
+
+                    // 设置响应处理器，响应结束后归还或关闭连接
+                    HttpClientHandler handler = new HttpClientHandler(future, maxContentLength);
+                    channel.pipeline().addLast(RESPONSE_HANDLER, handler);
+                    future.whenComplete((value, error) ->
+                            releaseConnection(hostPort, channel, handler, error == null && handler.isKeepAlive()));
+
+                    writeRequest(channel, uri, method, path, body).addListener((ChannelFutureListener) writeFuture -> {
                         if (!writeFuture.isSuccess()) {
                             future.completeExceptionally(writeFuture.cause());
                         }
@@ -161,51 +217,102 @@ public class HttpClient {
                 }
             });
         } catch (Exception e) {
-            logger.error("Error during PUT request to {}: {}", url, e.getMessage());
+            logger.error("Error during {} request to {}: {}", method, url, e.getMessage());
             future.completeExceptionally(e);
         }
-        return future;
+        if (!event.isEnabled()) {
+            return future;
+        }
+        // 事件提交后再把结果交给调用方，调用方看到结果时事件已经记录
+        CompletableFuture<ChunkedValue> result = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = method.name();
+                event.url = url;
+                event.success = error == null;
+                event.commit();
+            }
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 写出请求，单块请求体使用完整请求，多块请求体使用chunked编码
+     */
+    private ChannelFuture writeRequest(Channel channel, URI uri, HttpMethod method, String path, ChunkedValue body) {
+        if (body == null || body.chunkCount() <= 1) {
+            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, path,
+                    body == null || body.chunkCount() == 0 ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(body.chunk(0)));
+            setHeaders(request, uri);
+            if (body != null) {
+                request.headers().set(HttpHeaderNames.CONTENT_LENGTH, request.content().readableBytes());
+                request.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
+            }
+            return channel.writeAndFlush(request);
+        }
+
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, path);
+        setHeaders(request, uri);
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
+        HttpUtil.setTransferEncodingChunked(request, true);
+        channel.write(request);
+        return channel.writeAndFlush(new HttpChunkedInput(new ChunkedValueInput(body)));
+    }
+
+    private void setHeaders(HttpRequest request, URI uri) {
+        request.headers().set(HttpHeaderNames.HOST, uri.getHost());
+        request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        request.headers().set(HttpHeaderNames.USER_AGENT, "JiniCache-HttpClient/1.0");
+        String secret = peerSecret;
+        request.headers().set(PEER_HEADER, secret != null ? secret : "true");
     }
 
     /**
-     * 获取或创建连接
+     * 设置集群密钥，之后发出的请求在节点请求头中携带它
+     * @param secret 密钥，为null时不携带
+     */
+    public void setPeerSecret(String secret) {
+        this.peerSecret = secret;
+    }
+
+    /**
+     * 从连接池取出空闲连接，没有可用连接时新建
      * @param hostPort 主机:端口
      * @return Channel的CompletableFuture
      */
-    private CompletableFuture<Channel> getOrCreateConnection(String hostPort) {
-        Channel existingChannel = connectionPool.get(hostPort);
-        if (existingChannel != null && existingChannel.isActive()) {
-            return CompletableFuture.completedFuture(existingChannel);
-        }
-        
-        // 移除无效连接
-        if (existingChannel != null) {
-            connectionPool.remove(hostPort, existingChannel);
+    private CompletableFuture<Channel> acquireConnection(String hostPort) {
+        Queue<Channel> idle = connectionPool.get(hostPort);
+        if (idle != null) {
+            Channel channel;
+            while ((channel = idle.poll()) != null) {
+                if (channel.isActive()) {
+                    return CompletableFuture.completedFuture(channel);
+                }
+            }
         }
-        
+
         CompletableFuture<Channel> future = new CompletableFuture<>();
         String[] parts = hostPort.split(":");
         String host = parts[0];
         int port = Integer.parseInt(parts[1]);
-        
-        bootstrap.handler(new ChannelInitializer<SocketChannel>() {
-            @Override
-            protected void initChannel(SocketChannel ch) {
-                ch.pipeline().addLast(new HttpClientCodec());
-                ch.pipeline().addLast(new HttpObjectAggregator(MAX_CONTENT_LENGTH));
-                
-                // 添加连接关闭监听器
-                ch.closeFuture().addListener((ChannelFutureListener) closeFuture -> {
-                    connectionPool.remove(hostPort, ch);
-                    logger.debug("Connection to {} closed and removed from pool", hostPort);
-                });
-            }
-        });
-        
+
         bootstrap.connect(host, port).addListener((ChannelFutureListener) connectFuture -> {
             if (connectFuture.isSuccess()) {
                 Channel channel = connectFuture.channel();
-                connectionPool.put(hostPort, channel);
+                // 添加连接关闭监听器
+                channel.closeFuture().addListener((ChannelFutureListener) closeFuture -> {
+                    Queue<Channel> queue = connectionPool.get(hostPort);
+                    if (queue != null) {
+                        queue.remove(channel);
+                    }
+                    logger.debug("Connection to {} closed and removed from pool", hostPort);
+                });
                 logger.debug("New connection established to {}", hostPort);
                 future.complete(channel);
             } else {
@@ -213,31 +320,44 @@ public class HttpClient {
                 future.completeExceptionally(connectFuture.cause());
             }
         });
-        
+
         return future;
     }
-    
+
+    /**
+     * 归还连接：移除响应处理器，可复用的连接放回空闲队列，否则关闭
+     */
+    private void releaseConnection(String hostPort, Channel channel, HttpClientHandler handler, boolean reusable) {
+        if (handler != null && channel.pipeline().context(handler) != null) {
+            channel.pipeline().remove(handler);
+        }
+        if (reusable && channel.isActive() && !shutdown.get()) {
+            connectionPool.computeIfAbsent(hostPort, k -> new ConcurrentLinkedQueue<>()).offer(channel);
+        } else {
+            channel.close();
+        }
+    }
+
     /**
      * 清理连接池中的无效连接
      */
     private void cleanupInactiveConnections() {
-        connectionPool.entrySet().removeIf(entry -> {
-            Channel channel = entry.getValue();
+        connectionPool.forEach((hostPort, idle) -> idle.removeIf(channel -> {
             if (!channel.isActive()) {
-                logger.debug("Removing inactive connection to {}", entry.getKey());
+                logger.debug("Removing inactive connection to {}", hostPort);
                 return true;
             }
             return false;
-        });
+        }));
     }
-    
+
     /**
      * 获取连接池状态信息
-     * @return 连接池大小
+     * @return 连接池中空闲连接数
      */
     public int getConnectionPoolSize() {
         cleanupInactiveConnections();
-        return connectionPool.size();
+        return connectionPool.values().stream().mapToInt(Queue::size).sum();
     }
 
     /**
@@ -246,18 +366,18 @@ public class HttpClient {
     public void shutdown() {
         if (shutdown.compareAndSet(false, true)) {
             logger.info("Shutting down HttpClient...");
-            
+
             // 关闭所有连接
-            connectionPool.values().forEach(channel -> {
+            connectionPool.values().forEach(idle -> idle.forEach(channel -> {
                 if (channel.isActive()) {
                     channel.close();
                 }
-            });
+            }));
             connectionPool.clear();
-            
+
             // 关闭事件循环组
             group.shutdownGracefully();
             logger.info("HttpClient shutdown completed");
         }
     }
-}
\ No newline at end of file
+}
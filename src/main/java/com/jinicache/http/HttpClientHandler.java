@@ -1,42 +1,99 @@
 package com.jinicache.http;
 
+import com.jinicache.cache.ChunkedValue;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * HTTP客户端处理器
+ * 以流的方式接收响应，响应体按块收集，不经过HttpObjectAggregator
  */
 public class HttpClientHandler extends SimpleChannelInboundHandler<HttpObject> {
     private static final Logger logger = LoggerFactory.getLogger(HttpClientHandler.class);
-    private final CompletableFuture<byte[]> future;
+    private final CompletableFuture<ChunkedValue> future;
+    private final long maxContentLength;
+    private HttpResponseStatus status;
+    private boolean keepAlive;
+    private ChunkedValue.Builder builder;
 
     /**
      * 构造函数
-     * @param future 用于存储响应结果的CompletableFuture
+     * @param future 用于存储响应结果的CompletableFuture，404时结果为null
+     * @param maxContentLength 允许的最大响应体大小
      */
-    public HttpClientHandler(CompletableFuture<byte[]> future) {
+    public HttpClientHandler(CompletableFuture<ChunkedValue> future, long maxContentLength) {
         this.future = future;
+        this.maxContentLength = maxContentLength;
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) {
-        if (msg instanceof FullHttpResponse) {
-            FullHttpResponse response = (FullHttpResponse) msg;
-            byte[] content = new byte[response.content().readableBytes()];
-            response.content().readBytes(content);
-            future.complete(content);
+        if (future.isDone()) {
+            return;
         }
+        if (msg instanceof HttpResponse) {
+            HttpResponse response = (HttpResponse) msg;
+            status = response.status();
+            keepAlive = HttpUtil.isKeepAlive(response);
+            builder = ChunkedValue.builder();
+        }
+        if (msg instanceof HttpContent && builder != null) {
+            ByteBuf content = ((HttpContent) msg).content();
+            if (builder.size() + content.readableBytes() > maxContentLength) {
+                future.completeExceptionally(new TooLongFrameException(
+                        "Response exceeds " + maxContentLength + " bytes"));
+                ctx.close();
+                return;
+            }
+            builder.append(content.nioBuffer());
+            if (msg instanceof LastHttpContent) {
+                complete();
+            }
+        }
+    }
+
+    private void complete() {
+        if (HttpResponseStatus.OK.equals(status)) {
+            future.complete(builder.build());
+        } else if (HttpResponseStatus.NOT_FOUND.equals(status)) {
+            future.complete(null);
+        } else {
+            future.completeExceptionally(new IOException("Unexpected response status: " + status));
+        }
+    }
+
+    /**
+     * 响应结束后连接是否可以复用
+     * @return 如果服务端保持连接返回true
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        future.completeExceptionally(new ClosedChannelException());
+        super.channelInactive(ctx);
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         logger.error("Channel exception caught", cause);
         future.completeExceptionally(cause);
+        ctx.close();
     }
-} 
\ No newline at end of file
+}
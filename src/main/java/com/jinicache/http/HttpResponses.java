@@ -0,0 +1,86 @@
+package com.jinicache.http;
+
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.Group;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.*;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 服务端响应写出工具
+ * 根据请求的keep-alive语义决定写出后是否关闭连接
+ */
+final class HttpResponses {
+
+    private HttpResponses() {
+    }
+
+    /**
+     * 发送完整响应
+     */
+    static ChannelFuture send(ChannelHandlerContext ctx, HttpResponseStatus status, ByteBuf content,
+                              String contentType, boolean keepAlive) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        HttpUtil.setKeepAlive(response, keepAlive);
+        return closeIfNeeded(ctx.writeAndFlush(response), keepAlive);
+    }
+
+    /**
+     * 发送错误响应
+     */
+    static ChannelFuture sendError(ChannelHandlerContext ctx, HttpResponseStatus status, boolean keepAlive) {
+        return send(ctx, status, Unpooled.copiedBuffer("Error: " + status.toString(), CharsetUtil.UTF_8),
+                "text/plain", keepAlive);
+    }
+
+    /**
+     * 发送缓存值，大值使用chunked编码逐块写出
+     */
+    static ChannelFuture sendValue(ChannelHandlerContext ctx, ChunkedValue value, boolean keepAlive) {
+        if (value.size() <= Group.LARGE_VALUE_THRESHOLD) {
+            byte[][] chunks = new byte[value.chunkCount()][];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = value.chunk(i);
+            }
+            return send(ctx, HttpResponseStatus.OK, Unpooled.wrappedBuffer(chunks),
+                    "application/octet-stream", keepAlive);
+        }
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
+        HttpUtil.setTransferEncodingChunked(response, true);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        ctx.write(response);
+        return closeIfNeeded(ctx.writeAndFlush(new HttpChunkedInput(new ChunkedValueInput(value))), keepAlive);
+    }
+
+    /**
+     * 开始一个chunked编码的流式响应，随后由调用方逐块写出HttpContent
+     */
+    static void startChunked(ChannelHandlerContext ctx, String contentType, boolean keepAlive) {
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setTransferEncodingChunked(response, true);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        ctx.write(response);
+    }
+
+    /**
+     * 结束流式响应
+     */
+    static ChannelFuture endChunked(ChannelHandlerContext ctx, boolean keepAlive) {
+        return closeIfNeeded(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT), keepAlive);
+    }
+
+    private static ChannelFuture closeIfNeeded(ChannelFuture future, boolean keepAlive) {
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+        return future;
+    }
+}
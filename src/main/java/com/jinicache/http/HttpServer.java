@@ -1,6 +1,7 @@
 package com.jinicache.http;
 
 import com.jinicache.cache.CacheManager;
+import com.jinicache.node.NodeManager;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -21,8 +22,15 @@ import java.util.concurrent.TimeUnit;
  */
 public class HttpServer {
     private static final Logger logger = LoggerFactory.getLogger(HttpServer.class);
+    /**
+     * 聚合请求体的上限，更大的缓存写入由StreamingUploadHandler流式处理
+     */
+    static final int MAX_AGGREGATED_CONTENT_LENGTH = 65536;
     private final int port;
     private final CacheManager cacheManager;
+    private final NodeManager nodeManager;
+    private volatile AdmissionController admissionController = new AdmissionController();
+    private final RequestAuthenticator authenticator;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
     private Channel serverChannel;
@@ -33,8 +41,44 @@ public class HttpServer {
      * @param cacheManager 缓存管理器
      */
     public HttpServer(int port, CacheManager cacheManager) {
+        this(port, cacheManager, null);
+    }
+
+    /**
+     * 构造函数
+     * @param port 服务器端口
+     * @param cacheManager 缓存管理器
+     * @param nodeManager 节点管理器，用于批量请求按节点分发；为null时所有键在本地处理
+     */
+    public HttpServer(int port, CacheManager cacheManager, NodeManager nodeManager) {
         this.port = port;
         this.cacheManager = cacheManager;
+        this.nodeManager = nodeManager;
+        this.authenticator = new RequestAuthenticator(nodeManager);
+    }
+
+    /**
+     * 获取请求认证，用于配置集群密钥和管理令牌
+     * @return 请求认证
+     */
+    public RequestAuthenticator getAuthenticator() {
+        return authenticator;
+    }
+
+    /**
+     * 获取准入控制
+     * @return 准入控制，关闭准入控制时返回null
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * 设置准入控制，只影响之后建立的连接
+     * @param admissionController 准入控制，为null时不限制同时处理的请求数
+     */
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
     }
 
     /**
@@ -43,6 +87,7 @@ public class HttpServer {
      */
     public CompletableFuture<Void> start() {
         CompletableFuture<Void> startFuture = new CompletableFuture<>();
+        authenticator.start();
         
         bossGroup = new NioEventLoopGroup(1);
         workerGroup = new NioEventLoopGroup();
@@ -59,9 +104,15 @@ public class HttpServer {
                         @Override
                         protected void initChannel(SocketChannel ch) {
                             ch.pipeline().addLast(new HttpServerCodec());
-                            ch.pipeline().addLast(new HttpObjectAggregator(65536));
+                            ch.pipeline().addLast(new AuthenticationHandler(authenticator));
+                            AdmissionController admission = admissionController;
+                            if (admission != null) {
+                                ch.pipeline().addLast(new AdmissionHandler(admission, cacheManager));
+                            }
                             ch.pipeline().addLast(new ChunkedWriteHandler());
-                            ch.pipeline().addLast(new HttpServerHandler(cacheManager));
+                            ch.pipeline().addLast(new StreamingUploadHandler(cacheManager, nodeManager, MAX_AGGREGATED_CONTENT_LENGTH));
+                            ch.pipeline().addLast(new HttpObjectAggregator(MAX_AGGREGATED_CONTENT_LENGTH));
+                            ch.pipeline().addLast(new HttpServerHandler(cacheManager, nodeManager, admission));
                         }
                     });
 
@@ -103,8 +154,10 @@ public class HttpServer {
      * 关闭服务器
      */
     public void shutdown() {
+        authenticator.stop();
         if (serverChannel != null) {
-            serverChannel.close();
+            // 等待监听端口释放，之后可以立即在同一端口重新启动
+            serverChannel.close().syncUninterruptibly();
         }
         if (bossGroup != null) {
             bossGroup.shutdownGracefully();
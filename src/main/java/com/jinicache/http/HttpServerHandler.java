@@ -1,9 +1,14 @@
 package com.jinicache.http;
 
 import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.EvictionPolicy;
 import com.jinicache.cache.Group;
+import com.jinicache.metrics.PrometheusWriter;
+import com.jinicache.node.NodeManager;
+import com.jinicache.node.PeerClient;
+import com.jinicache.node.SwimMembership;
 import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
@@ -11,26 +16,58 @@ import io.netty.util.CharsetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * HTTP请求处理器
  */
 public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
     private static final Logger logger = LoggerFactory.getLogger(HttpServerHandler.class);
+    private static final String BATCH_CONTENT_TYPE = "application/x-jinicache-batch";
     private final CacheManager cacheManager;
+    private final NodeManager nodeManager;
+    private final AdmissionController admissionController;
+    private boolean keepAlive;
 
     /**
      * 构造函数
      * @param cacheManager 缓存管理器
      */
     public HttpServerHandler(CacheManager cacheManager) {
+        this(cacheManager, null);
+    }
+
+    /**
+     * 构造函数
+     * @param cacheManager 缓存管理器
+     * @param nodeManager 节点管理器，为null时批量请求的所有键在本地处理
+     */
+    public HttpServerHandler(CacheManager cacheManager, NodeManager nodeManager) {
+        this(cacheManager, nodeManager, null);
+    }
+
+    /**
+     * 构造函数
+     * @param cacheManager 缓存管理器
+     * @param nodeManager 节点管理器，为null时批量请求的所有键在本地处理
+     * @param admissionController 准入控制，用于在 /metrics 中输出准入指标，可以为null
+     */
+    public HttpServerHandler(CacheManager cacheManager, NodeManager nodeManager,
+                             AdmissionController admissionController) {
         this.cacheManager = cacheManager;
+        this.nodeManager = nodeManager;
+        this.admissionController = admissionController;
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        keepAlive = HttpUtil.isKeepAlive(request);
         if (!request.decoderResult().isSuccess()) {
             sendError(ctx, HttpResponseStatus.BAD_REQUEST);
             return;
@@ -43,6 +80,20 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 
         if (path.equals("/api/cache")) {
             handleCacheRequest(ctx, request, params);
+        } else if (path.equals("/api/cache/batch")) {
+            handleBatchRequest(ctx, request, params);
+        } else if (path.equals("/api/cache/invalidate")) {
+            handleInvalidateRequest(ctx, request, params);
+        } else if (path.equals("/api/admin/group")) {
+            handleGroupAdminRequest(ctx, request, params);
+        } else if (path.equals("/api/node/weight") && nodeManager != null) {
+            sendResponse(ctx, Double.toString(nodeManager.getSelfWeight()).getBytes(CharsetUtil.UTF_8));
+        } else if (path.equals("/metrics")) {
+            HttpResponses.send(ctx, HttpResponseStatus.OK,
+                    Unpooled.copiedBuffer(MetricsExporter.render(cacheManager, nodeManager, admissionController), CharsetUtil.UTF_8),
+                    PrometheusWriter.CONTENT_TYPE, keepAlive);
+        } else if (path.startsWith("/api/gossip/")) {
+            handleGossipRequest(ctx, request, path, params);
         } else {
             sendError(ctx, HttpResponseStatus.NOT_FOUND);
         }
@@ -67,22 +118,350 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
         }
 
         if (request.method() == HttpMethod.GET) {
-            byte[] value = group.get(key);
-            if (value == null) {
-                sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            // 其他节点转发的请求只在本地处理，避免节点视图不一致时来回转发
+            CompletableFuture<ChunkedValue> future = isPeerRequest(request)
+                    ? group.getChunkedLocalAsync(key) : group.getChunkedAsync(key);
+            boolean keepAlive = this.keepAlive;
+            // 结果在事件循环中写回，等待远端节点和缓存I/O时不阻塞事件循环
+            future.whenCompleteAsync((value, error) -> {
+                if (error != null) {
+                    logger.warn("Failed to get key {} of group {}: {}", key, groupName, error.toString());
+                    HttpResponses.sendError(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR, keepAlive);
+                } else if (value == null) {
+                    HttpResponses.sendError(ctx, HttpResponseStatus.NOT_FOUND, keepAlive);
+                } else {
+                    HttpResponses.sendValue(ctx, value, keepAlive);
+                }
+            }, ctx.executor());
+        } else if (request.method() == HttpMethod.PUT) {
+            if (request.content().readableBytes() > group.getMaxValueSize()) {
+                sendError(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
                 return;
             }
-            sendResponse(ctx, value);
-        } else if (request.method() == HttpMethod.PUT) {
             byte[] content = new byte[request.content().readableBytes()];
             request.content().readBytes(content);
-            group.getCache().put(key, content);
+            ValueWrites.write(ctx, nodeManager, group, key, ChunkedValue.of(content), isPeerRequest(request), keepAlive);
+        } else if (request.method() == HttpMethod.DELETE) {
+            // 客户端的删除在整个集群失效，其他节点转发来的只在本地移除
+            if (isPeerRequest(request)) {
+                group.evictLocal(key);
+            } else {
+                group.invalidate(key);
+            }
             sendResponse(ctx, "OK".getBytes(CharsetUtil.UTF_8));
         } else {
             sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
         }
     }
 
+    /**
+     * 处理批量获取请求
+     * 键按所属节点分组：本地键直接从Group读取，远端键对每个节点只发送一次批量请求并行获取，
+     * 各部分结果到达后立即以帧的形式写入同一个chunked响应；超时或失败节点上的键返回错误状态
+     */
+    private void handleBatchRequest(ChannelHandlerContext ctx, FullHttpRequest request, Map<String, List<String>> params) {
+        String groupName = getParam(params, "group");
+        if (groupName == null) {
+            sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+            return;
+        }
+
+        Group group = cacheManager.getGroup(groupName);
+        if (group == null) {
+            sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            return;
+        }
+
+        if (request.method() == HttpMethod.PUT) {
+            handleBatchPut(ctx, request, group);
+            return;
+        }
+
+        List<String> keys;
+        if (request.method() == HttpMethod.POST) {
+            try {
+                keys = BatchCodec.decodeKeys(request.content());
+            } catch (IllegalArgumentException e) {
+                sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+                return;
+            }
+        } else if (request.method() == HttpMethod.GET) {
+            keys = params.getOrDefault("key", List.of());
+        } else {
+            sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        // 来自其他节点的请求只在本地处理，避免环形转发
+        boolean fromPeer = isPeerRequest(request);
+        boolean localOnly = nodeManager == null || fromPeer;
+        Map<String, List<String>> partitions = partitionByOwner(keys, localOnly);
+        boolean keepAlive = this.keepAlive;
+        HttpResponses.startChunked(ctx, BATCH_CONTENT_TYPE, keepAlive);
+
+        // 先发出所有远端请求，再发起本地键的读取，使两者重叠
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        List<String> localKeys = new ArrayList<>();
+        for (Map.Entry<String, List<String>> partition : partitions.entrySet()) {
+            List<String> ownerKeys = partition.getValue();
+            PeerClient peer = localOnly ? null : nodeManager.getPeer(partition.getKey());
+            // 熔断中的节点不再发送批量请求，键按单键路径转给副本或本地加载
+            if (peer == null || !peer.isAvailable()) {
+                localKeys.addAll(ownerKeys);
+                continue;
+            }
+            pending.add(peer.getBatch(groupName, ownerKeys)
+                    .handleAsync((entries, error) -> {
+                        if (error != null) {
+                            logger.warn("Batch request to {} failed: {}", partition.getKey(), error.toString());
+                            ownerKeys.forEach(key -> writeEntry(ctx, key, BatchCodec.STATUS_ERROR, null));
+                        } else {
+                            entries.forEach(entry -> writeEntry(ctx, entry.getKey(), entry.getStatus(), entry.getValue()));
+                        }
+                        ctx.flush();
+                        return null;
+                    }, ctx.executor()));
+        }
+
+        for (String key : localKeys) {
+            CompletableFuture<byte[]> future = fromPeer ? group.getLocalAsync(key) : group.getAsync(key);
+            pending.add(future.handleAsync((value, error) -> {
+                if (error != null) {
+                    logger.warn("Failed to load key {} in batch: {}", key, error.toString());
+                    writeEntry(ctx, key, BatchCodec.STATUS_ERROR, null);
+                } else {
+                    writeEntry(ctx, key, value != null ? BatchCodec.STATUS_FOUND : BatchCodec.STATUS_NOT_FOUND, value);
+                }
+                ctx.flush();
+                return null;
+            }, ctx.executor()));
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .whenCompleteAsync((v, error) -> HttpResponses.endChunked(ctx, keepAlive), ctx.executor());
+    }
+
+    /**
+     * 处理其他节点广播的批量失效，请求体为批量获取使用的键列表编码，只在本地移除
+     */
+    private void handleInvalidateRequest(ChannelHandlerContext ctx, FullHttpRequest request,
+                                         Map<String, List<String>> params) {
+        if (request.method() != HttpMethod.POST) {
+            sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
+            return;
+        }
+        String groupName = getParam(params, "group");
+        if (groupName == null) {
+            sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+            return;
+        }
+        Group group = cacheManager.getGroup(groupName);
+        if (group == null) {
+            sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            return;
+        }
+        List<String> keys;
+        try {
+            keys = BatchCodec.decodeKeys(request.content());
+        } catch (IllegalArgumentException e) {
+            sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+            return;
+        }
+        keys.forEach(group::evictLocal);
+        sendResponse(ctx, "OK".getBytes(CharsetUtil.UTF_8));
+    }
+
+    /**
+     * 处理缓存组管理请求：GET返回当前配置，POST按给出的参数调整容量、加载超时、淘汰策略和大值字节上限后返回新配置
+     * 参数全部校验通过后才开始修改；切换淘汰策略在后台线程复制条目，完成后再应用其他参数并返回新配置，
+     * 缩小容量时需要淘汰的条目较多则在后台分批进行
+     */
+    private void handleGroupAdminRequest(ChannelHandlerContext ctx, FullHttpRequest request,
+                                         Map<String, List<String>> params) {
+        if (request.method() != HttpMethod.GET && request.method() != HttpMethod.POST) {
+            sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
+            return;
+        }
+        String groupName = getParam(params, "group");
+        if (groupName == null) {
+            sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+            return;
+        }
+        Group group = cacheManager.getGroup(groupName);
+        if (group == null) {
+            sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            return;
+        }
+        boolean keepAlive = this.keepAlive;
+        if (request.method() == HttpMethod.POST) {
+            CompletableFuture<Void> reconfigured;
+            try {
+                String capacityParam = getParam(params, "capacity");
+                String timeoutParam = getParam(params, "loadTimeoutMs");
+                String policyParam = getParam(params, "policy");
+                String largeParam = getParam(params, "maxLargeValueBytes");
+                Integer capacity = capacityParam != null ? Integer.valueOf(capacityParam) : null;
+                Long timeoutMs = timeoutParam != null ? Long.valueOf(timeoutParam) : null;
+                EvictionPolicy policy = policyParam != null ? EvictionPolicy.parse(policyParam) : null;
+                Long largeBytes = largeParam != null ? Long.valueOf(largeParam) : null;
+                if ((capacity != null && capacity <= 0) || (timeoutMs != null && timeoutMs <= 0)
+                        || (largeBytes != null && largeBytes <= 0)
+                        || (capacity == null && timeoutMs == null && policy == null && largeBytes == null)) {
+                    sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+                    return;
+                }
+                if (capacity != null) {
+                    group.checkCapacity(capacity);
+                }
+                // 切换策略要复制全部条目，在后台线程完成后再调整容量，避免缩小容量作用在被替换的旧缓存上
+                CompletableFuture<Void> swapped = policy != null
+                        ? group.setEvictionPolicy(policy) : CompletableFuture.completedFuture(null);
+                reconfigured = swapped.thenRun(() -> {
+                    if (capacity != null) {
+                        group.resize(capacity);
+                    }
+                    if (timeoutMs != null) {
+                        group.setLoadTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+                    }
+                    if (largeBytes != null) {
+                        group.setMaxLargeValueBytes(largeBytes);
+                    }
+                    logger.info("Reconfigured group {}: capacity={}, loadTimeoutMs={}, policy={}, maxLargeValueBytes={}",
+                            groupName, capacityParam, timeoutParam, policyParam, largeParam);
+                });
+            } catch (IllegalArgumentException | UnsupportedOperationException e) {
+                // NumberFormatException也是IllegalArgumentException
+                sendBadRequest(ctx, e, keepAlive);
+                return;
+            }
+            reconfigured.whenCompleteAsync((v, error) -> {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause == null) {
+                    sendGroupConfig(ctx, group, keepAlive);
+                } else if (cause instanceof IllegalArgumentException || cause instanceof UnsupportedOperationException) {
+                    sendBadRequest(ctx, cause, keepAlive);
+                } else {
+                    logger.warn("Failed to reconfigure group {}: {}", groupName, cause.toString());
+                    HttpResponses.sendError(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR, keepAlive);
+                }
+            }, ctx.executor());
+            return;
+        }
+        sendGroupConfig(ctx, group, keepAlive);
+    }
+
+    /**
+     * 返回400和错误原因
+     */
+    private static void sendBadRequest(ChannelHandlerContext ctx, Throwable error, boolean keepAlive) {
+        HttpResponses.send(ctx, HttpResponseStatus.BAD_REQUEST,
+                Unpooled.copiedBuffer(error.getMessage() + "\n", CharsetUtil.UTF_8), "text/plain", keepAlive);
+    }
+
+    /**
+     * 返回缓存组的当前配置
+     */
+    private static void sendGroupConfig(ChannelHandlerContext ctx, Group group, boolean keepAlive) {
+        EvictionPolicy policy = group.getEvictionPolicy();
+        String config = "group=" + group.getName() + "\n"
+                + "policy=" + (policy != null ? policy : group.getCache().getClass().getSimpleName()) + "\n"
+                + "capacity=" + group.getCapacity() + "\n"
+                + "entries=" + group.getCache().size() + "\n"
+                + "loadTimeoutMs=" + group.getLoadTimeout(TimeUnit.MILLISECONDS) + "\n"
+                + "largeValueBytes=" + group.getLargeValueBytes() + "\n"
+                + "maxLargeValueBytes=" + group.getMaxLargeValueBytes() + "\n";
+        HttpResponses.send(ctx, HttpResponseStatus.OK, Unpooled.copiedBuffer(config, CharsetUtil.UTF_8),
+                "text/plain; charset=utf-8", keepAlive);
+    }
+
+    /**
+     * 处理成员管理协议的ping和间接ping，未启用成员管理时返回404
+     */
+    private void handleGossipRequest(ChannelHandlerContext ctx, FullHttpRequest request, String path,
+                                     Map<String, List<String>> params) {
+        SwimMembership membership = nodeManager != null ? nodeManager.getMembership() : null;
+        if (membership == null || request.method() != HttpMethod.POST) {
+            sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            return;
+        }
+        byte[] message = new byte[request.content().readableBytes()];
+        request.content().readBytes(message);
+        try {
+            if (path.equals("/api/gossip/ping")) {
+                sendResponse(ctx, membership.handlePing(message));
+            } else if (path.equals("/api/gossip/ping-req") && getParam(params, "target") != null) {
+                boolean keepAlive = this.keepAlive;
+                membership.handlePingRequest(getParam(params, "target"), message)
+                        .whenCompleteAsync((ack, error) -> {
+                            if (error != null) {
+                                HttpResponses.sendError(ctx, HttpResponseStatus.GATEWAY_TIMEOUT, keepAlive);
+                            } else {
+                                HttpResponses.send(ctx, HttpResponseStatus.OK, Unpooled.wrappedBuffer(ack),
+                                        "application/octet-stream", keepAlive);
+                            }
+                        }, ctx.executor());
+            } else {
+                sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * 处理批量写入，所有键值只写入本节点（用于节点间的键迁移）
+     */
+    private void handleBatchPut(ChannelHandlerContext ctx, FullHttpRequest request, Group group) {
+        List<BatchCodec.Entry> entries;
+        try {
+            entries = BatchCodec.decodeEntries(request.content());
+        } catch (IllegalArgumentException e) {
+            sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+            return;
+        }
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (BatchCodec.Entry entry : entries) {
+            if (entry.getStatus() != BatchCodec.STATUS_FOUND) {
+                continue;
+            }
+            pending.add(group.putChunkedAsync(entry.getKey(), ChunkedValue.of(entry.getValue()))
+                    .handle((v, error) -> {
+                        if (error != null) {
+                            logger.warn("Skipping key {} in batch put: {}", entry.getKey(), error.getMessage());
+                        }
+                        return null;
+                    }));
+        }
+        boolean keepAlive = this.keepAlive;
+        byte[] count = Integer.toString(entries.size()).getBytes(CharsetUtil.UTF_8);
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).whenCompleteAsync((v, error) ->
+                HttpResponses.send(ctx, HttpResponseStatus.OK, Unpooled.wrappedBuffer(count),
+                        "application/octet-stream", keepAlive), ctx.executor());
+    }
+
+    /**
+     * 按所属节点划分键，本地处理的键归入本节点地址
+     */
+    private Map<String, List<String>> partitionByOwner(List<String> keys, boolean localOnly) {
+        Map<String, List<String>> partitions = new LinkedHashMap<>();
+        for (String key : keys) {
+            String owner = localOnly ? "" : nodeManager.getNode(key);
+            partitions.computeIfAbsent(owner, k -> new ArrayList<>()).add(key);
+        }
+        return partitions;
+    }
+
+    private void writeEntry(ChannelHandlerContext ctx, String key, byte status, byte[] value) {
+        ctx.write(new DefaultHttpContent(BatchCodec.encodeEntry(ctx.alloc(), key, status, value)));
+    }
+
+    /**
+     * 判断请求是否来自其他节点
+     */
+    private boolean isPeerRequest(HttpRequest request) {
+        return request.headers().contains(HttpClient.PEER_HEADER);
+    }
+
     /**
      * 获取参数值
      */
@@ -95,28 +474,15 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
      * 发送响应
      */
     private void sendResponse(ChannelHandlerContext ctx, byte[] content) {
-        FullHttpResponse response = new DefaultFullHttpResponse(
-                HttpVersion.HTTP_1_1,
-                HttpResponseStatus.OK,
-                Unpooled.wrappedBuffer(content)
-        );
-        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
-        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.length);
-        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        HttpResponses.send(ctx, HttpResponseStatus.OK, Unpooled.wrappedBuffer(content),
+                "application/octet-stream", keepAlive);
     }
 
     /**
      * 发送错误响应
      */
     private void sendError(ChannelHandlerContext ctx, HttpResponseStatus status) {
-        FullHttpResponse response = new DefaultFullHttpResponse(
-                HttpVersion.HTTP_1_1,
-                status,
-                Unpooled.copiedBuffer("Error: " + status.toString(), CharsetUtil.UTF_8)
-        );
-        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
-        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
-        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        HttpResponses.sendError(ctx, status, keepAlive);
     }
 
     @Override
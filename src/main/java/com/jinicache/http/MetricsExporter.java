@@ -0,0 +1,145 @@
+package com.jinicache.http;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.metrics.Counter;
+import com.jinicache.metrics.GroupMetrics;
+import com.jinicache.metrics.Histogram;
+import com.jinicache.metrics.MissRatioCurve;
+import com.jinicache.metrics.PeerMetrics;
+import com.jinicache.metrics.PrometheusWriter;
+import com.jinicache.node.NodeManager;
+import com.jinicache.node.PeerClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 把缓存组和远端节点的指标输出为Prometheus文本格式，供 /metrics 使用
+ */
+final class MetricsExporter {
+    private static final int CURVE_POINTS = 16;
+
+    private MetricsExporter() {
+    }
+
+    /**
+     * 输出所有指标
+     * @param cacheManager 缓存管理器
+     * @param nodeManager 节点管理器，为null时只输出缓存组指标
+     * @return Prometheus文本
+     */
+    static String render(CacheManager cacheManager, NodeManager nodeManager) {
+        return render(cacheManager, nodeManager, null);
+    }
+
+    /**
+     * 输出所有指标
+     * @param cacheManager 缓存管理器
+     * @param nodeManager 节点管理器，为null时不输出节点指标
+     * @param admission 准入控制，为null时不输出准入指标
+     * @return Prometheus文本
+     */
+    static String render(CacheManager cacheManager, NodeManager nodeManager, AdmissionController admission) {
+        PrometheusWriter writer = new PrometheusWriter();
+        Collection<Group> groups = cacheManager.getGroups().values();
+        groupCounter(writer, groups, "jinicache_cache_hits_total", "Cache hits.", GroupMetrics::getHits);
+        groupCounter(writer, groups, "jinicache_cache_misses_total", "Cache misses.", GroupMetrics::getMisses);
+        groupCounter(writer, groups, "jinicache_cache_loads_total", "Loader invocations.", GroupMetrics::getLoads);
+        groupCounter(writer, groups, "jinicache_cache_load_failures_total", "Loader invocations that threw.",
+                GroupMetrics::getLoadFailures);
+        groupCounter(writer, groups, "jinicache_cache_peer_fetches_total", "Misses fetched from the owning peer.",
+                GroupMetrics::getPeerFetches);
+        groupCounter(writer, groups, "jinicache_cache_peer_errors_total", "Failed fetches from the owning peer.",
+                GroupMetrics::getPeerErrors);
+        groupGauge(writer, groups, "jinicache_cache_evictions_total", "counter", "Entries evicted for capacity.",
+                Group::getEvictionCount);
+        groupGauge(writer, groups, "jinicache_cache_entries", "gauge", "Entries held in the local cache.",
+                group -> group.getCache().size());
+        groupHistogram(writer, groups, "jinicache_cache_get_latency_seconds", "Latency of gets, including loads.",
+                GroupMetrics::getGetLatency);
+        groupHistogram(writer, groups, "jinicache_cache_load_latency_seconds", "Latency of loader invocations.",
+                GroupMetrics::getLoadLatency);
+        writer.family("jinicache_cache_predicted_hit_ratio", "gauge",
+                "Hit ratio an LRU cache of the given capacity would have had, estimated from sampled accesses.");
+        for (Group group : groups) {
+            MissRatioCurve curve = group.getMissRatioCurve();
+            if (curve != null) {
+                curve.curve(CURVE_POINTS).forEach((capacity, ratio) ->
+                        writer.sample(ratio, "group", group.getName(), "capacity", Long.toString(capacity)));
+            }
+        }
+
+        if (nodeManager != null) {
+            List<PeerClient> peers = new ArrayList<>();
+            for (String address : nodeManager.getAllNodes()) {
+                PeerClient peer = nodeManager.getPeer(address);
+                if (peer != null) {
+                    peers.add(peer);
+                }
+            }
+            peerCounter(writer, peers, "jinicache_peer_requests_total", "Completed reads sent to the peer.",
+                    PeerMetrics::getRequests);
+            peerCounter(writer, peers, "jinicache_peer_errors_total", "Reads to the peer that failed or timed out.",
+                    PeerMetrics::getErrors);
+            peerCounter(writer, peers, "jinicache_peer_rejected_total",
+                    "Reads not sent because of the concurrency limit or an open circuit.", PeerMetrics::getRejected);
+            writer.family("jinicache_peer_rtt_seconds", "histogram", "Round-trip time of reads sent to the peer.");
+            peers.forEach(peer -> writer.latency(peer.getMetrics().getRtt(), "peer", peer.getAddress()));
+            peerGauge(writer, peers, "jinicache_peer_concurrency_limit", "Current adaptive concurrency limit.",
+                    peer -> peer.getConcurrencyLimit().getLimit());
+            peerGauge(writer, peers, "jinicache_peer_in_flight", "Reads currently in flight to the peer.",
+                    peer -> peer.getConcurrencyLimit().getInFlight());
+            peerGauge(writer, peers, "jinicache_peer_circuit_state", "Circuit state: 0 closed, 1 open, 2 half-open.",
+                    peer -> peer.getCircuitBreaker().getState().ordinal());
+
+            writer.family("jinicache_ring_members", "gauge", "Nodes on the hash ring, including this one.");
+            writer.sample(nodeManager.getAllNodes().size());
+            writer.family("jinicache_hedged_requests_total", "counter", "Hedged reads sent to a second replica.");
+            writer.sample(nodeManager.getHedgedRequestCount());
+        }
+
+        if (admission != null) {
+            writer.family("jinicache_http_in_flight", "gauge", "Requests admitted and not yet answered.");
+            writer.sample(admission.getInFlight());
+            writer.family("jinicache_http_shed_total", "counter", "Requests rejected with 503 by admission control.");
+            writer.sample(admission.getShedClientCount(), "source", "client", "limit", "global");
+            writer.sample(admission.getShedByGroupCount(), "source", "client", "limit", "group");
+            writer.sample(admission.getShedPeerCount(), "source", "peer", "limit", "global");
+        }
+        return writer.toString();
+    }
+
+    private static void groupCounter(PrometheusWriter writer, Collection<Group> groups, String name, String help,
+                                     Function<GroupMetrics, Counter> counter) {
+        writer.family(name, "counter", help);
+        groups.forEach(group -> writer.sample(counter.apply(group.getMetrics()).get(), "group", group.getName()));
+    }
+
+    private static void groupGauge(PrometheusWriter writer, Collection<Group> groups, String name, String type,
+                                   String help, ToDoubleFunction<Group> value) {
+        writer.family(name, type, help);
+        groups.forEach(group -> writer.sample(value.applyAsDouble(group), "group", group.getName()));
+    }
+
+    private static void groupHistogram(PrometheusWriter writer, Collection<Group> groups, String name, String help,
+                                       Function<GroupMetrics, Histogram> histogram) {
+        writer.family(name, "histogram", help);
+        groups.forEach(group -> writer.latency(histogram.apply(group.getMetrics()), "group", group.getName()));
+    }
+
+    private static void peerCounter(PrometheusWriter writer, List<PeerClient> peers, String name, String help,
+                                    Function<PeerMetrics, Counter> counter) {
+        writer.family(name, "counter", help);
+        peers.forEach(peer -> writer.sample(counter.apply(peer.getMetrics()).get(), "peer", peer.getAddress()));
+    }
+
+    private static void peerGauge(PrometheusWriter writer, List<PeerClient> peers, String name, String help,
+                                  ToDoubleFunction<PeerClient> value) {
+        writer.family(name, "gauge", help);
+        peers.forEach(peer -> writer.sample(value.applyAsDouble(peer), "peer", peer.getAddress()));
+    }
+}
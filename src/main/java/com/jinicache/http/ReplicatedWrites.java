@@ -0,0 +1,98 @@
+package com.jinicache.http;
+
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.Group;
+import com.jinicache.node.NodeManager;
+import com.jinicache.node.PeerClient;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.CharsetUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 副本写入
+ * 把客户端写入发送到键在哈希环上的前N个节点（N为缓存组的副本数），本节点是副本时直接写入本地
+ */
+final class ReplicatedWrites {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicatedWrites.class);
+
+    private ReplicatedWrites() {
+    }
+
+    /**
+     * 判断写入是否需要复制到多个节点
+     * @param group 缓存组
+     * @param nodeManager 节点管理器，可以为null
+     * @param fromPeer 请求是否来自其他节点
+     * @return 如果需要复制返回true
+     */
+    static boolean isReplicated(Group group, NodeManager nodeManager, boolean fromPeer) {
+        return !fromPeer && nodeManager != null && group.getReplicationFactor() > 1;
+    }
+
+    /**
+     * 写入所有副本
+     * @param nodeManager 节点管理器
+     * @param group 缓存组
+     * @param key 键
+     * @param value 值
+     * @return 写入成功的副本数
+     */
+    static CompletableFuture<Integer> write(NodeManager nodeManager, Group group, String key, ChunkedValue value) {
+        List<String> replicas = nodeManager.getNodes(key, group.getReplicationFactor());
+        AtomicInteger stored = new AtomicInteger();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (String replica : replicas) {
+            if (replica.equals(nodeManager.getSelfAddress())) {
+                pending.add(group.putChunkedAsync(key, value).handle((v, error) -> {
+                    if (error != null) {
+                        logger.warn("Failed to store key {} of group {} locally: {}",
+                                key, group.getName(), error.toString());
+                    } else {
+                        stored.incrementAndGet();
+                    }
+                    return null;
+                }));
+                continue;
+            }
+            PeerClient peer = nodeManager.getPeer(replica);
+            if (peer == null) {
+                continue;
+            }
+            pending.add(peer.put(group.getName(), key, value)
+                    .handle((v, error) -> {
+                        if (error != null) {
+                            logger.warn("Failed to replicate key {} of group {} to {}: {}",
+                                    key, group.getName(), replica, error.toString());
+                        } else {
+                            stored.incrementAndGet();
+                        }
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> stored.get());
+    }
+
+    /**
+     * 发送副本写入结果，至少一个副本写入成功即返回OK，否则返回502
+     * @param ctx 通道上下文
+     * @param stored 写入成功的副本数
+     * @param keepAlive 是否保持连接
+     */
+    static void sendResult(ChannelHandlerContext ctx, Integer stored, boolean keepAlive) {
+        if (stored != null && stored > 0) {
+            HttpResponses.send(ctx, HttpResponseStatus.OK, Unpooled.copiedBuffer("OK", CharsetUtil.UTF_8),
+                    "application/octet-stream", keepAlive);
+        } else {
+            HttpResponses.sendError(ctx, HttpResponseStatus.BAD_GATEWAY, keepAlive);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.jinicache.http;
+
+import com.jinicache.node.NodeManager;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 请求认证
+ * 其他节点的请求带有{@link HttpClient#PEER_HEADER}头，可以享有准入优先级、跳过后端写入、复制和失效广播。
+ * 配置了集群密钥时，只有头的值等于该密钥的请求才被当作节点请求；未配置时只信任来自已知成员主机的请求，
+ * 成员主机在成员变化时由后台线程解析并缓存，处理请求时不做域名解析。
+ * 管理接口配置了管理令牌时要求 Authorization: Bearer &lt;令牌&gt;，未配置时只接受来自本机回环地址的请求
+ */
+public class RequestAuthenticator {
+    private static final String BEARER = "Bearer ";
+    private static final ExecutorService RESOLVER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "jinicache-resolve");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final NodeManager nodeManager;
+    private final Runnable listener = this::requestResolve;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile MemberHosts memberHosts = new MemberHosts(Set.of(), false);
+    private volatile byte[] peerSecret;
+    private volatile byte[] adminToken;
+
+    /**
+     * 构造函数
+     * @param nodeManager 节点管理器，未配置集群密钥时用于判断请求是否来自成员主机，可以为null
+     */
+    public RequestAuthenticator(NodeManager nodeManager) {
+        this.nodeManager = nodeManager;
+    }
+
+    /**
+     * 解析当前成员主机并开始跟随成员变化，由HttpServer启动时调用
+     */
+    void start() {
+        if (nodeManager != null) {
+            nodeManager.addRingChangeListener(listener);
+            resolveMembers();
+        }
+    }
+
+    /**
+     * 停止跟随成员变化，由HttpServer关闭时调用
+     */
+    void stop() {
+        if (nodeManager != null) {
+            nodeManager.removeRingChangeListener(listener);
+        }
+    }
+
+    /**
+     * 设置集群密钥，所有节点需要配置相同的密钥
+     * @param secret 密钥，为null时改为按成员主机判断
+     */
+    public void setPeerSecret(String secret) {
+        this.peerSecret = secret != null ? secret.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * 判断是否配置了集群密钥
+     * @return 配置了密钥时返回true
+     */
+    public boolean hasPeerSecret() {
+        return peerSecret != null;
+    }
+
+    /**
+     * 设置管理令牌
+     * @param token 令牌，为null时管理接口只接受本机请求
+     */
+    public void setAdminToken(String token) {
+        this.adminToken = token != null ? token.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * 判断请求是否来自其他节点
+     * @param request 请求
+     * @param remote 连接的远端地址
+     * @return 带有节点请求头并通过认证时返回true
+     */
+    public boolean isPeer(HttpRequest request, SocketAddress remote) {
+        String header = request.headers().get(HttpClient.PEER_HEADER);
+        if (header == null) {
+            return false;
+        }
+        byte[] secret = peerSecret;
+        if (secret != null) {
+            return MessageDigest.isEqual(secret, header.getBytes(StandardCharsets.UTF_8));
+        }
+        return isMemberHost(remote);
+    }
+
+    /**
+     * 判断请求是否可以访问管理接口
+     * @param request 请求
+     * @param remote 连接的远端地址
+     * @return 携带正确的管理令牌，或未配置令牌时来自本机，返回true
+     */
+    public boolean isAdmin(HttpRequest request, SocketAddress remote) {
+        byte[] token = adminToken;
+        if (token == null) {
+            InetAddress address = addressOf(remote);
+            return address != null && address.isLoopbackAddress();
+        }
+        String authorization = request.headers().get(HttpHeaderNames.AUTHORIZATION);
+        return authorization != null && authorization.startsWith(BEARER) && MessageDigest.isEqual(token,
+                authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 远端地址是否属于某个成员节点的主机，回环地址之间视为同一主机；只查缓存的解析结果
+     */
+    private boolean isMemberHost(SocketAddress remote) {
+        InetAddress address = addressOf(remote);
+        if (address == null) {
+            return false;
+        }
+        MemberHosts hosts = memberHosts;
+        return hosts.addresses.contains(address) || (hosts.loopback && address.isLoopbackAddress());
+    }
+
+    /**
+     * 成员变化时在后台线程重新解析，解析进行中的多次变化合并为一次
+     * 变化的回调可能在事件循环中执行，这里不能直接做域名解析
+     */
+    private void requestResolve() {
+        if (pending.compareAndSet(false, true)) {
+            RESOLVER.execute(() -> {
+                pending.set(false);
+                resolveMembers();
+            });
+        }
+    }
+
+    /**
+     * 解析所有成员主机并替换缓存的地址集合
+     */
+    private void resolveMembers() {
+        Set<InetAddress> addresses = new HashSet<>();
+        boolean loopback = false;
+        for (String node : nodeManager.getAllNodes()) {
+            int colon = node.lastIndexOf(':');
+            String host = colon > 0 ? node.substring(0, colon) : node;
+            try {
+                for (InetAddress member : InetAddress.getAllByName(host)) {
+                    addresses.add(member);
+                    loopback |= member.isLoopbackAddress();
+                }
+            } catch (UnknownHostException e) {
+                // 无法解析的成员不匹配任何地址
+            }
+        }
+        memberHosts = new MemberHosts(Set.copyOf(addresses), loopback);
+    }
+
+    private static InetAddress addressOf(SocketAddress remote) {
+        return remote instanceof InetSocketAddress ? ((InetSocketAddress) remote).getAddress() : null;
+    }
+
+    /**
+     * 一次解析得到的成员地址，整体替换以保证地址集合和回环标记一致
+     */
+    private static final class MemberHosts {
+        final Set<InetAddress> addresses;
+        final boolean loopback;
+
+        MemberHosts(Set<InetAddress> addresses, boolean loopback) {
+            this.addresses = addresses;
+            this.loopback = loopback;
+        }
+    }
+}
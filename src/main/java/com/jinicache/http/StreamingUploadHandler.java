@@ -0,0 +1,153 @@
+package com.jinicache.http;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.Group;
+import com.jinicache.node.NodeManager;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 大值流式上传处理器
+ * 位于HttpObjectAggregator之前，拦截chunked编码或超过聚合上限的PUT请求，
+ * 将请求体逐块写入分块值，其余请求原样交给后续的聚合器处理
+ */
+public class StreamingUploadHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingUploadHandler.class);
+    private final CacheManager cacheManager;
+    private final NodeManager nodeManager;
+    private final int aggregateLimit;
+    private boolean streaming;
+    private boolean discarding;
+    private boolean keepAlive;
+    private Group group;
+    private String key;
+    private boolean fromPeer;
+    private ChunkedValue.Builder builder;
+
+    /**
+     * 构造函数
+     * @param cacheManager 缓存管理器
+     * @param aggregateLimit 聚合器允许的最大请求体大小，超过该值的请求走流式路径
+     */
+    public StreamingUploadHandler(CacheManager cacheManager, int aggregateLimit) {
+        this(cacheManager, null, aggregateLimit);
+    }
+
+    /**
+     * 构造函数
+     * @param cacheManager 缓存管理器
+     * @param nodeManager 节点管理器，缓存组的副本数大于1时用于把写入复制到各副本，可以为null
+     * @param aggregateLimit 聚合器允许的最大请求体大小，超过该值的请求走流式路径
+     */
+    public StreamingUploadHandler(CacheManager cacheManager, NodeManager nodeManager, int aggregateLimit) {
+        this.cacheManager = cacheManager;
+        this.nodeManager = nodeManager;
+        this.aggregateLimit = aggregateLimit;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) msg;
+            if (isStreamingUpload(request)) {
+                startUpload(ctx, request);
+                ReferenceCountUtil.release(msg);
+                return;
+            }
+            streaming = false;
+        } else if (streaming && msg instanceof HttpContent) {
+            try {
+                onContent(ctx, (HttpContent) msg);
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * 判断是否需要走流式上传路径
+     */
+    private boolean isStreamingUpload(HttpRequest request) {
+        if (request.method() != HttpMethod.PUT
+                || !"/api/cache".equals(new QueryStringDecoder(request.uri()).path())) {
+            return false;
+        }
+        return HttpUtil.isTransferEncodingChunked(request)
+                || HttpUtil.getContentLength(request, 0L) > aggregateLimit;
+    }
+
+    private void startUpload(ChannelHandlerContext ctx, HttpRequest request) {
+        streaming = true;
+        discarding = false;
+        keepAlive = HttpUtil.isKeepAlive(request);
+        fromPeer = request.headers().contains(HttpClient.PEER_HEADER);
+        builder = null;
+
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        String groupName = getParam(decoder.parameters(), "group");
+        key = getParam(decoder.parameters(), "key");
+        if (groupName == null || key == null) {
+            reject(ctx, HttpResponseStatus.BAD_REQUEST);
+            return;
+        }
+        group = cacheManager.getGroup(groupName);
+        if (group == null) {
+            reject(ctx, HttpResponseStatus.NOT_FOUND);
+            return;
+        }
+        if (HttpUtil.getContentLength(request, 0L) > group.getMaxValueSize()) {
+            reject(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        if (HttpUtil.is100ContinueExpected(request)) {
+            ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+        }
+        builder = ChunkedValue.builder();
+    }
+
+    private void onContent(ChannelHandlerContext ctx, HttpContent content) {
+        if (!discarding) {
+            int readable = content.content().readableBytes();
+            if (builder.size() + readable > group.getMaxValueSize()) {
+                logger.warn("Rejecting upload of key {} to group {}: exceeds {} bytes",
+                        key, group.getName(), group.getMaxValueSize());
+                reject(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+            } else {
+                builder.append(content.content().nioBuffer());
+            }
+        }
+        if (content instanceof LastHttpContent) {
+            if (!discarding) {
+                ValueWrites.write(ctx, nodeManager, group, key, builder.build(), fromPeer, keepAlive);
+            }
+            streaming = false;
+            builder = null;
+            group = null;
+            key = null;
+        }
+    }
+
+    /**
+     * 拒绝上传：立即返回错误并关闭连接，丢弃剩余的请求体
+     */
+    private void reject(ChannelHandlerContext ctx, HttpResponseStatus status) {
+        discarding = true;
+        builder = null;
+        HttpResponses.sendError(ctx, status, false);
+    }
+
+    private String getParam(Map<String, List<String>> params, String name) {
+        List<String> values = params.get(name);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+}
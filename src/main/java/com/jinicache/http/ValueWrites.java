@@ -0,0 +1,73 @@
+package com.jinicache.http;
+
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.Group;
+import com.jinicache.node.NodeManager;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.CharsetUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 单键写入
+ * 客户端写入先异步交给后端写入器，成功后写入本地缓存或复制到各副本；其他节点转发的写入不再写后端。
+ * 等待后端和回写队列时不占用事件循环，响应在事件循环中写回
+ */
+final class ValueWrites {
+    private static final Logger logger = LoggerFactory.getLogger(ValueWrites.class);
+
+    private ValueWrites() {
+    }
+
+    /**
+     * 写入值并返回响应：回写队列已满或写入线程都在忙返回503，写入器出错返回502，写入缓存失败返回500
+     * @param ctx 通道上下文
+     * @param nodeManager 节点管理器，可以为null
+     * @param group 缓存组
+     * @param key 键
+     * @param value 值
+     * @param fromPeer 请求是否来自其他节点
+     * @param keepAlive 是否保持连接
+     */
+    static void write(ChannelHandlerContext ctx, NodeManager nodeManager, Group group, String key,
+                      ChunkedValue value, boolean fromPeer, boolean keepAlive) {
+        CompletableFuture<Void> stored = fromPeer
+                ? CompletableFuture.completedFuture(null) : group.writeToStoreAsync(key, value);
+        stored.whenCompleteAsync((v, error) -> {
+            if (error != null) {
+                sendStoreError(ctx, group, key, error, keepAlive);
+            } else if (ReplicatedWrites.isReplicated(group, nodeManager, fromPeer)) {
+                ReplicatedWrites.write(nodeManager, group, key, value).whenCompleteAsync(
+                        (count, replicationError) -> ReplicatedWrites.sendResult(ctx, count, keepAlive), ctx.executor());
+            } else {
+                group.putChunkedAsync(key, value).whenCompleteAsync((ignored, putError) -> {
+                    if (putError != null) {
+                        logger.warn("Failed to store key {} of group {}: {}", key, group.getName(), putError.toString());
+                        HttpResponses.sendError(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR, keepAlive);
+                    } else {
+                        HttpResponses.send(ctx, HttpResponseStatus.OK, Unpooled.copiedBuffer("OK", CharsetUtil.UTF_8),
+                                "application/octet-stream", keepAlive);
+                    }
+                }, ctx.executor());
+            }
+        }, ctx.executor());
+    }
+
+    private static void sendStoreError(ChannelHandlerContext ctx, Group group, String key, Throwable error,
+                                       boolean keepAlive) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            HttpResponses.sendError(ctx, HttpResponseStatus.SERVICE_UNAVAILABLE, keepAlive);
+        } else {
+            logger.warn("Failed to write key {} of group {} to the backing store: {}",
+                    key, group.getName(), cause.toString());
+            HttpResponses.sendError(ctx, HttpResponseStatus.BAD_GATEWAY, keepAlive);
+        }
+    }
+}
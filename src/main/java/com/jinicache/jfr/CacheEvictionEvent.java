@@ -0,0 +1,24 @@
+package com.jinicache.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 缓存引擎因容量淘汰一个条目，保留调用栈以区分所属缓存组；数量与写入量相当，默认关闭
+ */
+@Name("com.jinicache.CacheEviction")
+@Label("Cache Eviction")
+@Category({"JiniCache", "Cache"})
+@Description("An entry evicted by a cache engine to stay within its capacity.")
+@Enabled(false)
+public final class CacheEvictionEvent extends Event {
+    @Label("Key")
+    public String key;
+
+    @Label("Capacity")
+    public int capacity;
+}
@@ -0,0 +1,33 @@
+package com.jinicache.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 缓存组的一次读取，未命中时包括从远端节点获取或加载的时间；默认只记录超过5毫秒的读取
+ */
+@Name("com.jinicache.CacheGet")
+@Label("Cache Get")
+@Category({"JiniCache", "Cache"})
+@Description("A read from a cache group, including the peer fetch or load on a miss.")
+@StackTrace(false)
+@Threshold("5 ms")
+public final class CacheGetEvent extends Event {
+    @Label("Group")
+    public String group;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Hit")
+    public boolean hit;
+
+    @Label("Local Only")
+    @Description("The read came from another node and was not forwarded again.")
+    public boolean localOnly;
+}
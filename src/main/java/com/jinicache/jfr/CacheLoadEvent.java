@@ -0,0 +1,29 @@
+package com.jinicache.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 一次加载器调用；默认只记录超过5毫秒的加载
+ */
+@Name("com.jinicache.CacheLoad")
+@Label("Cache Load")
+@Category({"JiniCache", "Cache"})
+@Description("An invocation of a group's loader after a miss.")
+@StackTrace(false)
+@Threshold("5 ms")
+public final class CacheLoadEvent extends Event {
+    @Label("Group")
+    public String group;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,21 @@
+package com.jinicache.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * 等待缓存引擎锁的时间，只在锁已被占用时计时，保留调用栈以区分调用方；默认只记录超过1毫秒的等待
+ */
+@Name("com.jinicache.CacheLockWait")
+@Label("Cache Lock Wait")
+@Category({"JiniCache", "Cache"})
+@Description("Time spent blocked on a cache engine's lock while another thread held it.")
+@Threshold("1 ms")
+public final class CacheLockWaitEvent extends Event {
+    @Label("Operation")
+    public String operation;
+}
@@ -0,0 +1,29 @@
+package com.jinicache.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 一次节点间HTTP请求，从取连接到收到完整响应；事件在完成请求的线程上提交。默认只记录超过10毫秒的请求
+ */
+@Name("com.jinicache.PeerRequest")
+@Label("Peer Request")
+@Category({"JiniCache", "Network"})
+@Description("An HTTP request to another node, from acquiring a connection until the full response arrived.")
+@StackTrace(false)
+@Threshold("10 ms")
+public final class PeerRequestEvent extends Event {
+    @Label("Method")
+    public String method;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,31 @@
+package com.jinicache.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 从发起SingleFlight调用到结果就绪的时间，包括排队等待执行线程和等待他人发起的同键调用；
+ * 事件在完成调用的线程上提交。默认只记录超过5毫秒的调用
+ */
+@Name("com.jinicache.SingleFlight")
+@Label("SingleFlight Wait")
+@Category({"JiniCache", "Cache"})
+@Description("Time from a SingleFlight call until its result is ready, including queueing and waiting for a shared call.")
+@StackTrace(false)
+@Threshold("5 ms")
+public final class SingleFlightEvent extends Event {
+    @Label("Key")
+    public String key;
+
+    @Label("Shared")
+    @Description("The caller joined a call already in flight for the same key.")
+    public boolean shared;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,40 @@
+package com.jinicache.jmx;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 缓存管理器MXBean实现
+ */
+class CacheManagerBean implements CacheManagerMXBean {
+    private final CacheManager cacheManager;
+
+    CacheManagerBean(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public List<String> getGroupNames() {
+        List<String> names = new ArrayList<>(cacheManager.getGroups().keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    @Override
+    public int getGroupCount() {
+        return cacheManager.getGroups().size();
+    }
+
+    @Override
+    public long getTotalEntries() {
+        long total = 0;
+        for (Group group : cacheManager.getGroups().values()) {
+            total += group.getCache().size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,26 @@
+package com.jinicache.jmx;
+
+import java.util.List;
+
+/**
+ * 缓存管理器的JMX接口
+ */
+public interface CacheManagerMXBean {
+    /**
+     * 获取所有缓存组的名称
+     * @return 组名列表
+     */
+    List<String> getGroupNames();
+
+    /**
+     * 获取缓存组数量
+     * @return 数量
+     */
+    int getGroupCount();
+
+    /**
+     * 获取所有缓存组在本节点保存的条目总数
+     * @return 条目数
+     */
+    long getTotalEntries();
+}
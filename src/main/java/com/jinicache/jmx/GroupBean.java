@@ -0,0 +1,119 @@
+package com.jinicache.jmx;
+
+import com.jinicache.cache.Group;
+import com.jinicache.cache.EvictionPolicy;
+import com.jinicache.metrics.Histogram;
+import com.jinicache.metrics.MissRatioCurve;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存组MXBean实现
+ */
+class GroupBean implements GroupMXBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private final Group group;
+
+    GroupBean(Group group) {
+        this.group = group;
+    }
+
+    @Override
+    public String getName() {
+        return group.getName();
+    }
+
+    @Override
+    public int getEntries() {
+        return group.getCache().size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return group.getCapacity();
+    }
+
+    @Override
+    public void resize(int capacity) {
+        group.resize(capacity);
+    }
+
+    @Override
+    public long getLoadTimeoutMillis() {
+        return group.getLoadTimeout(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void setLoadTimeoutMillis(long timeoutMillis) {
+        group.setLoadTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getEvictionPolicy() {
+        EvictionPolicy policy = group.getEvictionPolicy();
+        return policy != null ? policy.name() : null;
+    }
+
+    @Override
+    public void setEvictionPolicy(String policy) {
+        group.setEvictionPolicy(EvictionPolicy.parse(policy));
+    }
+
+    @Override
+    public long getHitCount() {
+        return group.getMetrics().getHits().get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return group.getMetrics().getMisses().get();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return group.getMetrics().getLoads().get();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return group.getMetrics().getLoadFailures().get();
+    }
+
+    @Override
+    public double getMeanLoadLatencyMillis() {
+        Histogram.Snapshot snapshot = loadLatency();
+        return snapshot.getCount() > 0 ? snapshot.getSum() / NANOS_PER_MILLI / snapshot.getCount() : 0;
+    }
+
+    @Override
+    public double getLoadLatencyP99Millis() {
+        return loadLatency().percentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public int getInFlightLoads() {
+        return group.getActiveCallsCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return group.getEvictionCount();
+    }
+
+    @Override
+    public double predictHitRate(long capacity) {
+        MissRatioCurve curve = group.getMissRatioCurve();
+        return curve != null ? curve.hitRatio(capacity) : -1;
+    }
+
+    private Histogram.Snapshot loadLatency() {
+        return group.getMetrics().getLoadLatency().snapshot();
+    }
+}
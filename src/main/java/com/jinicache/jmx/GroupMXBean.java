@@ -0,0 +1,118 @@
+package com.jinicache.jmx;
+
+/**
+ * 缓存组的JMX接口
+ * 属性都从计数器和单独发布的条目数读取，不会获取缓存的全局锁
+ */
+public interface GroupMXBean {
+    /**
+     * 获取组名
+     * @return 组名
+     */
+    String getName();
+
+    /**
+     * 获取本节点保存的条目数
+     * @return 条目数
+     */
+    int getEntries();
+
+    /**
+     * 获取缓存容量
+     * @return 容量，缓存实现不支持调整容量时返回-1
+     */
+    int getCapacity();
+
+    /**
+     * 调整缓存容量，缩小时淘汰超出的条目，需要淘汰的条目较多时在后台分批进行
+     * @param capacity 新容量
+     * @throws UnsupportedOperationException 缓存实现不支持调整容量
+     */
+    void resize(int capacity);
+
+    /**
+     * 获取加载超时时间
+     * @return 超时时间（毫秒）
+     */
+    long getLoadTimeoutMillis();
+
+    /**
+     * 调整加载超时时间，只影响之后发起的加载
+     * @param timeoutMillis 超时时间（毫秒）
+     */
+    void setLoadTimeoutMillis(long timeoutMillis);
+
+    /**
+     * 获取淘汰策略
+     * @return 策略名，缓存实现不是内置实现时返回null
+     */
+    String getEvictionPolicy();
+
+    /**
+     * 切换淘汰策略，保留已缓存的条目；条目在后台线程复制，调用立即返回
+     * @param policy 策略名（LRU或FIFO）
+     * @throws IllegalArgumentException 未知的策略
+     */
+    void setEvictionPolicy(String policy);
+
+    /**
+     * 获取命中次数
+     * @return 次数
+     */
+    long getHitCount();
+
+    /**
+     * 获取未命中次数
+     * @return 次数
+     */
+    long getMissCount();
+
+    /**
+     * 获取启动以来的命中率
+     * @return 命中率（0到1之间），没有读取时返回0
+     */
+    double getHitRate();
+
+    /**
+     * 获取本地加载次数
+     * @return 次数
+     */
+    long getLoadCount();
+
+    /**
+     * 获取加载失败次数
+     * @return 次数
+     */
+    long getLoadFailureCount();
+
+    /**
+     * 获取平均加载延迟
+     * @return 延迟（毫秒）
+     */
+    double getMeanLoadLatencyMillis();
+
+    /**
+     * 获取加载延迟的p99
+     * @return 延迟（毫秒）
+     */
+    double getLoadLatencyP99Millis();
+
+    /**
+     * 获取进行中的SingleFlight调用数
+     * @return 调用数
+     */
+    int getInFlightLoads();
+
+    /**
+     * 获取因容量不足被淘汰的条目数
+     * @return 条目数
+     */
+    long getEvictionCount();
+
+    /**
+     * 估计LRU缓存在指定容量下的命中率
+     * @param capacity 容量
+     * @return 命中率（0到1之间），未启用命中率曲线时返回-1
+     */
+    double predictHitRate(long capacity);
+}
@@ -0,0 +1,182 @@
+package com.jinicache.jmx;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.node.NodeManager;
+import com.jinicache.node.PeerClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 把缓存管理器、缓存组和远端节点注册为JMX MBean
+ * 监听缓存组和哈希环的变化，组和节点增减时同步注册或注销。对象名带有本节点地址，
+ * 同一JVM中运行多个节点时互不冲突，例如 {@code com.jinicache:type=Group,node="localhost:8001",name="default"}
+ */
+public class JmxExporter {
+    private static final Logger logger = LoggerFactory.getLogger(JmxExporter.class);
+    public static final String DOMAIN = "com.jinicache";
+
+    private final String node;
+    private final CacheManager cacheManager;
+    private final NodeManager nodeManager;
+    private final MBeanServer server;
+    private final Runnable listener = this::sync;
+    private final Map<String, Group> groups = new HashMap<>();
+    private final Map<String, PeerClient> peers = new HashMap<>();
+    private boolean started;
+
+    /**
+     * 构造函数，注册到平台MBeanServer
+     * @param node 本节点地址
+     * @param cacheManager 缓存管理器
+     * @param nodeManager 节点管理器，为null时不注册远端节点
+     */
+    public JmxExporter(String node, CacheManager cacheManager, NodeManager nodeManager) {
+        this(node, cacheManager, nodeManager, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * 构造函数
+     * @param node 本节点地址
+     * @param cacheManager 缓存管理器
+     * @param nodeManager 节点管理器，为null时不注册远端节点
+     * @param server MBeanServer
+     */
+    public JmxExporter(String node, CacheManager cacheManager, NodeManager nodeManager, MBeanServer server) {
+        this.node = node;
+        this.cacheManager = cacheManager;
+        this.nodeManager = nodeManager;
+        this.server = server;
+    }
+
+    /**
+     * 注册所有MBean并开始跟踪变化
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        register(objectName("CacheManager", null), new CacheManagerBean(cacheManager));
+        cacheManager.addGroupListener(listener);
+        if (nodeManager != null) {
+            nodeManager.addRingChangeListener(listener);
+        }
+        sync();
+    }
+
+    /**
+     * 按当前的缓存组和远端节点同步注册的MBean
+     */
+    public synchronized void sync() {
+        if (!started) {
+            return;
+        }
+        Map<String, Group> currentGroups = new HashMap<>(cacheManager.getGroups());
+        for (Iterator<Map.Entry<String, Group>> it = groups.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Group> entry = it.next();
+            if (currentGroups.get(entry.getKey()) != entry.getValue()) {
+                unregister(objectName("Group", entry.getKey()));
+                it.remove();
+            }
+        }
+        currentGroups.forEach((name, group) -> {
+            if (!groups.containsKey(name)) {
+                register(objectName("Group", name), new GroupBean(group));
+                groups.put(name, group);
+            }
+        });
+
+        if (nodeManager == null) {
+            return;
+        }
+        Map<String, PeerClient> currentPeers = new HashMap<>();
+        for (String address : nodeManager.getAllNodes()) {
+            PeerClient peer = nodeManager.getPeer(address);
+            if (peer != null) {
+                currentPeers.put(address, peer);
+            }
+        }
+        for (Iterator<Map.Entry<String, PeerClient>> it = peers.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, PeerClient> entry = it.next();
+            if (currentPeers.get(entry.getKey()) != entry.getValue()) {
+                unregister(objectName("Peer", entry.getKey()));
+                it.remove();
+            }
+        }
+        currentPeers.forEach((address, peer) -> {
+            if (!peers.containsKey(address)) {
+                register(objectName("Peer", address), new PeerBean(peer));
+                peers.put(address, peer);
+            }
+        });
+    }
+
+    /**
+     * 停止跟踪并注销所有MBean
+     */
+    public synchronized void stop() {
+        if (!started) {
+            return;
+        }
+        cacheManager.removeGroupListener(listener);
+        if (nodeManager != null) {
+            nodeManager.removeRingChangeListener(listener);
+        }
+        groups.keySet().forEach(name -> unregister(objectName("Group", name)));
+        peers.keySet().forEach(address -> unregister(objectName("Peer", address)));
+        groups.clear();
+        peers.clear();
+        unregister(objectName("CacheManager", null));
+        started = false;
+    }
+
+    /**
+     * 生成对象名
+     * @param type 类型：CacheManager、Group或Peer
+     * @param name 组名或节点地址，CacheManager为null
+     * @return 对象名
+     */
+    public ObjectName objectName(String type, String name) {
+        StringBuilder builder = new StringBuilder(DOMAIN).append(":type=").append(type)
+                .append(",node=").append(ObjectName.quote(node));
+        if (name != null) {
+            builder.append(",name=").append(ObjectName.quote(name));
+        }
+        try {
+            return new ObjectName(builder.toString());
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid MBean name " + builder, e);
+        }
+    }
+
+    private void register(ObjectName name, Object bean) {
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(bean, name);
+        } catch (JMException e) {
+            logger.warn("Failed to register MBean {}: {}", name, e.toString());
+        }
+    }
+
+    private void unregister(ObjectName name) {
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.warn("Failed to unregister MBean {}: {}", name, e.toString());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.jinicache.jmx;
+
+import com.jinicache.node.PeerClient;
+
+/**
+ * 远端节点MXBean实现
+ */
+class PeerBean implements PeerMXBean {
+    private final PeerClient peer;
+
+    PeerBean(PeerClient peer) {
+        this.peer = peer;
+    }
+
+    @Override
+    public String getAddress() {
+        return peer.getAddress();
+    }
+
+    @Override
+    public int getConnectionPoolSize() {
+        return peer.getHttpClient().getConnectionPoolSize();
+    }
+
+    @Override
+    public int getInFlightRequests() {
+        return peer.getConcurrencyLimit().getInFlight();
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return peer.getConcurrencyLimit().getLimit();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return peer.getMetrics().getRequests().get();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return peer.getMetrics().getErrors().get();
+    }
+
+    @Override
+    public double getErrorRate() {
+        long requests = getRequestCount();
+        return requests > 0 ? (double) getErrorCount() / requests : 0;
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return peer.getMetrics().getRejected().get();
+    }
+
+    @Override
+    public String getCircuitState() {
+        return peer.getCircuitBreaker().getState().name();
+    }
+
+    @Override
+    public double getRttP99Millis() {
+        return peer.getMetrics().getRtt().snapshot().percentile(0.99) / 1_000_000.0;
+    }
+}
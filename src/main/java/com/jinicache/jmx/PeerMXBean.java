@@ -0,0 +1,66 @@
+package com.jinicache.jmx;
+
+/**
+ * 远端节点的JMX接口
+ */
+public interface PeerMXBean {
+    /**
+     * 获取节点地址
+     * @return 地址
+     */
+    String getAddress();
+
+    /**
+     * 获取连接池中的空闲连接数
+     * @return 连接数
+     */
+    int getConnectionPoolSize();
+
+    /**
+     * 获取进行中的读请求数
+     * @return 请求数
+     */
+    int getInFlightRequests();
+
+    /**
+     * 获取当前的自适应并发上限
+     * @return 上限
+     */
+    int getConcurrencyLimit();
+
+    /**
+     * 获取已完成的读请求数
+     * @return 请求数
+     */
+    long getRequestCount();
+
+    /**
+     * 获取失败或超时的读请求数
+     * @return 请求数
+     */
+    long getErrorCount();
+
+    /**
+     * 获取启动以来的错误率
+     * @return 错误率（0到1之间），没有请求时返回0
+     */
+    double getErrorRate();
+
+    /**
+     * 获取因并发上限或熔断被拒绝的请求数
+     * @return 请求数
+     */
+    long getRejectedCount();
+
+    /**
+     * 获取熔断器状态
+     * @return CLOSED、OPEN或HALF_OPEN
+     */
+    String getCircuitState();
+
+    /**
+     * 获取读请求往返延迟的p99
+     * @return 延迟（毫秒）
+     */
+    double getRttP99Millis();
+}
@@ -0,0 +1,121 @@
+package com.jinicache.loadgen;
+
+import java.util.Random;
+
+/**
+ * 负载生成器的键分布，生成 [0, keyCount) 内的键编号
+ * 编号本身决定热度，键在哈希环上的位置由键名的哈希决定，因此热键会分散到不同节点
+ */
+public abstract class KeyGenerator {
+    private final int keyCount;
+
+    KeyGenerator(int keyCount) {
+        if (keyCount <= 0) {
+            throw new IllegalArgumentException("keyCount must be positive");
+        }
+        this.keyCount = keyCount;
+    }
+
+    /**
+     * 生成下一个键编号
+     * @param random 随机数源
+     * @return 键编号
+     */
+    public abstract int next(Random random);
+
+    /**
+     * 获取键的数量
+     * @return 键的数量
+     */
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * 均匀分布
+     * @param keyCount 键的数量
+     * @return 键分布
+     */
+    public static KeyGenerator uniform(int keyCount) {
+        return new KeyGenerator(keyCount) {
+            @Override
+            public int next(Random random) {
+                return random.nextInt(keyCount);
+            }
+        };
+    }
+
+    /**
+     * Zipf分布，编号为i的键被访问的概率与 1/(i+1)^theta 成正比
+     * 采用Gray等人的近似算法，初始化需要O(n)，每次生成O(1)
+     * @param keyCount 键的数量
+     * @param theta 偏斜程度，取值(0, 1)，0.99接近真实业务中的热点程度
+     * @return 键分布
+     */
+    public static KeyGenerator zipfian(int keyCount, double theta) {
+        if (!(theta > 0 && theta < 1)) {
+            throw new IllegalArgumentException("theta must be in (0, 1)");
+        }
+        return new Zipfian(keyCount, theta);
+    }
+
+    /**
+     * 热点分布：hotOpFraction比例的访问落在前hotSetFraction比例的键上，两部分内部均匀
+     * @param keyCount 键的数量
+     * @param hotSetFraction 热键占全部键的比例，取值(0, 1)
+     * @param hotOpFraction 访问热键的比例，取值[0, 1]
+     * @return 键分布
+     */
+    public static KeyGenerator hotspot(int keyCount, double hotSetFraction, double hotOpFraction) {
+        if (!(hotSetFraction > 0 && hotSetFraction < 1)) {
+            throw new IllegalArgumentException("hotSetFraction must be in (0, 1)");
+        }
+        if (!(hotOpFraction >= 0 && hotOpFraction <= 1)) {
+            throw new IllegalArgumentException("hotOpFraction must be in [0, 1]");
+        }
+        int hotCount = Math.max(1, (int) (keyCount * hotSetFraction));
+        return new KeyGenerator(keyCount) {
+            @Override
+            public int next(Random random) {
+                if (hotCount >= keyCount || random.nextDouble() < hotOpFraction) {
+                    return random.nextInt(hotCount);
+                }
+                return hotCount + random.nextInt(keyCount - hotCount);
+            }
+        };
+    }
+
+    private static final class Zipfian extends KeyGenerator {
+        private final double theta;
+        private final double zetaN;
+        private final double alpha;
+        private final double eta;
+
+        Zipfian(int keyCount, double theta) {
+            super(keyCount);
+            this.theta = theta;
+            double zeta = 0;
+            for (int i = 1; i <= keyCount; i++) {
+                zeta += 1 / Math.pow(i, theta);
+            }
+            this.zetaN = zeta;
+            double zeta2 = 1 + 1 / Math.pow(2, theta);
+            this.alpha = 1 / (1 - theta);
+            this.eta = (1 - Math.pow(2.0 / keyCount, 1 - theta)) / (1 - zeta2 / zetaN);
+        }
+
+        @Override
+        public int next(Random random) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            if (uz < 1) {
+                return 0;
+            }
+            if (uz < 1 + Math.pow(0.5, theta)) {
+                return Math.min(1, getKeyCount() - 1);
+            }
+            int rank = (int) (getKeyCount() * Math.pow(eta * u - eta + 1, alpha));
+            return Math.min(rank, getKeyCount() - 1);
+        }
+    }
+}
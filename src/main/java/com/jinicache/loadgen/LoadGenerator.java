@@ -0,0 +1,398 @@
+package com.jinicache.loadgen;
+
+import com.jinicache.cache.Group;
+import com.jinicache.metrics.Counter;
+import com.jinicache.metrics.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 集群负载生成器
+ * 按固定速率（开环）通过HTTP接口向各节点轮流发送GET、PUT和MISS请求：每个请求有计划发出时刻，
+ * 发送不受之前请求是否完成影响，延迟从计划时刻算起，因此节点变慢时排队的时间也会体现在延迟中
+ */
+public class LoadGenerator {
+    private static final long DRAIN_TIMEOUT_MILLIS = 10_000;
+
+    private final List<String> targets;
+    private final String groupName;
+    private final HttpClient client;
+    private KeyGenerator keyGenerator = KeyGenerator.zipfian(100_000, 0.99);
+    private double ratePerSecond = 1000;
+    private long durationNanos = TimeUnit.SECONDS.toNanos(10);
+    private double[] mix = {0.9, 0.05, 0.05};
+    private int valueSize = 100;
+    private int maxOutstanding = 10_000;
+    private Duration requestTimeout = Duration.ofSeconds(5);
+    private long seed = System.nanoTime();
+
+    /**
+     * 单个操作类型的统计
+     */
+    private static final class OperationStats {
+        final Counter count = new Counter();
+        final Counter found = new Counter();
+        final Counter notFound = new Counter();
+        final Counter errors = new Counter();
+        final Histogram latency = new Histogram();
+
+        LoadReport.OperationResult toResult() {
+            return new LoadReport.OperationResult(count.get(), found.get(), notFound.get(), errors.get(),
+                    latency.snapshot());
+        }
+    }
+
+    /**
+     * 构造函数
+     * @param targets 节点地址列表（host:port），请求轮流发往各节点
+     * @param groupName 缓存组名
+     */
+    public LoadGenerator(List<String> targets, String groupName) {
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("targets must not be empty");
+        }
+        this.targets = new ArrayList<>(targets);
+        this.groupName = groupName;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * 设置键分布，GET和PUT的键为 {@code key:<编号>}，MISS的键为 {@code absent:<编号>}
+     * @param keyGenerator 键分布
+     */
+    public void setKeyGenerator(KeyGenerator keyGenerator) {
+        this.keyGenerator = keyGenerator;
+    }
+
+    /**
+     * 设置每秒发出的请求数
+     * @param ratePerSecond 请求速率
+     */
+    public void setRate(double ratePerSecond) {
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * 设置运行时长
+     * @param duration 时长
+     * @param unit 时间单位
+     */
+    public void setDuration(long duration, TimeUnit unit) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        this.durationNanos = unit.toNanos(duration);
+    }
+
+    /**
+     * 设置各操作所占比例，按权重归一化
+     * @param get GET的权重
+     * @param put PUT的权重
+     * @param miss MISS的权重
+     */
+    public void setMix(double get, double put, double miss) {
+        if (get < 0 || put < 0 || miss < 0 || !(get + put + miss > 0)) {
+            throw new IllegalArgumentException("mix weights must be non-negative and not all zero");
+        }
+        double total = get + put + miss;
+        this.mix = new double[]{get / total, put / total, miss / total};
+    }
+
+    /**
+     * 设置PUT写入的值的大小
+     * @param valueSize 值的大小（字节）
+     */
+    public void setValueSize(int valueSize) {
+        if (valueSize < 0) {
+            throw new IllegalArgumentException("valueSize must not be negative");
+        }
+        this.valueSize = valueSize;
+    }
+
+    /**
+     * 设置允许同时未完成的请求数上限，超过时计划发出的请求被丢弃并计入报告
+     * @param maxOutstanding 上限
+     */
+    public void setMaxOutstanding(int maxOutstanding) {
+        if (maxOutstanding <= 0) {
+            throw new IllegalArgumentException("maxOutstanding must be positive");
+        }
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    /**
+     * 设置单个请求的超时时间
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     */
+    public void setRequestTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        this.requestTimeout = Duration.ofNanos(unit.toNanos(timeout));
+    }
+
+    /**
+     * 设置随机种子，相同种子生成相同的请求序列
+     * @param seed 随机种子
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * 运行负载，阻塞到运行结束且已发出的请求全部完成（最多再等待10秒）
+     * @return 运行结果
+     * @throws InterruptedException 运行时被中断
+     */
+    public LoadReport run() throws InterruptedException {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        AtomicInteger outstanding = new AtomicInteger();
+        long dropped = 0;
+        long loadsBefore = scrapeBackendLoads();
+
+        Random random = new Random(seed);
+        byte[] value = new byte[valueSize];
+        double intervalNanos = 1e9 / ratePerSecond;
+        long start = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended - start >= durationNanos) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Operation operation = nextOperation(random);
+            int key = keyGenerator.next(random);
+            if (outstanding.get() >= maxOutstanding) {
+                dropped++;
+                continue;
+            }
+            outstanding.incrementAndGet();
+            String target = targets.get((int) (i % targets.size()));
+            send(target, operation, key, value, intended, stats.get(operation), outstanding);
+        }
+
+        long drainDeadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (outstanding.get() > 0 && System.currentTimeMillis() < drainDeadline) {
+            Thread.sleep(5);
+        }
+        long loadsAfter = scrapeBackendLoads();
+
+        Map<Operation, LoadReport.OperationResult> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            if (mix[operation.ordinal()] > 0) {
+                results.put(operation, stats.get(operation).toResult());
+            }
+        }
+        long backendLoads = loadsBefore < 0 || loadsAfter < 0 ? -1 : loadsAfter - loadsBefore;
+        return new LoadReport(durationNanos, results, dropped, backendLoads);
+    }
+
+    private Operation nextOperation(Random random) {
+        double r = random.nextDouble();
+        if (r < mix[0]) {
+            return Operation.GET;
+        }
+        return r < mix[0] + mix[1] ? Operation.PUT : Operation.MISS;
+    }
+
+    private void send(String target, Operation operation, int key, byte[] value, long intended,
+                      OperationStats stats, AtomicInteger outstanding) {
+        String keyName = operation == Operation.MISS ? "absent:" + key : keyName(key);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://" + target + "/api/cache?group="
+                        + encode(groupName) + "&key=" + encode(keyName)))
+                .timeout(requestTimeout);
+        HttpRequest request = operation == Operation.PUT
+                ? builder.PUT(HttpRequest.BodyPublishers.ofByteArray(value)).build()
+                : builder.GET().build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            stats.latency.recordSince(intended);
+            stats.count.increment();
+            if (error != null) {
+                stats.errors.increment();
+            } else if (response.statusCode() == 200) {
+                stats.found.increment();
+            } else if (response.statusCode() == 404) {
+                stats.notFound.increment();
+            } else {
+                stats.errors.increment();
+            }
+            outstanding.decrementAndGet();
+        });
+    }
+
+    /**
+     * 从各节点的 /metrics 汇总缓存组的加载次数
+     * @return 加载次数，任一节点获取失败时返回-1
+     */
+    private long scrapeBackendLoads() throws InterruptedException {
+        String prefix = "jinicache_cache_loads_total{group=\""
+                + groupName.replace("\\", "\\\\").replace("\"", "\\\"") + "\"} ";
+        long total = 0;
+        for (String target : targets) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + target + "/metrics"))
+                    .timeout(requestTimeout).GET().build();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    return -1;
+                }
+                String line = response.body().lines().filter(l -> l.startsWith(prefix)).findFirst().orElse(null);
+                if (line == null) {
+                    return -1;
+                }
+                total += (long) Double.parseDouble(line.substring(prefix.length()).trim());
+            } catch (IOException | NumberFormatException e) {
+                return -1;
+            }
+        }
+        return total;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 编号对应的键名
+     * @param key 键编号
+     * @return 键名
+     */
+    static String keyName(int key) {
+        return "key:" + key;
+    }
+
+    /**
+     * 解析带单位的时长，例如 500us、2ms、30s，不带单位时按毫秒处理
+     * @param duration 时长
+     * @return 纳秒
+     */
+    static long parseDurationNanos(String duration) {
+        String value = duration.trim().toLowerCase();
+        TimeUnit unit = TimeUnit.MILLISECONDS;
+        if (value.endsWith("us")) {
+            unit = TimeUnit.MICROSECONDS;
+            value = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("ms")) {
+            value = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("s")) {
+            unit = TimeUnit.SECONDS;
+            value = value.substring(0, value.length() - 1);
+        }
+        long amount = Long.parseLong(value);
+        if (amount < 0) {
+            throw new IllegalArgumentException("duration must not be negative: " + duration);
+        }
+        return unit.toNanos(amount);
+    }
+
+    /**
+     * 命令行入口
+     * 不指定 --targets 时在本进程启动 --nodes 个节点，缓存组的加载器接到模拟后端；
+     * 指定时直接对已有节点施压，缓存组需要已在这些节点上存在
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.out.println("Usage: java -cp jinicache.jar com.jinicache.loadgen.LoadGenerator"
+                        + " [--nodes=3] [--base-port=9101] [--targets=host:port,...] [--group=loadgen]"
+                        + " [--keys=100000] [--distribution=zipfian|hotspot|uniform] [--theta=0.99]"
+                        + " [--hot-set=0.2] [--hot-ops=0.8] [--rate=1000] [--duration=10s] [--mix=90,5,5]"
+                        + " [--value-size=100] [--backend-latency=1ms] [--capacity=10000] [--seed=<n>]");
+                System.exit(1);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        String groupName = options.getOrDefault("group", "loadgen");
+        int keyCount = Integer.parseInt(options.getOrDefault("keys", "100000"));
+        int valueSize = Integer.parseInt(options.getOrDefault("value-size", "100"));
+        LocalCluster cluster = null;
+        List<String> targets;
+        if (options.containsKey("targets")) {
+            targets = Arrays.asList(options.get("targets").split(","));
+        } else {
+            int nodeCount = Integer.parseInt(options.getOrDefault("nodes", "3"));
+            cluster = new LocalCluster(nodeCount, Integer.parseInt(options.getOrDefault("base-port", "9101")));
+            cluster.start(30_000);
+            SimulatedBackend backend = new SimulatedBackend(
+                    parseDurationNanos(options.getOrDefault("backend-latency", "1ms")), TimeUnit.NANOSECONDS,
+                    valueSize);
+            for (Group group : cluster.createGroup(groupName,
+                    Integer.parseInt(options.getOrDefault("capacity", "10000")))) {
+                backend.register(group, keyCount);
+            }
+            targets = cluster.getAddresses();
+        }
+
+        try {
+            LoadGenerator generator = new LoadGenerator(targets, groupName);
+            switch (options.getOrDefault("distribution", "zipfian")) {
+                case "uniform":
+                    generator.setKeyGenerator(KeyGenerator.uniform(keyCount));
+                    break;
+                case "hotspot":
+                    generator.setKeyGenerator(KeyGenerator.hotspot(keyCount,
+                            Double.parseDouble(options.getOrDefault("hot-set", "0.2")),
+                            Double.parseDouble(options.getOrDefault("hot-ops", "0.8"))));
+                    break;
+                case "zipfian":
+                    generator.setKeyGenerator(KeyGenerator.zipfian(keyCount,
+                            Double.parseDouble(options.getOrDefault("theta", "0.99"))));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown distribution: " + options.get("distribution"));
+            }
+            generator.setRate(Double.parseDouble(options.getOrDefault("rate", "1000")));
+            generator.setDuration(parseDurationNanos(options.getOrDefault("duration", "10s")), TimeUnit.NANOSECONDS);
+            String[] mix = options.getOrDefault("mix", "90,5,5").split(",");
+            if (mix.length != 3) {
+                throw new IllegalArgumentException("--mix takes three weights: get,put,miss");
+            }
+            generator.setMix(Double.parseDouble(mix[0]), Double.parseDouble(mix[1]), Double.parseDouble(mix[2]));
+            generator.setValueSize(valueSize);
+            if (options.containsKey("seed")) {
+                generator.setSeed(Long.parseLong(options.get("seed")));
+            }
+            System.out.print(generator.run());
+        } finally {
+            if (cluster != null) {
+                cluster.stop();
+            }
+        }
+    }
+}
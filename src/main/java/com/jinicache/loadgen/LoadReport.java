@@ -0,0 +1,168 @@
+package com.jinicache.loadgen;
+
+import com.jinicache.metrics.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 一次负载运行的结果
+ * 延迟从请求按计划应当发出的时刻算起，发送端落后于计划时的排队时间也计入延迟，避免协同遗漏
+ */
+public class LoadReport {
+    private final long durationNanos;
+    private final Map<Operation, OperationResult> results;
+    private final long dropped;
+    private final long backendLoads;
+
+    /**
+     * 单个操作类型的结果
+     */
+    static final class OperationResult {
+        final long count;
+        final long found;
+        final long notFound;
+        final long errors;
+        final Histogram.Snapshot latency;
+
+        OperationResult(long count, long found, long notFound, long errors, Histogram.Snapshot latency) {
+            this.count = count;
+            this.found = found;
+            this.notFound = notFound;
+            this.errors = errors;
+            this.latency = latency;
+        }
+    }
+
+    LoadReport(long durationNanos, Map<Operation, OperationResult> results, long dropped, long backendLoads) {
+        this.durationNanos = durationNanos;
+        this.results = new EnumMap<>(results);
+        this.dropped = dropped;
+        this.backendLoads = backendLoads;
+    }
+
+    /**
+     * 获取运行时长
+     * @return 时长（纳秒）
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * 获取完成的请求数，包括失败的请求
+     * @param operation 操作类型
+     * @return 请求数
+     */
+    public long getCount(Operation operation) {
+        OperationResult result = results.get(operation);
+        return result == null ? 0 : result.count;
+    }
+
+    /**
+     * 获取返回404的请求数
+     * @param operation 操作类型
+     * @return 请求数
+     */
+    public long getNotFound(Operation operation) {
+        OperationResult result = results.get(operation);
+        return result == null ? 0 : result.notFound;
+    }
+
+    /**
+     * 获取失败、超时或返回非200/404状态的请求数
+     * @param operation 操作类型
+     * @return 请求数
+     */
+    public long getErrors(Operation operation) {
+        OperationResult result = results.get(operation);
+        return result == null ? 0 : result.errors;
+    }
+
+    /**
+     * 获取每秒完成的请求数
+     * @param operation 操作类型
+     * @return 吞吐量
+     */
+    public double getThroughput(Operation operation) {
+        return getCount(operation) * 1e9 / durationNanos;
+    }
+
+    /**
+     * 获取所有操作合计的每秒完成请求数
+     * @return 吞吐量
+     */
+    public double getTotalThroughput() {
+        long total = 0;
+        for (OperationResult result : results.values()) {
+            total += result.count;
+        }
+        return total * 1e9 / durationNanos;
+    }
+
+    /**
+     * 获取延迟分布（纳秒）
+     * @param operation 操作类型
+     * @return 延迟快照，没有该操作时返回空快照
+     */
+    public Histogram.Snapshot getLatency(Operation operation) {
+        OperationResult result = results.get(operation);
+        return result == null ? new Histogram().snapshot() : result.latency;
+    }
+
+    /**
+     * 获取因未完成请求过多而没有发出的请求数
+     * @return 请求数
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * 获取运行期间后端的加载次数
+     * @return 加载次数，无法从节点获取时返回-1
+     */
+    public long getBackendLoads() {
+        return backendLoads;
+    }
+
+    /**
+     * 获取GET的集群命中率：读到值且没有触发后端加载的GET所占比例
+     * @return 命中率，没有GET或加载次数未知时返回NaN
+     */
+    public double getHitRate() {
+        OperationResult gets = results.get(Operation.GET);
+        if (gets == null || gets.count == 0 || backendLoads < 0) {
+            return Double.NaN;
+        }
+        double hits = Math.max(0, gets.found - backendLoads);
+        return hits / gets.count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-6s %10s %12s %10s %8s %10s %10s %10s%n",
+                "op", "count", "ops/s", "not-found", "errors", "p50(ms)", "p99(ms)", "p999(ms)"));
+        for (Map.Entry<Operation, OperationResult> entry : results.entrySet()) {
+            OperationResult result = entry.getValue();
+            out.append(String.format("%-6s %10d %12.1f %10d %8d %10.3f %10.3f %10.3f%n",
+                    entry.getKey(), result.count, getThroughput(entry.getKey()), result.notFound, result.errors,
+                    millis(result.latency.percentile(0.5)), millis(result.latency.percentile(0.99)),
+                    millis(result.latency.percentile(0.999))));
+        }
+        out.append(String.format("total throughput: %.1f ops/s over %.1f s%n", getTotalThroughput(), durationNanos / 1e9));
+        double hitRate = getHitRate();
+        if (!Double.isNaN(hitRate)) {
+            out.append(String.format("hit rate: %.2f%% (%d backend loads)%n", hitRate * 100, backendLoads));
+        }
+        if (dropped > 0) {
+            out.append(String.format("dropped: %d requests not sent, too many outstanding%n", dropped));
+        }
+        return out.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,99 @@
+package com.jinicache.loadgen;
+
+import com.jinicache.JiniCache;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在当前进程中启动的多节点集群，节点监听localhost上连续的端口并互为种子节点
+ */
+public class LocalCluster {
+    private final List<JiniCache> nodes = new ArrayList<>();
+    private final List<String> addresses = new ArrayList<>();
+
+    /**
+     * 构造函数
+     * @param nodeCount 节点数量
+     * @param basePort 第一个节点的端口，其余节点依次加一
+     */
+    public LocalCluster(int nodeCount, int basePort) {
+        if (nodeCount <= 0) {
+            throw new IllegalArgumentException("nodeCount must be positive");
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            addresses.add("localhost:" + (basePort + i));
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            List<String> peers = new ArrayList<>(addresses);
+            peers.remove(i);
+            nodes.add(new JiniCache(basePort + i, peers));
+        }
+    }
+
+    /**
+     * 启动所有节点，等待每个节点的哈希环都包含全部节点
+     * @param timeoutMillis 等待超时时间
+     * @throws InterruptedException 等待时被中断
+     * @throws IllegalStateException 超时仍未收敛
+     */
+    public void start(long timeoutMillis) throws InterruptedException {
+        nodes.forEach(JiniCache::start);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!converged()) {
+            if (System.currentTimeMillis() > deadline) {
+                stop();
+                throw new IllegalStateException("Cluster did not converge within " + timeoutMillis + "ms");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private boolean converged() {
+        for (JiniCache node : nodes) {
+            if (node.getNodeManager().getAllNodes().size() != nodes.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在每个节点上创建同名缓存组
+     * @param name 组名
+     * @param capacity 每个节点的缓存容量
+     * @return 各节点上的缓存组
+     */
+    public List<Group> createGroup(String name, int capacity) {
+        List<Group> groups = new ArrayList<>();
+        for (JiniCache node : nodes) {
+            groups.add(node.getCacheManager().createGroup(name, new LRUCache<>(capacity)));
+        }
+        return groups;
+    }
+
+    /**
+     * 获取所有节点的地址
+     * @return 地址列表
+     */
+    public List<String> getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * 获取所有节点
+     * @return 节点列表
+     */
+    public List<JiniCache> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 停止所有节点
+     */
+    public void stop() {
+        nodes.forEach(JiniCache::stop);
+    }
+}
@@ -0,0 +1,19 @@
+package com.jinicache.loadgen;
+
+/**
+ * 负载生成器发出的操作类型
+ */
+public enum Operation {
+    /**
+     * 读取后端存在的键，未命中时由加载器从模拟后端加载
+     */
+    GET,
+    /**
+     * 写入键
+     */
+    PUT,
+    /**
+     * 读取后端不存在的键，始终未命中，覆盖穿透到所属节点后返回404的路径
+     */
+    MISS
+}
@@ -0,0 +1,70 @@
+package com.jinicache.loadgen;
+
+import com.jinicache.cache.Group;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模拟的后端存储，作为缓存组的加载器，每次加载固定耗时
+ */
+public class SimulatedBackend {
+    private final long latencyNanos;
+    private final int valueSize;
+    private final AtomicLong loadCount = new AtomicLong();
+
+    /**
+     * 构造函数
+     * @param latency 每次加载的耗时
+     * @param unit 时间单位
+     * @param valueSize 加载出的值的大小（字节）
+     */
+    public SimulatedBackend(long latency, TimeUnit unit, int valueSize) {
+        if (latency < 0) {
+            throw new IllegalArgumentException("latency must not be negative");
+        }
+        if (valueSize < 0) {
+            throw new IllegalArgumentException("valueSize must not be negative");
+        }
+        this.latencyNanos = unit.toNanos(latency);
+        this.valueSize = valueSize;
+    }
+
+    /**
+     * 为 {@code key:0} 到 {@code key:(keyCount-1)} 注册加载器
+     * @param group 缓存组
+     * @param keyCount 键的数量
+     */
+    public void register(Group group, int keyCount) {
+        Group.Loader loader = this::load;
+        for (int i = 0; i < keyCount; i++) {
+            group.registerLoader(LoadGenerator.keyName(i), loader);
+        }
+    }
+
+    /**
+     * 加载一个键：等待设定的耗时后返回固定大小的值
+     * @param key 键
+     * @return 值
+     */
+    public byte[] load(String key) {
+        loadCount.incrementAndGet();
+        if (latencyNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading " + key, e);
+            }
+        }
+        return new byte[valueSize];
+    }
+
+    /**
+     * 获取累计的加载次数
+     * @return 加载次数
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+}
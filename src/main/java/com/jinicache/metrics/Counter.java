@@ -0,0 +1,34 @@
+package com.jinicache.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单调递增计数器
+ * 基于LongAdder分段累加，多线程并发递增时不会争用同一个缓存行
+ */
+public final class Counter {
+    private final LongAdder adder = new LongAdder();
+
+    /**
+     * 加1
+     */
+    public void increment() {
+        adder.increment();
+    }
+
+    /**
+     * 增加指定数量
+     * @param delta 增量，不能为负
+     */
+    public void add(long delta) {
+        adder.add(delta);
+    }
+
+    /**
+     * 获取当前值，并发递增时是近似的瞬时值
+     * @return 当前值
+     */
+    public long get() {
+        return adder.sum();
+    }
+}
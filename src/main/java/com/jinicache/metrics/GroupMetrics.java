@@ -0,0 +1,121 @@
+package com.jinicache.metrics;
+
+/**
+ * 缓存组的指标
+ */
+public final class GroupMetrics {
+    private final Counter hits = new Counter();
+    private final Counter misses = new Counter();
+    private final Counter loads = new Counter();
+    private final Counter loadFailures = new Counter();
+    private final Counter peerFetches = new Counter();
+    private final Counter peerErrors = new Counter();
+    private final Histogram getLatency = new Histogram();
+    private final Histogram loadLatency = new Histogram();
+
+    /**
+     * 记录一次命中及其耗时
+     * @param startNanos 读取开始时的 {@link System#nanoTime()}
+     */
+    public void recordHit(long startNanos) {
+        hits.increment();
+        getLatency.recordSince(startNanos);
+    }
+
+    /**
+     * 记录一次未命中及包括加载在内的耗时
+     * @param startNanos 读取开始时的 {@link System#nanoTime()}
+     */
+    public void recordMiss(long startNanos) {
+        misses.increment();
+        getLatency.recordSince(startNanos);
+    }
+
+    /**
+     * 记录一次本地加载
+     * @param startNanos 加载开始时的 {@link System#nanoTime()}
+     * @param success 加载器是否正常返回
+     */
+    public void recordLoad(long startNanos, boolean success) {
+        loads.increment();
+        if (!success) {
+            loadFailures.increment();
+        }
+        loadLatency.recordSince(startNanos);
+    }
+
+    /**
+     * 记录一次从远端节点获取
+     * @param success 是否成功
+     */
+    public void recordPeerFetch(boolean success) {
+        peerFetches.increment();
+        if (!success) {
+            peerErrors.increment();
+        }
+    }
+
+    /**
+     * 获取命中次数
+     * @return 计数器
+     */
+    public Counter getHits() {
+        return hits;
+    }
+
+    /**
+     * 获取未命中次数
+     * @return 计数器
+     */
+    public Counter getMisses() {
+        return misses;
+    }
+
+    /**
+     * 获取本地加载次数
+     * @return 计数器
+     */
+    public Counter getLoads() {
+        return loads;
+    }
+
+    /**
+     * 获取加载器抛出异常的次数
+     * @return 计数器
+     */
+    public Counter getLoadFailures() {
+        return loadFailures;
+    }
+
+    /**
+     * 获取从远端节点获取的次数
+     * @return 计数器
+     */
+    public Counter getPeerFetches() {
+        return peerFetches;
+    }
+
+    /**
+     * 获取从远端节点获取失败的次数
+     * @return 计数器
+     */
+    public Counter getPeerErrors() {
+        return peerErrors;
+    }
+
+    /**
+     * 获取读取延迟（纳秒），命中和未命中都计入
+     * @return 直方图
+     */
+    public Histogram getGetLatency() {
+        return getLatency;
+    }
+
+    /**
+     * 获取本地加载延迟（纳秒）
+     * @return 直方图
+     */
+    public Histogram getLoadLatency() {
+        return loadLatency;
+    }
+}
@@ -0,0 +1,150 @@
+package com.jinicache.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数分桶直方图
+ * 每个2的幂区间再均分为8个子桶，相对误差不超过12.5%；记录一个值只需要计算桶下标并递增对应的LongAdder，
+ * 不加锁也不分配内存，适合在请求路径上记录纳秒级延迟
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 构造函数
+     */
+    public Histogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一个值
+     * @param value 值（通常为纳秒），负数按0记录
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        buckets[indexOf(v)].increment();
+        sum.add(v);
+    }
+
+    /**
+     * 记录从开始时间到现在经过的纳秒数
+     * @param startNanos {@link System#nanoTime()} 的起始值
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 计算值所在的桶下标
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 获取桶能容纳的最大值（含）
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * 获取当前各桶计数的快照
+     * @return 快照
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, sum.sum());
+    }
+
+    /**
+     * 直方图快照，记录与快照并发进行时计数和总和可能略有出入
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        private Snapshot(long[] counts, long count, long sum) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        /**
+         * 获取记录的值总数
+         * @return 总数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 获取记录的值之和
+         * @return 总和
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * 获取分位数，返回所在桶的上界
+         * @param percentile 分位（0到1之间，例如0.99）
+         * @return 分位数，没有记录时返回0
+         */
+        public long percentile(double percentile) {
+            if (percentile <= 0 || percentile > 1) {
+                throw new IllegalArgumentException("percentile must be in (0, 1]");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length - 1);
+        }
+
+        /**
+         * 获取不超过给定值的记录数，按桶的上界判断
+         * @param bound 上界（含）
+         * @return 记录数
+         */
+        public long countAtOrBelow(long bound) {
+            long total = 0;
+            for (int i = 0; i < counts.length && upperBound(i) <= bound; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+    }
+}
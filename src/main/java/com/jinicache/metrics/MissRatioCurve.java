@@ -0,0 +1,198 @@
+package com.jinicache.metrics;
+
+import com.jinicache.hash.MurmurHash3;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 在线估计LRU缓存在不同容量下的命中率（SHARDS）
+ * 按键的哈希值做空间采样：哈希落在阈值以下的键的每次访问都被采样，其余键的访问都不被采样，
+ * 因此采样到的访问序列保留了这些键之间完整的重用关系。对采样访问计算重用距离（上次访问以来访问过的不同采样键数），
+ * 除以采样率即为完整访问序列上的重用距离；LRU缓存在容量C下命中，当且仅当重用距离小于C。
+ * 未采样的访问只有一次哈希和比较，以及一次计数器递增
+ */
+public final class MissRatioCurve {
+    private static final long MODULUS = 1L << 24;
+
+    private final long threshold;
+    private final double sampleRate;
+    private final int maxSampledKeys;
+    private final Counter accesses = new Counter();
+    /** 采样键到上次访问时刻，按访问顺序排列，最早的在前 */
+    private final LinkedHashMap<String, Integer> lastAccess;
+    /** 以访问时刻为下标的树状数组，每个采样键在其上次访问时刻处为1 */
+    private final int[] tree;
+    /** 重用距离（采样序列上）的计数 */
+    private final long[] distances;
+    private long samples;
+    private long coldSamples;
+    private int clock;
+
+    /**
+     * 构造函数
+     * @param sampleRate 采样率，在(0, 1]之间
+     * @param maxSampledKeys 最多跟踪的采样键数，决定可估计的最大容量（maxSampledKeys / sampleRate）
+     */
+    public MissRatioCurve(double sampleRate, int maxSampledKeys) {
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate must be in (0, 1]");
+        }
+        if (maxSampledKeys < 1) {
+            throw new IllegalArgumentException("maxSampledKeys must be positive");
+        }
+        this.threshold = Math.max(1, Math.round(sampleRate * MODULUS));
+        this.sampleRate = (double) threshold / MODULUS;
+        this.maxSampledKeys = maxSampledKeys;
+        this.lastAccess = new LinkedHashMap<>(16, 0.75f, true);
+        this.tree = new int[2 * maxSampledKeys + 1];
+        this.distances = new long[maxSampledKeys];
+    }
+
+    /**
+     * 记录一次访问
+     * @param key 键
+     */
+    public void record(String key) {
+        accesses.increment();
+        if ((MurmurHash3.fmix64(key.hashCode()) & (MODULUS - 1)) >= threshold) {
+            return;
+        }
+        sample(key);
+    }
+
+    private synchronized void sample(String key) {
+        if (clock == tree.length - 1) {
+            compact();
+        }
+        samples++;
+        Integer last = lastAccess.get(key);
+        if (last != null) {
+            // 上次访问之后访问过的不同采样键数
+            distances[sum(clock) - sum(last)]++;
+            add(last, -1);
+        } else {
+            coldSamples++;
+            if (lastAccess.size() >= maxSampledKeys) {
+                // 跟踪最久未访问的键，它的下一次访问按冷启动未命中计，超出了可估计的容量范围
+                Iterator<Integer> oldest = lastAccess.values().iterator();
+                add(oldest.next(), -1);
+                oldest.remove();
+            }
+        }
+        clock++;
+        add(clock, 1);
+        lastAccess.put(key, clock);
+    }
+
+    /**
+     * 访问时刻用完时按访问顺序重新编号
+     */
+    private void compact() {
+        Arrays.fill(tree, 0);
+        clock = 0;
+        for (Map.Entry<String, Integer> entry : lastAccess.entrySet()) {
+            clock++;
+            entry.setValue(clock);
+            add(clock, 1);
+        }
+    }
+
+    private void add(int index, int delta) {
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int sum(int index) {
+        int total = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            total += tree[i];
+        }
+        return total;
+    }
+
+    /**
+     * 估计LRU缓存在指定容量下的命中率
+     * 采样数与期望值（访问数乘以采样率）的偏差计入距离为0的访问（SHARDS-adj）
+     * @param capacity 容量（条目数）
+     * @return 命中率（0到1之间），没有访问时返回0
+     */
+    public synchronized double hitRatio(long capacity) {
+        double expected = accesses.get() * sampleRate;
+        if (expected <= 0 || samples == 0) {
+            return 0;
+        }
+        long sampledCapacity = (long) Math.ceil(capacity * sampleRate);
+        if (sampledCapacity == 0) {
+            return 0;
+        }
+        double hits = expected - samples;
+        for (int d = 0; d < Math.min(sampledCapacity, distances.length); d++) {
+            hits += distances[d];
+        }
+        return Math.max(0, Math.min(1, hits / expected));
+    }
+
+    /**
+     * 在可估计的容量范围内均匀取点，估计每个容量下的命中率
+     * @param points 点数
+     * @return 容量到命中率，按容量升序
+     */
+    public SortedMap<Long, Double> curve(int points) {
+        if (points < 1) {
+            throw new IllegalArgumentException("points must be positive");
+        }
+        SortedMap<Long, Double> curve = new TreeMap<>();
+        long maxCapacity = getMaxCapacity();
+        for (int i = 1; i <= points; i++) {
+            long capacity = Math.max(1, maxCapacity * i / points);
+            curve.put(capacity, hitRatio(capacity));
+        }
+        return curve;
+    }
+
+    /**
+     * 获取可估计的最大容量
+     * @return 容量（条目数）
+     */
+    public long getMaxCapacity() {
+        return Math.round(maxSampledKeys / sampleRate);
+    }
+
+    /**
+     * 获取实际采样率（阈值取整后）
+     * @return 采样率
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 获取记录的访问次数
+     * @return 次数
+     */
+    public long getAccessCount() {
+        return accesses.get();
+    }
+
+    /**
+     * 获取采样的访问次数
+     * @return 次数
+     */
+    public synchronized long getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * 获取采样访问中首次访问（或已不再跟踪）的键的次数
+     * @return 次数
+     */
+    public synchronized long getColdSampleCount() {
+        return coldSamples;
+    }
+}
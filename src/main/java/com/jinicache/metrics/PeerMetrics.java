@@ -0,0 +1,63 @@
+package com.jinicache.metrics;
+
+/**
+ * 远端节点请求的指标
+ */
+public final class PeerMetrics {
+    private final Counter requests = new Counter();
+    private final Counter errors = new Counter();
+    private final Counter rejected = new Counter();
+    private final Histogram rtt = new Histogram();
+
+    /**
+     * 记录一次完成的请求
+     * @param startNanos 发送时的 {@link System#nanoTime()}
+     * @param success 是否成功
+     */
+    public void recordRequest(long startNanos, boolean success) {
+        requests.increment();
+        if (!success) {
+            errors.increment();
+        }
+        rtt.recordSince(startNanos);
+    }
+
+    /**
+     * 记录一次因并发上限或熔断没有发出的请求
+     */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * 获取已完成的请求数
+     * @return 计数器
+     */
+    public Counter getRequests() {
+        return requests;
+    }
+
+    /**
+     * 获取失败或超时的请求数
+     * @return 计数器
+     */
+    public Counter getErrors() {
+        return errors;
+    }
+
+    /**
+     * 获取因并发上限或熔断被拒绝的请求数
+     * @return 计数器
+     */
+    public Counter getRejected() {
+        return rejected;
+    }
+
+    /**
+     * 获取请求往返延迟（纳秒），包括失败和超时的请求
+     * @return 直方图
+     */
+    public Histogram getRtt() {
+        return rtt;
+    }
+}
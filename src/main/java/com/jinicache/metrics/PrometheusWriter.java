@@ -0,0 +1,109 @@
+package com.jinicache.metrics;
+
+import java.math.BigDecimal;
+
+/**
+ * Prometheus文本格式（0.0.4）输出
+ * 同一指标的所有样本必须连续输出：先调用 {@link #family} 声明指标，再逐个输出各标签组合的样本
+ */
+public final class PrometheusWriter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    /**
+     * 延迟直方图输出的桶上界（纳秒），内部的对数分桶按上界归入这些桶
+     */
+    private static final long[] LATENCY_BOUNDS_NANOS = {
+            10_000L, 25_000L, 50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L,
+            10_000_000_000L
+    };
+
+    private final StringBuilder out = new StringBuilder();
+    private String currentFamily;
+
+    /**
+     * 声明一个指标
+     * @param name 指标名
+     * @param type 类型：counter、gauge或histogram
+     * @param help 说明
+     */
+    public void family(String name, String type, String help) {
+        currentFamily = name;
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * 输出当前指标的一个样本
+     * @param value 值
+     * @param labels 标签，按名称、值交替给出
+     */
+    public void sample(double value, String... labels) {
+        line(currentFamily, labels, null, null).append(format(value)).append('\n');
+    }
+
+    /**
+     * 输出当前指标的一个纳秒延迟直方图，值换算为秒
+     * @param histogram 直方图
+     * @param labels 标签，按名称、值交替给出
+     */
+    public void latency(Histogram histogram, String... labels) {
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        for (long bound : LATENCY_BOUNDS_NANOS) {
+            line(currentFamily + "_bucket", labels, "le", seconds(bound))
+                    .append(snapshot.countAtOrBelow(bound)).append('\n');
+        }
+        line(currentFamily + "_bucket", labels, "le", "+Inf").append(snapshot.getCount()).append('\n');
+        line(currentFamily + "_sum", labels, null, null).append(seconds(snapshot.getSum())).append('\n');
+        line(currentFamily + "_count", labels, null, null).append(snapshot.getCount()).append('\n');
+    }
+
+    private StringBuilder line(String name, String[] labels, String extraName, String extraValue) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("labels must be name/value pairs");
+        }
+        out.append(name);
+        if (labels.length > 0 || extraName != null) {
+            out.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                label(labels[i], labels[i + 1]);
+            }
+            if (extraName != null) {
+                label(extraName, extraValue);
+            }
+            out.setCharAt(out.length() - 1, '}');
+        }
+        return out.append(' ');
+    }
+
+    private void label(String name, String value) {
+        out.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        out.append("\",");
+    }
+
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.jinicache.node;
+
+/**
+ * 自适应并发上限（AIMD）
+ * 限制发往单个远端节点的在途请求数：请求成功且延迟未超过阈值时加性增大上限（每轮上限个请求约加1），
+ * 请求失败、超时或延迟超过阈值时按比例缩小上限。远端节点变慢时在途请求不会无限堆积，
+ * 超出上限的请求立即被拒绝，由调用方回退到本地加载或副本
+ */
+public class AdaptiveConcurrencyLimit {
+    public static final int DEFAULT_INITIAL_LIMIT = 100;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile long latencyThresholdNanos = Long.MAX_VALUE;
+    private double limit;
+    private int inFlight;
+    private long rejected;
+
+    /**
+     * 构造函数，使用默认的初始、最小和最大上限
+     */
+    public AdaptiveConcurrencyLimit() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * 构造函数
+     * @param initialLimit 初始上限
+     * @param minLimit 最小上限
+     * @param maxLimit 最大上限
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * 尝试占用一个并发名额
+     * @return 在途请求数未达到上限时返回true，之后必须调用 {@link #release} 或 {@link #cancel}
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected++;
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 请求完成，释放名额并根据结果调整上限
+     * @param rttNanos 请求延迟（纳秒）
+     * @param success 请求是否成功
+     */
+    public synchronized void release(long rttNanos, boolean success) {
+        int used = inFlight--;
+        if (!success || rttNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else if (used * 2 >= (int) limit) {
+            // 只有上限被实际用到一半以上时才增大，避免空闲时上限无限增长
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * 释放名额但不调整上限，用于请求没有真正发出的情况
+     */
+    public synchronized void cancel() {
+        inFlight--;
+    }
+
+    /**
+     * 设置延迟阈值，超过阈值的成功请求也视为拥塞信号
+     * @param latencyThresholdNanos 延迟阈值（纳秒）
+     */
+    public void setLatencyThresholdNanos(long latencyThresholdNanos) {
+        if (latencyThresholdNanos <= 0) {
+            throw new IllegalArgumentException("latencyThresholdNanos must be positive");
+        }
+        this.latencyThresholdNanos = latencyThresholdNanos;
+    }
+
+    /**
+     * 获取当前上限
+     * @return 上限
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 获取当前在途请求数
+     * @return 在途请求数
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 获取因达到上限被拒绝的请求数
+     * @return 请求数
+     */
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+}
@@ -0,0 +1,154 @@
+package com.jinicache.node;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 远端节点熔断器
+ * 连续失败达到阈值后断开，断开期间不再向该节点发送请求；断开时间过后进入半开状态，
+ * 只放行一个探测请求，探测成功则恢复，失败则重新断开
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MILLIS = 1000;
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private int failureThreshold;
+    private long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+    private long trips;
+
+    /**
+     * 构造函数，使用默认的失败阈值和断开时间
+     * @param name 名称，用于日志
+     */
+    public CircuitBreaker(String name) {
+        this(name, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    /**
+     * 构造函数
+     * @param name 名称，用于日志
+     * @param failureThreshold 断开前的连续失败次数
+     * @param openMillis 断开后多久进入半开状态（毫秒）
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        configure(failureThreshold, openMillis);
+    }
+
+    /**
+     * 调整失败阈值和断开时间
+     * @param failureThreshold 断开前的连续失败次数
+     * @param openMillis 断开后多久进入半开状态（毫秒）
+     */
+    public synchronized void configure(int failureThreshold, long openMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+        if (openMillis <= 0) {
+            throw new IllegalArgumentException("openMillis must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /**
+     * 判断当前是否可以向节点发送请求，不占用半开状态的探测名额
+     * @return 可以发送时返回true
+     */
+    public synchronized boolean isAvailable() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return System.nanoTime() - openedAt >= openNanos;
+            default:
+                return !probing;
+        }
+    }
+
+    /**
+     * 尝试放行一个请求；断开时间已过时转为半开状态并把本次请求作为探测
+     * @return 放行时返回true，之后必须调用 {@link #onSuccess} 或 {@link #onFailure}
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 记录一次成功，半开状态下恢复为闭合
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probing = false;
+            logger.info("Circuit to {} closed", name);
+        }
+    }
+
+    /**
+     * 记录一次失败，连续失败达到阈值或半开探测失败时断开
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+            logger.warn("Circuit to {} opened after {} consecutive failures", name, consecutiveFailures);
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probing = false;
+        consecutiveFailures = 0;
+        trips++;
+    }
+
+    /**
+     * 获取当前状态
+     * @return 状态
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 获取断开的次数
+     * @return 次数
+     */
+    public synchronized long getTripCount() {
+        return trips;
+    }
+}
@@ -0,0 +1,117 @@
+package com.jinicache.node;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 对冲读取
+ * 先向首选节点发送请求；超过对冲延迟仍未响应，或首选节点请求失败时，向备用副本发送同样的请求，
+ * 以第一个非空结果为准。两次请求都没有拿到值时，只要有一次成功就返回null，否则以失败结束
+ */
+class HedgedRead {
+    private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+    private final Supplier<CompletableFuture<byte[]>> backup;
+    private final Runnable onHedge;
+    private ScheduledFuture<?> timer;
+    private boolean backupSent;
+    private int pending;
+    private boolean anySucceeded;
+    private Throwable failure;
+
+    private HedgedRead(Supplier<CompletableFuture<byte[]>> backup, Runnable onHedge) {
+        this.backup = backup;
+        this.onHedge = onHedge;
+    }
+
+    /**
+     * 发起对冲读取
+     * @param primary 首选节点请求
+     * @param backup 备用副本请求，只在需要对冲时调用
+     * @param delayNanos 对冲延迟（纳秒）
+     * @param scheduler 对冲定时器
+     * @param onHedge 发出对冲请求时的回调
+     * @return 结果的CompletableFuture
+     */
+    static CompletableFuture<byte[]> start(Supplier<CompletableFuture<byte[]>> primary,
+                                           Supplier<CompletableFuture<byte[]>> backup,
+                                           long delayNanos, ScheduledExecutorService scheduler, Runnable onHedge) {
+        HedgedRead read = new HedgedRead(backup, onHedge);
+        synchronized (read) {
+            read.pending = 1;
+            read.timer = scheduler.schedule(read::hedge, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        read.watch(primary.get());
+        return read.result;
+    }
+
+    private void watch(CompletableFuture<byte[]> attempt) {
+        attempt.whenComplete((value, error) -> {
+            if (value != null) {
+                cancelTimer();
+                result.complete(value);
+                return;
+            }
+            boolean sendBackup = false;
+            boolean finished;
+            boolean succeeded;
+            Throwable lastFailure;
+            synchronized (this) {
+                pending--;
+                if (error != null) {
+                    failure = error;
+                    // 首选节点失败时不必等到对冲延迟
+                    sendBackup = !backupSent;
+                } else {
+                    anySucceeded = true;
+                }
+                finished = pending == 0 && !sendBackup;
+                if (finished) {
+                    // 结果已确定，阻止定时器再发出对冲请求
+                    backupSent = true;
+                }
+                succeeded = anySucceeded;
+                lastFailure = failure;
+            }
+            if (sendBackup) {
+                hedge();
+            } else if (finished) {
+                cancelTimer();
+                if (succeeded) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(lastFailure);
+                }
+            }
+        });
+    }
+
+    /**
+     * 向备用副本发送请求，结果已确定或已经发送过时忽略
+     */
+    private void hedge() {
+        synchronized (this) {
+            if (backupSent || result.isDone()) {
+                return;
+            }
+            backupSent = true;
+            pending++;
+        }
+        onHedge.run();
+        CompletableFuture<byte[]> attempt;
+        try {
+            attempt = backup.get();
+        } catch (RuntimeException e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+        watch(attempt);
+    }
+
+    private synchronized void cancelTimer() {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+    }
+}
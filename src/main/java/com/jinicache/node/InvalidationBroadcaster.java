@@ -0,0 +1,190 @@
+package com.jinicache.node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 集群失效广播
+ * 失效的键在很短的时间窗口内合并，窗口到期或攒够一批（以先到者为准）时按组发给每个远端节点，
+ * 同一批中的重复键只发送一次；突发的大量更新不会变成逐键逐节点的请求。
+ * 广播是尽力而为的：发送失败的批次只记录，不重试
+ */
+public class InvalidationBroadcaster {
+    private final BatchSender sender;
+    private final Supplier<ScheduledExecutorService> scheduler;
+    private final Object lock = new Object();
+    private final LongAdder invalidationCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder failedBatchCount = new LongAdder();
+    private volatile long windowMillis;
+    private volatile int maxBatchSize;
+    // 组名 -> 待广播的键
+    private Map<String, Set<String>> pending = new HashMap<>();
+    private int pendingCount;
+    private long generation;
+
+    /**
+     * 批量发送接口
+     */
+    public interface BatchSender {
+        /**
+         * 把一批失效的键发给所有远端节点
+         * @param group 组名
+         * @param keys 键列表（不重复）
+         * @return 每个远端节点一个发送结果
+         */
+        List<CompletableFuture<Void>> send(String group, List<String> keys);
+    }
+
+    /**
+     * 构造函数
+     * @param sender 批量发送实现
+     * @param scheduler 用于窗口到期时发出批次的调度器
+     * @param windowMillis 合并窗口（毫秒），为0时每个键立即发出
+     * @param maxBatchSize 单批最大键数
+     */
+    public InvalidationBroadcaster(BatchSender sender, ScheduledExecutorService scheduler,
+                                   long windowMillis, int maxBatchSize) {
+        this(sender, () -> scheduler, windowMillis, maxBatchSize);
+    }
+
+    /**
+     * 构造函数，每次安排窗口到期时取当前的调度器，调度器可以在关闭后重建
+     * @param sender 批量发送实现
+     * @param scheduler 提供调度器
+     * @param windowMillis 合并窗口（毫秒），为0时每个键立即发出
+     * @param maxBatchSize 单批最大键数
+     */
+    public InvalidationBroadcaster(BatchSender sender, Supplier<ScheduledExecutorService> scheduler,
+                                   long windowMillis, int maxBatchSize) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        configure(windowMillis, maxBatchSize);
+    }
+
+    /**
+     * 调整合并窗口和批大小，对之后提交的键生效
+     * @param windowMillis 合并窗口（毫秒），为0时每个键立即发出
+     * @param maxBatchSize 单批最大键数
+     */
+    public void configure(long windowMillis, int maxBatchSize) {
+        if (windowMillis < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid invalidation window or batch size");
+        }
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 提交一个失效的键
+     * @param group 组名
+     * @param key 键
+     */
+    public void submit(String group, String key) {
+        invalidationCount.increment();
+        Map<String, Set<String>> ready = null;
+        long scheduledGeneration = -1;
+        synchronized (lock) {
+            if (pending.computeIfAbsent(group, g -> new LinkedHashSet<>()).add(key)) {
+                pendingCount++;
+            }
+            if (pendingCount >= maxBatchSize || windowMillis == 0) {
+                ready = takePending();
+            } else if (pendingCount == 1) {
+                scheduledGeneration = generation;
+            }
+        }
+        if (ready != null) {
+            send(ready);
+        } else if (scheduledGeneration >= 0) {
+            long generationToFlush = scheduledGeneration;
+            scheduler.get().schedule(() -> flush(generationToFlush), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 立即发出所有待广播的键
+     */
+    public void flush() {
+        Map<String, Set<String>> ready;
+        synchronized (lock) {
+            if (pendingCount == 0) {
+                return;
+            }
+            ready = takePending();
+        }
+        send(ready);
+    }
+
+    /**
+     * 窗口到期时发出批次；如果该批次已因攒满而发出则忽略
+     */
+    private void flush(long expectedGeneration) {
+        synchronized (lock) {
+            if (generation != expectedGeneration) {
+                return;
+            }
+        }
+        flush();
+    }
+
+    private Map<String, Set<String>> takePending() {
+        Map<String, Set<String>> ready = pending;
+        pending = new HashMap<>();
+        pendingCount = 0;
+        generation++;
+        return ready;
+    }
+
+    private void send(Map<String, Set<String>> ready) {
+        ready.forEach((group, keys) -> {
+            List<CompletableFuture<Void>> responses;
+            try {
+                responses = sender.send(group, new ArrayList<>(keys));
+            } catch (RuntimeException e) {
+                responses = List.of(CompletableFuture.failedFuture(e));
+            }
+            for (CompletableFuture<Void> response : responses) {
+                batchCount.increment();
+                response.whenComplete((v, error) -> {
+                    if (error != null) {
+                        failedBatchCount.increment();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 获取已提交的失效键数
+     * @return 键数
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.sum();
+    }
+
+    /**
+     * 获取已发出的失效请求数，每个组每个远端节点计一次
+     * @return 请求数
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 获取发送失败的失效请求数
+     * @return 请求数
+     */
+    public long getFailedBatchCount() {
+        return failedBatchCount.sum();
+    }
+}
@@ -0,0 +1,81 @@
+package com.jinicache.node;
+
+import java.util.Arrays;
+
+/**
+ * 请求延迟统计
+ * 保存最近固定数量的延迟样本，分位数基于每攒够一小批新样本后重新排序的快照计算，
+ * 因此会随远端节点的延迟变化自动调整
+ */
+public class LatencyTracker {
+    private static final int DEFAULT_WINDOW = 256;
+    private static final int RESORT_INTERVAL = 32;
+    private static final int MIN_SAMPLES = 16;
+
+    private final long[] samples;
+    private int next;
+    private int count;
+    private int sinceSort;
+    private volatile long[] sorted = new long[0];
+
+    /**
+     * 构造函数，使用默认的样本窗口
+     */
+    public LatencyTracker() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * 构造函数
+     * @param window 保留的样本数量
+     */
+    public LatencyTracker(int window) {
+        if (window < MIN_SAMPLES) {
+            throw new IllegalArgumentException("window must be at least " + MIN_SAMPLES);
+        }
+        this.samples = new long[window];
+    }
+
+    /**
+     * 记录一次请求的延迟
+     * @param nanos 延迟（纳秒）
+     */
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        if (++sinceSort >= RESORT_INTERVAL || count == MIN_SAMPLES) {
+            long[] snapshot = Arrays.copyOf(samples, count);
+            Arrays.sort(snapshot);
+            sorted = snapshot;
+            sinceSort = 0;
+        }
+    }
+
+    /**
+     * 获取延迟分位数
+     * @param percentile 分位（0到1之间，例如0.95）
+     * @return 延迟（纳秒），样本不足时返回-1
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        long[] snapshot = sorted;
+        if (snapshot.length < MIN_SAMPLES) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile * snapshot.length) - 1;
+        return snapshot[Math.max(0, index)];
+    }
+
+    /**
+     * 获取当前保留的样本数量
+     * @return 样本数量
+     */
+    public synchronized int getSampleCount() {
+        return count;
+    }
+}
@@ -0,0 +1,67 @@
+package com.jinicache.node;
+
+import com.jinicache.hash.LoadTracker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 节点近期请求数统计
+ * 负载为当前窗口与上一个窗口内路由到该节点的请求数之和，由定时任务调用rotate()切换窗口
+ */
+class NodeLoadTracker implements LoadTracker<String> {
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Counter total = new Counter();
+
+    /**
+     * 单个节点的两窗口计数器
+     */
+    private static final class Counter {
+        final LongAdder current = new LongAdder();
+        volatile long previous;
+
+        long value() {
+            return previous + current.sum();
+        }
+
+        void rotate() {
+            previous = current.sumThenReset();
+        }
+    }
+
+    /**
+     * 记录一次路由到节点的请求
+     * @param node 节点地址
+     */
+    void record(String node) {
+        counters.computeIfAbsent(node, n -> new Counter()).current.increment();
+        total.current.increment();
+    }
+
+    /**
+     * 切换统计窗口，丢弃上一个窗口的计数
+     */
+    void rotate() {
+        counters.values().forEach(Counter::rotate);
+        total.rotate();
+    }
+
+    /**
+     * 移除节点的计数
+     * @param node 节点地址
+     */
+    void remove(String node) {
+        counters.remove(node);
+    }
+
+    @Override
+    public long load(String node) {
+        Counter counter = counters.get(node);
+        return counter != null ? counter.value() : 0;
+    }
+
+    @Override
+    public long totalLoad() {
+        return total.value();
+    }
+}
@@ -1,6 +1,10 @@
 package com.jinicache.node;
 
 import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.PeerGetter;
+import com.jinicache.cache.PeerPicker;
+import com.jinicache.hash.BoundedLoadConsistentHash;
 import com.jinicache.hash.ConsistentHash;
 import com.jinicache.http.HttpClient;
 import org.slf4j.Logger;
@@ -8,16 +12,55 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 分布式节点管理器
+ * 同时作为缓存组的远端节点选择器，把未命中的键路由到所属节点
  */
-public class NodeManager {
+public class NodeManager implements PeerPicker {
     private static final Logger logger = LoggerFactory.getLogger(NodeManager.class);
+    private static final long DEFAULT_PEER_TIMEOUT_MILLIS = 1000;
+    private static final long DEFAULT_BATCH_WINDOW_MICROS = 200;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final long DEFAULT_LOAD_WINDOW_MILLIS = 1000;
+    private static final int VIRTUAL_NODES_PER_WEIGHT = 100;
+    private static final long WEIGHT_RETRY_MILLIS = 5000;
+    private static final int WEIGHT_FETCH_ATTEMPTS = 5;
+    private static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+    private static final long DEFAULT_MIN_HEDGE_DELAY_MICROS = 500;
+    private static final long DEFAULT_INVALIDATION_WINDOW_MILLIS = 10;
+    private static final int DEFAULT_INVALIDATION_BATCH_SIZE = 4096;
     private final String selfAddress;
+    private final CacheManager cacheManager;
     private final ConsistentHash<String> hashRing;
-    private final ConcurrentHashMap<String, HttpClient> clients;
+    private final ConcurrentHashMap<String, PeerClient> clients;
+    private ScheduledExecutorService scheduler;
+    private volatile long peerTimeoutMillis = DEFAULT_PEER_TIMEOUT_MILLIS;
+    private volatile long batchWindowMicros = DEFAULT_BATCH_WINDOW_MICROS;
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private final NodeLoadTracker loadTracker = new NodeLoadTracker();
+    private volatile BoundedLoadConsistentHash<String> boundedRing;
+    private ScheduledFuture<?> loadWindowTask;
+    private volatile double selfWeight = 1.0;
+    private volatile boolean hedging = true;
+    private volatile double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+    private volatile long minHedgeDelayMicros = DEFAULT_MIN_HEDGE_DELAY_MICROS;
+    private final LongAdder hedgedRequests = new LongAdder();
+    private final List<Runnable> ringListeners = new CopyOnWriteArrayList<>();
+    private volatile SwimMembership membership;
+    private volatile String peerSecret;
+    private volatile int breakerFailureThreshold = CircuitBreaker.DEFAULT_FAILURE_THRESHOLD;
+    private volatile long breakerOpenMillis = CircuitBreaker.DEFAULT_OPEN_MILLIS;
+    private final InvalidationBroadcaster invalidations;
+
     /**
      * 构造函数
      * @param selfAddress 本节点地址
@@ -25,21 +68,145 @@ public class NodeManager {
      */
     public NodeManager(String selfAddress, CacheManager cacheManager) {
         this.selfAddress = selfAddress;
-        this.hashRing = new ConsistentHash<>(100);
+        this.cacheManager = cacheManager;
+        this.hashRing = new ConsistentHash<>(VIRTUAL_NODES_PER_WEIGHT);
         this.clients = new ConcurrentHashMap<>();
-        this.hashRing.add(selfAddress);
+        this.hashRing.addNode(selfAddress);
+        this.invalidations = new InvalidationBroadcaster(this::sendInvalidations, this::scheduler,
+                DEFAULT_INVALIDATION_WINDOW_MILLIS, DEFAULT_INVALIDATION_BATCH_SIZE);
     }
 
     /**
      * 添加节点
+     * 先以权重1加入哈希环，再异步获取节点公布的权重（失败时定期重试）
      * @param address 节点地址
      */
     public void addNode(String address) {
         if (!address.equals(selfAddress)) {
-            hashRing.add(address);
-            clients.putIfAbsent(address, new HttpClient());
+            hashRing.addNode(address);
+            PeerClient peer = clients.computeIfAbsent(address, this::newPeer);
             logger.info("Added node: {}", address);
+            fireRingChanged();
+            fetchWeight(peer, WEIGHT_FETCH_ATTEMPTS);
+        }
+    }
+
+    /**
+     * 添加指定权重的节点，虚拟节点数与权重成正比；节点已存在时更新其权重
+     * @param address 节点地址
+     * @param weight 权重（通常为节点的缓存内存GB数）
+     */
+    public void addNode(String address, double weight) {
+        if (address.equals(selfAddress)) {
+            setSelfWeight(weight);
+            return;
         }
+        hashRing.addNode(address, weight);
+        clients.computeIfAbsent(address, this::newPeer);
+        logger.info("Added node: {} (weight {})", address, weight);
+        fireRingChanged();
+    }
+
+    private PeerClient newPeer(String address) {
+        PeerClient peer = new PeerClient(address, scheduler(), batchWindowMicros, maxBatchSize);
+        peer.setTimeoutMillis(peerTimeoutMillis);
+        peer.getHttpClient().setPeerSecret(peerSecret);
+        peer.getCircuitBreaker().configure(breakerFailureThreshold, breakerOpenMillis);
+        return peer;
+    }
+
+    /**
+     * 更新节点权重，只有增减的虚拟节点上的键会迁移
+     * @param address 节点地址
+     * @param weight 新权重
+     * @return 如果节点存在返回true
+     */
+    public boolean setNodeWeight(String address, double weight) {
+        boolean updated = hashRing.setWeight(address, weight);
+        if (updated) {
+            logger.info("Node {} weight set to {}", address, weight);
+            fireRingChanged();
+        }
+        return updated;
+    }
+
+    /**
+     * 获取节点在哈希环上的权重
+     * @param address 节点地址
+     * @return 权重，节点不存在时返回0
+     */
+    public double getNodeWeight(String address) {
+        return hashRing.getWeight(address);
+    }
+
+    /**
+     * 设置本节点的权重，通过/api/node/weight公布给其他节点
+     * @param weight 权重（通常为本节点的缓存内存GB数）
+     */
+    public void setSelfWeight(double weight) {
+        hashRing.setWeight(selfAddress, weight);
+        this.selfWeight = weight;
+        fireRingChanged();
+    }
+
+    /**
+     * 获取本节点公布的权重
+     * @return 权重
+     */
+    public double getSelfWeight() {
+        return selfWeight;
+    }
+
+    /**
+     * 注册哈希环变更监听器，节点加入、移除或权重变化后调用
+     * 监听器在触发变更的线程中执行，应当尽快返回
+     * @param listener 监听器
+     */
+    public void addRingChangeListener(Runnable listener) {
+        ringListeners.add(listener);
+    }
+
+    /**
+     * 移除哈希环变更监听器
+     * @param listener 监听器
+     */
+    public void removeRingChangeListener(Runnable listener) {
+        ringListeners.remove(listener);
+    }
+
+    private void fireRingChanged() {
+        for (Runnable listener : ringListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.warn("Ring change listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * 异步获取远端节点公布的权重并更新哈希环，节点已被移除时放弃
+     */
+    private void fetchWeight(PeerClient peer, int attemptsLeft) {
+        peer.getWeight().whenComplete((weight, e) -> {
+            if (clients.get(peer.getAddress()) != peer) {
+                return;
+            }
+            if (e == null) {
+                try {
+                    setNodeWeight(peer.getAddress(), weight);
+                } catch (IllegalArgumentException invalid) {
+                    logger.warn("Ignoring invalid weight {} from {}", weight, peer.getAddress());
+                }
+            } else if (attemptsLeft > 1) {
+                logger.debug("Failed to fetch weight from {}, retrying", peer.getAddress());
+                scheduler().schedule(() -> fetchWeight(peer, attemptsLeft - 1),
+                        WEIGHT_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            } else {
+                logger.warn("Could not fetch weight from {}, keeping {}",
+                        peer.getAddress(), getNodeWeight(peer.getAddress()));
+            }
+        });
     }
 
     /**
@@ -48,24 +215,199 @@ public class NodeManager {
      */
     public void removeNode(String address) {
         if (!address.equals(selfAddress)) {
-            hashRing.remove(address);
-            HttpClient client = clients.remove(address);
+            hashRing.removeNode(address);
+            loadTracker.remove(address);
+            PeerClient client = clients.remove(address);
             if (client != null) {
                 client.shutdown();
             }
             logger.info("Removed node: {}", address);
+            fireRingChanged();
         }
     }
 
     /**
      * 获取键对应的节点
+     * 启用有界负载时，首选节点的近期请求数超过上限会把键交给环上的下一个节点，并记录这次路由
      * @param key 键
      * @return 节点地址
      */
     public String getNode(String key) {
+        BoundedLoadConsistentHash<String> bounded = boundedRing;
+        if (bounded == null) {
+            return hashRing.get(key);
+        }
+        String node = bounded.get(key);
+        if (node != null) {
+            loadTracker.record(node);
+        }
+        return node;
+    }
+
+    /**
+     * 获取键在哈希环上的首选节点，不考虑负载
+     * @param key 键
+     * @return 节点地址
+     */
+    public String getPrimaryNode(String key) {
         return hashRing.get(key);
     }
 
+    /**
+     * 获取键在哈希环上的前n个不同节点，第一个为首选节点，用于副本放置
+     * @param key 键
+     * @param n 节点数量
+     * @return 节点地址列表
+     */
+    public List<String> getNodes(String key, int n) {
+        return hashRing.getNodes(key, n);
+    }
+
+    /**
+     * 启用有界负载的一致性哈希，使用默认的1秒统计窗口
+     * @param epsilon 允许超出平均负载的比例
+     */
+    public void enableBoundedLoads(double epsilon) {
+        enableBoundedLoads(epsilon, DEFAULT_LOAD_WINDOW_MILLIS);
+    }
+
+    /**
+     * 启用有界负载的一致性哈希
+     * 每个节点的负载上限为 (1+ε) × 平均负载，负载为最近一到两个统计窗口内路由到该节点的请求数
+     * @param epsilon 允许超出平均负载的比例，必须大于0
+     * @param windowMillis 统计窗口（毫秒）
+     */
+    public synchronized void enableBoundedLoads(double epsilon, long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive");
+        }
+        BoundedLoadConsistentHash<String> bounded = new BoundedLoadConsistentHash<>(hashRing, loadTracker, epsilon);
+        if (loadWindowTask != null) {
+            loadWindowTask.cancel(false);
+        }
+        loadWindowTask = scheduler().scheduleAtFixedRate(loadTracker::rotate,
+                windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        boundedRing = bounded;
+        logger.info("Bounded-load placement enabled: epsilon={}, window={}ms", epsilon, windowMillis);
+    }
+
+    /**
+     * 关闭有界负载，恢复按首选节点放置
+     */
+    public synchronized void disableBoundedLoads() {
+        boundedRing = null;
+        if (loadWindowTask != null) {
+            loadWindowTask.cancel(false);
+            loadWindowTask = null;
+        }
+    }
+
+    /**
+     * 检查是否启用了有界负载
+     * @return 如果启用返回true
+     */
+    public boolean isBoundedLoadsEnabled() {
+        return boundedRing != null;
+    }
+
+    /**
+     * 获取节点的近期负载
+     * @param address 节点地址
+     * @return 近期路由到该节点的请求数，未启用有界负载时为0
+     */
+    public long getNodeLoad(String address) {
+        return loadTracker.load(address);
+    }
+
+    /**
+     * 选择键的所属远端节点，请求超过节点间超时时间后失败
+     * 缓存组的副本数大于1且开启对冲时，首选节点超过其延迟分位数仍未响应会向下一个副本发出同样的请求
+     * @param key 键
+     * @return 远端节点获取器，键属于本节点时返回null
+     */
+    @Override
+    public PeerGetter pickPeer(String key) {
+        String owner = getNode(key);
+        if (owner == null || owner.equals(selfAddress)) {
+            return null;
+        }
+        PeerClient peer = clients.get(owner);
+        if (peer == null) {
+            return null;
+        }
+        if (!peer.isAvailable()) {
+            // 所属节点熔断期间转给可用的副本，没有副本时返回null由调用方本地加载
+            return (group, k) -> {
+                PeerClient replica = pickBackup(group, k, owner);
+                return replica != null
+                        ? replica.get(group, k)
+                        : CompletableFuture.completedFuture(null);
+            };
+        }
+        return (group, k) -> {
+            PeerClient backup = hedging ? pickBackup(group, k, owner) : null;
+            CompletableFuture<byte[]> future = backup == null
+                    ? peer.get(group, k)
+                    : HedgedRead.start(() -> peer.get(group, k), () -> backup.get(group, k),
+                            hedgeDelayNanos(peer), scheduler(), hedgedRequests::increment);
+            return future;
+        };
+    }
+
+    /**
+     * 选择对冲读取的备用副本：按环上顺序第一个既不是首选节点也不是本节点、且未熔断的副本
+     */
+    private PeerClient pickBackup(String groupName, String key, String primary) {
+        Group group = cacheManager != null ? cacheManager.getGroup(groupName) : null;
+        if (group == null || group.getReplicationFactor() < 2) {
+            return null;
+        }
+        for (String replica : hashRing.getNodes(key, group.getReplicationFactor())) {
+            if (!replica.equals(primary) && !replica.equals(selfAddress)) {
+                PeerClient backup = clients.get(replica);
+                if (backup != null && backup.isAvailable()) {
+                    return backup;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 对冲延迟取首选节点的延迟分位数，样本不足时取节点间超时时间的一半
+     */
+    private long hedgeDelayNanos(PeerClient peer) {
+        long observed = peer.getLatencyTracker().percentile(hedgePercentile);
+        long delay = observed >= 0 ? observed : TimeUnit.MILLISECONDS.toNanos(peerTimeoutMillis) / 2;
+        return Math.max(delay, TimeUnit.MICROSECONDS.toNanos(minHedgeDelayMicros));
+    }
+
+    /**
+     * 设置对冲读取参数
+     * @param enabled 是否开启对冲读取
+     * @param percentile 对冲延迟取首选节点延迟的分位（0到1之间）
+     * @param minDelayMicros 最小对冲延迟（微秒），避免延迟很低时过多地发出对冲请求
+     */
+    public void configureHedging(boolean enabled, double percentile, long minDelayMicros) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1]");
+        }
+        if (minDelayMicros < 0) {
+            throw new IllegalArgumentException("minDelayMicros must not be negative");
+        }
+        this.hedgePercentile = percentile;
+        this.minHedgeDelayMicros = minDelayMicros;
+        this.hedging = enabled;
+    }
+
+    /**
+     * 获取已发出的对冲请求数
+     * @return 对冲请求数
+     */
+    public long getHedgedRequestCount() {
+        return hedgedRequests.sum();
+    }
+
     /**
      * 判断键是否属于本节点
      * @param key 键
@@ -92,13 +434,173 @@ public class NodeManager {
      * @return HTTP客户端
      */
     public HttpClient getClient(String address) {
+        PeerClient peer = clients.get(address);
+        return peer != null ? peer.getHttpClient() : null;
+    }
+
+    /**
+     * 获取远端节点客户端
+     * @param address 节点地址
+     * @return 远端节点客户端，本节点或未知节点返回null
+     */
+    public PeerClient getPeer(String address) {
         return clients.get(address);
     }
 
     /**
-     * 关闭所有连接
+     * 获取本节点地址
+     * @return 本节点地址
+     */
+    public String getSelfAddress() {
+        return selfAddress;
+    }
+
+    /**
+     * 获取成员管理协议
+     * @return 成员管理协议，未启用时返回null
+     */
+    public SwimMembership getMembership() {
+        return membership;
+    }
+
+    /**
+     * 设置成员管理协议，由 {@link SwimMembership#start} 和 {@link SwimMembership#shutdown} 调用
+     * @param membership 成员管理协议，为null时不响应其他节点的探测
+     */
+    void setMembership(SwimMembership membership) {
+        this.membership = membership;
+    }
+
+    /**
+     * 获取单次节点间请求的超时时间
+     * @return 超时时间（毫秒）
+     */
+    public long getPeerTimeoutMillis() {
+        return peerTimeoutMillis;
+    }
+
+    /**
+     * 设置单次节点间请求的超时时间，超时的节点在批量请求中返回部分结果
+     * @param peerTimeoutMillis 超时时间（毫秒）
+     */
+    public void setPeerTimeoutMillis(long peerTimeoutMillis) {
+        this.peerTimeoutMillis = peerTimeoutMillis;
+        clients.values().forEach(peer -> peer.setTimeoutMillis(peerTimeoutMillis));
+    }
+
+    /**
+     * 设置集群密钥，发往其他节点的请求携带它以通过对方的节点认证；应用到已有和之后加入的节点
+     * @param peerSecret 密钥，所有节点需要相同，为null时不携带
+     */
+    public void setPeerSecret(String peerSecret) {
+        this.peerSecret = peerSecret;
+        clients.values().forEach(peer -> peer.getHttpClient().setPeerSecret(peerSecret));
+    }
+
+    /**
+     * 获取集群密钥
+     * @return 密钥，未设置时返回null
+     */
+    public String getPeerSecret() {
+        return peerSecret;
+    }
+
+    /**
+     * 设置熔断参数，应用到已有和之后加入的节点
+     * @param failureThreshold 断开前的连续失败次数
+     * @param openMillis 断开后多久发送半开探测（毫秒）
+     */
+    public void configureCircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+        if (openMillis <= 0) {
+            throw new IllegalArgumentException("openMillis must be positive");
+        }
+        this.breakerFailureThreshold = failureThreshold;
+        this.breakerOpenMillis = openMillis;
+        clients.values().forEach(peer -> peer.getCircuitBreaker().configure(failureThreshold, openMillis));
+    }
+
+    /**
+     * 设置节点间单键请求的微批参数，应用到已有和之后加入的节点
+     * 并发请求在窗口内或攒够一批时（以先到者为准）合并为一次批量请求
+     * @param batchWindowMicros 合并窗口（微秒），为0时不合并
+     * @param maxBatchSize 单批最大请求数，为1时不合并
+     */
+    public void configureBatching(long batchWindowMicros, int maxBatchSize) {
+        this.batchWindowMicros = batchWindowMicros;
+        this.maxBatchSize = maxBatchSize;
+        clients.values().forEach(peer -> peer.configureBatching(batchWindowMicros, maxBatchSize));
+    }
+
+    /**
+     * 把键加入集群失效广播，合并后发给所有远端节点
+     * @param group 组名
+     * @param key 键
+     */
+    @Override
+    public void broadcastInvalidation(String group, String key) {
+        invalidations.submit(group, key);
+    }
+
+    private List<CompletableFuture<Void>> sendInvalidations(String group, List<String> keys) {
+        List<CompletableFuture<Void>> responses = new ArrayList<>();
+        for (PeerClient peer : clients.values()) {
+            responses.add(peer.invalidate(group, keys).whenComplete((v, error) -> {
+                if (error != null) {
+                    logger.warn("Failed to send {} invalidations of group {} to {}: {}",
+                            keys.size(), group, peer.getAddress(), error.toString());
+                }
+            }));
+        }
+        return responses;
+    }
+
+    /**
+     * 设置集群失效广播的合并参数
+     * @param windowMillis 合并窗口（毫秒），为0时每个键立即发出
+     * @param maxBatchSize 单批最大键数
+     */
+    public void configureInvalidation(long windowMillis, int maxBatchSize) {
+        invalidations.configure(windowMillis, maxBatchSize);
+    }
+
+    /**
+     * 获取集群失效广播
+     * @return 失效广播
+     */
+    public InvalidationBroadcaster getInvalidationBroadcaster() {
+        return invalidations;
+    }
+
+    /**
+     * 关闭所有连接并停止调度线程，关闭前发出尚未广播的失效键；之后再添加节点时重新创建调度线程
      */
     public void shutdown() {
-        clients.values().forEach(HttpClient::shutdown);
+        invalidations.flush();
+        disableBoundedLoads();
+        clients.values().forEach(PeerClient::shutdown);
+        clients.clear();
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+    }
+
+    /**
+     * 获取调度线程，首次使用或关闭后再次使用时创建
+     */
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "jinicache-node-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
     }
 } 
\ No newline at end of file
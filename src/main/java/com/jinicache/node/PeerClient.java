@@ -0,0 +1,291 @@
+package com.jinicache.node;
+
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.PeerGetter;
+import com.jinicache.http.BatchCodec;
+import com.jinicache.http.HttpClient;
+import com.jinicache.metrics.PeerMetrics;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 远端节点客户端
+ * 封装对单个远端节点的缓存请求，并发的单键请求通过微批合并为批量请求。
+ * 读请求经过自适应并发上限和熔断器，节点变慢或故障时快速失败，不会在本节点堆积
+ */
+public class PeerClient implements PeerGetter {
+    private final String address;
+    private final HttpClient httpClient;
+    private final PeerRequestBatcher batcher;
+    private final LatencyTracker latency = new LatencyTracker();
+    private final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit();
+    private final CircuitBreaker circuitBreaker;
+    private final PeerMetrics metrics = new PeerMetrics();
+    private volatile boolean batching;
+
+    /**
+     * 构造函数
+     * @param address 远端节点地址（host:port）
+     * @param scheduler 微批窗口调度器
+     * @param batchWindowMicros 微批合并窗口（微秒），为0时不合并
+     * @param maxBatchSize 单批最大请求数，为1时不合并
+     */
+    public PeerClient(String address, ScheduledExecutorService scheduler, long batchWindowMicros, int maxBatchSize) {
+        this.address = address;
+        this.httpClient = new HttpClient();
+        this.batcher = new PeerRequestBatcher(this::sendBatch, scheduler, batchWindowMicros, maxBatchSize);
+        this.batching = batchWindowMicros > 0 && maxBatchSize > 1;
+        this.circuitBreaker = new CircuitBreaker(address);
+    }
+
+    /**
+     * 获取单个键，开启微批时与并发请求合并发送；成功的请求计入延迟统计
+     * 超过并发上限或熔断器断开时立即失败
+     * @param group 组名
+     * @param key 键
+     * @return 值的CompletableFuture，不存在时结果为null
+     */
+    @Override
+    public CompletableFuture<byte[]> get(String group, String key) {
+        long start = System.nanoTime();
+        CompletableFuture<byte[]> future = guard(() -> batching ? batcher.submit(group, key) : getUnbatched(group, key));
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                latency.record(System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 不经微批直接获取单个键
+     * @param group 组名
+     * @param key 键
+     * @return 值的CompletableFuture，不存在时结果为null
+     */
+    public CompletableFuture<byte[]> getUnbatched(String group, String key) {
+        return httpClient.get(baseUrl("/api/cache", group) + "&key=" + encode(key));
+    }
+
+    /**
+     * 调整微批参数
+     * @param batchWindowMicros 合并窗口（微秒），为0时不合并
+     * @param maxBatchSize 单批最大请求数，为1时不合并
+     */
+    public void configureBatching(long batchWindowMicros, int maxBatchSize) {
+        batcher.configure(batchWindowMicros, maxBatchSize);
+        this.batching = batchWindowMicros > 0 && maxBatchSize > 1;
+    }
+
+    /**
+     * 获取微批处理器
+     * @return 微批处理器
+     */
+    public PeerRequestBatcher getBatcher() {
+        return batcher;
+    }
+
+    /**
+     * 批量获取，一次请求携带多个键；超过并发上限或熔断器断开时立即失败
+     * @param group 组名
+     * @param keys 键列表
+     * @return 响应项列表的CompletableFuture
+     */
+    public CompletableFuture<List<BatchCodec.Entry>> getBatch(String group, List<String> keys) {
+        return guard(() -> sendBatch(group, keys));
+    }
+
+    /**
+     * 发送批量获取请求，微批合并后的请求也走这里，并发控制已经在单键请求上完成
+     */
+    private CompletableFuture<List<BatchCodec.Entry>> sendBatch(String group, List<String> keys) {
+        return httpClient.post(baseUrl("/api/cache/batch", group), BatchCodec.encodeKeys(keys))
+                .thenApply(BatchCodec::decodeEntries);
+    }
+
+    /**
+     * 写入单个键，远端节点只在本地保存，不再转发
+     * @param group 组名
+     * @param key 键
+     * @param value 值
+     * @return 写入完成的CompletableFuture
+     */
+    public CompletableFuture<Void> put(String group, String key, ChunkedValue value) {
+        return httpClient.putChunked(baseUrl("/api/cache", group) + "&key=" + encode(key), value)
+                .thenApply(response -> {
+                    if (response == null) {
+                        throw new IllegalStateException("group " + group + " not found on " + address);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * 批量写入，远端节点只在本地保存
+     * @param group 组名
+     * @param entries 键值列表
+     * @return 写入完成的CompletableFuture
+     */
+    public CompletableFuture<Void> putBatch(String group, List<BatchCodec.Entry> entries) {
+        return httpClient.put(baseUrl("/api/cache/batch", group), BatchCodec.encodeEntries(entries))
+                .thenApply(response -> {
+                    if (response == null) {
+                        throw new IllegalStateException("group " + group + " not found on " + address);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * 让远端节点移除一批键，远端只在本地移除，不再广播
+     * 不经过并发上限和熔断器，失效通知不因读请求拥塞而被丢弃
+     * @param group 组名
+     * @param keys 键列表
+     * @return 完成的CompletableFuture
+     */
+    public CompletableFuture<Void> invalidate(String group, List<String> keys) {
+        return httpClient.post(baseUrl("/api/cache/invalidate", group), BatchCodec.encodeKeys(keys))
+                .thenApply(response -> {
+                    if (response == null) {
+                        throw new IllegalStateException("group " + group + " not found on " + address);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * 获取远端节点公布的权重
+     * @return 权重的CompletableFuture
+     */
+    public CompletableFuture<Double> getWeight() {
+        return httpClient.get("http://" + address + "/api/node/weight").thenApply(body -> {
+            if (body == null) {
+                throw new IllegalStateException("node " + address + " does not advertise a weight");
+            }
+            return Double.parseDouble(new String(body, StandardCharsets.UTF_8).trim());
+        });
+    }
+
+    /**
+     * 在并发上限和熔断器的保护下发送请求，请求结果用于调整上限和熔断状态
+     */
+    private <T> CompletableFuture<T> guard(Supplier<CompletableFuture<T>> request) {
+        if (!concurrencyLimit.tryAcquire()) {
+            metrics.recordRejected();
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("concurrency limit reached for " + address));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            concurrencyLimit.cancel();
+            metrics.recordRejected();
+            return CompletableFuture.failedFuture(new IllegalStateException("circuit open for " + address));
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        // 超时由HttpClient在请求本身上触发并关闭连接，失败后同时释放并发名额
+        future.whenComplete((value, error) -> {
+            metrics.recordRequest(start, error == null);
+            concurrencyLimit.release(System.nanoTime() - start, error == null);
+            if (error == null) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 设置发往该节点的请求的超时时间，超时的请求关闭所用连接；超过一半时间才返回的读请求视为拥塞信号
+     * @param timeoutMillis 超时时间（毫秒）
+     */
+    public void setTimeoutMillis(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("timeoutMillis must be positive");
+        }
+        httpClient.setTimeoutMillis(timeoutMillis);
+        concurrencyLimit.setLatencyThresholdNanos(TimeUnit.MILLISECONDS.toNanos(timeoutMillis) / 2);
+    }
+
+    /**
+     * 判断当前是否应该向该节点路由请求
+     * @return 熔断器闭合或可以发送半开探测时返回true
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isAvailable();
+    }
+
+    /**
+     * 获取并发上限
+     * @return 并发上限
+     */
+    public AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * 获取请求指标
+     * @return 指标
+     */
+    public PeerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取熔断器
+     * @return 熔断器
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private String baseUrl(String path, String group) {
+        return "http://" + address + path + "?group=" + encode(group);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 获取节点地址
+     * @return 节点地址
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * 获取单键请求的延迟统计
+     * @return 延迟统计
+     */
+    public LatencyTracker getLatencyTracker() {
+        return latency;
+    }
+
+    /**
+     * 获取底层HTTP客户端
+     * @return HTTP客户端
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 关闭客户端
+     */
+    public void shutdown() {
+        httpClient.shutdown();
+    }
+}
@@ -0,0 +1,181 @@
+package com.jinicache.node;
+
+import com.jinicache.http.BatchCodec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 节点间请求的微批处理器
+ * 发往同一远端节点的并发单键请求在很短的时间窗口内合并为一次批量请求，
+ * 窗口到期或攒够一批（以先到者为准）时发出，响应再按键分发回各自的Future
+ */
+public class PeerRequestBatcher {
+    private final BatchSender sender;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private volatile long windowMicros;
+    private volatile int maxBatchSize;
+    // 组名 -> 键 -> 等待该键的Future（同一批中的重复键只请求一次）
+    private Map<String, Map<String, List<CompletableFuture<byte[]>>>> pending = new HashMap<>();
+    private int pendingCount;
+    private long generation;
+
+    /**
+     * 批量发送接口
+     */
+    public interface BatchSender {
+        /**
+         * 发送一次批量请求
+         * @param group 组名
+         * @param keys 键列表（不重复）
+         * @return 响应项列表的CompletableFuture
+         */
+        CompletableFuture<List<BatchCodec.Entry>> send(String group, List<String> keys);
+    }
+
+    /**
+     * 构造函数
+     * @param sender 批量发送实现
+     * @param scheduler 用于窗口到期时发出批次的调度器
+     * @param windowMicros 合并窗口（微秒）
+     * @param maxBatchSize 单批最大请求数
+     */
+    public PeerRequestBatcher(BatchSender sender, ScheduledExecutorService scheduler,
+                              long windowMicros, int maxBatchSize) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        configure(windowMicros, maxBatchSize);
+    }
+
+    /**
+     * 调整合并窗口和批大小，对之后提交的请求生效
+     * @param windowMicros 合并窗口（微秒）
+     * @param maxBatchSize 单批最大请求数
+     */
+    public void configure(long windowMicros, int maxBatchSize) {
+        if (windowMicros < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid batching window or batch size");
+        }
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 提交单键请求
+     * @param group 组名
+     * @param key 键
+     * @return 值的CompletableFuture，远端不存在时结果为null
+     */
+    public CompletableFuture<byte[]> submit(String group, String key) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        requestCount.increment();
+        Map<String, Map<String, List<CompletableFuture<byte[]>>>> ready = null;
+        long scheduledGeneration = -1;
+        synchronized (lock) {
+            pending.computeIfAbsent(group, g -> new LinkedHashMap<>())
+                    .computeIfAbsent(key, k -> new ArrayList<>(1))
+                    .add(future);
+            pendingCount++;
+            if (pendingCount >= maxBatchSize) {
+                ready = takePending();
+            } else if (pendingCount == 1) {
+                scheduledGeneration = generation;
+            }
+        }
+        if (ready != null) {
+            send(ready);
+        } else if (scheduledGeneration >= 0) {
+            long generationToFlush = scheduledGeneration;
+            scheduler.schedule(() -> flush(generationToFlush), windowMicros, TimeUnit.MICROSECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * 窗口到期时发出批次；如果该批次已因攒满而发出则忽略
+     */
+    private void flush(long expectedGeneration) {
+        Map<String, Map<String, List<CompletableFuture<byte[]>>>> ready;
+        synchronized (lock) {
+            if (generation != expectedGeneration || pendingCount == 0) {
+                return;
+            }
+            ready = takePending();
+        }
+        send(ready);
+    }
+
+    private Map<String, Map<String, List<CompletableFuture<byte[]>>>> takePending() {
+        Map<String, Map<String, List<CompletableFuture<byte[]>>>> ready = pending;
+        pending = new HashMap<>();
+        pendingCount = 0;
+        generation++;
+        return ready;
+    }
+
+    /**
+     * 每个组发送一次批量请求，并把结果分发给等待的Future
+     */
+    private void send(Map<String, Map<String, List<CompletableFuture<byte[]>>>> ready) {
+        ready.forEach((group, waiters) -> {
+            batchCount.increment();
+            CompletableFuture<List<BatchCodec.Entry>> response;
+            try {
+                response = sender.send(group, new ArrayList<>(waiters.keySet()));
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((entries, error) -> {
+                if (error != null) {
+                    waiters.values().forEach(futures -> futures.forEach(f -> f.completeExceptionally(error)));
+                    return;
+                }
+                for (BatchCodec.Entry entry : entries) {
+                    List<CompletableFuture<byte[]>> futures = waiters.remove(entry.getKey());
+                    if (futures != null) {
+                        futures.forEach(f -> complete(f, entry));
+                    }
+                }
+                waiters.forEach((key, futures) -> futures.forEach(f -> f.completeExceptionally(
+                        new IOException("Key missing from batch response: " + key))));
+            });
+        });
+    }
+
+    private void complete(CompletableFuture<byte[]> future, BatchCodec.Entry entry) {
+        if (entry.getStatus() == BatchCodec.STATUS_FOUND) {
+            future.complete(entry.getValue());
+        } else if (entry.getStatus() == BatchCodec.STATUS_NOT_FOUND) {
+            future.complete(null);
+        } else {
+            future.completeExceptionally(new IOException("Peer failed to get key: " + entry.getKey()));
+        }
+    }
+
+    /**
+     * 获取已提交的单键请求数
+     * @return 请求数
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * 获取已发出的批量请求数
+     * @return 批量请求数
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+}
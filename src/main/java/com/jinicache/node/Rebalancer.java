@@ -0,0 +1,321 @@
+package com.jinicache.node;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.Group;
+import com.jinicache.http.BatchCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 键迁移器
+ * 哈希环变化后，在后台找出本节点缓存中已经不属于本节点的键，按新的所属节点分批发送过去，
+ * 发送成功后从本节点移除。发送按每秒键数限速，避免迁移流量挤占正常请求。
+ * 后台线程在start时创建、shutdown时关闭，停止后可以再次启动
+ */
+public class Rebalancer {
+    private static final Logger logger = LoggerFactory.getLogger(Rebalancer.class);
+    public static final long DEFAULT_KEYS_PER_SECOND = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    /**
+     * 单批请求体的上限，需要小于服务端的请求聚合上限；更大的值单独流式写入
+     */
+    private static final int MAX_BATCH_BYTES = 48 * 1024;
+    private static final long TRANSFER_TIMEOUT_MILLIS = 10_000;
+
+    private final NodeManager nodeManager;
+    private final CacheManager cacheManager;
+    private volatile ExecutorService executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final Runnable listener = this::requestRebalance;
+    private final LongAdder migratedKeys = new LongAdder();
+    private final LongAdder failedKeys = new LongAdder();
+    private final LongAdder passes = new LongAdder();
+    private volatile long keysPerSecond;
+    private volatile int batchSize;
+
+    /**
+     * 构造函数，使用默认的限速和批大小
+     * @param nodeManager 节点管理器
+     * @param cacheManager 缓存管理器
+     */
+    public Rebalancer(NodeManager nodeManager, CacheManager cacheManager) {
+        this(nodeManager, cacheManager, DEFAULT_KEYS_PER_SECOND, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 构造函数
+     * @param nodeManager 节点管理器
+     * @param cacheManager 缓存管理器
+     * @param keysPerSecond 每秒最多迁移的键数
+     * @param batchSize 单批最多的键数
+     */
+    public Rebalancer(NodeManager nodeManager, CacheManager cacheManager, long keysPerSecond, int batchSize) {
+        this.nodeManager = nodeManager;
+        this.cacheManager = cacheManager;
+        configure(keysPerSecond, batchSize);
+    }
+
+    /**
+     * 创建后台线程并开始监听哈希环变化，已经启动时不做任何事
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "jinicache-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        nodeManager.addRingChangeListener(listener);
+    }
+
+    /**
+     * 调整限速和批大小，从下一批开始生效
+     * @param keysPerSecond 每秒最多迁移的键数
+     * @param batchSize 单批最多的键数
+     */
+    public void configure(long keysPerSecond, int batchSize) {
+        if (keysPerSecond <= 0) {
+            throw new IllegalArgumentException("keysPerSecond must be positive");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.keysPerSecond = keysPerSecond;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 请求一次后台迁移；迁移进行中再次请求时，当前一轮结束后会再执行一轮。未启动或已停止时忽略
+     */
+    public void requestRebalance() {
+        ExecutorService current = executor;
+        if (current == null || !pending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            current.execute(() -> {
+                pending.set(false);
+                try {
+                    rebalance();
+                } catch (RuntimeException e) {
+                    logger.warn("Rebalance failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 与shutdown并发时线程已经关闭，清除标记让重新启动后的请求不被吞掉
+            pending.set(false);
+        }
+    }
+
+    /**
+     * 等待已请求的迁移全部完成
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     * @return 在超时前完成或未在运行时返回true
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        ExecutorService current = executor;
+        if (current == null) {
+            return true;
+        }
+        try {
+            current.submit(() -> { }).get(timeout, unit);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 在当前线程执行一轮迁移
+     */
+    public void rebalance() {
+        passes.increment();
+        long start = System.nanoTime();
+        long before = migratedKeys.sum();
+        for (Group group : cacheManager.getGroups().values()) {
+            new Pass(group).run();
+        }
+        long moved = migratedKeys.sum() - before;
+        if (moved > 0) {
+            logger.info("Rebalanced {} keys in {} ms", moved, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * 单个缓存组的一轮迁移
+     */
+    private class Pass {
+        private final Group group;
+        private final String self = nodeManager.getSelfAddress();
+        private final Map<String, List<BatchCodec.Entry>> batches = new HashMap<>();
+        private final Map<String, Integer> batchBytes = new HashMap<>();
+        private final List<String> sent = new ArrayList<>();
+        private final Set<String> failed = new HashSet<>();
+        private final long startNanos = System.nanoTime();
+        private long paced;
+
+        Pass(Group group) {
+            this.group = group;
+        }
+
+        void run() {
+            int replicas = group.getReplicationFactor();
+            for (String key : group.localKeys()) {
+                List<String> owners = nodeManager.getNodes(key, replicas);
+                if (owners.isEmpty() || owners.contains(self)) {
+                    continue;
+                }
+                ChunkedValue value = group.peekLocal(key);
+                if (value == null) {
+                    continue;
+                }
+                sent.add(key);
+                for (String owner : owners) {
+                    add(owner, key, value);
+                }
+            }
+            for (String owner : new ArrayList<>(batches.keySet())) {
+                flush(owner);
+            }
+            for (String key : sent) {
+                if (!failed.contains(key)) {
+                    group.evictLocal(key);
+                    migratedKeys.increment();
+                } else {
+                    failedKeys.increment();
+                }
+            }
+        }
+
+        private void add(String owner, String key, ChunkedValue value) {
+            if (value.size() > MAX_BATCH_BYTES) {
+                pace(1);
+                transfer(owner, List.of(key), () -> peer(owner).put(group.getName(), key, value));
+                return;
+            }
+            int size = BatchCodec.encodedSize(key, null) + (int) value.size();
+            if (batchBytes.getOrDefault(owner, 0) + size > MAX_BATCH_BYTES) {
+                flush(owner);
+            }
+            batches.computeIfAbsent(owner, o -> new ArrayList<>())
+                    .add(new BatchCodec.Entry(key, BatchCodec.STATUS_FOUND, value.toByteArray()));
+            batchBytes.merge(owner, size, Integer::sum);
+            if (batches.get(owner).size() >= batchSize) {
+                flush(owner);
+            }
+        }
+
+        private void flush(String owner) {
+            List<BatchCodec.Entry> batch = batches.remove(owner);
+            batchBytes.remove(owner);
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            pace(batch.size());
+            List<String> keys = new ArrayList<>(batch.size());
+            batch.forEach(entry -> keys.add(entry.getKey()));
+            transfer(owner, keys, () -> peer(owner).putBatch(group.getName(), batch));
+        }
+
+        private void transfer(String owner, List<String> keys,
+                              Supplier<CompletableFuture<Void>> request) {
+            try {
+                request.get().get(TRANSFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.addAll(keys);
+            } catch (Exception e) {
+                logger.warn("Failed to migrate {} keys of group {} to {}: {}",
+                        keys.size(), group.getName(), owner, e.toString());
+                failed.addAll(keys);
+            }
+        }
+
+        private PeerClient peer(String owner) {
+            PeerClient peer = nodeManager.getPeer(owner);
+            if (peer == null) {
+                throw new IllegalStateException("unknown node " + owner);
+            }
+            return peer;
+        }
+
+        /**
+         * 按每秒键数限速：已发送的键数超过按时间允许的数量时等待
+         */
+        private void pace(int keys) {
+            paced += keys;
+            long allowedNanos = paced * 1_000_000_000L / keysPerSecond;
+            long sleepNanos = allowedNanos - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取已迁移的键数
+     * @return 键数
+     */
+    public long getMigratedKeyCount() {
+        return migratedKeys.sum();
+    }
+
+    /**
+     * 获取迁移失败的键数，这些键保留在本节点
+     * @return 键数
+     */
+    public long getFailedKeyCount() {
+        return failedKeys.sum();
+    }
+
+    /**
+     * 获取已执行的迁移轮数
+     * @return 轮数
+     */
+    public long getPassCount() {
+        return passes.sum();
+    }
+
+    /**
+     * 停止监听并关闭后台线程，之后可以再次调用start
+     */
+    public synchronized void shutdown() {
+        nodeManager.removeRingChangeListener(listener);
+        ExecutorService current = executor;
+        executor = null;
+        if (current != null) {
+            current.shutdownNow();
+        }
+        // 被丢弃的排队任务不会再清除标记
+        pending.set(false);
+    }
+}
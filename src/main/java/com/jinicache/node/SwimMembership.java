@@ -0,0 +1,523 @@
+package com.jinicache.node;
+
+import com.jinicache.http.HttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SWIM风格的成员管理与故障检测
+ * 每个协议周期随机轮询一个成员发送ping；超时未响应时通过k个其他成员发送间接ping，
+ * 仍无响应则把该成员标记为疑似故障，疑似状态持续超过超时时间后确认故障并从哈希环移除。
+ * 成员变化附带在ping和ack消息中传播，不需要中心协调者；被怀疑的节点收到消息后提升自己的
+ * 版本号（incarnation）进行反驳。节点启动时以当前时间作为初始版本号，重启后的节点可以覆盖旧的故障记录
+ */
+public class SwimMembership {
+    private static final Logger logger = LoggerFactory.getLogger(SwimMembership.class);
+    public static final long DEFAULT_PROBE_INTERVAL_MILLIS = 200;
+    public static final long DEFAULT_PROBE_TIMEOUT_MILLIS = 80;
+    public static final int DEFAULT_INDIRECT_PROBES = 3;
+    public static final long DEFAULT_SUSPICION_TIMEOUT_MILLIS = 500;
+    private static final int MAX_PIGGYBACK = 16;
+    private static final int RETRANSMIT_MULTIPLIER = 3;
+
+    /**
+     * 成员状态
+     */
+    public enum State {
+        ALIVE, SUSPECT, DEAD
+    }
+
+    /**
+     * 成员状态变化，同时也是消息中传播的单元
+     */
+    static final class Update {
+        final String address;
+        final State state;
+        final long incarnation;
+        int remaining;
+
+        Update(String address, State state, long incarnation) {
+            this.address = address;
+            this.state = state;
+            this.incarnation = incarnation;
+        }
+    }
+
+    /**
+     * 本节点视角下的成员
+     */
+    private static final class Member {
+        State state;
+        long incarnation;
+        ScheduledFuture<?> suspicionTimer;
+
+        Member(State state, long incarnation) {
+            this.state = state;
+            this.incarnation = incarnation;
+        }
+    }
+
+    private final NodeManager nodeManager;
+    private final String self;
+    private final long probeIntervalMillis;
+    private final long probeTimeoutMillis;
+    private final int indirectProbes;
+    private final long suspicionTimeoutMillis;
+    private final HttpClient client = new HttpClient();
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Member> members = new HashMap<>();
+    private final Map<String, Update> broadcasts = new LinkedHashMap<>();
+    private final List<String> probeOrder = new ArrayList<>();
+    private int probeIndex;
+    private long incarnation = System.currentTimeMillis();
+    private ScheduledFuture<?> probeTask;
+
+    /**
+     * 构造函数，使用默认的协议参数
+     * @param nodeManager 节点管理器，成员变化会同步到它的哈希环
+     */
+    public SwimMembership(NodeManager nodeManager) {
+        this(nodeManager, DEFAULT_PROBE_INTERVAL_MILLIS, DEFAULT_PROBE_TIMEOUT_MILLIS,
+                DEFAULT_INDIRECT_PROBES, DEFAULT_SUSPICION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 构造函数
+     * @param nodeManager 节点管理器，成员变化会同步到它的哈希环
+     * @param probeIntervalMillis 协议周期（毫秒），每个周期探测一个成员
+     * @param probeTimeoutMillis 直接ping的超时时间（毫秒），必须小于协议周期
+     * @param indirectProbes 间接ping经过的成员数
+     * @param suspicionTimeoutMillis 疑似状态持续多久后确认故障（毫秒）
+     */
+    public SwimMembership(NodeManager nodeManager, long probeIntervalMillis, long probeTimeoutMillis,
+                          int indirectProbes, long suspicionTimeoutMillis) {
+        if (probeTimeoutMillis <= 0 || probeTimeoutMillis >= probeIntervalMillis) {
+            throw new IllegalArgumentException("probeTimeoutMillis must be positive and less than probeIntervalMillis");
+        }
+        if (indirectProbes < 0) {
+            throw new IllegalArgumentException("indirectProbes must not be negative");
+        }
+        if (suspicionTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("suspicionTimeoutMillis must be positive");
+        }
+        this.nodeManager = nodeManager;
+        this.self = nodeManager.getSelfAddress();
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.probeTimeoutMillis = probeTimeoutMillis;
+        this.indirectProbes = indirectProbes;
+        this.suspicionTimeoutMillis = suspicionTimeoutMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jinicache-gossip");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 以种子节点加入集群并开始周期性探测
+     * @param seeds 种子节点地址，其余成员通过传播得知
+     */
+    public void start(Collection<String> seeds) {
+        List<String> joined = new ArrayList<>();
+        synchronized (this) {
+            for (String seed : seeds) {
+                if (!seed.equals(self) && !members.containsKey(seed)) {
+                    members.put(seed, new Member(State.ALIVE, 0));
+                    joined.add(seed);
+                }
+            }
+            enqueue(new Update(self, State.ALIVE, incarnation));
+        }
+        joined.forEach(nodeManager::addNode);
+        nodeManager.setMembership(this);
+        probeTask = scheduler.scheduleAtFixedRate(this::probe, probeIntervalMillis, probeIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止探测；其他节点会通过故障检测发现本节点离开
+     */
+    public void shutdown() {
+        if (probeTask != null) {
+            probeTask.cancel(false);
+        }
+        nodeManager.setMembership(null);
+        scheduler.shutdownNow();
+        client.shutdown();
+    }
+
+    /**
+     * 执行一个协议周期：直接ping一个成员，超时后间接ping
+     */
+    private void probe() {
+        String target = nextTarget();
+        if (target == null) {
+            return;
+        }
+        send(target, "/api/gossip/ping", probeTimeoutMillis).whenComplete((ack, error) -> {
+            if (error == null) {
+                receive(ack);
+            } else {
+                probeIndirectly(target);
+            }
+        });
+    }
+
+    /**
+     * 通过k个随机成员间接ping目标，全部失败时把目标标记为疑似故障
+     */
+    private void probeIndirectly(String target) {
+        List<String> helpers;
+        synchronized (this) {
+            helpers = new ArrayList<>();
+            for (Map.Entry<String, Member> entry : members.entrySet()) {
+                if (entry.getValue().state == State.ALIVE && !entry.getKey().equals(target)) {
+                    helpers.add(entry.getKey());
+                }
+            }
+        }
+        Collections.shuffle(helpers, ThreadLocalRandom.current());
+        helpers = helpers.subList(0, Math.min(indirectProbes, helpers.size()));
+        if (helpers.isEmpty()) {
+            suspect(target);
+            return;
+        }
+        AtomicBoolean acked = new AtomicBoolean();
+        AtomicInteger remaining = new AtomicInteger(helpers.size());
+        String path = "/api/gossip/ping-req?target=" + URLEncoder.encode(target, StandardCharsets.UTF_8);
+        for (String helper : helpers) {
+            send(helper, path, probeIntervalMillis).whenComplete((ack, error) -> {
+                if (error == null) {
+                    if (acked.compareAndSet(false, true)) {
+                        receive(ack);
+                    }
+                } else if (remaining.decrementAndGet() == 0 && !acked.get()) {
+                    suspect(target);
+                }
+            });
+        }
+    }
+
+    /**
+     * 向成员发送消息，附带本节点状态和待传播的成员变化
+     */
+    private CompletableFuture<byte[]> send(String address, String path, long timeoutMillis) {
+        CompletableFuture<byte[]> response;
+        try {
+            client.setPeerSecret(nodeManager.getPeerSecret());
+            response = client.post("http://" + address + path, encode(outgoing()), timeoutMillis);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return response.thenApply(body -> {
+            if (body == null) {
+                throw new IllegalStateException(address + " does not run membership");
+            }
+            return body;
+        });
+    }
+
+    /**
+     * 处理其他成员发来的ping，返回ack消息
+     * 发送者在本节点视角下处于疑似或故障状态时，在ack中附带这条状态，让发送者反驳
+     * @param message 消息内容
+     * @return ack消息内容
+     * @throws IllegalArgumentException 消息格式错误
+     */
+    public byte[] handlePing(byte[] message) {
+        List<Update> updates = decode(message);
+        apply(updates);
+        List<Update> reply = outgoing();
+        if (!updates.isEmpty()) {
+            String sender = updates.get(0).address;
+            synchronized (this) {
+                Member member = members.get(sender);
+                if (member != null && member.state != State.ALIVE) {
+                    reply.add(new Update(sender, member.state, member.incarnation));
+                }
+            }
+        }
+        return encode(reply);
+    }
+
+    /**
+     * 处理间接ping请求：代替请求方ping目标，目标响应时把它的ack转发给请求方
+     * @param target 目标成员地址
+     * @param message 请求方的消息内容
+     * @return 目标ack的CompletableFuture，目标无响应时失败
+     * @throws IllegalArgumentException 消息格式错误
+     */
+    public CompletableFuture<byte[]> handlePingRequest(String target, byte[] message) {
+        apply(decode(message));
+        return send(target, "/api/gossip/ping", probeTimeoutMillis).thenApply(ack -> {
+            receive(ack);
+            return ack;
+        });
+    }
+
+    private void receive(byte[] message) {
+        try {
+            apply(decode(message));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed membership message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按SWIM规则合并成员状态变化，并同步哈希环
+     */
+    private void apply(List<Update> updates) {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            for (Update update : updates) {
+                applyLocked(update, added, removed);
+            }
+        }
+        added.forEach(nodeManager::addNode);
+        removed.forEach(nodeManager::removeNode);
+    }
+
+    private void applyLocked(Update update, List<String> added, List<String> removed) {
+        if (update.address.equals(self)) {
+            if (update.state != State.ALIVE && update.incarnation >= incarnation) {
+                // 反驳对本节点的怀疑
+                incarnation = update.incarnation + 1;
+                enqueue(new Update(self, State.ALIVE, incarnation));
+            }
+            return;
+        }
+        Member member = members.get(update.address);
+        switch (update.state) {
+            case ALIVE:
+                if (member == null) {
+                    members.put(update.address, new Member(State.ALIVE, update.incarnation));
+                    added.add(update.address);
+                    enqueue(update);
+                    logger.info("Member {} joined", update.address);
+                } else if (update.incarnation > member.incarnation) {
+                    State previous = member.state;
+                    member.state = State.ALIVE;
+                    member.incarnation = update.incarnation;
+                    cancelSuspicion(member);
+                    enqueue(update);
+                    if (previous == State.DEAD) {
+                        added.add(update.address);
+                        logger.info("Member {} rejoined", update.address);
+                    }
+                }
+                break;
+            case SUSPECT:
+                if (member == null) {
+                    break;
+                }
+                if ((member.state == State.ALIVE && update.incarnation >= member.incarnation)
+                        || (member.state == State.SUSPECT && update.incarnation > member.incarnation)) {
+                    member.incarnation = update.incarnation;
+                    markSuspect(update.address, member);
+                }
+                break;
+            case DEAD:
+                if (member == null) {
+                    // 记录故障状态，避免之后收到更旧的存活消息时误加入
+                    members.put(update.address, new Member(State.DEAD, update.incarnation));
+                } else if (member.state != State.DEAD && update.incarnation >= member.incarnation) {
+                    member.state = State.DEAD;
+                    member.incarnation = update.incarnation;
+                    cancelSuspicion(member);
+                    enqueue(update);
+                    removed.add(update.address);
+                    logger.info("Member {} declared dead by gossip", update.address);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 本节点的探测失败，把目标标记为疑似故障
+     */
+    private void suspect(String address) {
+        synchronized (this) {
+            Member member = members.get(address);
+            if (member != null && member.state == State.ALIVE) {
+                markSuspect(address, member);
+            }
+        }
+    }
+
+    private void markSuspect(String address, Member member) {
+        member.state = State.SUSPECT;
+        cancelSuspicion(member);
+        long suspectedIncarnation = member.incarnation;
+        member.suspicionTimer = scheduler.schedule(() -> confirmDead(address, suspectedIncarnation),
+                suspicionTimeoutMillis, TimeUnit.MILLISECONDS);
+        enqueue(new Update(address, State.SUSPECT, member.incarnation));
+        logger.info("Member {} suspected", address);
+    }
+
+    /**
+     * 疑似状态超时且期间没有被反驳时确认故障
+     */
+    private void confirmDead(String address, long suspectedIncarnation) {
+        synchronized (this) {
+            Member member = members.get(address);
+            if (member == null || member.state != State.SUSPECT || member.incarnation != suspectedIncarnation) {
+                return;
+            }
+            member.state = State.DEAD;
+            member.suspicionTimer = null;
+            enqueue(new Update(address, State.DEAD, member.incarnation));
+        }
+        logger.warn("Member {} confirmed dead", address);
+        nodeManager.removeNode(address);
+    }
+
+    private void cancelSuspicion(Member member) {
+        if (member.suspicionTimer != null) {
+            member.suspicionTimer.cancel(false);
+            member.suspicionTimer = null;
+        }
+    }
+
+    /**
+     * 加入待传播队列，同一成员只保留最新的变化；每条变化传播 λ·log(n) 次
+     */
+    private void enqueue(Update update) {
+        update.remaining = RETRANSMIT_MULTIPLIER * (32 - Integer.numberOfLeadingZeros(members.size() + 1));
+        broadcasts.remove(update.address);
+        broadcasts.put(update.address, update);
+    }
+
+    /**
+     * 组装外发消息：本节点的存活状态加上传播次数最少的若干条变化
+     */
+    private synchronized List<Update> outgoing() {
+        List<Update> message = new ArrayList<>();
+        message.add(new Update(self, State.ALIVE, incarnation));
+        List<Update> pending = new ArrayList<>(broadcasts.values());
+        pending.sort(Comparator.comparingInt((Update u) -> u.remaining).reversed());
+        for (Update update : pending.subList(0, Math.min(MAX_PIGGYBACK, pending.size()))) {
+            if (!update.address.equals(self)) {
+                message.add(update);
+            }
+            if (--update.remaining <= 0) {
+                broadcasts.remove(update.address);
+            }
+        }
+        return message;
+    }
+
+    /**
+     * 按随机轮询顺序选择下一个探测目标，跳过已确认故障的成员
+     */
+    private synchronized String nextTarget() {
+        while (true) {
+            if (probeIndex >= probeOrder.size()) {
+                probeOrder.clear();
+                for (Map.Entry<String, Member> entry : members.entrySet()) {
+                    if (entry.getValue().state != State.DEAD) {
+                        probeOrder.add(entry.getKey());
+                    }
+                }
+                if (probeOrder.isEmpty()) {
+                    return null;
+                }
+                Collections.shuffle(probeOrder, ThreadLocalRandom.current());
+                probeIndex = 0;
+            }
+            String candidate = probeOrder.get(probeIndex++);
+            Member member = members.get(candidate);
+            if (member != null && member.state != State.DEAD) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * 编码消息，每行一条变化：状态 地址 版本号
+     */
+    static byte[] encode(List<Update> updates) {
+        StringBuilder builder = new StringBuilder();
+        for (Update update : updates) {
+            builder.append(update.state).append(' ').append(update.address)
+                    .append(' ').append(update.incarnation).append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解码消息
+     * @throws IllegalArgumentException 消息格式错误
+     */
+    static List<Update> decode(byte[] message) {
+        List<Update> updates = new ArrayList<>();
+        for (String line : new String(message, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split(" ");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed membership update: " + line);
+            }
+            try {
+                updates.add(new Update(parts[1], State.valueOf(parts[0]), Long.parseLong(parts[2])));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed membership update: " + line, e);
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * 获取成员在本节点视角下的状态
+     * @param address 成员地址
+     * @return 状态，未知成员返回null
+     */
+    public synchronized State getState(String address) {
+        Member member = members.get(address);
+        return member != null ? member.state : null;
+    }
+
+    /**
+     * 获取本节点视角下存活（含疑似）的成员，不包括本节点
+     * @return 成员地址列表
+     */
+    public synchronized List<String> getLiveMembers() {
+        List<String> live = new ArrayList<>();
+        members.forEach((address, member) -> {
+            if (member.state != State.DEAD) {
+                live.add(address);
+            }
+        });
+        return live;
+    }
+
+    /**
+     * 获取本节点当前的版本号
+     * @return 版本号
+     */
+    public synchronized long getIncarnation() {
+        return incarnation;
+    }
+}
@@ -0,0 +1,189 @@
+package com.jinicache.trace;
+
+import com.jinicache.cache.Cache;
+import com.jinicache.cache.LRUCache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * 离线回放访问轨迹，比较不同淘汰策略在不同容量下的命中率和吞吐
+ * 读取未命中时按记录的大小写入缓存（与缓存组的加载一致），写入和删除直接作用于缓存。
+ * 轨迹按键采样时，容量C的缓存以容量C乘以采样率回放，命中率即为容量C下的估计值
+ */
+public class CacheSimulator {
+    private final List<TraceRecord> trace;
+    private final double sampleRate;
+    private final Map<String, IntFunction<Cache<Long, Long>>> policies = new LinkedHashMap<>();
+
+    /**
+     * 构造函数，默认包含LRU策略
+     * @param trace 轨迹记录
+     * @param sampleRate 记录轨迹时的采样率
+     */
+    public CacheSimulator(List<TraceRecord> trace, double sampleRate) {
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate must be in (0, 1]");
+        }
+        this.trace = trace;
+        this.sampleRate = sampleRate;
+        policies.put("LRU", LRUCache::new);
+    }
+
+    /**
+     * 读取轨迹文件
+     * @param file 轨迹文件
+     * @return 模拟器
+     * @throws IOException 读取失败或不是轨迹文件
+     */
+    public static CacheSimulator load(Path file) throws IOException {
+        try (TraceReader reader = new TraceReader(file)) {
+            List<TraceRecord> records = new ArrayList<>();
+            for (TraceRecord record = reader.next(); record != null; record = reader.next()) {
+                records.add(record);
+            }
+            return new CacheSimulator(records, reader.getSampleRate());
+        }
+    }
+
+    /**
+     * 添加或替换淘汰策略
+     * @param name 策略名
+     * @param factory 按容量创建缓存，键为键哈希，值为值的字节数
+     */
+    public void addPolicy(String name, IntFunction<Cache<Long, Long>> factory) {
+        policies.put(name, factory);
+    }
+
+    /**
+     * 对每个策略和每个容量回放一遍轨迹
+     * @param capacities 容量（条目数，按完整流量计）
+     * @return 结果，按策略、容量的顺序排列
+     */
+    public List<Result> run(int... capacities) {
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, IntFunction<Cache<Long, Long>>> policy : policies.entrySet()) {
+            for (int capacity : capacities) {
+                if (capacity < 1) {
+                    throw new IllegalArgumentException("capacity must be positive");
+                }
+                int scaled = (int) Math.max(1, Math.round(capacity * sampleRate));
+                results.add(replay(policy.getKey(), capacity, policy.getValue().apply(scaled)));
+            }
+        }
+        return results;
+    }
+
+    private Result replay(String policy, int capacity, Cache<Long, Long> cache) {
+        long gets = 0;
+        long hits = 0;
+        long start = System.nanoTime();
+        for (TraceRecord record : trace) {
+            Long key = record.getKeyHash();
+            switch (record.getOp()) {
+                case GET:
+                    gets++;
+                    if (cache.get(key) != null) {
+                        hits++;
+                    } else {
+                        cache.put(key, record.getSize());
+                    }
+                    break;
+                case PUT:
+                    cache.put(key, record.getSize());
+                    break;
+                case REMOVE:
+                    cache.remove(key);
+                    break;
+                default:
+                    break;
+            }
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        return new Result(policy, capacity, gets, hits, trace.size() * 1e9 / elapsed);
+    }
+
+    /**
+     * 一个策略在一个容量下的回放结果
+     */
+    public static final class Result {
+        private final String policy;
+        private final int capacity;
+        private final long gets;
+        private final long hits;
+        private final double opsPerSecond;
+
+        Result(String policy, int capacity, long gets, long hits, double opsPerSecond) {
+            this.policy = policy;
+            this.capacity = capacity;
+            this.gets = gets;
+            this.hits = hits;
+            this.opsPerSecond = opsPerSecond;
+        }
+
+        public String getPolicy() {
+            return policy;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getGets() {
+            return gets;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * 获取读取命中率
+         * @return 命中率（0到1之间），没有读取时返回0
+         */
+        public double getHitRate() {
+            return gets > 0 ? (double) hits / gets : 0;
+        }
+
+        /**
+         * 获取回放吞吐，包括所有操作
+         * @return 每秒操作数
+         */
+        public double getOpsPerSecond() {
+            return opsPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s %12d %9.2f%% %14.0f", policy, capacity, getHitRate() * 100, opsPerSecond);
+        }
+    }
+
+    /**
+     * 命令行入口：回放轨迹文件并打印每个策略、每个容量下的命中率和吞吐
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java -cp jinicache.jar com.jinicache.trace.CacheSimulator"
+                    + " <trace-file> <capacity>[,<capacity>...]");
+            System.exit(1);
+        }
+        String[] parts = args[1].split(",");
+        int[] capacities = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            capacities[i] = Integer.parseInt(parts[i].trim());
+        }
+        CacheSimulator simulator = load(Paths.get(args[0]));
+        System.out.printf("%d records, sample rate %.4f%n", simulator.trace.size(), simulator.sampleRate);
+        System.out.printf("%-8s %12s %10s %14s%n", "policy", "capacity", "hit rate", "ops/s");
+        for (Result result : simulator.run(capacities)) {
+            System.out.println(result);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.jinicache.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 轨迹文件格式
+ * 文件头：[int 魔数][byte 版本][double 采样率][long 开始时间（毫秒时间戳）]；
+ * 每条记录：[byte 操作][long 键哈希][varint 大小][varint 与上一条记录的时间差（纳秒）]，通常13字节左右
+ */
+final class TraceFormat {
+    static final int MAGIC = 0x4A435452; // "JCTR"
+    static final int VERSION = 1;
+
+    private TraceFormat() {
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in trace");
+    }
+}
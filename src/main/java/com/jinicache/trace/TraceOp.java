@@ -0,0 +1,28 @@
+package com.jinicache.trace;
+
+/**
+ * 访问轨迹中的操作类型
+ */
+public enum TraceOp {
+    /**
+     * 读取，大小为读到的值的字节数，不存在时为0
+     */
+    GET,
+    /**
+     * 写入，大小为写入的值的字节数
+     */
+    PUT,
+    /**
+     * 删除或失效
+     */
+    REMOVE;
+
+    private static final TraceOp[] VALUES = values();
+
+    static TraceOp fromCode(int code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("Unknown trace op " + code);
+        }
+        return VALUES[code];
+    }
+}
@@ -0,0 +1,86 @@
+package com.jinicache.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 轨迹文件读取器，格式见 {@link TraceFormat}
+ */
+public class TraceReader implements Closeable {
+    private final DataInputStream in;
+    private final double sampleRate;
+    private final long startMillis;
+    private long timestampNanos;
+
+    /**
+     * 构造函数，立即读取并校验文件头
+     * @param in 输入流
+     * @throws IOException 读取失败或不是轨迹文件
+     */
+    public TraceReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        if (this.in.readInt() != TraceFormat.MAGIC) {
+            throw new IOException("Not a JiniCache trace");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != TraceFormat.VERSION) {
+            throw new IOException("Unsupported trace version " + version);
+        }
+        this.sampleRate = this.in.readDouble();
+        this.startMillis = this.in.readLong();
+    }
+
+    /**
+     * 打开轨迹文件
+     * @param file 文件
+     * @throws IOException 读取失败或不是轨迹文件
+     */
+    public TraceReader(Path file) throws IOException {
+        this(Files.newInputStream(file));
+    }
+
+    /**
+     * 读取下一条记录
+     * @return 记录，已到文件末尾时返回null
+     * @throws IOException 读取失败或记录不完整
+     */
+    public TraceRecord next() throws IOException {
+        int op;
+        try {
+            op = in.readUnsignedByte();
+        } catch (EOFException e) {
+            return null;
+        }
+        long keyHash = in.readLong();
+        long size = TraceFormat.readVarLong(in);
+        timestampNanos += TraceFormat.readVarLong(in);
+        return new TraceRecord(keyHash, size, TraceOp.fromCode(op), timestampNanos);
+    }
+
+    /**
+     * 获取记录时的采样率
+     * @return 采样率
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 获取开始记录的时间
+     * @return 毫秒时间戳
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.jinicache.trace;
+
+/**
+ * 访问轨迹中的一条记录
+ */
+public final class TraceRecord {
+    private final long keyHash;
+    private final long size;
+    private final TraceOp op;
+    private final long timestampNanos;
+
+    /**
+     * 构造函数
+     * @param keyHash 键的64位哈希，轨迹中不保存键本身
+     * @param size 值的字节数
+     * @param op 操作类型
+     * @param timestampNanos 距轨迹开始的时间（纳秒）
+     */
+    public TraceRecord(long keyHash, long size, TraceOp op, long timestampNanos) {
+        this.keyHash = keyHash;
+        this.size = size;
+        this.op = op;
+        this.timestampNanos = timestampNanos;
+    }
+
+    public long getKeyHash() {
+        return keyHash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public TraceOp getOp() {
+        return op;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    @Override
+    public String toString() {
+        return op + " " + Long.toHexString(keyHash) + " (" + size + " bytes) @" + timestampNanos;
+    }
+}
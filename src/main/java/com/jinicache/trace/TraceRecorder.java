@@ -0,0 +1,179 @@
+package com.jinicache.trace;
+
+import com.jinicache.hash.MurmurHash3;
+import com.jinicache.metrics.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问轨迹记录器
+ * 按键的哈希值采样：被采样的键的每次访问都会记录，其余键的访问都不记录，回放时键之间的重用关系不变，
+ * 容量按采样率换算即可（见 {@link CacheSimulator}）。记录只把一条记录放入有界队列，由后台线程写入文件；
+ * 队列已满时丢弃并计数，不阻塞读写路径
+ */
+public class TraceRecorder implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TraceRecorder.class);
+    private static final long MODULUS = 1L << 24;
+    private static final int DEFAULT_QUEUE_CAPACITY = 65536;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final TraceRecord END = new TraceRecord(0, 0, TraceOp.GET, 0);
+
+    private final TraceWriter writer;
+    private final long threshold;
+    private final long startNanos = System.nanoTime();
+    private final BlockingQueue<TraceRecord> queue;
+    private final Thread thread;
+    private final Counter recorded = new Counter();
+    private final Counter dropped = new Counter();
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * 构造函数，创建后立即启动后台写入线程
+     * @param out 输出流，关闭记录器时一并关闭
+     * @param sampleRate 采样率，在(0, 1]之间
+     * @param queueCapacity 等待写入的最大记录数
+     * @throws IOException 写入文件头失败
+     */
+    public TraceRecorder(OutputStream out, double sampleRate, int queueCapacity) throws IOException {
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate must be in (0, 1]");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        this.threshold = Math.max(1, Math.round(sampleRate * MODULUS));
+        this.writer = new TraceWriter(out, (double) threshold / MODULUS);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.thread = new Thread(this::run, "jinicache-trace-recorder");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 创建或覆盖轨迹文件并开始记录
+     * @param file 文件
+     * @param sampleRate 采样率，在(0, 1]之间
+     * @throws IOException 创建文件失败
+     */
+    public TraceRecorder(Path file, double sampleRate) throws IOException {
+        this(Files.newOutputStream(file), sampleRate, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 判断键是否被采样
+     * @param key 键
+     * @return 被采样时返回true
+     */
+    public boolean isSampled(String key) {
+        return (MurmurHash3.fmix64(key.hashCode()) & (MODULUS - 1)) < threshold;
+    }
+
+    /**
+     * 记录一次访问，键未被采样或记录器已关闭时不做任何事
+     * @param op 操作类型
+     * @param key 键
+     * @param size 值的字节数
+     */
+    public void record(TraceOp op, String key, long size) {
+        if (closed || !isSampled(key)) {
+            return;
+        }
+        TraceRecord record = new TraceRecord(MurmurHash3.hash64(key), size, op, System.nanoTime() - startNanos);
+        if (queue.offer(record)) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void run() {
+        List<TraceRecord> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (TraceRecord record : batch) {
+                    if (record == END) {
+                        writer.close();
+                        return;
+                    }
+                    writer.write(record);
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            closed = true;
+            logger.warn("Trace recording stopped: {}", e.toString());
+        } catch (InterruptedException e) {
+            logger.warn("Trace recorder interrupted, {} records not written", queue.size());
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close trace", e);
+        }
+    }
+
+    /**
+     * 停止记录，写出队列中的记录并关闭文件
+     * @throws IOException 写入文件失败
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                queue.put(END);
+                thread.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                thread.interrupt();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 获取进入写入队列的记录数
+     * @return 记录数
+     */
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+
+    /**
+     * 获取因写入队列已满被丢弃的记录数
+     * @return 记录数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 获取实际采样率（阈值取整后）
+     * @return 采样率
+     */
+    public double getSampleRate() {
+        return (double) threshold / MODULUS;
+    }
+}
@@ -0,0 +1,69 @@
+package com.jinicache.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 轨迹文件写入器，格式见 {@link TraceFormat}；不是线程安全的
+ */
+public class TraceWriter implements Closeable {
+    private final DataOutputStream out;
+    private long lastTimestampNanos;
+
+    /**
+     * 构造函数，立即写入文件头
+     * @param out 输出流
+     * @param sampleRate 记录时的采样率，回放时用于换算容量
+     * @throws IOException 写入失败
+     */
+    public TraceWriter(OutputStream out, double sampleRate) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.out.writeInt(TraceFormat.MAGIC);
+        this.out.writeByte(TraceFormat.VERSION);
+        this.out.writeDouble(sampleRate);
+        this.out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * 创建或覆盖轨迹文件
+     * @param file 文件
+     * @param sampleRate 记录时的采样率
+     * @throws IOException 创建或写入失败
+     */
+    public TraceWriter(Path file, double sampleRate) throws IOException {
+        this(Files.newOutputStream(file), sampleRate);
+    }
+
+    /**
+     * 写入一条记录
+     * 多个线程记录的访问进入写入器的顺序可能与时间戳略有出入，早于上一条的时间戳按上一条写入
+     * @param record 记录
+     * @throws IOException 写入失败
+     */
+    public void write(TraceRecord record) throws IOException {
+        long delta = Math.max(0, record.getTimestampNanos() - lastTimestampNanos);
+        out.writeByte(record.getOp().ordinal());
+        out.writeLong(record.getKeyHash());
+        TraceFormat.writeVarLong(out, Math.max(0, record.getSize()));
+        TraceFormat.writeVarLong(out, delta);
+        lastTimestampNanos += delta;
+    }
+
+    /**
+     * 把缓冲的记录写到底层输出流
+     * @throws IOException 写入失败
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
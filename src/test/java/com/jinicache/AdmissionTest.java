@@ -0,0 +1,154 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.AdmissionController;
+import com.jinicache.http.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 准入控制测试类
+ */
+public class AdmissionTest {
+    private static final String SECRET = "admission-secret";
+
+    @Test
+    public void testLimits() {
+        AdmissionController controller = new AdmissionController(4, 2, 1);
+        AdmissionController.Permit first = controller.tryAcquire("users", false);
+        AdmissionController.Permit second = controller.tryAcquire("users", false);
+        assertNotNull(first);
+        assertNotNull(second);
+        // 组上限
+        assertNull(controller.tryAcquire("users", false));
+        assertEquals(1, controller.getShedByGroupCount());
+        assertNotNull(controller.tryAcquire("orders", false));
+        // 客户端不能使用预留部分
+        assertNull(controller.tryAcquire("orders", false));
+        assertEquals(1, controller.getShedClientCount());
+        // 节点请求可以使用预留部分，且不受组上限约束
+        AdmissionController.Permit peer = controller.tryAcquire("users", true);
+        assertNotNull(peer);
+        assertNull(controller.tryAcquire(null, true));
+        assertEquals(1, controller.getShedPeerCount());
+        assertEquals(4, controller.getInFlight());
+        assertEquals(2, controller.getInFlight("users"));
+
+        first.release();
+        first.release();
+        assertEquals(3, controller.getInFlight());
+        assertEquals(1, controller.getInFlight("users"));
+        peer.release();
+        assertNotNull(controller.tryAcquire("users", false));
+        assertEquals(5, controller.getAdmittedCount());
+
+        assertThrows(IllegalArgumentException.class, () -> controller.configure(2, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> controller.configure(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> controller.setRetryAfterSeconds(-1));
+    }
+
+    @Test
+    public void testOverloadedServerShedsClientsFirst() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group slow = cacheManager.createGroup("slow", new LRUCache<>(100));
+        cacheManager.createGroup("fast", new LRUCache<>(100)).getCache().put("k", "v".getBytes());
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            slow.registerLoader("key" + i, key -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return key.getBytes();
+            });
+        }
+        HttpServer server = new HttpServer(8261, cacheManager);
+        AdmissionController controller = new AdmissionController(3, 2, 1);
+        controller.setRetryAfterSeconds(2);
+        server.setAdmissionController(controller);
+        server.getAuthenticator().setPeerSecret(SECRET);
+        server.startSync();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try {
+            List<CompletableFuture<HttpResponse<String>>> blocked = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                blocked.add(client.sendAsync(get("/api/cache?group=slow&key=key" + i, false),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (controller.getInFlight() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(2, controller.getInFlight("slow"));
+
+            // 客户端已用完非预留部分：快速拒绝并带Retry-After
+            long start = System.nanoTime();
+            HttpResponse<String> shed = client.send(get("/api/cache?group=slow&key=key2", false),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            assertEquals(503, shed.statusCode());
+            assertEquals("2", shed.headers().firstValue("retry-after").orElse(null));
+
+            // 其他组的客户端请求同样被拒绝，预留部分只给节点
+            assertEquals(503, client.send(get("/api/cache?group=fast&key=k", false),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+            // 密钥不对的节点请求头被当作普通客户端
+            HttpRequest spoofed = HttpRequest.newBuilder(URI.create("http://localhost:8261/api/cache?group=fast&key=k"))
+                    .header(com.jinicache.http.HttpClient.PEER_HEADER, "true").GET().build();
+            assertEquals(503, client.send(spoofed, HttpResponse.BodyHandlers.ofString()).statusCode());
+            // 节点请求使用预留部分
+            HttpResponse<String> peer = client.send(get("/api/cache?group=fast&key=k", true),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, peer.statusCode());
+            assertEquals("v", peer.body());
+
+            // 指标不受限制
+            HttpResponse<String> metrics = client.send(get("/metrics", false), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, metrics.statusCode());
+            assertTrue(metrics.body().contains("jinicache_http_in_flight 2\n"), metrics.body());
+            assertTrue(metrics.body().contains(
+                    "jinicache_http_shed_total{source=\"client\",limit=\"global\"} 3\n"), metrics.body());
+            assertTrue(metrics.body().contains(
+                    "jinicache_http_shed_total{source=\"peer\",limit=\"global\"} 0\n"), metrics.body());
+
+            release.countDown();
+            for (int i = 0; i < 2; i++) {
+                HttpResponse<String> response = blocked.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(200, response.statusCode());
+                assertEquals("key" + i, response.body());
+            }
+            deadline = System.currentTimeMillis() + 5000;
+            while (controller.getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, controller.getInFlight());
+            assertEquals(200, client.send(get("/api/cache?group=slow&key=key2", false),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+        } finally {
+            release.countDown();
+            server.shutdown();
+        }
+    }
+
+    private static HttpRequest get(String path, boolean peer) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:8261" + path)).GET();
+        if (peer) {
+            builder.header(com.jinicache.http.HttpClient.PEER_HEADER, SECRET);
+        }
+        return builder.build();
+    }
+}
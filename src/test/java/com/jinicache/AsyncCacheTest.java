@@ -0,0 +1,210 @@
+package com.jinicache;
+
+import com.jinicache.cache.AsyncCache;
+import com.jinicache.cache.AsyncCacheAdapter;
+import com.jinicache.cache.Cache;
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步缓存接口测试类
+ */
+public class AsyncCacheTest {
+
+    /**
+     * 模拟慢速存储：每个操作在固定延迟后由调度线程完成
+     */
+    private static class DelayedCache implements AsyncCache<String, byte[]> {
+        final LRUCache<String, byte[]> store = new LRUCache<>(1000);
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        final long delayMillis;
+
+        DelayedCache(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        private <T> CompletableFuture<T> later(Supplier<T> operation) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            scheduler.schedule(() -> future.complete(operation.get()), delayMillis, TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        @Override
+        public CompletableFuture<byte[]> get(String key) {
+            return later(() -> store.get(key));
+        }
+
+        @Override
+        public CompletableFuture<Void> put(String key, byte[] value) {
+            return later(() -> {
+                store.put(key, value);
+                return null;
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> remove(String key) {
+            return later(() -> {
+                store.remove(key);
+                return null;
+            });
+        }
+
+        @Override
+        public Cache<String, byte[]> synchronous() {
+            return store;
+        }
+    }
+
+    @Test
+    public void testAdapter() {
+        LRUCache<String, String> cache = new LRUCache<>(10);
+        AsyncCache<String, String> async = new AsyncCacheAdapter<>(cache);
+        assertSame(cache, async.synchronous());
+        assertTrue(async.put("a", "1").isDone());
+        async.put("b", "2").join();
+        assertEquals("1", async.get("a").join());
+        assertNull(async.get("missing").join());
+        assertEquals(Map.of("a", "1", "b", "2"), async.getAll(List.of("a", "missing", "b")).join());
+        async.remove("a").join();
+        assertNull(cache.get("a"));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncCacheAdapter<String, String>(null));
+    }
+
+    @Test
+    public void testDefaultGetAllCombinesGets() {
+        DelayedCache cache = new DelayedCache(10);
+        try {
+            cache.store.put("a", "1".getBytes());
+            cache.store.put("c", "3".getBytes());
+            Map<String, byte[]> values = cache.getAll(List.of("c", "b", "a", "c")).join();
+            assertEquals(List.of("c", "a"), new ArrayList<>(values.keySet()));
+        } finally {
+            cache.scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testGroupGetAsyncDoesNotWaitForStorage() throws Exception {
+        DelayedCache cache = new DelayedCache(100);
+        try {
+            Group group = new Group("slow", cache);
+            assertSame(cache.store, group.getCache());
+            AtomicInteger loads = new AtomicInteger();
+            group.registerLoader("k", key -> {
+                loads.incrementAndGet();
+                return "v".getBytes();
+            });
+
+            long start = System.nanoTime();
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(group.getAsync("k"));
+            }
+            // 调用方不等待存储I/O
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50));
+            assertFalse(futures.get(0).isDone());
+            for (CompletableFuture<byte[]> future : futures) {
+                assertArrayEquals("v".getBytes(), future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            // 加载的值通过异步接口写入存储
+            assertArrayEquals("v".getBytes(), group.getAsync("k").get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+            assertEquals(1, group.getMetrics().getHits().get());
+        } finally {
+            cache.scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testPeerFetchDoesNotBlockAThread() throws Exception {
+        Group group = new Group("remote", new LRUCache<>(10));
+        CompletableFuture<byte[]> peerResponse = new CompletableFuture<>();
+        AtomicInteger peerCalls = new AtomicInteger();
+        group.registerPeers(key -> (groupName, k) -> {
+            peerCalls.incrementAndGet();
+            return peerResponse;
+        });
+        CompletableFuture<byte[]> first = group.getAsync("k");
+        CompletableFuture<byte[]> second = group.getAsync("k");
+        assertFalse(first.isDone());
+        assertEquals(1, peerCalls.get());
+        assertEquals(1, group.getActiveCallsCount());
+
+        peerResponse.complete("remote".getBytes());
+        assertArrayEquals("remote".getBytes(), first.get(1, TimeUnit.SECONDS));
+        assertArrayEquals("remote".getBytes(), second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, group.getMetrics().getPeerFetches().get());
+
+        // 远端失败时回退到本地加载器
+        group.registerLoader("other", key -> "local".getBytes());
+        group.registerPeers(key -> (groupName, k) -> CompletableFuture.failedFuture(new IllegalStateException("down")));
+        assertArrayEquals("local".getBytes(), group.getAsync("other").get(5, TimeUnit.SECONDS));
+        assertEquals(1, group.getMetrics().getPeerErrors().get());
+    }
+
+    @Test
+    public void testHttpRequestsOverlapOnSlowStorage() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        DelayedCache cache = new DelayedCache(300);
+        Group group = cacheManager.createGroup("slow", cache);
+        int requests = 20;
+        for (int i = 0; i < requests; i++) {
+            cache.store.put("key" + i, ("value" + i).getBytes());
+        }
+        HttpServer server = new HttpServer(8251, cacheManager);
+        server.startSync();
+        try {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            long start = System.nanoTime();
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                responses.add(client.sendAsync(HttpRequest.newBuilder(
+                                URI.create("http://localhost:8251/api/cache?group=slow&key=key" + i)).GET().build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            for (int i = 0; i < requests; i++) {
+                HttpResponse<String> response = responses.get(i).get(10, TimeUnit.SECONDS);
+                assertEquals(200, response.statusCode());
+                assertEquals("value" + i, response.body());
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // 阻塞事件循环时每个线程只能逐个等待，至少需要数秒
+            assertTrue(elapsedMillis < 2500, "requests did not overlap: " + elapsedMillis + " ms");
+
+            HttpResponse<String> put = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8251/api/cache?group=slow&key=new"))
+                            .PUT(HttpRequest.BodyPublishers.ofString("written")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, put.statusCode());
+            assertArrayEquals("written".getBytes(), cache.store.get("new"));
+            HttpResponse<String> missing = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8251/api/cache?group=slow&key=absent")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(404, missing.statusCode());
+        } finally {
+            server.shutdown();
+            cache.scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.jinicache;
+
+import com.jinicache.http.BatchCodec;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量获取测试类
+ */
+public class BatchGetTest {
+
+    @Test
+    public void testScatterGatherWithSlowPeer() throws Exception {
+        // 一个只接受连接、从不响应的节点，用于模拟超时
+        try (ServerSocket silentPeer = new ServerSocket(8119)) {
+            List<Socket> accepted = new ArrayList<>();
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        accepted.add(silentPeer.accept());
+                    }
+                } catch (Exception ignored) {
+                    // 测试结束时关闭
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            JiniCache node1 = new JiniCache(8111, Arrays.asList("localhost:8112", "localhost:8113", "localhost:8119"));
+            JiniCache node2 = new JiniCache(8112, Arrays.asList("localhost:8111", "localhost:8113"));
+            JiniCache node3 = new JiniCache(8113, Arrays.asList("localhost:8111", "localhost:8112"));
+            Map<String, JiniCache> nodes = new HashMap<>();
+            nodes.put("localhost:8111", node1);
+            nodes.put("localhost:8112", node2);
+            nodes.put("localhost:8113", node3);
+            // 沉默节点需要一直留在哈希环上，关闭故障检测
+            nodes.values().forEach(node -> node.setMembershipEnabled(false));
+            nodes.values().forEach(JiniCache::start);
+            node1.getNodeManager().setPeerTimeoutMillis(300);
+            Thread.sleep(1000);
+
+            try {
+                // 把每个键写入它的所属节点
+                List<String> keys = new ArrayList<>();
+                Map<String, String> owners = new HashMap<>();
+                for (int i = 0; i < 60; i++) {
+                    String key = UUID.nameUUIDFromBytes(("key" + i).getBytes()).toString();
+                    String owner = node1.getNodeManager().getNode(key);
+                    keys.add(key);
+                    owners.put(key, owner);
+                    JiniCache ownerNode = nodes.get(owner);
+                    if (ownerNode != null) {
+                        ownerNode.getCacheManager().getGroup("default").getCache().put(key, ("value-" + key).getBytes());
+                    }
+                }
+                keys.add("missing");
+                owners.put("missing", node1.getNodeManager().getNode("missing"));
+                assertTrue(owners.containsValue("localhost:8119"), "test keys should hit the silent peer");
+
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8111/api/cache/batch?group=default"))
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(BatchCodec.encodeKeys(keys)))
+                        .build();
+                long start = System.currentTimeMillis();
+                HttpResponse<byte[]> response = HttpClient.newHttpClient()
+                        .send(request, HttpResponse.BodyHandlers.ofByteArray());
+                long elapsed = System.currentTimeMillis() - start;
+
+                assertEquals(200, response.statusCode());
+                assertTrue(elapsed < 3000, "slow peer should only delay the response by its timeout");
+                List<BatchCodec.Entry> entries = BatchCodec.decodeEntries(response.body());
+                assertEquals(keys.size(), entries.size());
+                for (BatchCodec.Entry entry : entries) {
+                    String owner = owners.get(entry.getKey());
+                    if (owner.equals("localhost:8119")) {
+                        assertEquals(BatchCodec.STATUS_ERROR, entry.getStatus());
+                    } else if (entry.getKey().equals("missing")) {
+                        assertEquals(BatchCodec.STATUS_NOT_FOUND, entry.getStatus());
+                    } else {
+                        assertEquals(BatchCodec.STATUS_FOUND, entry.getStatus());
+                        assertArrayEquals(("value-" + entry.getKey()).getBytes(), entry.getValue());
+                    }
+                }
+            } finally {
+                nodes.values().forEach(JiniCache::stop);
+                for (Socket socket : accepted) {
+                    socket.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.hash.BoundedLoadConsistentHash;
+import com.jinicache.hash.ConsistentHash;
+import com.jinicache.hash.LoadTracker;
+import com.jinicache.node.NodeManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 有界负载一致性哈希测试类
+ */
+public class BoundedLoadTest {
+    private static final int NODE_COUNT = 10;
+    private static final int KEY_COUNT = 10_000;
+    private static final int REQUEST_COUNT = 200_000;
+
+    /**
+     * 按Zipf分布生成键下标
+     */
+    private static final class Zipf {
+        private final double[] cdf;
+        private final Random random;
+
+        Zipf(int n, double s, long seed) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, s);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+            random = new Random(seed);
+        }
+
+        int next() {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return index >= 0 ? index : Math.min(-index - 1, cdf.length - 1);
+        }
+    }
+
+    /**
+     * 累计分配次数作为负载
+     */
+    private static final class CountingTracker implements LoadTracker<String> {
+        final Map<String, Long> counts = new HashMap<>();
+        long total;
+
+        void record(String node) {
+            counts.merge(node, 1L, Long::sum);
+            total++;
+        }
+
+        @Override
+        public long load(String node) {
+            return counts.getOrDefault(node, 0L);
+        }
+
+        @Override
+        public long totalLoad() {
+            return total;
+        }
+    }
+
+    private static ConsistentHash<String> newRing() {
+        ConsistentHash<String> ring = new ConsistentHash<>(100);
+        for (int i = 0; i < NODE_COUNT; i++) {
+            ring.addNode("localhost:" + (8000 + i));
+        }
+        return ring;
+    }
+
+    private static double maxOverAvg(Map<String, Long> counts, long total) {
+        long max = counts.values().stream().mapToLong(Long::longValue).max().orElse(0);
+        return max / ((double) total / NODE_COUNT);
+    }
+
+    @Test
+    public void testZipfianMaxOverAverageDrops() {
+        ConsistentHash<String> ring = newRing();
+        double epsilon = 0.25;
+
+        CountingTracker plain = new CountingTracker();
+        Zipf zipf = new Zipf(KEY_COUNT, 0.99, 42);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            plain.record(ring.get("key" + zipf.next()));
+        }
+
+        CountingTracker bounded = new CountingTracker();
+        BoundedLoadConsistentHash<String> boundedRing = new BoundedLoadConsistentHash<>(ring, bounded, epsilon);
+        zipf = new Zipf(KEY_COUNT, 0.99, 42);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            bounded.record(boundedRing.get("key" + zipf.next()));
+        }
+
+        double plainRatio = maxOverAvg(plain.counts, plain.total);
+        double boundedRatio = maxOverAvg(bounded.counts, bounded.total);
+        assertTrue(boundedRatio < plainRatio, "bounded " + boundedRatio + " vs consistent " + plainRatio);
+        assertTrue(boundedRatio <= 1 + epsilon + 0.01, "max/avg above cap: " + boundedRatio);
+    }
+
+    @Test
+    public void testUnderloadedPrimaryIsKept() {
+        ConsistentHash<String> ring = newRing();
+        BoundedLoadConsistentHash<String> boundedRing =
+                new BoundedLoadConsistentHash<>(ring, new CountingTracker(), 0.25);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.get("key" + i), boundedRing.get("key" + i));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new BoundedLoadConsistentHash<>(ring, new CountingTracker(), 0));
+    }
+
+    @Test
+    public void testNodeManagerBoundedPlacement() {
+        NodeManager nodeManager = new NodeManager("localhost:8000", new CacheManager());
+        try {
+            for (int i = 1; i < NODE_COUNT; i++) {
+                nodeManager.addNode("localhost:" + (8000 + i));
+            }
+            // 窗口足够长，测试期间不会切换
+            nodeManager.enableBoundedLoads(0.25, 60_000);
+            assertTrue(nodeManager.isBoundedLoadsEnabled());
+
+            Zipf zipf = new Zipf(KEY_COUNT, 0.99, 7);
+            Map<String, Long> counts = new HashMap<>();
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                counts.merge(nodeManager.getNode("key" + zipf.next()), 1L, Long::sum);
+            }
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                assertEquals(entry.getValue().longValue(), nodeManager.getNodeLoad(entry.getKey()));
+            }
+            assertTrue(maxOverAvg(counts, REQUEST_COUNT) <= 1.26);
+
+            nodeManager.disableBoundedLoads();
+            assertEquals(nodeManager.getPrimaryNode("key0"), nodeManager.getNode("key0"));
+        } finally {
+            nodeManager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.jinicache;
+
+import com.jinicache.hash.ConsistentHash;
+import com.jinicache.hash.MurmurHash3;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 一致性哈希测试类
+ */
+public class ConsistentHashTest {
+
+    @Test
+    public void testMurmurHashVector() {
+        // 参考实现MurmurHash3_x64_128("hello", seed=0)的低64位
+        assertEquals(0xcbd8a7b341bd9b02L, MurmurHash3.hash64("hello"));
+    }
+
+    @Test
+    public void testBasicLookup() {
+        ConsistentHash<String> ring = new ConsistentHash<>(100);
+        assertNull(ring.get("key"));
+        ring.addNode("node1");
+        ring.addNode("node2");
+        assertEquals(2, ring.size());
+        assertEquals(200, ring.getVirtualNodeCount());
+        // hashCode为Integer.MIN_VALUE的键也能正常查找
+        assertEquals(Integer.MIN_VALUE, "polygenelubricants".hashCode());
+        assertNotNull(ring.get("polygenelubricants"));
+        assertEquals(ring.get("stable"), ring.get("stable"));
+
+        ring.removeNode("node1");
+        assertEquals("node2", ring.get("polygenelubricants"));
+        ring.clear();
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void testKeyDistributionSkew() {
+        ConsistentHash<String> ring = new ConsistentHash<>(100);
+        int nodeCount = 10;
+        for (int i = 0; i < nodeCount; i++) {
+            ring.addNode("localhost:" + (8000 + i));
+        }
+        int keyCount = 200_000;
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            counts.merge(ring.get("key" + i), 1, Integer::sum);
+        }
+        double avg = (double) keyCount / nodeCount;
+        int max = counts.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        int min = counts.values().stream().mapToInt(Integer::intValue).min().orElse(0);
+        assertEquals(nodeCount, counts.size());
+        assertTrue(max / avg < 1.35, "max/avg too high: " + max / avg);
+        assertTrue(min / avg > 0.65, "min/avg too low: " + min / avg);
+    }
+
+    @Test
+    public void testMinimalMovementOnRemoval() {
+        ConsistentHash<String> ring = new ConsistentHash<>(100);
+        for (int i = 0; i < 5; i++) {
+            ring.addNode("node" + i);
+        }
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            before.put("key" + i, ring.get("key" + i));
+        }
+        ring.removeNode("node3");
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            if (!entry.getValue().equals("node3")) {
+                assertEquals(entry.getValue(), ring.get(entry.getKey()));
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.jinicache;
+
+import com.jinicache.node.SwimMembership;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * gossip成员管理与故障检测测试类
+ */
+public class GossipMembershipTest {
+    private static final String NODE_1 = "localhost:8171";
+    private static final String NODE_2 = "localhost:8172";
+    private static final String NODE_3 = "localhost:8173";
+    private static final String NODE_4 = "localhost:8174";
+
+    /**
+     * 等待所有节点的哈希环都等于预期的成员集合，返回等待的毫秒数
+     */
+    private static long awaitMembers(List<JiniCache> nodes, Set<String> expected, long timeoutMillis)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (System.nanoTime() < deadline) {
+            boolean converged = true;
+            for (JiniCache node : nodes) {
+                converged &= new HashSet<>(node.getNodeManager().getAllNodes()).equals(expected);
+            }
+            if (converged) {
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }
+            Thread.sleep(10);
+        }
+        StringBuilder views = new StringBuilder();
+        for (JiniCache node : nodes) {
+            views.append(node.getNodeManager().getSelfAddress()).append(" sees ")
+                    .append(node.getNodeManager().getAllNodes()).append("; ");
+        }
+        fail("membership did not converge to " + expected + ": " + views);
+        return -1;
+    }
+
+    @Test
+    public void testJoinFailureAndRejoin() throws Exception {
+        List<JiniCache> nodes = new ArrayList<>();
+        nodes.add(new JiniCache(8171, List.of(NODE_2, NODE_3)));
+        nodes.add(new JiniCache(8172, List.of(NODE_1, NODE_3)));
+        nodes.add(new JiniCache(8173, List.of(NODE_1, NODE_2)));
+        // 第四个节点只知道一个种子节点，其余成员通过gossip得知
+        nodes.add(new JiniCache(8174, List.of(NODE_1)));
+        nodes.forEach(JiniCache::start);
+        JiniCache restarted = null;
+        try {
+            awaitMembers(nodes, Set.of(NODE_1, NODE_2, NODE_3, NODE_4), 5000);
+
+            JiniCache node3 = nodes.remove(2);
+            node3.stop();
+            long failoverMillis = awaitMembers(nodes, Set.of(NODE_1, NODE_2, NODE_4), 5000);
+            assertTrue(failoverMillis < 2000, "failover took " + failoverMillis + " ms");
+            assertEquals(SwimMembership.State.DEAD, nodes.get(0).getMembership().getState(NODE_3));
+
+            // 重启后的节点以更高的版本号覆盖故障记录
+            restarted = new JiniCache(8173, List.of(NODE_4));
+            restarted.start();
+            nodes.add(restarted);
+            awaitMembers(nodes, Set.of(NODE_1, NODE_2, NODE_3, NODE_4), 5000);
+            assertEquals(SwimMembership.State.ALIVE, nodes.get(0).getMembership().getState(NODE_3));
+        } finally {
+            nodes.forEach(JiniCache::stop);
+        }
+    }
+
+    @Test
+    public void testMalformedGossipIsRejected() throws Exception {
+        JiniCache node = new JiniCache(8175, List.of());
+        node.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = null;
+            for (int attempt = 0; attempt < 50; attempt++) {
+                try {
+                    response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8175/api/gossip/ping"))
+                            .POST(HttpRequest.BodyPublishers.ofString("ALIVE localhost:1\n")).build(),
+                            HttpResponse.BodyHandlers.ofString());
+                    break;
+                } catch (java.net.ConnectException e) {
+                    Thread.sleep(20);
+                }
+            }
+            assertNotNull(response);
+            assertEquals(400, response.statusCode());
+
+            response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8175/api/gossip/ping"))
+                    .POST(HttpRequest.BodyPublishers.ofString("ALIVE localhost:8176 1\n")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().startsWith("ALIVE " + node.getNodeManager().getSelfAddress()));
+            assertTrue(node.getNodeManager().getAllNodes().contains("localhost:8176"));
+        } finally {
+            node.stop();
+        }
+    }
+
+    @Test
+    public void testInvalidProtocolSettings() {
+        JiniCache node = new JiniCache(8177, List.of());
+        assertThrows(IllegalArgumentException.class,
+                () -> new SwimMembership(node.getNodeManager(), 100, 100, 3, 500));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SwimMembership(node.getNodeManager(), 200, 80, 3, 0));
+    }
+}
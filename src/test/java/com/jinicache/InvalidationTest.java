@@ -0,0 +1,244 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.BatchCodec;
+import com.jinicache.http.HttpClient;
+import com.jinicache.http.HttpServer;
+import com.jinicache.node.InvalidationBroadcaster;
+import com.jinicache.node.NodeManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 集群失效测试类
+ */
+public class InvalidationTest {
+    private static final String GROUP = "invalidated";
+    private static final String SECRET = "invalidation-secret";
+
+    private final java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
+    private Group groupA;
+    private Group groupB;
+    private Group groupC;
+    private NodeManager nodeManager;
+    private HttpServer serverA;
+    private HttpServer serverB;
+    private HttpServer serverC;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        CacheManager managerB = new CacheManager();
+        groupB = managerB.createGroup(GROUP, new LRUCache<>(100_000));
+        CacheManager managerC = new CacheManager();
+        groupC = managerC.createGroup(GROUP, new LRUCache<>(100_000));
+        serverB = new HttpServer(8232, managerB);
+        serverC = new HttpServer(8233, managerC);
+        serverB.getAuthenticator().setPeerSecret(SECRET);
+        serverC.getAuthenticator().setPeerSecret(SECRET);
+        serverB.startSync();
+        serverC.startSync();
+
+        CacheManager managerA = new CacheManager();
+        groupA = managerA.createGroup(GROUP, new LRUCache<>(100_000));
+        nodeManager = new NodeManager("localhost:8231", managerA);
+        nodeManager.addNode("localhost:8232", 1.0);
+        nodeManager.addNode("localhost:8233", 1.0);
+        nodeManager.setPeerSecret(SECRET);
+        managerA.registerPeers(nodeManager);
+        serverA = new HttpServer(8231, managerA, nodeManager);
+        serverA.getAuthenticator().setPeerSecret(SECRET);
+        serverA.startSync();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        nodeManager.shutdown();
+        serverA.shutdown();
+        serverB.shutdown();
+        serverC.shutdown();
+    }
+
+    @Test
+    public void testDeleteEvictsCopiesOnAllNodes() throws Exception {
+        for (Group group : List.of(groupA, groupB, groupC)) {
+            group.getCache().put("user:1", "stale".getBytes());
+            group.getCache().put("user:2", "kept".getBytes());
+        }
+        assertEquals(200, delete("localhost:8231", "user:1", false));
+        assertNull(groupA.getCache().get("user:1"));
+        waitUntil(() -> groupB.getCache().get("user:1") == null && groupC.getCache().get("user:1") == null);
+        for (Group group : List.of(groupA, groupB, groupC)) {
+            assertNotNull(group.getCache().get("user:2"));
+        }
+    }
+
+    @Test
+    public void testPeerDeleteIsNotBroadcastAgain() throws Exception {
+        groupA.getCache().put("k", "v".getBytes());
+        groupB.getCache().put("k", "v".getBytes());
+        assertEquals(200, delete("localhost:8231", "k", true));
+        assertNull(groupA.getCache().get("k"));
+        Thread.sleep(100);
+        assertNotNull(groupB.getCache().get("k"));
+        assertEquals(0, nodeManager.getInvalidationBroadcaster().getInvalidationCount());
+    }
+
+    @Test
+    public void testBurstIsCoalescedIntoFewRequests() throws Exception {
+        int keys = 10_000;
+        for (int i = 0; i < keys; i++) {
+            groupB.getCache().put("key" + i, "v".getBytes());
+            groupC.getCache().put("key" + i, "v".getBytes());
+        }
+        nodeManager.configureInvalidation(50, 4096);
+        // 每个键更新两次，重复的键在同一批中只发送一次
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < keys; i++) {
+                groupA.invalidate("key" + i);
+            }
+        }
+        waitUntil(() -> groupB.getCache().isEmpty() && groupC.getCache().isEmpty());
+        InvalidationBroadcaster broadcaster = nodeManager.getInvalidationBroadcaster();
+        assertEquals(2L * keys, broadcaster.getInvalidationCount());
+        // 每批最多4096个键，两个远端节点
+        assertTrue(broadcaster.getBatchCount() <= 2 * 10, "sent " + broadcaster.getBatchCount() + " requests");
+        assertEquals(0, broadcaster.getFailedBatchCount());
+    }
+
+    @Test
+    public void testInvalidateEndpointRejectsBadRequests() throws Exception {
+        HttpResponse<String> get = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:8232/api/cache/invalidate?group=" + GROUP))
+                        .header(HttpClient.PEER_HEADER, SECRET).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, get.statusCode());
+        HttpResponse<String> malformed = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:8232/api/cache/invalidate?group=" + GROUP))
+                        .header(HttpClient.PEER_HEADER, SECRET)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[]{0, 0, 0, 9, 1})).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, malformed.statusCode());
+
+        HttpClient peerClient = new HttpClient();
+        peerClient.setPeerSecret(SECRET);
+        try {
+            assertNull(peerClient.post("http://localhost:8232/api/cache/invalidate?group=missing",
+                    BatchCodec.encodeKeys(List.of("k"))).get());
+        } finally {
+            peerClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnauthenticatedPeerRequestsAreRejected() throws Exception {
+        groupB.getCache().put("k", "v".getBytes());
+        HttpResponse<String> invalidate = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:8232/api/cache/invalidate?group=" + GROUP))
+                        .header(HttpClient.PEER_HEADER, "true")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(BatchCodec.encodeKeys(List.of("k")))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, invalidate.statusCode());
+        assertNotNull(groupB.getCache().get("k"));
+
+        // 伪造的节点请求头被忽略，删除照常广播
+        groupA.getCache().put("k", "v".getBytes());
+        HttpRequest spoofed = HttpRequest.newBuilder(
+                URI.create("http://localhost:8231/api/cache?group=" + GROUP + "&key=k"))
+                .header(HttpClient.PEER_HEADER, "true").DELETE().build();
+        assertEquals(200, client.send(spoofed, HttpResponse.BodyHandlers.ofString()).statusCode());
+        waitUntil(() -> groupB.getCache().get("k") == null);
+    }
+
+    @Test
+    public void testMemberHostsFollowRingChanges() throws Exception {
+        CacheManager manager = new CacheManager();
+        manager.createGroup(GROUP, new LRUCache<>(100));
+        // 本节点地址不是回环地址，只有加入回环地址的成员后本机的节点请求才被信任
+        NodeManager members = new NodeManager("192.0.2.1:8234", manager);
+        HttpServer server = new HttpServer(8234, manager, members);
+        server.startSync();
+        try {
+            assertEquals(403, invalidateFromLoopback());
+            members.addNode("localhost:8239", 1.0);
+            waitUntil(() -> invalidateFromLoopback() == 200);
+            members.removeNode("localhost:8239");
+            waitUntil(() -> invalidateFromLoopback() == 403);
+        } finally {
+            members.shutdown();
+            server.shutdown();
+        }
+    }
+
+    private int invalidateFromLoopback() {
+        try {
+            return client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8234/api/cache/invalidate?group=" + GROUP))
+                            .header(HttpClient.PEER_HEADER, "true")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(BatchCodec.encodeKeys(List.of("k")))).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void testBroadcasterCoalescesWithinWindow() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        List<List<String>> sent = Collections.synchronizedList(new ArrayList<>());
+        InvalidationBroadcaster broadcaster = new InvalidationBroadcaster((group, keys) -> {
+            sent.add(keys);
+            return List.of(CompletableFuture.completedFuture(null));
+        }, scheduler, 20, 3);
+        try {
+            broadcaster.submit("g", "a");
+            broadcaster.submit("g", "a");
+            broadcaster.submit("g", "b");
+            assertTrue(sent.isEmpty());
+            waitUntil(() -> sent.size() == 1);
+            assertEquals(List.of("a", "b"), sent.get(0));
+
+            // 攒满一批时立即发出，不等窗口到期
+            broadcaster.submit("g", "c");
+            broadcaster.submit("g", "d");
+            broadcaster.submit("g", "e");
+            assertEquals(2, sent.size());
+            assertEquals(List.of("c", "d", "e"), sent.get(1));
+            assertThrows(IllegalArgumentException.class, () -> broadcaster.configure(-1, 10));
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private int delete(String address, String key, boolean fromPeer) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://" + address + "/api/cache?group=" + GROUP + "&key=" + key)).DELETE();
+        if (fromPeer) {
+            request.header(HttpClient.PEER_HEADER, SECRET);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString()).statusCode();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 2s");
+            Thread.sleep(10);
+        }
+    }
+}
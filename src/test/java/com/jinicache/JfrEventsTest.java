@@ -0,0 +1,142 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.HttpClient;
+import com.jinicache.http.HttpServer;
+import com.jinicache.jfr.CacheEvictionEvent;
+import com.jinicache.jfr.CacheGetEvent;
+import com.jinicache.jfr.CacheLoadEvent;
+import com.jinicache.jfr.PeerRequestEvent;
+import com.jinicache.jfr.SingleFlightEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JFR事件测试类
+ */
+public class JfrEventsTest {
+
+    @Test
+    public void testSlowOperationsAreRecordedWithDefaultThresholds() throws Exception {
+        Group group = new Group("jfr", new LRUCache<>(10));
+        group.registerLoader("slow", key -> {
+            sleep(20);
+            return "value".getBytes();
+        });
+        group.getCache().put("fast", "value".getBytes());
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(CacheGetEvent.class);
+            recording.enable(CacheLoadEvent.class);
+            recording.enable(SingleFlightEvent.class);
+            recording.start();
+            group.get("slow");
+            for (int i = 0; i < 100; i++) {
+                group.get("fast");
+            }
+            recording.stop();
+            events = dump(recording);
+        }
+
+        List<RecordedEvent> gets = named(events, "com.jinicache.CacheGet");
+        assertEquals(1, gets.size(), "only the slow get exceeds the default threshold");
+        assertEquals("jfr", gets.get(0).getString("group"));
+        assertEquals("slow", gets.get(0).getString("key"));
+        assertFalse(gets.get(0).getBoolean("hit"));
+        assertTrue(gets.get(0).getDuration().compareTo(Duration.ofMillis(20)) >= 0);
+
+        List<RecordedEvent> loads = named(events, "com.jinicache.CacheLoad");
+        assertEquals(1, loads.size());
+        assertTrue(loads.get(0).getBoolean("success"));
+
+        List<RecordedEvent> flights = named(events, "com.jinicache.SingleFlight");
+        assertEquals(1, flights.size());
+        assertFalse(flights.get(0).getBoolean("shared"));
+    }
+
+    @Test
+    public void testEvictionAndPeerRequestEvents() throws Exception {
+        LRUCache<String, String> cache = new LRUCache<>(2);
+        CacheManager cacheManager = new CacheManager();
+        cacheManager.createGroup("remote", new LRUCache<>(10)).getCache().put("k", "v".getBytes());
+        HttpServer server = new HttpServer(8221, cacheManager);
+        server.startSync();
+        HttpClient client = new HttpClient();
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(CacheEvictionEvent.class);
+            recording.enable(PeerRequestEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            for (int i = 0; i < 5; i++) {
+                cache.put("k" + i, "v");
+            }
+            assertArrayEquals("v".getBytes(), client.get("http://localhost:8221/api/cache?group=remote&key=k").get());
+            recording.stop();
+            events = dump(recording);
+        } finally {
+            client.shutdown();
+            server.shutdown();
+        }
+
+        List<RecordedEvent> evictions = named(events, "com.jinicache.CacheEviction");
+        assertEquals(List.of("k0", "k1", "k2"),
+                evictions.stream().map(e -> e.getString("key")).collect(Collectors.toList()));
+        assertEquals(2, evictions.get(0).getInt("capacity"));
+
+        List<RecordedEvent> requests = named(events, "com.jinicache.PeerRequest");
+        assertEquals(1, requests.size());
+        assertEquals("GET", requests.get(0).getString("method"));
+        assertTrue(requests.get(0).getBoolean("success"));
+    }
+
+    @Test
+    public void testEvictionEventIsDisabledByDefault() throws Exception {
+        LRUCache<String, String> cache = new LRUCache<>(1);
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.start();
+            cache.put("a", "v");
+            cache.put("b", "v");
+            recording.stop();
+            events = dump(recording);
+        }
+        assertTrue(named(events, "com.jinicache.CacheEviction").isEmpty());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    private static List<RecordedEvent> dump(Recording recording) throws Exception {
+        Path file = Files.createTempFile("jinicache", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
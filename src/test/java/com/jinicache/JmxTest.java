@@ -0,0 +1,89 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.jmx.JmxExporter;
+import com.jinicache.node.NodeManager;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JMX MBean测试类
+ */
+public class JmxTest {
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @Test
+    public void testBeansFollowGroupsAndNodes() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("users", new LRUCache<>(10));
+        for (int i = 0; i < 5; i++) {
+            String key = "key" + i;
+            group.registerLoader(key, k -> ("value-" + k).getBytes());
+            group.get(key);
+            group.get(key);
+        }
+        NodeManager nodeManager = new NodeManager("localhost:8201", cacheManager);
+        JmxExporter exporter = new JmxExporter("localhost:8201", cacheManager, nodeManager);
+        exporter.start();
+        try {
+            ObjectName manager = exporter.objectName("CacheManager", null);
+            ObjectName users = exporter.objectName("Group", "users");
+            assertArrayEquals(new String[]{"users"}, (String[]) server.getAttribute(manager, "GroupNames"));
+            assertEquals(5L, server.getAttribute(manager, "TotalEntries"));
+            assertEquals(5, server.getAttribute(users, "Entries"));
+            assertEquals(0.5, (double) server.getAttribute(users, "HitRate"), 1e-9);
+            assertEquals(5L, server.getAttribute(users, "LoadCount"));
+            assertEquals(10, server.getAttribute(users, "Capacity"));
+
+            // 缩小容量立即淘汰最久未使用的条目
+            server.invoke(users, "resize", new Object[]{2}, new String[]{int.class.getName()});
+            assertEquals(2, server.getAttribute(users, "Capacity"));
+            assertEquals(2, server.getAttribute(users, "Entries"));
+            assertEquals(3L, server.getAttribute(users, "EvictionCount"));
+            assertNotNull(group.getCache().get("key4"));
+            assertNull(group.getCache().get("key0"));
+
+            cacheManager.createGroup("orders", new LRUCache<>(10));
+            assertTrue(server.isRegistered(exporter.objectName("Group", "orders")));
+            cacheManager.removeGroup("orders");
+            assertFalse(server.isRegistered(exporter.objectName("Group", "orders")));
+
+            nodeManager.addNode("localhost:8202", 1.0);
+            ObjectName peer = exporter.objectName("Peer", "localhost:8202");
+            assertTrue(server.isRegistered(peer));
+            assertEquals("localhost:8202", server.getAttribute(peer, "Address"));
+            assertEquals("CLOSED", server.getAttribute(peer, "CircuitState"));
+            assertEquals(0, server.getAttribute(peer, "InFlightRequests"));
+            assertEquals(0.0, server.getAttribute(peer, "ErrorRate"));
+            nodeManager.removeNode("localhost:8202");
+            assertFalse(server.isRegistered(peer));
+        } finally {
+            exporter.stop();
+            nodeManager.shutdown();
+        }
+        assertTrue(server.queryNames(new ObjectName(JmxExporter.DOMAIN + ":node=\"localhost:8201\",*"), null)
+                .isEmpty());
+    }
+
+    @Test
+    public void testResizeRejectsInvalidCapacity() {
+        LRUCache<String, String> cache = new LRUCache<>(4);
+        for (int i = 0; i < 4; i++) {
+            cache.put("k" + i, "v");
+        }
+        assertThrows(IllegalArgumentException.class, () -> cache.setCapacity(0));
+        cache.setCapacity(8);
+        for (int i = 4; i < 8; i++) {
+            cache.put("k" + i, "v");
+        }
+        assertEquals(8, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+}
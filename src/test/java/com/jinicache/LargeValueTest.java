@@ -0,0 +1,188 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.HttpClient;
+import com.jinicache.http.HttpServer;
+import com.jinicache.jfr.CacheGetEvent;
+import com.jinicache.metrics.Histogram;
+import com.jinicache.metrics.MissRatioCurve;
+import com.jinicache.trace.TraceRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大值流式传输测试类
+ */
+public class LargeValueTest {
+
+    @Test
+    public void testChunkedValueBuilder() {
+        byte[] data = randomBytes(ChunkedValue.CHUNK_SIZE * 2 + 100);
+        ChunkedValue value = ChunkedValue.builder()
+                .append(data, 0, 1000)
+                .append(data, 1000, data.length - 1000)
+                .build();
+
+        assertEquals(data.length, value.size());
+        assertEquals(3, value.chunkCount());
+        assertEquals(100, value.chunk(2).length);
+        assertArrayEquals(data, value.toByteArray());
+    }
+
+    @Test
+    public void testGroupStoresLargeValuesInChunks() {
+        Group group = new Group("large", new LRUCache<>(10));
+        byte[] data = randomBytes(300 * 1024);
+        group.putChunked("big", ChunkedValue.builder().append(data).build());
+
+        assertNull(group.getCache().get("big"));
+        assertTrue(group.getChunked("big").chunkCount() > 1);
+        assertArrayEquals(data, group.get("big"));
+
+        group.setMaxValueSize(1024);
+        assertThrows(IllegalArgumentException.class,
+                () -> group.putChunked("tooBig", ChunkedValue.of(new byte[2048])));
+    }
+
+    @Test
+    public void testChunkedHitsAreRecordedLikeOtherReads() throws Exception {
+        Group group = new Group("recorded-large", new LRUCache<>(10));
+        group.putChunked("big", ChunkedValue.of(new byte[300 * 1024]));
+        MissRatioCurve curve = group.enableMissRatioCurve(1.0, 100);
+        ByteArrayOutputStream traceBytes = new ByteArrayOutputStream();
+        TraceRecorder recorder = new TraceRecorder(traceBytes, 1.0, 100);
+        group.setTraceRecorder(recorder);
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(CacheGetEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            assertNotNull(group.getChunked("big"));
+            assertNotNull(group.getChunkedLocal("big"));
+            assertNotNull(group.getChunkedAsync("big").get(1, TimeUnit.SECONDS));
+            assertNotNull(group.getChunkedLocalAsync("big").get(1, TimeUnit.SECONDS));
+            recording.stop();
+            Path file = Files.createTempFile("jinicache", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+        group.setTraceRecorder(null);
+        recorder.close();
+
+        assertEquals(4, group.getMetrics().getHits().get());
+        assertEquals(0, group.getMetrics().getMisses().get());
+        Histogram.Snapshot latency = group.getMetrics().getGetLatency().snapshot();
+        assertEquals(4, latency.getCount());
+        assertTrue(latency.getSum() > 0, "hit latency must cover the lookup");
+        assertEquals(4, curve.getAccessCount());
+        assertEquals(4, recorder.getRecordedCount());
+
+        List<RecordedEvent> gets = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.jinicache.CacheGet"))
+                .collect(Collectors.toList());
+        assertEquals(4, gets.size());
+        for (RecordedEvent get : gets) {
+            assertEquals("big", get.getString("key"));
+            assertTrue(get.getBoolean("hit"));
+        }
+        assertEquals(2, gets.stream().filter(e -> e.getBoolean("localOnly")).count());
+    }
+
+    @Test
+    public void testLargeValuesAreBoundedInBytes() {
+        Group group = new Group("bounded-large", new LRUCache<>(10));
+        group.setMaxLargeValueBytes(1024 * 1024);
+        for (int i = 0; i < 10; i++) {
+            group.putChunked("big" + i, ChunkedValue.of(new byte[300 * 1024]));
+        }
+        // 1MB最多保存3个300KB的值，最久未访问的先被淘汰
+        assertEquals(900 * 1024, group.getLargeValueBytes());
+        assertEquals(7, group.getEvictionCount());
+        assertNull(group.peekLocal("big6"));
+        assertNotNull(group.peekLocal("big9"));
+
+        // 超过上限的单个值不保存，同名的旧值被移除
+        group.putChunked("big9", ChunkedValue.of(new byte[2 * 1024 * 1024]));
+        assertNull(group.peekLocal("big9"));
+        assertEquals(600 * 1024, group.getLargeValueBytes());
+
+        group.setMaxLargeValueBytes(400 * 1024);
+        assertEquals(300 * 1024, group.getLargeValueBytes());
+        assertThrows(IllegalArgumentException.class, () -> group.setMaxLargeValueBytes(0));
+    }
+
+    @Test
+    public void testStreamingPutAndGet() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        cacheManager.createGroup("default", new LRUCache<>(100));
+        HttpServer server = new HttpServer(8101, cacheManager);
+        server.startSync();
+        HttpClient client = new HttpClient();
+        try {
+            String url = "http://localhost:8101/api/cache?group=default&key=big";
+            byte[] data = randomBytes(1024 * 1024 + 17);
+            client.putChunked(url, ChunkedValue.builder().append(data).build()).get(10, TimeUnit.SECONDS);
+
+            ChunkedValue fetched = client.getChunked(url).get(10, TimeUnit.SECONDS);
+            assertEquals(data.length, fetched.size());
+            assertArrayEquals(data, fetched.toByteArray());
+
+            // 小值仍走普通路径，连接可以复用
+            String smallUrl = "http://localhost:8101/api/cache?group=default&key=small";
+            client.put(smallUrl, "value".getBytes()).get(10, TimeUnit.SECONDS);
+            assertArrayEquals("value".getBytes(), client.get(smallUrl).get(10, TimeUnit.SECONDS));
+            assertNull(client.get("http://localhost:8101/api/cache?group=default&key=missing")
+                    .get(10, TimeUnit.SECONDS));
+        } finally {
+            client.shutdown();
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectsValueOverGroupLimit() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        cacheManager.createGroup("limited", new LRUCache<>(100)).setMaxValueSize(128 * 1024);
+        HttpServer server = new HttpServer(8102, cacheManager);
+        server.startSync();
+        HttpClient client = new HttpClient();
+        try {
+            String url = "http://localhost:8102/api/cache?group=limited&key=big";
+            ChunkedValue value = ChunkedValue.builder().append(randomBytes(512 * 1024)).build();
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.putChunked(url, value).get(10, TimeUnit.SECONDS));
+            assertNotNull(e.getCause());
+            assertNull(cacheManager.getGroup("limited").getChunked("big"));
+        } finally {
+            client.shutdown();
+            server.shutdown();
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,103 @@
+package com.jinicache;
+
+import com.jinicache.cache.Group;
+import com.jinicache.loadgen.KeyGenerator;
+import com.jinicache.loadgen.LoadGenerator;
+import com.jinicache.loadgen.LoadReport;
+import com.jinicache.loadgen.LocalCluster;
+import com.jinicache.loadgen.Operation;
+import com.jinicache.loadgen.SimulatedBackend;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 负载生成器测试类
+ */
+public class LoadGeneratorTest {
+
+    @Test
+    public void testKeyDistributions() {
+        int keyCount = 10_000;
+        int samples = 200_000;
+        Random random = new Random(7);
+
+        int[] zipf = new int[keyCount];
+        KeyGenerator zipfian = KeyGenerator.zipfian(keyCount, 0.99);
+        for (int i = 0; i < samples; i++) {
+            zipf[zipfian.next(random)]++;
+        }
+        // theta=0.99时最热的键约占 1/H(n,0.99)，一万个键约为10%，且热度随编号递减
+        double top = (double) zipf[0] / samples;
+        assertTrue(top > 0.08 && top < 0.13, "top key share " + top);
+        assertTrue(zipf[0] > zipf[1] && zipf[1] > zipf[10] && zipf[10] > zipf[1000]);
+
+        KeyGenerator hotspot = KeyGenerator.hotspot(keyCount, 0.1, 0.9);
+        int hot = 0;
+        for (int i = 0; i < samples; i++) {
+            int key = hotspot.next(random);
+            assertTrue(key >= 0 && key < keyCount);
+            if (key < 1000) {
+                hot++;
+            }
+        }
+        assertEquals(0.9, (double) hot / samples, 0.01);
+
+        assertThrows(IllegalArgumentException.class, () -> KeyGenerator.zipfian(keyCount, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> KeyGenerator.hotspot(keyCount, 0, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> KeyGenerator.uniform(0));
+    }
+
+    @Test
+    public void testOpenLoopRunAgainstLocalCluster() throws Exception {
+        LocalCluster cluster = new LocalCluster(2, 8211);
+        cluster.start(10_000);
+        try {
+            SimulatedBackend backend = new SimulatedBackend(2, TimeUnit.MILLISECONDS, 64);
+            List<Group> groups = cluster.createGroup("loadgen", 1000);
+            groups.forEach(group -> backend.register(group, 500));
+
+            LoadGenerator generator = new LoadGenerator(cluster.getAddresses(), "loadgen");
+            generator.setKeyGenerator(KeyGenerator.zipfian(500, 0.99));
+            generator.setRate(200);
+            generator.setDuration(2, TimeUnit.SECONDS);
+            generator.setMix(90, 0, 10);
+            generator.setSeed(42);
+            LoadReport report = generator.run();
+
+            // 开环发送：请求数由速率和时长决定，与节点响应快慢无关
+            long sent = report.getCount(Operation.GET) + report.getCount(Operation.MISS);
+            assertEquals(400, sent);
+            assertEquals(0, report.getErrors(Operation.GET));
+            assertEquals(0, report.getNotFound(Operation.GET));
+            assertEquals(report.getCount(Operation.MISS), report.getNotFound(Operation.MISS));
+            assertEquals(0, report.getCount(Operation.PUT));
+            assertEquals(backend.getLoadCount(), report.getBackendLoads());
+            // 500个键最多各加载一次，其余GET命中缓存
+            assertTrue(report.getBackendLoads() <= 500);
+            assertTrue(report.getHitRate() > 0.3, "hit rate " + report.getHitRate());
+            assertTrue(report.getLatency(Operation.GET).percentile(0.99) >= TimeUnit.MILLISECONDS.toNanos(2));
+            // 命令行输出的报告包含每种操作一行和命中率
+            String text = report.toString();
+            assertTrue(text.startsWith("op "), text);
+            assertTrue(text.contains("\nGET ") && text.contains("\nMISS "), text);
+            assertTrue(text.contains("hit rate: "), text);
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void testInvalidSettingsAreRejected() {
+        LoadGenerator generator = new LoadGenerator(List.of("localhost:1"), "loadgen");
+        assertThrows(IllegalArgumentException.class, () -> generator.setRate(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.setMix(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> generator.setMix(-1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setDuration(0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator(List.of(), "loadgen"));
+    }
+}
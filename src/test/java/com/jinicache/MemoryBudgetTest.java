@@ -0,0 +1,175 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.cache.MemoryBudget;
+import com.jinicache.cache.RemovalDispatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 共享容量预算测试类
+ */
+public class MemoryBudgetTest {
+
+    @Test
+    public void testCapacityMovesToGroupWithMoreGhostHits() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group large = cacheManager.createGroup("large", new LRUCache<>(200));
+        Group small = cacheManager.createGroup("small", new LRUCache<>(200));
+        registerLoaders(large, 300);
+        registerLoaders(small, 50);
+        MemoryBudget budget = new MemoryBudget(cacheManager, 400);
+        budget.setStep(20);
+        budget.join("large", 50, 350);
+        budget.join("small", 60, 350);
+        assertEquals(0, budget.getFreeCapacity());
+
+        Random random = new Random(42);
+        double firstHitRate = round(large, small, random, budget);
+        for (int i = 0; i < 12; i++) {
+            round(large, small, random, budget);
+            budget.rebalance();
+        }
+        double lastHitRate = round(large, small, random, budget);
+
+        // 小组的工作集只有50个键，用不上的容量移给大组；大组装下整个工作集后不再有影子命中，移动停止
+        assertTrue(capacity(large) >= 300 && capacity(large) <= 340, "large " + capacity(large));
+        assertEquals(400, capacity(large) + capacity(small));
+        assertEquals(0, budget.getFreeCapacity());
+        assertTrue(budget.getTransferCount() >= 5, "transfers " + budget.getTransferCount());
+        assertEquals(50, small.getCache().size());
+        assertTrue(lastHitRate > firstHitRate + 0.1, firstHitRate + " -> " + lastHitRate);
+    }
+
+    @Test
+    public void testFreeBudgetAndBounds() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group users = cacheManager.createGroup("users", new LRUCache<>(500));
+        Group orders = cacheManager.createGroup("orders", new LRUCache<>(500));
+        registerLoaders(users, 200);
+        MemoryBudget budget = new MemoryBudget(cacheManager, 300);
+        budget.setStep(50);
+        // 初始容量收紧到上限和剩余预算之内
+        budget.join("users", 10, 200);
+        assertEquals(200, capacity(users));
+        budget.join("orders", 100, 1000);
+        assertEquals(100, capacity(orders));
+        assertTrue(dispatcher(orders).hasListeners());
+
+        // 组被删除后占用的预算归还
+        cacheManager.removeGroup("orders");
+        assertFalse(budget.rebalance());
+        assertEquals(List.of("users"), budget.getGroupNames());
+        assertEquals(100, budget.getFreeCapacity());
+        // 退出预算的组不再带着预算的移除监听器
+        assertFalse(dispatcher(orders).hasListeners());
+
+        // 空闲预算直接分配给有影子命中的组，每次一步
+        ((LRUCache<String, byte[]>) users.getCache()).setCapacity(100);
+        scan(users, 120);
+        assertTrue(budget.getGhostHits("users") > 0);
+        assertTrue(budget.rebalance());
+        assertEquals(150, capacity(users));
+        assertEquals(0, budget.getGhostHits("users"));
+
+        // 不超过上限
+        ((LRUCache<String, byte[]>) users.getCache()).setCapacity(190);
+        scan(users, 200);
+        assertTrue(budget.rebalance());
+        assertEquals(200, capacity(users));
+        scan(users, 200);
+        assertFalse(budget.rebalance());
+
+        budget.leave("users");
+        assertEquals(300, budget.getFreeCapacity());
+        assertEquals(2, budget.getTransferCount());
+        assertFalse(dispatcher(users).hasListeners());
+    }
+
+    private static RemovalDispatcher<String, byte[]> dispatcher(Group group) {
+        return ((LRUCache<String, byte[]>) group.getCache()).getRemovalDispatcher();
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        CacheManager cacheManager = new CacheManager();
+        cacheManager.createGroup("users", new LRUCache<>(100));
+        cacheManager.createGroup("orders", new LRUCache<>(100));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryBudget(cacheManager, 0));
+        MemoryBudget budget = new MemoryBudget(cacheManager, 150);
+        assertThrows(IllegalArgumentException.class, () -> budget.join("missing", 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> budget.join("users", 10, 5));
+        assertThrows(IllegalArgumentException.class, () -> budget.setStep(0));
+        budget.join("users", 100, 100);
+        assertThrows(IllegalArgumentException.class, () -> budget.join("users", 1, 10));
+        // 剩余预算不足下限
+        assertThrows(IllegalArgumentException.class, () -> budget.join("orders", 60, 100));
+
+        MemoryBudget enabled = cacheManager.enableMemoryBudget(1000, 60_000);
+        assertSame(enabled, cacheManager.enableMemoryBudget(10, 1000));
+        cacheManager.disableMemoryBudget();
+        assertNull(cacheManager.getMemoryBudget());
+    }
+
+    /**
+     * 两个组各随机访问一轮，返回两组合计的命中率
+     */
+    private static double round(Group large, Group small, Random random, MemoryBudget budget) throws Exception {
+        long hits = large.getMetrics().getHits().get() + small.getMetrics().getHits().get();
+        long total = hits + large.getMetrics().getMisses().get() + small.getMetrics().getMisses().get();
+        for (int i = 0; i < 1000; i++) {
+            large.get("large" + random.nextInt(300));
+            small.get("small" + random.nextInt(50));
+            if (i % 100 == 99) {
+                awaitRemovals(large);
+            }
+        }
+        awaitRemovals(large);
+        long newHits = large.getMetrics().getHits().get() + small.getMetrics().getHits().get();
+        long newTotal = newHits + large.getMetrics().getMisses().get() + small.getMetrics().getMisses().get();
+        return (double) (newHits - hits) / (newTotal - total);
+    }
+
+    /**
+     * 按顺序循环访问三遍
+     */
+    private static void scan(Group group, int keys) throws Exception {
+        for (int i = 0; i < 3; i++) {
+            for (int k = 0; k < keys; k++) {
+                group.get(group.getName() + k);
+                if (k % 20 == 19) {
+                    awaitRemovals(group);
+                }
+            }
+        }
+        awaitRemovals(group);
+    }
+
+    /**
+     * 移除通知异步送达，等影子列表跟上再继续访问
+     */
+    private static void awaitRemovals(Group group) throws InterruptedException {
+        LRUCache<String, byte[]> cache = (LRUCache<String, byte[]>) group.getCache();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getRemovalDispatcher().getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(2);
+    }
+
+    private static void registerLoaders(Group group, int count) {
+        for (int i = 0; i < count; i++) {
+            group.registerLoader(group.getName() + i, k -> new byte[16]);
+        }
+    }
+
+    private static int capacity(Group group) {
+        return ((LRUCache<String, byte[]>) group.getCache()).getCapacity();
+    }
+}
@@ -0,0 +1,159 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.ChunkedValue;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.cache.MemoryGovernor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存调节器测试类
+ */
+public class MemoryGovernorTest {
+
+    @Test
+    public void testCapacitiesFollowOccupancyWithinBounds() {
+        CacheManager cacheManager = new CacheManager();
+        Group users = cacheManager.createGroup("users", new LRUCache<>(1000));
+        Group orders = cacheManager.createGroup("orders", new LRUCache<>(1000));
+        fill(users, 1000);
+        fill(orders, 1000);
+        MemoryGovernor governor = new MemoryGovernor(cacheManager, 0.6);
+        governor.setGrowInterval(0, TimeUnit.MILLISECONDS);
+        governor.govern("users", 100, 2000);
+        governor.govern("orders", 500, 1000);
+
+        // 高于目标：按同一比例缩小并淘汰
+        governor.adjust(0.9);
+        assertEquals(666, capacity(users));
+        assertEquals(666, users.getCache().size());
+        assertEquals(666, capacity(orders));
+        assertEquals(334, orders.getEvictionCount());
+        // 单次最多缩小一半，不低于下限
+        governor.adjust(2.0);
+        assertEquals(333, capacity(users));
+        assertEquals(500, capacity(orders));
+        assertEquals(2, governor.getShrinkCount());
+
+        // 回差范围内不调整
+        governor.adjust(0.57);
+        assertEquals(333, capacity(users));
+
+        // 有余量时已写满的组扩大，单次最多25%，不超过上限
+        governor.adjust(0.2);
+        assertEquals(417, capacity(users));
+        assertEquals(625, capacity(orders));
+        fill(users, 2000);
+        fill(orders, 2000);
+        for (int i = 0; i < 10; i++) {
+            governor.adjust(0.2);
+            fill(users, 2000);
+            fill(orders, 2000);
+        }
+        assertEquals(2000, capacity(users));
+        assertEquals(1000, capacity(orders));
+        assertEquals(0.2, governor.getLastOccupancy());
+        assertEquals(14, governor.getSampleCount());
+    }
+
+    @Test
+    public void testGrowthIsRateLimitedAndSkipsGroupsWithRoom() {
+        CacheManager cacheManager = new CacheManager();
+        Group full = cacheManager.createGroup("full", new LRUCache<>(100));
+        Group sparse = cacheManager.createGroup("sparse", new LRUCache<>(100));
+        fill(full, 100);
+        fill(sparse, 10);
+        MemoryGovernor governor = new MemoryGovernor(cacheManager, 0.7);
+        governor.setGrowInterval(1, TimeUnit.HOURS);
+        governor.govern("full", 10, 1000);
+        governor.govern("sparse", 10, 1000);
+        governor.adjust(0.1);
+        assertEquals(125, capacity(full));
+        assertEquals(100, capacity(sparse));
+        fill(full, 125);
+        governor.adjust(0.1);
+        assertEquals(125, capacity(full));
+        assertEquals(1, governor.getGrowCount());
+
+        // 被删除的组不再受管
+        cacheManager.removeGroup("full");
+        governor.adjust(0.9);
+        assertEquals(77, capacity(sparse));
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        CacheManager cacheManager = new CacheManager();
+        cacheManager.createGroup("users", new LRUCache<>(1000));
+        MemoryGovernor governor = new MemoryGovernor(cacheManager, 0.7);
+        assertThrows(IllegalArgumentException.class, () -> governor.govern("missing", 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> governor.govern("users", 10, 5));
+        assertThrows(IllegalArgumentException.class, () -> governor.govern("users", 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryGovernor(cacheManager, 1.0));
+        // 当前容量超出上限时立即收紧
+        governor.govern("users", 10, 500);
+        assertEquals(500, capacity(cacheManager.getGroup("users")));
+    }
+
+    @Test
+    public void testGarbageCollectionIsObserved() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        MemoryGovernor governor = cacheManager.enableMemoryGovernor(0.95);
+        assertSame(governor, cacheManager.enableMemoryGovernor(0.5));
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (governor.getSampleCount() == 0 && System.currentTimeMillis() < deadline) {
+                System.gc();
+                Thread.sleep(50);
+            }
+            assertTrue(governor.getSampleCount() > 0, "no GC notification observed");
+            assertTrue(governor.getLastOccupancy() > 0 && governor.getLastOccupancy() < 1,
+                    "occupancy " + governor.getLastOccupancy());
+        } finally {
+            cacheManager.disableMemoryGovernor();
+        }
+        assertNull(cacheManager.getMemoryGovernor());
+    }
+
+    @Test
+    public void testLargeValueLimitFollowsOccupancy() {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("blobs", new LRUCache<>(100));
+        group.setMaxLargeValueBytes(1024 * 1024);
+        for (int i = 0; i < 3; i++) {
+            group.putChunked("blob" + i, ChunkedValue.of(new byte[300 * 1024]));
+        }
+        MemoryGovernor governor = new MemoryGovernor(cacheManager, 0.5);
+        governor.setGrowInterval(0, TimeUnit.MILLISECONDS);
+        governor.govern("blobs", 10, 100);
+
+        // 大值不计入条目数，字节上限按同一比例缩小并淘汰
+        governor.adjust(1.0);
+        assertEquals(300 * 1024, group.getLargeValueBytes());
+        assertEquals(50, capacity(group));
+        // 扩大不超过组配置的上限
+        for (int i = 0; i < 10; i++) {
+            governor.adjust(0.1);
+        }
+        group.putChunked("blob3", ChunkedValue.of(new byte[300 * 1024]));
+        group.putChunked("blob4", ChunkedValue.of(new byte[300 * 1024]));
+        group.putChunked("blob5", ChunkedValue.of(new byte[300 * 1024]));
+        assertEquals(900 * 1024, group.getLargeValueBytes());
+        assertEquals(1024 * 1024, group.getMaxLargeValueBytes());
+    }
+
+    private static void fill(Group group, int count) {
+        for (int i = 0; i < count; i++) {
+            group.getCache().put(group.getName() + i, new byte[16]);
+        }
+    }
+
+    private static int capacity(Group group) {
+        return ((LRUCache<String, byte[]>) group.getCache()).getCapacity();
+    }
+}
@@ -0,0 +1,125 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.HttpServer;
+import com.jinicache.metrics.Counter;
+import com.jinicache.metrics.GroupMetrics;
+import com.jinicache.metrics.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 指标测试类
+ */
+public class MetricsTest {
+
+    @Test
+    public void testHistogramPercentilesAreWithinBucketError() {
+        Histogram histogram = new Histogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1000);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(1000L * 100_000 * 100_001 / 2, snapshot.getSum());
+        for (double p : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            double exact = p * 100_000 * 1000;
+            double error = Math.abs(snapshot.percentile(p) - exact) / exact;
+            assertTrue(error <= 0.125, "p" + p + " off by " + error);
+        }
+        assertEquals(0, new Histogram().snapshot().percentile(0.99));
+        histogram.record(-5);
+        assertEquals(1, histogram.snapshot().countAtOrBelow(0));
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.snapshot().percentile(1.0));
+    }
+
+    @Test
+    public void testGroupCounters() {
+        Group group = new Group("counted", new LRUCache<>(2));
+        group.registerLoader("a", k -> "A".getBytes());
+        group.registerLoader("b", k -> "B".getBytes());
+        group.registerLoader("c", k -> "C".getBytes());
+        group.registerLoader("broken", k -> {
+            throw new IllegalStateException("backend down");
+        });
+        group.get("a");
+        group.get("a");
+        group.get("b");
+        group.get("c");
+        group.get("missing");
+        assertThrows(IllegalStateException.class, () -> group.get("broken"));
+
+        GroupMetrics metrics = group.getMetrics();
+        assertEquals(1, metrics.getHits().get());
+        assertEquals(4, metrics.getMisses().get());
+        // 加载失败时SingleFlight回退到直接加载，加载器被调用两次
+        assertEquals(5, metrics.getLoads().get());
+        assertEquals(2, metrics.getLoadFailures().get());
+        assertEquals(1, group.getEvictionCount());
+        assertEquals(5, metrics.getGetLatency().snapshot().getCount());
+    }
+
+    @Test
+    public void testMetricsEndpoint() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("web\"shop", new LRUCache<>(100));
+        group.getCache().put("k", "v".getBytes());
+        group.get("k");
+        group.get("k");
+        HttpServer server = new HttpServer(8191, cacheManager);
+        server.startSync();
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:8191/metrics")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("content-type").orElse("").startsWith("text/plain"));
+            String body = response.body();
+            assertTrue(body.contains("# TYPE jinicache_cache_hits_total counter\n"), body);
+            assertTrue(body.contains("jinicache_cache_hits_total{group=\"web\\\"shop\"} 2\n"), body);
+            assertTrue(body.contains("jinicache_cache_get_latency_seconds_bucket{group=\"web\\\"shop\",le=\"+Inf\"} 2\n"),
+                    body);
+            assertTrue(body.contains("jinicache_cache_get_latency_seconds_count{group=\"web\\\"shop\"} 2\n"), body);
+            assertTrue(body.contains("le=\"0.00001\""), body);
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    /**
+     * 多个线程并发记录时计数和直方图都不丢失；单次记录的开销见 jinicache-benchmarks 中的 MetricsBenchmark
+     */
+    @Test
+    public void testConcurrentRecordingIsNotLost() throws Exception {
+        int threadCount = 4;
+        int iterations = 100_000;
+        Counter counter = new Counter();
+        Histogram histogram = new Histogram();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= iterations; i++) {
+                    counter.increment();
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals((long) threadCount * iterations, counter.get());
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals((long) threadCount * iterations, snapshot.getCount());
+        assertEquals((long) threadCount * iterations * (iterations + 1) / 2, snapshot.getSum());
+    }
+}
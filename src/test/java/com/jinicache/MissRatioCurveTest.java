@@ -0,0 +1,130 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.HttpServer;
+import com.jinicache.metrics.MissRatioCurve;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 命中率曲线测试类
+ */
+public class MissRatioCurveTest {
+
+    @Test
+    public void testPredictionMatchesSimulatedLru() {
+        int keys = 20_000;
+        int accesses = 400_000;
+        String[] trace = new String[accesses];
+        Random random = new Random(7);
+        for (int i = 0; i < accesses; i++) {
+            // 偏斜分布：小编号的键访问更频繁
+            double r = random.nextDouble();
+            trace[i] = "key" + (int) (keys * r * r * r);
+        }
+        MissRatioCurve curve = new MissRatioCurve(0.1, 4000);
+        for (String key : trace) {
+            curve.record(key);
+        }
+        assertEquals(accesses, curve.getAccessCount());
+        assertEquals(40_000, curve.getMaxCapacity());
+        double sampled = (double) curve.getSampleCount() / accesses;
+        assertTrue(Math.abs(sampled - 0.1) < 0.03, "sampled fraction " + sampled);
+
+        for (int capacity : new int[]{500, 2000, 8000}) {
+            LRUCache<String, Boolean> lru = new LRUCache<>(capacity);
+            long hits = 0;
+            for (String key : trace) {
+                if (lru.get(key) != null) {
+                    hits++;
+                } else {
+                    lru.put(key, Boolean.TRUE);
+                }
+            }
+            double actual = (double) hits / accesses;
+            double predicted = curve.hitRatio(capacity);
+            assertEquals(actual, predicted, 0.05, "capacity " + capacity);
+        }
+        SortedMap<Long, Double> points = curve.curve(8);
+        assertEquals(8, points.size());
+        assertEquals(40_000L, points.lastKey());
+        double previous = 0;
+        for (double ratio : points.values()) {
+            assertTrue(ratio >= previous, "curve must not decrease: " + points);
+            previous = ratio;
+        }
+        assertEquals(0, curve.hitRatio(0));
+    }
+
+    @Test
+    public void testKeysBeyondTrackingLimitCountAsCold() {
+        MissRatioCurve curve = new MissRatioCurve(1.0, 100);
+        // 循环访问200个键，超出跟踪上限，可估计的范围内都不命中
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 200; i++) {
+                curve.record("k" + i);
+            }
+        }
+        assertEquals(1000, curve.getColdSampleCount());
+        assertEquals(0, curve.hitRatio(100));
+        // 循环访问50个键：容量50以上全部命中（首轮除外），以下全部不命中
+        MissRatioCurve small = new MissRatioCurve(1.0, 100);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                small.record("k" + i);
+            }
+        }
+        assertEquals(0.8, small.hitRatio(50), 1e-9);
+        assertEquals(0, small.hitRatio(49), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new MissRatioCurve(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new MissRatioCurve(1.5, 10));
+        assertThrows(IllegalArgumentException.class, () -> new MissRatioCurve(0.1, 0));
+    }
+
+    @Test
+    public void testGroupExportsCurve() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("sized", new LRUCache<>(100));
+        for (int i = 0; i < 200; i++) {
+            group.registerLoader("key" + i, k -> new byte[8]);
+        }
+        MissRatioCurve curve = group.enableMissRatioCurve(1.0, 1000);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 200; i++) {
+                group.get("key" + i);
+            }
+        }
+        assertSame(curve, group.getMissRatioCurve());
+        assertEquals(600, curve.getAccessCount());
+        // 容量100时循环访问200个键一个也不命中，容量200时除首轮外全部命中
+        assertEquals(0, group.getMetrics().getHits().get());
+        assertEquals(0, curve.hitRatio(100));
+        assertEquals(2.0 / 3, curve.hitRatio(200), 1e-9);
+
+        HttpServer server = new HttpServer(8271, cacheManager);
+        server.startSync();
+        try {
+            String body = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:8271/metrics")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            assertTrue(body.contains("# TYPE jinicache_cache_predicted_hit_ratio gauge\n"), body);
+            assertTrue(body.contains("jinicache_cache_predicted_hit_ratio{group=\"sized\",capacity=\"1000\"} 0.6666"),
+                    body);
+        } finally {
+            server.shutdown();
+        }
+        group.disableMissRatioCurve();
+        group.get("key0");
+        assertEquals(600, curve.getAccessCount());
+    }
+}
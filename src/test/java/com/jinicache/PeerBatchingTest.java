@@ -0,0 +1,190 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.BatchCodec;
+import com.jinicache.http.HttpServer;
+import com.jinicache.node.NodeManager;
+import com.jinicache.node.PeerClient;
+import com.jinicache.node.PeerRequestBatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点间请求微批测试类
+ */
+public class PeerBatchingTest {
+
+    /**
+     * 模拟远端：所有键都命中，值为"v-"+键，以"missing"开头的键不存在
+     */
+    private static PeerRequestBatcher.BatchSender fakePeer(AtomicInteger calls) {
+        return (group, keys) -> {
+            calls.incrementAndGet();
+            List<BatchCodec.Entry> entries = new ArrayList<>();
+            for (String key : keys) {
+                entries.add(key.startsWith("missing")
+                        ? new BatchCodec.Entry(key, BatchCodec.STATUS_NOT_FOUND, null)
+                        : new BatchCodec.Entry(key, BatchCodec.STATUS_FOUND, ("v-" + key).getBytes()));
+            }
+            return CompletableFuture.supplyAsync(() -> entries);
+        };
+    }
+
+    @Test
+    public void testCoalescesConcurrentRequests() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger calls = new AtomicInteger();
+        PeerRequestBatcher batcher = new PeerRequestBatcher(fakePeer(calls), scheduler, 50_000, 1000);
+        try {
+            int threadCount = 200;
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                String key = i % 10 == 0 ? "missing" + i : "key" + (i % 150);
+                CompletableFuture<byte[]> result = new CompletableFuture<>();
+                futures.add(result);
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        batcher.submit("default", key).whenComplete((v, e) -> {
+                            if (e != null) {
+                                result.completeExceptionally(e);
+                            } else {
+                                result.complete(v);
+                            }
+                        });
+                    } catch (InterruptedException e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            start.countDown();
+            for (int i = 0; i < threadCount; i++) {
+                byte[] value = futures.get(i).get(5, TimeUnit.SECONDS);
+                if (i % 10 == 0) {
+                    assertNull(value);
+                } else {
+                    assertArrayEquals(("v-key" + (i % 150)).getBytes(), value);
+                }
+            }
+            assertEquals(threadCount, batcher.getRequestCount());
+            assertTrue(calls.get() < threadCount / 10, "requests should be coalesced, calls=" + calls.get());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFlushesWhenBatchIsFull() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger calls = new AtomicInteger();
+        // 窗口很长，只有攒满一批才会发出
+        PeerRequestBatcher batcher = new PeerRequestBatcher(fakePeer(calls), scheduler, 10_000_000, 10);
+        try {
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(batcher.submit("default", "key" + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(2, TimeUnit.SECONDS);
+            assertEquals(10, calls.get());
+            assertEquals(10, batcher.getBatchCount());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 并发获取经过合并后RPC数少于请求数，且每个请求都拿到自己的值；
+     * 合并与不合并的吞吐对比见 jinicache-benchmarks 中的 PeerClientBenchmark
+     */
+    @Test
+    public void testBatchedClientCoalescesConcurrentGets() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("bench", new LRUCache<>(10000));
+        for (int i = 0; i < 1000; i++) {
+            group.getCache().put("key" + i, ("value" + i).getBytes());
+        }
+        HttpServer server = new HttpServer(8121, cacheManager);
+        server.startSync();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        PeerClient batched = new PeerClient("localhost:8121", scheduler, 200, 64);
+        try {
+            runLoad(batched, 64, 50);
+            assertEquals(64 * 50, batched.getBatcher().getRequestCount());
+            assertTrue(batched.getBatcher().getBatchCount() < batched.getBatcher().getRequestCount());
+        } finally {
+            batched.shutdown();
+            scheduler.shutdownNow();
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testNodeManagerShutdownStopsScheduler() throws Exception {
+        Set<Thread> before = schedulerThreads();
+        NodeManager nodeManager = new NodeManager("localhost:8125", new CacheManager());
+        // 负载窗口的定时任务启动调度线程
+        nodeManager.enableBoundedLoads(0.25, 1000);
+        Set<Thread> started = schedulerThreads();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+        nodeManager.shutdown();
+        Thread scheduler = started.iterator().next();
+        scheduler.join(2000);
+        assertFalse(scheduler.isAlive());
+    }
+
+    private static Set<Thread> schedulerThreads() throws InterruptedException {
+        // 线程在第一个任务提交时才启动
+        Thread.sleep(50);
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("jinicache-node-scheduler"))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 多线程并发获取，每个请求都必须拿到与键对应的值
+     */
+    private void runLoad(PeerClient client, int threadCount, int requestsPerThread) throws Exception {
+        Thread[] threads = new Thread[threadCount];
+        AtomicInteger failures = new AtomicInteger();
+        for (int t = 0; t < threadCount; t++) {
+            final int threadId = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < requestsPerThread; i++) {
+                    int index = (threadId * 31 + i) % 1000;
+                    try {
+                        byte[] value = client.get("bench", "key" + index).get(10, TimeUnit.SECONDS);
+                        if (value == null || !new String(value).equals("value" + index)) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+    }
+}
@@ -0,0 +1,193 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.HttpServer;
+import com.jinicache.node.AdaptiveConcurrencyLimit;
+import com.jinicache.node.CircuitBreaker;
+import com.jinicache.node.NodeManager;
+import com.jinicache.node.PeerClient;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 远端节点并发上限与熔断测试类
+ */
+public class PeerProtectionTest {
+    private static final String GROUP = "protected";
+    private static final String NODE_A = "localhost:8181";
+    private static final String NODE_B = "localhost:8182";
+
+    @Test
+    public void testCircuitBreakerStates() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, 100);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        // 成功会清零连续失败次数
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isAvailable());
+        assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(120);
+        assertTrue(breaker.isAvailable());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // 半开状态只放行一个探测
+        assertFalse(breaker.isAvailable());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(120);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2, breaker.getTripCount());
+        assertThrows(IllegalArgumentException.class, () -> breaker.configure(0, 100));
+    }
+
+    @Test
+    public void testConcurrencyLimitAdditiveIncreaseMultiplicativeDecrease() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+        limit.setLatencyThresholdNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(1, limit.getRejectedCount());
+
+        // 满载时的快速成功请求逐步增大上限
+        for (int round = 0; round < 50; round++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+            assertTrue(limit.tryAcquire());
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 10, "limit should grow under load, got " + grown);
+
+        // 超过延迟阈值和失败都按比例缩小
+        limit.release(TimeUnit.MILLISECONDS.toNanos(80), true);
+        limit.release(0, false);
+        assertTrue(limit.getLimit() < grown);
+        while (limit.getInFlight() > 0) {
+            limit.release(0, false);
+        }
+        // 持续失败时收敛到最小上限
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(0, false);
+        }
+        assertEquals(1, limit.getLimit());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(0, 1, 10));
+    }
+
+    @Test
+    public void testOpenCircuitFallsBackToLocalLoad() throws Exception {
+        AtomicInteger localLoads = new AtomicInteger();
+        CacheManager manager = new CacheManager();
+        Group group = manager.createGroup(GROUP, new LRUCache<>(1000));
+        NodeManager nodeManager = new NodeManager(NODE_A, manager);
+        nodeManager.addNode(NODE_B, 1.0);
+        nodeManager.configureBatching(0, 1);
+        nodeManager.setPeerTimeoutMillis(100);
+        nodeManager.configureCircuitBreaker(3, 300);
+        manager.registerPeers(nodeManager);
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; keys.size() < 30; i++) {
+            String key = "key" + i;
+            if (nodeManager.getNode(key).equals(NODE_B)) {
+                keys.add(key);
+                group.registerLoader(key, k -> {
+                    localLoads.incrementAndGet();
+                    return ("local-" + k).getBytes();
+                });
+            }
+        }
+
+        HttpServer serverB = null;
+        try {
+            PeerClient peer = nodeManager.getPeer(NODE_B);
+            // 接受连接但从不响应的节点
+            ServerSocket silent = new ServerSocket(8182);
+            try {
+                for (int i = 0; i < 3; i++) {
+                    assertArrayEquals(("local-" + keys.get(i)).getBytes(), group.get(keys.get(i)));
+                }
+                assertEquals(CircuitBreaker.State.OPEN, peer.getCircuitBreaker().getState());
+
+                long start = System.nanoTime();
+                for (int i = 3; i < 23; i++) {
+                    assertArrayEquals(("local-" + keys.get(i)).getBytes(), group.get(keys.get(i)));
+                }
+                long openMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertTrue(openMillis < 100, "reads should skip the sick peer, took " + openMillis + " ms");
+                assertEquals(23, localLoads.get());
+            } finally {
+                silent.close();
+            }
+
+            // 节点恢复后，半开探测成功使熔断器闭合
+            CacheManager managerB = new CacheManager();
+            managerB.createGroup(GROUP, new LRUCache<>(1000)).getCache()
+                    .put(keys.get(23), "remote".getBytes());
+            serverB = new HttpServer(8182, managerB);
+            serverB.startSync();
+            Thread.sleep(350);
+            assertArrayEquals("remote".getBytes(), group.get(keys.get(23)));
+            assertEquals(CircuitBreaker.State.CLOSED, peer.getCircuitBreaker().getState());
+            assertEquals(23, localLoads.get());
+        } finally {
+            nodeManager.shutdown();
+            if (serverB != null) {
+                serverB.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testTimedOutRequestClosesConnection() throws Exception {
+        PeerClient peer = new PeerClient("localhost:8183", null, 0, 1);
+        // 留出首次建立连接的时间，超时发生在请求已经发出之后
+        peer.setTimeoutMillis(1000);
+        // 接受连接但从不响应的节点
+        try (ServerSocket silent = new ServerSocket(8183)) {
+            var future = peer.get(GROUP, "key");
+            try (Socket accepted = silent.accept()) {
+                accepted.setSoTimeout(5000);
+                ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(TimeoutException.class, error.getCause());
+                // 超时的连接被关闭而不是留在连接池里，读完请求后对端看到连接结束
+                InputStream in = accepted.getInputStream();
+                while (in.read() != -1) {
+                    // 丢弃请求内容
+                }
+                assertEquals(0, peer.getHttpClient().getConnectionPoolSize());
+                assertEquals(0, peer.getConcurrencyLimit().getInFlight());
+            }
+        } finally {
+            peer.shutdown();
+        }
+    }
+}
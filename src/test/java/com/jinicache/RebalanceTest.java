@@ -0,0 +1,154 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.http.HttpServer;
+import com.jinicache.node.NodeManager;
+import com.jinicache.node.Rebalancer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点扩容时的键迁移测试类
+ */
+public class RebalanceTest {
+    private static final String GROUP = "data";
+    private static final int KEY_COUNT = 2000;
+
+    /**
+     * 进程内的单个节点
+     */
+    private static class Node {
+        final String address;
+        final CacheManager cacheManager = new CacheManager();
+        final Group group;
+        final NodeManager nodeManager;
+        final HttpServer server;
+        final Rebalancer rebalancer;
+
+        Node(int port, AtomicInteger backendLoads) throws Exception {
+            address = "localhost:" + port;
+            group = cacheManager.createGroup(GROUP, new LRUCache<>(100_000));
+            for (int i = 0; i < KEY_COUNT; i++) {
+                group.registerLoader(key(i), k -> {
+                    backendLoads.incrementAndGet();
+                    return ("value-" + k).getBytes();
+                });
+            }
+            nodeManager = new NodeManager(address, cacheManager);
+            // 测试中的请求是串行的，关闭微批避免等待合并窗口
+            nodeManager.configureBatching(0, 1);
+            cacheManager.registerPeers(nodeManager);
+            rebalancer = new Rebalancer(nodeManager, cacheManager, 20_000, 256);
+            server = new HttpServer(port, cacheManager, nodeManager);
+            server.startSync();
+        }
+
+        void stop() {
+            rebalancer.shutdown();
+            nodeManager.shutdown();
+            server.shutdown();
+        }
+    }
+
+    private static String key(int i) {
+        return "user:" + i;
+    }
+
+    /**
+     * 三个节点预热后加入第四个节点，返回扩容后读取全部键时回源的次数
+     */
+    private int scaleOutBackendLoads(int basePort, boolean rebalance) throws Exception {
+        AtomicInteger backendLoads = new AtomicInteger();
+        List<Node> nodes = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                nodes.add(new Node(basePort + i, backendLoads));
+            }
+            for (Node node : nodes) {
+                for (Node other : nodes) {
+                    node.nodeManager.addNode(other.address, 1.0);
+                }
+                if (rebalance) {
+                    node.rebalancer.start();
+                }
+            }
+
+            Group entry = nodes.get(0).group;
+            for (int i = 0; i < KEY_COUNT; i++) {
+                assertArrayEquals(("value-" + key(i)).getBytes(), entry.get(key(i)));
+            }
+            assertEquals(KEY_COUNT, backendLoads.get());
+
+            Node added = new Node(basePort + 3, backendLoads);
+            for (Node node : nodes) {
+                added.nodeManager.addNode(node.address, 1.0);
+            }
+            nodes.add(added);
+            for (Node node : nodes.subList(0, 3)) {
+                node.nodeManager.addNode(added.address, 1.0);
+            }
+            if (rebalance) {
+                for (Node node : nodes) {
+                    assertTrue(node.rebalancer.awaitIdle(30, TimeUnit.SECONDS));
+                }
+                long migrated = nodes.stream().mapToLong(n -> n.rebalancer.getMigratedKeyCount()).sum();
+                assertEquals(added.group.getCache().size(), migrated);
+            }
+
+            backendLoads.set(0);
+            for (int i = 0; i < KEY_COUNT; i++) {
+                assertArrayEquals(("value-" + key(i)).getBytes(), entry.get(key(i)));
+            }
+            return backendLoads.get();
+        } finally {
+            nodes.forEach(Node::stop);
+        }
+    }
+
+    @Test
+    public void testRebalancingShrinksBackendSpike() throws Exception {
+        int withoutRebalance = scaleOutBackendLoads(8151, false);
+        int withRebalance = scaleOutBackendLoads(8161, true);
+        // 约1/4的键换了所属节点
+        assertTrue(withoutRebalance > KEY_COUNT / 8, "expected a cold-miss spike, got " + withoutRebalance);
+        assertTrue(withRebalance < withoutRebalance / 10, "rebalancing left " + withRebalance + " misses");
+    }
+
+    @Test
+    public void testRestartAfterShutdown() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        cacheManager.createGroup(GROUP, new LRUCache<>(100));
+        NodeManager nodeManager = new NodeManager("localhost:8185", cacheManager);
+        Rebalancer rebalancer = new Rebalancer(nodeManager, cacheManager);
+        try {
+            rebalancer.start();
+            nodeManager.addNode("localhost:8186", 1.0);
+            assertTrue(rebalancer.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals(1, rebalancer.getPassCount());
+
+            // 停止后的环变化和迁移请求被忽略
+            rebalancer.shutdown();
+            nodeManager.addNode("localhost:8187", 1.0);
+            rebalancer.requestRebalance();
+            assertTrue(rebalancer.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals(1, rebalancer.getPassCount());
+
+            // 重新启动后继续响应环变化
+            rebalancer.start();
+            nodeManager.removeNode("localhost:8187");
+            assertTrue(rebalancer.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals(2, rebalancer.getPassCount());
+        } finally {
+            rebalancer.shutdown();
+            nodeManager.shutdown();
+        }
+    }
+}
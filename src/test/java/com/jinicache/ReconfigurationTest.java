@@ -0,0 +1,364 @@
+package com.jinicache;
+
+import com.jinicache.cache.Cache;
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.EvictionPolicy;
+import com.jinicache.cache.FIFOCache;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.cache.MemoryBudget;
+import com.jinicache.cache.MemoryGovernor;
+import com.jinicache.cache.RemovalCause;
+import com.jinicache.cache.RemovalNotification;
+import com.jinicache.cache.SingleFlight;
+import com.jinicache.http.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存组在线调整测试类
+ */
+public class ReconfigurationTest {
+
+    @Test
+    public void testShrinkEvictsInBatchesInBackground() throws Exception {
+        Group group = new Group("shrinking", new LRUCache<>(100_000));
+        for (int i = 0; i < 50_000; i++) {
+            group.getCache().put("key" + i, new byte[8]);
+        }
+        // 缩小期间读取照常进行
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                group.getCache().get("key49999");
+                reads.incrementAndGet();
+            }
+        });
+        reader.start();
+        CompletableFuture<Void> done = group.resize(1000);
+        done.get(10, TimeUnit.SECONDS);
+        running.set(false);
+        reader.join();
+        assertEquals(1000, group.getCapacity());
+        assertEquals(1000, group.getCache().size());
+        assertEquals(49_000, group.getEvictionCount());
+        assertNotNull(group.getCache().get("key49000"));
+        assertNull(group.getCache().get("key48999"));
+        assertTrue(reads.get() > 0);
+
+        // 少量淘汰和扩大立即生效
+        assertTrue(group.resize(500).isDone());
+        assertEquals(500, group.getCache().size());
+        assertTrue(group.resize(2000).isDone());
+        assertEquals(2000, group.getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> group.resize(0));
+    }
+
+    @Test
+    public void testLoadTimeoutCanBeChanged() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>(5, TimeUnit.SECONDS);
+        singleFlight.setTimeout(50, TimeUnit.MILLISECONDS);
+        assertEquals(50, singleFlight.getTimeout(TimeUnit.MILLISECONDS));
+        CompletableFuture<String> call = singleFlight.doCall("slow", () -> {
+            sleep(500);
+            return "late";
+        });
+        ExecutionException error = assertThrows(ExecutionException.class, () -> call.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertThrows(IllegalArgumentException.class, () -> singleFlight.setTimeout(0, TimeUnit.MILLISECONDS));
+
+        Group group = new Group("timed", new LRUCache<>(10));
+        assertEquals(5000, group.getLoadTimeout(TimeUnit.MILLISECONDS));
+        group.setLoadTimeout(2, TimeUnit.SECONDS);
+        assertEquals(2, group.getLoadTimeout(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPolicySwapKeepsEntries() {
+        Group group = new Group("swapped", new LRUCache<>(100));
+        for (int i = 0; i < 100; i++) {
+            group.getCache().put("key" + i, ("value" + i).getBytes());
+        }
+        group.getCache().get("key0");
+        assertEquals(EvictionPolicy.LRU, group.getEvictionPolicy());
+
+        group.setEvictionPolicy(EvictionPolicy.FIFO).join();
+        assertEquals(EvictionPolicy.FIFO, group.getEvictionPolicy());
+        assertInstanceOf(FIFOCache.class, group.getCache());
+        assertEquals(100, group.getCapacity());
+        assertEquals(100, group.getCache().size());
+        assertArrayEquals("value7".getBytes(), group.get("key7"));
+
+        // 条目按原来的新旧顺序复制：key0刚被读过，最久未访问的key1最先被淘汰
+        group.getCache().put("new1", new byte[1]);
+        assertNull(group.getCache().get("key1"));
+        assertNotNull(group.getCache().get("key0"));
+        // FIFO下读取不改变淘汰顺序
+        group.getCache().get("key2");
+        group.getCache().put("new2", new byte[1]);
+        assertNull(group.getCache().get("key2"));
+
+        // 异步读取路径也切换到新缓存
+        assertArrayEquals("value50".getBytes(), group.getAsync("key50").join());
+        group.setEvictionPolicy(EvictionPolicy.LRU).join();
+        assertEquals(EvictionPolicy.LRU, group.getEvictionPolicy());
+        assertEquals(100, group.getCache().size());
+        assertThrows(IllegalArgumentException.class, () -> EvictionPolicy.parse("mru"));
+    }
+
+    @Test
+    public void testWritesDuringSwapAreNotLost() throws Exception {
+        Group group = new Group("racing", new LRUCache<>(10_000));
+        int writers = 4;
+        int keysPerWriter = 500;
+        for (int i = 0; i < writers * keysPerWriter; i++) {
+            group.put("key" + i, "initial".getBytes());
+        }
+        // 每个线程只写自己的键，记下每个键最后一次写入的值，删除记为null
+        AtomicBoolean running = new AtomicBoolean(true);
+        String[][] latest = new String[writers][keysPerWriter];
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads[w] = new Thread(() -> {
+                int round = 0;
+                while (running.get()) {
+                    round++;
+                    for (int k = 0; k < keysPerWriter; k++) {
+                        String key = "key" + (writer * keysPerWriter + k);
+                        if ((round + k) % 5 == 0) {
+                            group.evictLocal(key);
+                            latest[writer][k] = null;
+                        } else {
+                            String value = "w" + writer + "r" + round;
+                            group.put(key, value.getBytes());
+                            latest[writer][k] = value;
+                        }
+                    }
+                }
+            });
+            threads[w].start();
+        }
+        for (int i = 0; i < 20; i++) {
+            group.setEvictionPolicy(i % 2 == 0 ? EvictionPolicy.FIFO : EvictionPolicy.LRU).join();
+        }
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int w = 0; w < writers; w++) {
+            for (int k = 0; k < keysPerWriter; k++) {
+                byte[] cached = group.getCache().get("key" + (w * keysPerWriter + k));
+                String expected = latest[w][k];
+                assertEquals(expected, cached != null ? new String(cached) : null);
+            }
+        }
+    }
+
+    @Test
+    public void testPolicySwapKeepsRemovalListenersAndBudget() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("listened", new LRUCache<>(10));
+        List<RemovalNotification<String, byte[]>> removals = new CopyOnWriteArrayList<>();
+        group.getCache().addRemovalListener(removals::addAll);
+        MemoryBudget budget = new MemoryBudget(cacheManager, 100);
+        budget.join("listened", 5, 50);
+        for (int i = 0; i < 10; i++) {
+            group.put("key" + i, new byte[1]);
+        }
+
+        group.setEvictionPolicy(EvictionPolicy.FIFO).join();
+        group.put("key10", new byte[1]);
+        waitUntil(() -> removals.stream().anyMatch(n -> n.getKey().equals("key0")));
+        assertEquals(RemovalCause.SIZE, removals.get(removals.size() - 1).getCause());
+        // 被淘汰的键进入影子列表，组仍在预算中
+        waitUntil(() -> budget.getGhostSize("listened") == 1);
+        budget.rebalance();
+        assertEquals(List.of("listened"), budget.getGroupNames());
+        assertEquals(90, budget.getFreeCapacity());
+
+        // 无法接管监听器的缓存实现被拒绝，组保持原来的缓存
+        assertThrows(IllegalStateException.class, () -> group.replaceCache(new MapCache()));
+        assertInstanceOf(FIFOCache.class, group.getCache());
+    }
+
+    @Test
+    public void testResizeRespectsBudgetAndGovernorBounds() {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("bounded", new LRUCache<>(100));
+        cacheManager.createGroup("neighbour", new LRUCache<>(40));
+        MemoryBudget budget = new MemoryBudget(cacheManager, 150);
+        budget.join("bounded", 5, 120);
+        budget.join("neighbour", 5, 100);
+        assertEquals(10, budget.getFreeCapacity());
+
+        // 超过组的上限或剩余预算的调整被拒绝，容量不变
+        assertThrows(IllegalArgumentException.class, () -> group.resize(130));
+        assertThrows(IllegalArgumentException.class, () -> group.resize(120));
+        assertThrows(IllegalArgumentException.class, () -> group.resize(4));
+        assertEquals(100, group.getCapacity());
+        assertTrue(group.resize(110).isDone());
+        assertEquals(0, budget.getFreeCapacity());
+        budget.leave("bounded");
+        assertTrue(group.resize(130).isDone());
+
+        MemoryGovernor governor = new MemoryGovernor(cacheManager, 0.9);
+        governor.govern("bounded", 10, 50);
+        assertEquals(50, group.getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> group.resize(60));
+        assertTrue(group.resize(20).isDone());
+        governor.release("bounded");
+        assertTrue(group.resize(60).isDone());
+        assertEquals(60, group.getCapacity());
+    }
+
+    @Test
+    public void testAdminEndpoint() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("admin", new LRUCache<>(100));
+        for (int i = 0; i < 80; i++) {
+            group.getCache().put("key" + i, new byte[4]);
+        }
+        HttpServer server = new HttpServer(8281, cacheManager);
+        server.startSync();
+        try {
+            HttpResponse<String> config = send("GET", "group=admin");
+            assertEquals(200, config.statusCode());
+            assertEquals("group=admin\npolicy=LRU\ncapacity=100\nentries=80\nloadTimeoutMs=5000\n"
+                    + "largeValueBytes=0\nmaxLargeValueBytes=268435456\n", config.body());
+
+            HttpResponse<String> updated = send("POST",
+                    "group=admin&capacity=50&policy=fifo&loadTimeoutMs=250&maxLargeValueBytes=1048576");
+            assertEquals(200, updated.statusCode());
+            assertEquals("group=admin\npolicy=FIFO\ncapacity=50\nentries=50\nloadTimeoutMs=250\n"
+                    + "largeValueBytes=0\nmaxLargeValueBytes=1048576\n", updated.body());
+            assertEquals(250, group.getLoadTimeout(TimeUnit.MILLISECONDS));
+            assertNotNull(group.getCache().get("key79"));
+
+            // 参数全部校验通过才修改
+            assertEquals(400, send("POST", "group=admin&capacity=10&policy=mru").statusCode());
+            assertEquals(400, send("POST", "group=admin&capacity=abc").statusCode());
+            assertEquals(400, send("POST", "group=admin&loadTimeoutMs=0").statusCode());
+            assertEquals(400, send("POST", "group=admin&capacity=10&maxLargeValueBytes=-1").statusCode());
+            assertEquals(400, send("POST", "group=admin").statusCode());
+            assertEquals(50, group.getCapacity());
+            assertEquals(404, send("POST", "group=missing&capacity=10").statusCode());
+            assertEquals(405, send("DELETE", "group=admin").statusCode());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdminEndpointRequiresToken() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("admin", new LRUCache<>(100));
+        HttpServer server = new HttpServer(8282, cacheManager);
+        server.getAuthenticator().setAdminToken("admin-token");
+        server.startSync();
+        try {
+            URI uri = URI.create("http://localhost:8282/api/admin/group?group=admin&capacity=50");
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> anonymous = client.send(HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(403, anonymous.statusCode());
+            HttpResponse<String> wrongToken = client.send(HttpRequest.newBuilder(uri)
+                    .header("Authorization", "Bearer other").POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(403, wrongToken.statusCode());
+            assertEquals(100, group.getCapacity());
+
+            HttpResponse<String> authorized = client.send(HttpRequest.newBuilder(uri)
+                    .header("Authorization", "Bearer admin-token").POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, authorized.statusCode());
+            assertEquals(50, group.getCapacity());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static HttpResponse<String> send(String method, String query) throws Exception {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:8281/api/admin/group?" + query))
+                        .method(method, HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 2s");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 不支持移除通知的缓存实现
+     */
+    private static class MapCache implements Cache<String, byte[]> {
+        private final Map<String, byte[]> map = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] get(String key) {
+            return map.get(key);
+        }
+
+        @Override
+        public void put(String key, byte[] value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public void remove(String key) {
+            map.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public List<String> keys() {
+            return new ArrayList<>(map.keySet());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.jinicache;
+
+import com.jinicache.cache.Cache;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.cache.RemovalCause;
+import com.jinicache.cache.RemovalDispatcher;
+import com.jinicache.cache.RemovalNotification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 移除监听器测试类
+ */
+public class RemovalListenerTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCausesAreReportedInOrder() throws Exception {
+        LRUCache<String, String> cache = new LRUCache<>(2);
+        List<RemovalNotification<String, String>> received = Collections.synchronizedList(new ArrayList<>());
+        cache.addRemovalListener(received::addAll);
+        cache.put("a", "1");
+        cache.put("b", "1");
+        cache.put("a", "2");
+        cache.put("c", "1");
+        cache.remove("a");
+        cache.remove("missing");
+        cache.setCapacity(1);
+        cache.put("d", "1");
+        cache.clear();
+        waitUntil(() -> received.size() == 5);
+
+        assertEquals(List.of("a (REPLACED)", "b (SIZE)", "a (EXPLICIT)", "c (SIZE)", "d (EXPLICIT)"),
+                received.stream().map(Object::toString).collect(Collectors.toList()));
+        assertEquals("1", received.get(0).getValue());
+        assertEquals("2", received.get(2).getValue());
+        assertTrue(received.get(1).getCause().wasEvicted());
+        assertFalse(received.get(0).getCause().wasEvicted());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testSlowListenerDoesNotBlockWriters() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        RemovalDispatcher<Integer, Integer> dispatcher = new RemovalDispatcher<>(executor, 100_000, 1000);
+        dispatcher.addListener(notifications -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.incrementAndGet();
+            received.addAndGet(notifications.size());
+        });
+        LRUCache<Integer, Integer> cache = new LRUCache<>(100);
+        cache.setRemovalDispatcher(dispatcher);
+
+        int puts = 20_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < puts; i++) {
+            cache.put(i, i);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 监听器一直阻塞，写入仍然完成
+        assertTrue(elapsedMillis < 2000, "writes took " + elapsedMillis + " ms");
+        assertEquals(0, received.get());
+
+        release.countDown();
+        waitUntil(() -> received.get() == puts - 100);
+        assertTrue(batches.get() <= (puts - 100) / 1000 + 2, "batches " + batches.get());
+        assertEquals(puts - 100, dispatcher.getDeliveredCount());
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void testFullQueueDropsNotifications() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger received = new AtomicInteger();
+        RemovalDispatcher<Integer, Integer> dispatcher = new RemovalDispatcher<>(executor, 10, 5);
+        dispatcher.addListener(notifications -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.addAndGet(notifications.size());
+        });
+        LRUCache<Integer, Integer> cache = new LRUCache<>(1);
+        cache.setRemovalDispatcher(dispatcher);
+        for (int i = 0; i <= 100; i++) {
+            cache.put(i, i);
+        }
+        release.countDown();
+        waitUntil(() -> dispatcher.getPendingCount() == 0
+                && dispatcher.getDeliveredCount() + dispatcher.getDroppedCount() == 100);
+        assertTrue(dispatcher.getDroppedCount() > 0);
+        waitUntil(() -> received.get() == dispatcher.getDeliveredCount());
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopDelivery() throws Exception {
+        RemovalDispatcher<String, String> dispatcher = new RemovalDispatcher<>(executor, 100, 1);
+        AtomicInteger received = new AtomicInteger();
+        dispatcher.addListener(notifications -> {
+            throw new IllegalStateException("listener bug");
+        });
+        dispatcher.addListener(notifications -> received.addAndGet(notifications.size()));
+        LRUCache<String, String> cache = new LRUCache<>(10);
+        cache.setRemovalDispatcher(dispatcher);
+        cache.put("a", "1");
+        cache.remove("a");
+        cache.put("b", "1");
+        cache.remove("b");
+        waitUntil(() -> received.get() == 2);
+        assertEquals(2, dispatcher.getBatchCount());
+
+        assertThrows(IllegalArgumentException.class, () -> new RemovalDispatcher<String, String>(executor, 0, 1));
+        assertThrows(UnsupportedOperationException.class, () -> new Cache<String, String>() {
+            public String get(String key) { return null; }
+            public void put(String key, String value) { }
+            public void remove(String key) { }
+            public void clear() { }
+            public int size() { return 0; }
+            public boolean isEmpty() { return true; }
+            public List<String> keys() { return List.of(); }
+        }.addRemovalListener(notifications -> { }));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5s");
+            Thread.sleep(5);
+        }
+    }
+}
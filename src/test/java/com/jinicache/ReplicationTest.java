@@ -0,0 +1,186 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.cache.PeerGetter;
+import com.jinicache.hash.ConsistentHash;
+import com.jinicache.http.HttpServer;
+import com.jinicache.node.NodeManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 副本写入与对冲读取测试类
+ */
+public class ReplicationTest {
+    private static final String GROUP = "replicated";
+    private static final String NODE_A = "localhost:8141";
+    private static final String NODE_B = "localhost:8142";
+    private static final String NODE_C = "localhost:8143";
+
+    /**
+     * 读取前人为延迟的缓存，模拟GC停顿或过载的节点
+     */
+    private static class DelayedCache extends LRUCache<String, byte[]> {
+        volatile long delayMillis;
+
+        DelayedCache(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public byte[] get(String key) {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.get(key);
+        }
+    }
+
+    private final DelayedCache cacheB = new DelayedCache(1000);
+    private final LRUCache<String, byte[]> cacheC = new LRUCache<>(1000);
+    private CacheManager managerA;
+    private NodeManager nodeManager;
+    private HttpServer serverA;
+    private HttpServer serverB;
+    private HttpServer serverC;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        CacheManager managerB = new CacheManager();
+        managerB.createGroup(GROUP, cacheB);
+        CacheManager managerC = new CacheManager();
+        managerC.createGroup(GROUP, cacheC);
+        serverB = new HttpServer(8142, managerB);
+        serverC = new HttpServer(8143, managerC);
+        serverB.startSync();
+        serverC.startSync();
+
+        managerA = new CacheManager();
+        managerA.createGroup(GROUP, new LRUCache<>(1000)).setReplicationFactor(2);
+        nodeManager = new NodeManager(NODE_A, managerA);
+        nodeManager.addNode(NODE_B, 1.0);
+        nodeManager.addNode(NODE_C, 1.0);
+        nodeManager.configureBatching(0, 1);
+        managerA.registerPeers(nodeManager);
+        serverA = new HttpServer(8141, managerA, nodeManager);
+        serverA.startSync();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        nodeManager.shutdown();
+        serverA.shutdown();
+        serverB.shutdown();
+        serverC.shutdown();
+    }
+
+    @Test
+    public void testGetNodesReturnsDistinctOwners() {
+        ConsistentHash<String> ring = new ConsistentHash<>(100);
+        ring.addNode("a");
+        ring.addNode("b");
+        ring.addNode("c");
+        for (int i = 0; i < 1000; i++) {
+            List<String> owners = ring.getNodes("key" + i, 2);
+            assertEquals(2, owners.size());
+            assertNotEquals(owners.get(0), owners.get(1));
+            assertEquals(ring.get("key" + i), owners.get(0));
+        }
+        assertEquals(3, ring.getNodes("key", 5).size());
+    }
+
+    @Test
+    public void testPutIsWrittenToAllReplicas() throws Exception {
+        java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
+        for (int i = 0; i < 20; i++) {
+            String key = UUID.nameUUIDFromBytes(("put" + i).getBytes()).toString();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://" + NODE_A + "/api/cache?group=" + GROUP + "&key=" + key))
+                    .PUT(HttpRequest.BodyPublishers.ofString("value-" + i)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+
+            List<String> replicas = nodeManager.getNodes(key, 2);
+            for (String node : List.of(NODE_A, NODE_B, NODE_C)) {
+                byte[] stored = node.equals(NODE_A) ? managerA.getGroup(GROUP).getCache().get(key)
+                        : node.equals(NODE_B) ? cacheB.get(key) : cacheC.get(key);
+                if (replicas.contains(node)) {
+                    assertArrayEquals(("value-" + i).getBytes(), stored, key + " missing on " + node);
+                } else {
+                    assertNull(stored, key + " should not be on " + node);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHedgedReadAvoidsSlowPrimary() throws Exception {
+        // 找一个首选节点为B、第二副本为C的键
+        String key = null;
+        for (int i = 0; key == null; i++) {
+            String candidate = "hedge" + i;
+            if (nodeManager.getNodes(candidate, 2).equals(List.of(NODE_B, NODE_C))) {
+                key = candidate;
+            }
+        }
+        cacheB.put(key, "value".getBytes());
+        cacheC.put(key, "value".getBytes());
+        PeerGetter getter = nodeManager.pickPeer(key);
+        assertNotNull(getter);
+
+        // B正常响应时积累延迟样本
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals("value".getBytes(), getter.get(GROUP, key).get(1, TimeUnit.SECONDS));
+        }
+        long hedgesBefore = nodeManager.getHedgedRequestCount();
+
+        cacheB.delayMillis = 500;
+        long start = System.nanoTime();
+        assertArrayEquals("value".getBytes(), getter.get(GROUP, key).get(2, TimeUnit.SECONDS));
+        long hedgedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(nodeManager.getHedgedRequestCount() > hedgesBefore);
+
+        // 关闭对冲后需要等待慢节点
+        Thread.sleep(600);
+        nodeManager.configureHedging(false, 0.95, 500);
+        start = System.nanoTime();
+        assertArrayEquals("value".getBytes(), getter.get(GROUP, key).get(2, TimeUnit.SECONDS));
+        long plainMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(hedgedMillis < 250, "hedged read took " + hedgedMillis + " ms");
+        assertTrue(plainMillis >= 450, "unhedged read took " + plainMillis + " ms");
+    }
+
+    @Test
+    public void testGroupWithoutReplicasIsNotHedged() throws Exception {
+        managerA.getGroup(GROUP).setReplicationFactor(1);
+        String key = null;
+        for (int i = 0; key == null; i++) {
+            if (nodeManager.getNode("plain" + i).equals(NODE_B)) {
+                key = "plain" + i;
+            }
+        }
+        cacheB.put(key, "value".getBytes());
+        PeerGetter getter = nodeManager.pickPeer(key);
+        for (int i = 0; i < 50; i++) {
+            getter.get(GROUP, key).get(1, TimeUnit.SECONDS);
+        }
+        assertEquals(0, nodeManager.getHedgedRequestCount());
+        assertThrows(IllegalArgumentException.class, () -> managerA.getGroup(GROUP).setReplicationFactor(0));
+    }
+}
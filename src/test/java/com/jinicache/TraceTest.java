@@ -0,0 +1,175 @@
+package com.jinicache;
+
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.hash.MurmurHash3;
+import com.jinicache.trace.CacheSimulator;
+import com.jinicache.trace.TraceOp;
+import com.jinicache.trace.TraceReader;
+import com.jinicache.trace.TraceRecord;
+import com.jinicache.trace.TraceRecorder;
+import com.jinicache.trace.TraceWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 访问轨迹与回放模拟测试类
+ */
+public class TraceTest {
+
+    @Test
+    public void testTraceRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TraceWriter writer = new TraceWriter(bytes, 0.25)) {
+            writer.write(new TraceRecord(42L, 100, TraceOp.GET, 1_000));
+            writer.write(new TraceRecord(-1L, 5L << 40, TraceOp.PUT, 3_000_000_000L));
+            // 早于上一条的时间戳按上一条写入
+            writer.write(new TraceRecord(7L, 0, TraceOp.REMOVE, 2_000));
+        }
+        assertTrue(bytes.size() < 13 + 3 * 20, "trace takes " + bytes.size() + " bytes");
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(0.25, reader.getSampleRate());
+            TraceRecord first = reader.next();
+            assertEquals(42L, first.getKeyHash());
+            assertEquals(100, first.getSize());
+            assertEquals(TraceOp.GET, first.getOp());
+            assertEquals(1_000, first.getTimestampNanos());
+            TraceRecord second = reader.next();
+            assertEquals(-1L, second.getKeyHash());
+            assertEquals(5L << 40, second.getSize());
+            assertEquals(3_000_000_000L, second.getTimestampNanos());
+            TraceRecord third = reader.next();
+            assertEquals(TraceOp.REMOVE, third.getOp());
+            assertEquals(3_000_000_000L, third.getTimestampNanos());
+            assertNull(reader.next());
+        }
+        assertThrows(IOException.class, () -> new TraceReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+    }
+
+    @Test
+    public void testGroupRecordsSampledKeys(@TempDir Path dir) throws IOException {
+        Group group = new Group("traced", new LRUCache<>(100));
+        for (int i = 0; i < 1000; i++) {
+            group.registerLoader("key" + i, k -> new byte[10]);
+        }
+        Path file = dir.resolve("traced.trace");
+        TraceRecorder recorder = new TraceRecorder(file, 0.2);
+        group.setTraceRecorder(recorder);
+        int sampledKeys = 0;
+        for (int i = 0; i < 1000; i++) {
+            group.get("key" + i);
+            group.get("key" + i);
+            if (recorder.isSampled("key" + i)) {
+                sampledKeys++;
+            }
+        }
+        group.put("key1", new byte[25]);
+        group.evictLocal("key1");
+        group.setTraceRecorder(null);
+        group.get("key2");
+        recorder.close();
+
+        assertTrue(sampledKeys > 120 && sampledKeys < 280, "sampled " + sampledKeys + " of 1000 keys");
+        assertEquals(1, CacheSimulator.load(file).run(100).size());
+        List<TraceRecord> records = new ArrayList<>();
+        try (TraceReader reader = new TraceReader(file)) {
+            assertEquals(recorder.getSampleRate(), reader.getSampleRate());
+            for (TraceRecord record = reader.next(); record != null; record = reader.next()) {
+                records.add(record);
+            }
+        }
+        int extra = recorder.isSampled("key1") ? 2 : 0;
+        assertEquals(2 * sampledKeys + extra, records.size());
+        assertEquals(records.size(), recorder.getRecordedCount());
+        assertEquals(0, recorder.getDroppedCount());
+        // 被采样的键的每次访问都被记录，值的大小来自读取结果
+        for (TraceRecord record : records) {
+            if (record.getOp() == TraceOp.GET) {
+                assertEquals(10, record.getSize());
+            }
+        }
+        if (extra > 0) {
+            assertEquals(TraceOp.PUT, records.get(records.size() - 2).getOp());
+            assertEquals(25, records.get(records.size() - 2).getSize());
+            assertEquals(TraceOp.REMOVE, records.get(records.size() - 1).getOp());
+            assertEquals(MurmurHash3.hash64("key1"), records.get(records.size() - 1).getKeyHash());
+        }
+        for (int i = 1; i < records.size(); i++) {
+            assertTrue(records.get(i).getTimestampNanos() >= records.get(i - 1).getTimestampNanos());
+        }
+    }
+
+    @Test
+    public void testSimulatorSweepsPoliciesAndCapacities() throws IOException {
+        int keys = 20_000;
+        Random random = new Random(11);
+        String[] accesses = new String[300_000];
+        for (int i = 0; i < accesses.length; i++) {
+            double r = random.nextDouble();
+            accesses[i] = "key" + (int) (keys * r * r * r);
+        }
+        TraceRecorder sampler = new TraceRecorder(new ByteArrayOutputStream(), 0.1, 1);
+        sampler.close();
+        List<TraceRecord> full = new ArrayList<>();
+        List<TraceRecord> sampled = new ArrayList<>();
+        for (int i = 0; i < accesses.length; i++) {
+            TraceRecord record = new TraceRecord(MurmurHash3.hash64(accesses[i]), 100, TraceOp.GET, i);
+            full.add(record);
+            if (sampler.isSampled(accesses[i])) {
+                sampled.add(record);
+            }
+        }
+
+        CacheSimulator simulator = new CacheSimulator(full, 1.0);
+        simulator.addPolicy("LRU-half", capacity -> new LRUCache<>(Math.max(1, capacity / 2)));
+        List<CacheSimulator.Result> results = simulator.run(500, 2000, 8000);
+        assertEquals(6, results.size());
+        for (int i = 0; i < 3; i++) {
+            CacheSimulator.Result lru = results.get(i);
+            CacheSimulator.Result half = results.get(i + 3);
+            assertEquals("LRU", lru.getPolicy());
+            assertEquals("LRU-half", half.getPolicy());
+            assertEquals(accesses.length, lru.getGets());
+            assertEquals(lru.getHits(), directLru(accesses, lru.getCapacity()));
+            assertTrue(half.getHitRate() < lru.getHitRate());
+            assertTrue(lru.getOpsPerSecond() > 0);
+            assertTrue(lru.toString().startsWith("LRU "), lru.toString());
+            if (i > 0) {
+                assertTrue(lru.getHitRate() > results.get(i - 1).getHitRate());
+            }
+        }
+
+        // 按键采样的轨迹以换算后的容量回放，命中率接近完整轨迹
+        List<CacheSimulator.Result> estimates = new CacheSimulator(sampled, sampler.getSampleRate())
+                .run(500, 2000, 8000);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(results.get(i).getHitRate(), estimates.get(i).getHitRate(), 0.05,
+                    "capacity " + results.get(i).getCapacity());
+        }
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(0));
+    }
+
+    private static long directLru(String[] accesses, int capacity) {
+        LRUCache<Long, Long> cache = new LRUCache<>(capacity);
+        long hits = 0;
+        for (String key : accesses) {
+            long hash = MurmurHash3.hash64(key);
+            if (cache.get(hash) != null) {
+                hits++;
+            } else {
+                cache.put(hash, 100L);
+            }
+        }
+        return hits;
+    }
+}
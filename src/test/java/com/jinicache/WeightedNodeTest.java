@@ -0,0 +1,95 @@
+package com.jinicache;
+
+import com.jinicache.hash.ConsistentHash;
+import com.jinicache.node.NodeManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 带权重节点测试类
+ */
+public class WeightedNodeTest {
+
+    @Test
+    public void testKeysSpreadInProportionToWeight() {
+        ConsistentHash<String> ring = new ConsistentHash<>(100);
+        ring.addNode("small-1", 16);
+        ring.addNode("small-2", 16);
+        ring.addNode("large-1", 64);
+        ring.addNode("large-2", 64);
+        assertEquals(16 * 100 * 2 + 64 * 100 * 2, ring.getVirtualNodeCount());
+        assertEquals(64.0, ring.getWeight("large-1"));
+
+        int keyCount = 200_000;
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            counts.merge(ring.get("key" + i), 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            double expected = keyCount * ring.getWeight(entry.getKey()) / 160.0;
+            double ratio = entry.getValue() / expected;
+            assertTrue(ratio > 0.9 && ratio < 1.1, entry.getKey() + " share off by " + ratio);
+        }
+    }
+
+    @Test
+    public void testWeightChangeMovesOnlyAffectedKeys() {
+        ConsistentHash<String> ring = new ConsistentHash<>(100);
+        for (int i = 0; i < 4; i++) {
+            ring.addNode("node" + i);
+        }
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            before.put("key" + i, ring.get("key" + i));
+        }
+
+        // 增加权重：只有移到node2的键会迁移
+        assertTrue(ring.setWeight("node2", 2));
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = ring.get(entry.getKey());
+            if (!owner.equals(entry.getValue())) {
+                assertEquals("node2", owner);
+                moved++;
+            }
+        }
+        // node2的份额从1/4变为2/5，约15%的键迁移
+        assertTrue(moved > 20_000 * 0.10 && moved < 20_000 * 0.20, "moved " + moved);
+
+        // 恢复权重：键回到原来的节点
+        ring.setWeight("node2", 1);
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            assertEquals(entry.getValue(), ring.get(entry.getKey()));
+        }
+        assertFalse(ring.setWeight("unknown", 1));
+        assertThrows(IllegalArgumentException.class, () -> ring.setWeight("node1", 0));
+    }
+
+    @Test
+    public void testNodesAdvertiseWeightFromCacheMemory() throws Exception {
+        JiniCache small = new JiniCache(8131, Arrays.asList("localhost:8132"), 16L << 30);
+        JiniCache large = new JiniCache(8132, Arrays.asList("localhost:8131"), 64L << 30);
+        try {
+            large.start();
+            Thread.sleep(500);
+            small.start();
+            NodeManager nodeManager = small.getNodeManager();
+            assertEquals(16.0, nodeManager.getSelfWeight());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (nodeManager.getNodeWeight("localhost:8132") != 64.0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(64.0, nodeManager.getNodeWeight("localhost:8132"));
+            assertEquals(16.0, nodeManager.getNodeWeight("localhost:8131"));
+        } finally {
+            small.stop();
+            large.stop();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.jinicache;
+
+import com.jinicache.cache.CacheManager;
+import com.jinicache.cache.Group;
+import com.jinicache.cache.LRUCache;
+import com.jinicache.cache.WriteBehindQueue;
+import com.jinicache.http.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 后端写入测试类
+ */
+public class WriteBehindTest {
+
+    /**
+     * 记录写入的模拟后端
+     */
+    private static class RecordingStore implements Group.Writer {
+        final Map<String, String> data = new ConcurrentHashMap<>();
+        final AtomicInteger writes = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+
+        @Override
+        public void write(String key, byte[] value) {
+            writes.incrementAndGet();
+            data.put(key, new String(value));
+        }
+
+        @Override
+        public void writeAll(Map<String, byte[]> entries) {
+            batches.incrementAndGet();
+            entries.forEach(this::write);
+        }
+    }
+
+    @Test
+    public void testWriteThrough() {
+        Group group = new Group("through", new LRUCache<>(100));
+        RecordingStore store = new RecordingStore();
+        group.setWriteThrough(store);
+        group.put("k", "v1".getBytes());
+        assertEquals("v1", store.data.get("k"));
+        assertArrayEquals("v1".getBytes(), group.getCache().get("k"));
+
+        // 后端写入失败时不更新缓存
+        group.setWriteThrough((key, value) -> {
+            throw new IllegalStateException("store down");
+        });
+        assertThrows(IllegalStateException.class, () -> group.put("k", "v2".getBytes()));
+        assertArrayEquals("v1".getBytes(), group.getCache().get("k"));
+
+        group.setWriteThrough(null);
+        assertFalse(group.hasWriter());
+        group.put("k", "v3".getBytes());
+        assertArrayEquals("v3".getBytes(), group.getCache().get("k"));
+    }
+
+    @Test
+    public void testWriteBehindCoalescesUpdates() throws Exception {
+        Group group = new Group("behind", new LRUCache<>(1000));
+        RecordingStore store = new RecordingStore();
+        WriteBehindQueue queue = new WriteBehindQueue("behind", store, 500, 20, 10_000, 1000);
+        group.setWriteBehind(queue);
+        int updates = 20_000;
+        for (int i = 0; i < updates; i++) {
+            group.put("key" + (i % 100), ("v" + i).getBytes());
+        }
+        // 缓存立即可读，后端稍后写入
+        assertArrayEquals(("v" + (updates - 1)).getBytes(), group.getCache().get("key99"));
+        assertTrue(queue.flush(5, TimeUnit.SECONDS));
+        for (int k = 0; k < 100; k++) {
+            assertEquals("v" + (updates - 100 + k), store.data.get("key" + k));
+        }
+        assertTrue(store.writes.get() * 5 < updates, "backend writes " + store.writes.get());
+        assertTrue(store.batches.get() < store.writes.get(), "batches " + store.batches.get());
+        assertEquals(updates, queue.getEnqueuedCount());
+        assertEquals(store.writes.get(), queue.getWrittenCount());
+        assertEquals(updates - queue.getWrittenCount(), queue.getCoalescedCount());
+        group.shutdown();
+        assertThrows(IllegalStateException.class, () -> queue.enqueue("k", new byte[0]));
+    }
+
+    @Test
+    public void testBatchIsWrittenWhenFullOrAfterInterval() throws Exception {
+        RecordingStore store = new RecordingStore();
+        WriteBehindQueue bySize = new WriteBehindQueue("size", store, 10, 60_000, 100, 1000);
+        for (int i = 0; i < 10; i++) {
+            bySize.enqueue("k" + i, "v".getBytes());
+        }
+        waitUntil(() -> store.data.size() == 10);
+        bySize.close();
+
+        RecordingStore timed = new RecordingStore();
+        WriteBehindQueue byTime = new WriteBehindQueue("time", timed, 1000, 50, 1000, 1000);
+        long start = System.nanoTime();
+        byTime.enqueue("k", "v".getBytes());
+        waitUntil(() -> timed.data.size() == 1);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        byTime.close();
+    }
+
+    @Test
+    public void testBackpressureWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingStore store = new RecordingStore();
+        WriteBehindQueue queue = new WriteBehindQueue("slow", new Group.Writer() {
+            @Override
+            public void write(String key, byte[] value) {
+                store.write(key, value);
+            }
+
+            @Override
+            public void writeAll(Map<String, byte[]> entries) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                store.writeAll(entries);
+            }
+        }, 2, 10, 4, 100);
+        queue.enqueue("a", "1".getBytes());
+        queue.enqueue("b", "1".getBytes());
+        // 第一批被后台线程取走后卡在后端，队列再装4个键即满
+        waitUntil(() -> queue.getPendingCount() == 0);
+        for (String key : new String[]{"c", "d", "e", "f"}) {
+            queue.enqueue(key, "1".getBytes());
+        }
+        // 已在队列中的键只替换值，不需要等待
+        queue.enqueue("c", "2".getBytes());
+        long start = System.nanoTime();
+        assertThrows(RejectedExecutionException.class, () -> queue.enqueue("g", "1".getBytes()));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+
+        release.countDown();
+        assertTrue(queue.flush(5, TimeUnit.SECONDS));
+        assertEquals(6, store.data.size());
+        assertEquals("2", store.data.get("c"));
+        queue.close();
+    }
+
+    @Test
+    public void testFailedBatchIsRetried() throws Exception {
+        RecordingStore store = new RecordingStore();
+        AtomicInteger calls = new AtomicInteger();
+        WriteBehindQueue queue = new WriteBehindQueue("retry", new Group.Writer() {
+            @Override
+            public void write(String key, byte[] value) {
+                store.write(key, value);
+            }
+
+            @Override
+            public void writeAll(Map<String, byte[]> entries) {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("store unavailable");
+                }
+                store.writeAll(entries);
+            }
+        }, 10, 20, 100, 1000);
+        queue.enqueue("k", "old".getBytes());
+        waitUntil(() -> queue.getFailedBatchCount() == 1);
+        // 重试前到达的新值覆盖失败批次中的旧值
+        queue.enqueue("k", "new".getBytes());
+        assertTrue(queue.flush(5, TimeUnit.SECONDS));
+        assertEquals("new", store.data.get("k"));
+        assertEquals(1, store.writes.get());
+        queue.close();
+        assertThrows(IllegalArgumentException.class,
+                () -> new WriteBehindQueue("bad", store, 10, 20, 5, 1000));
+    }
+
+    @Test
+    public void testHttpPutWritesThrough() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("http", new LRUCache<>(100));
+        RecordingStore store = new RecordingStore();
+        group.setWriteThrough(store);
+        HttpServer server = new HttpServer(8241, cacheManager);
+        server.startSync();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8241/api/cache?group=http&key=user"))
+                            .PUT(HttpRequest.BodyPublishers.ofString("alice")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals("alice", store.data.get("user"));
+            assertArrayEquals("alice".getBytes(), group.getCache().get("user"));
+
+            group.setWriteThrough((key, value) -> {
+                throw new IllegalStateException("store down");
+            });
+            response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8241/api/cache?group=http&key=user"))
+                            .PUT(HttpRequest.BodyPublishers.ofString("bob")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(502, response.statusCode());
+            assertArrayEquals("alice".getBytes(), group.getCache().get("user"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamedPutWritesToStore() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group group = cacheManager.createGroup("streamed", new LRUCache<>(100));
+        RecordingStore store = new RecordingStore();
+        WriteBehindQueue queue = new WriteBehindQueue("streamed", store, 100, 10, 1000, 1000);
+        group.setWriteBehind(queue);
+        HttpServer server = new HttpServer(8242, cacheManager);
+        server.startSync();
+        try {
+            // 超过聚合上限的请求体走流式上传路径
+            String large = "x".repeat(200 * 1024);
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8242/api/cache?group=streamed&key=blob"))
+                            .PUT(HttpRequest.BodyPublishers.ofString(large)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            waitUntil(() -> store.data.containsKey("blob"));
+            assertEquals(large, store.data.get("blob"));
+            assertEquals(large.length(), group.getChunkedLocal("blob").size());
+
+            group.setWriteThrough((key, value) -> {
+                throw new IllegalStateException("store down");
+            });
+            response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8242/api/cache?group=streamed&key=blob"))
+                            .PUT(HttpRequest.BodyPublishers.ofString("y".repeat(200 * 1024))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(502, response.statusCode());
+            assertEquals(large, new String(group.getChunkedLocal("blob").toByteArray()));
+        } finally {
+            server.shutdown();
+            queue.close();
+        }
+    }
+
+    @Test
+    public void testHttpPutDoesNotWaitForStore() throws Exception {
+        CacheManager cacheManager = new CacheManager();
+        Group through = cacheManager.createGroup("through", new LRUCache<>(100));
+        through.getCache().put("other", "v".getBytes());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        through.setWriteThrough((key, value) -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Group behind = cacheManager.createGroup("behind", new LRUCache<>(100));
+        WriteBehindQueue queue = new WriteBehindQueue("behind", new Group.Writer() {
+            @Override
+            public void write(String key, byte[] value) {
+            }
+
+            @Override
+            public void writeAll(Map<String, byte[]> entries) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 1, 10, 1, 10_000);
+        behind.setWriteBehind(queue);
+        HttpServer server = new HttpServer(8243, cacheManager);
+        server.startSync();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            var pending = client.sendAsync(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8243/api/cache?group=through&key=slow"))
+                            .PUT(HttpRequest.BodyPublishers.ofString("v")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            // 后端写入阻塞时，新连接上的请求仍然立即得到响应
+            for (int i = 0; i < 4; i++) {
+                HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                                URI.create("http://localhost:8243/api/cache?group=through&key=other")).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, response.statusCode());
+            }
+            assertFalse(pending.isDone());
+
+            // 第一批卡在后端，队列再装一个键即满；满时立即返回503，不等待入队超时
+            queue.enqueue("a", "1".getBytes());
+            waitUntil(() -> queue.getPendingCount() == 0);
+            queue.enqueue("b", "1".getBytes());
+            assertFalse(queue.tryEnqueue("c", "1".getBytes()));
+            assertTrue(queue.tryEnqueue("b", "2".getBytes()));
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:8243/api/cache?group=behind&key=c"))
+                            .PUT(HttpRequest.BodyPublishers.ofString("1")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, response.statusCode());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            assertNull(behind.getCache().get("c"));
+
+            release.countDown();
+            assertEquals(200, pending.get(5, TimeUnit.SECONDS).statusCode());
+            assertArrayEquals("v".getBytes(), through.getCache().get("slow"));
+        } finally {
+            release.countDown();
+            server.shutdown();
+            queue.close();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 2s");
+            Thread.sleep(5);
+        }
+    }
+}